@@ -0,0 +1,45 @@
+package com.codinghappy.fintechai.common.deadline;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次请求或定时任务的截止时间（基于 System.nanoTime，不受系统时钟调整影响）
+ */
+public final class Deadline {
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(long millis) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis)));
+    }
+
+    /**
+     * 剩余毫秒数，已过期返回 0
+     */
+    public long remainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 两个截止时间中更早的一个
+     */
+    public Deadline earlierOf(Deadline other) {
+        if (other == null) {
+            return this;
+        }
+        return expiresAtNanos - other.expiresAtNanos <= 0 ? this : other;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[剩余 " + remainingMillis() + "ms]";
+    }
+}
@@ -0,0 +1,48 @@
+package com.codinghappy.fintechai.common.deadline;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 有截止时间时，为每条 SQL 设置不超过剩余时间的查询超时（至少 1 秒，
+ * 保证截止时间刚过时失败记录等收尾写入仍能完成；是否放弃后续工作由调用方检查）
+ */
+public class DeadlineAwareDataSource extends DelegatingDataSource {
+
+    public DeadlineAwareDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                    if (result instanceof Statement statement && DeadlineContext.current() != null) {
+                        long remainingSeconds = (DeadlineContext.current().remainingMillis() + 999) / 1000;
+                        statement.setQueryTimeout((int) Math.max(1, Math.min(Integer.MAX_VALUE, remainingSeconds)));
+                    }
+                    return result;
+                });
+    }
+}
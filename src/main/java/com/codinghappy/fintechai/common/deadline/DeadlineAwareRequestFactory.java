@@ -0,0 +1,57 @@
+package com.codinghappy.fintechai.common.deadline;
+
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.function.Consumer;
+
+/**
+ * 连接 / 读取超时收缩到当前截止时间的剩余时间；截止时间已过则不再发起请求。
+ * 调用方还可以在发请求前观察当前线程即将打开的连接，以便从其他线程 disconnect 中止阻塞的读取（如落败的对冲请求）。
+ */
+public class DeadlineAwareRequestFactory extends SimpleClientHttpRequestFactory {
+
+    private static final ThreadLocal<Consumer<HttpURLConnection>> CONNECTION_OBSERVER = new ThreadLocal<>();
+
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    public DeadlineAwareRequestFactory(int connectTimeoutMillis, int readTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        setConnectTimeout(connectTimeoutMillis);
+        setReadTimeout(readTimeoutMillis);
+    }
+
+    /**
+     * 在当前线程上观察接下来打开的 HTTP 连接，关闭 Scope 后停止观察
+     */
+    public static DeadlineContext.Scope observeConnections(Consumer<HttpURLConnection> observer) {
+        Consumer<HttpURLConnection> previous = CONNECTION_OBSERVER.get();
+        CONNECTION_OBSERVER.set(observer);
+        return () -> {
+            if (previous != null) {
+                CONNECTION_OBSERVER.set(previous);
+            } else {
+                CONNECTION_OBSERVER.remove();
+            }
+        };
+    }
+
+    @Override
+    protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+        super.prepareConnection(connection, httpMethod);
+        Consumer<HttpURLConnection> observer = CONNECTION_OBSERVER.get();
+        if (observer != null) {
+            observer.accept(connection);
+        }
+        if (DeadlineContext.current() == null) {
+            return;
+        }
+        DeadlineContext.checkNotExpired(httpMethod + " " + connection.getURL().getHost());
+        // HttpURLConnection 中 0 表示不超时，至少保留 1ms
+        connection.setConnectTimeout((int) Math.max(1, DeadlineContext.boundMillis(connectTimeoutMillis)));
+        connection.setReadTimeout((int) Math.max(1, DeadlineContext.boundMillis(readTimeoutMillis)));
+    }
+}
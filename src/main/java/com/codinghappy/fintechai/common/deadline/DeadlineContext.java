@@ -0,0 +1,76 @@
+package com.codinghappy.fintechai.common.deadline;
+
+/**
+ * 当前线程的截止时间
+ * 由 DeadlineFilter（HTTP 请求）与 DeadlineJobListener（Quartz 任务）在入口处设置，
+ * 经 DeadlineTaskDecorator 带到线程池；下游的 HTTP / JDBC 超时与各类等待都收缩到剩余时间以内。
+ * 没有截止时间的线程（如异步批量任务）保持原有超时不变。
+ */
+public final class DeadlineContext {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private DeadlineContext() {
+    }
+
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 设置截止时间；已有更早的截止时间时保留更早的那个。关闭 Scope 时恢复原值
+     */
+    public static Scope attach(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline != null ? deadline.earlierOf(previous) : previous);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * 把超时收缩到剩余时间以内；没有截止时间时原样返回
+     */
+    public static long boundMillis(long timeoutMillis) {
+        Deadline deadline = CURRENT.get();
+        return deadline != null ? Math.min(timeoutMillis, deadline.remainingMillis()) : timeoutMillis;
+    }
+
+    public static boolean isExpired() {
+        Deadline deadline = CURRENT.get();
+        return deadline != null && deadline.isExpired();
+    }
+
+    /**
+     * 截止时间已过时抛出 DeadlineExceededException
+     */
+    public static void checkNotExpired(String operation) {
+        if (isExpired()) {
+            throw new DeadlineExceededException("截止时间已过，放弃: " + operation);
+        }
+    }
+
+    /**
+     * 让任务在提交线程的截止时间下执行
+     */
+    public static Runnable wrap(Runnable task) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = attach(deadline)) {
+                task.run();
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,15 @@
+package com.codinghappy.fintechai.common.deadline;
+
+/**
+ * 截止时间已过，放弃后续工作
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
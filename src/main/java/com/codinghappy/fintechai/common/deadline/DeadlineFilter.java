@@ -0,0 +1,56 @@
+package com.codinghappy.fintechai.common.deadline;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 为每个 HTTP 请求创建截止时间：调用方可通过 X-Request-Timeout-Ms 声明自己愿意等待多久，
+ * 不超过 request-max-millis；未声明时使用 request-default-millis。
+ */
+@Slf4j
+@Component
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    @Value("${finance.deadline.enabled:true}")
+    private boolean enabled;
+
+    @Value("${finance.deadline.request-default-millis:300000}")
+    private long defaultMillis;
+
+    @Value("${finance.deadline.request-max-millis:600000}")
+    private long maxMillis;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try (DeadlineContext.Scope ignored = DeadlineContext.attach(Deadline.after(budgetMillis(request)))) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private long budgetMillis(HttpServletRequest request) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null && !header.isBlank()) {
+            try {
+                return Math.max(0, Math.min(maxMillis, Long.parseLong(header.trim())));
+            } catch (NumberFormatException e) {
+                log.debug("忽略无效的 {}: {}", TIMEOUT_HEADER, header);
+            }
+        }
+        return defaultMillis;
+    }
+}
@@ -0,0 +1,62 @@
+package com.codinghappy.fintechai.common.deadline;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.listeners.JobListenerSupport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 为每次 Quartz 任务执行创建截止时间（全局 JobListener，执行前后在同一线程上回调）。
+ * 单个任务的预算可在 finance.deadline.jobs.<任务名 kebab-case> 中覆盖。
+ */
+@Component
+public class DeadlineJobListener extends JobListenerSupport {
+
+    private static final String SCOPE_KEY = DeadlineJobListener.class.getName() + ".scope";
+
+    private final Map<String, Long> jobBudgets;
+
+    @Value("${finance.deadline.enabled:true}")
+    private boolean enabled;
+
+    @Value("${finance.deadline.job-default-millis:1800000}")
+    private long defaultMillis;
+
+    public DeadlineJobListener(Environment environment) {
+        this.jobBudgets = Binder.get(environment)
+                .bind("finance.deadline.jobs", Bindable.mapOf(String.class, Long.class))
+                .orElse(Map.of());
+    }
+
+    @Override
+    public String getName() {
+        return "deadlineJobListener";
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+        if (!enabled) {
+            return;
+        }
+        String jobName = context.getJobDetail().getKey().getName();
+        long budget = jobBudgets.getOrDefault(toKebabCase(jobName), defaultMillis);
+        context.put(SCOPE_KEY, DeadlineContext.attach(Deadline.after(budget)));
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        if (context.get(SCOPE_KEY) instanceof DeadlineContext.Scope scope) {
+            scope.close();
+        }
+    }
+
+    static String toKebabCase(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1-$2").toLowerCase();
+    }
+}
@@ -0,0 +1,14 @@
+package com.codinghappy.fintechai.common.deadline;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 把提交线程的截止时间带到线程池中的工作线程
+ */
+public class DeadlineTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return DeadlineContext.wrap(runnable);
+    }
+}
@@ -0,0 +1,37 @@
+package com.codinghappy.fintechai.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 公司名 + 描述的内容哈希（SHA-256 十六进制）
+ * 与 SimHash 不同，这里只判断「是否完全一致」：公司与分析结果各存一份，
+ * 两者不一致说明分析之后描述发生了变化，需要重新分析。
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    /**
+     * 首尾空白与连续空白不影响哈希；描述为空时返回 null
+     */
+    public static String of(String companyName, String description) {
+        if (description == null || description.isBlank()) {
+            return null;
+        }
+        String text = normalize(companyName) + '\n' + normalize(description);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ");
+    }
+}
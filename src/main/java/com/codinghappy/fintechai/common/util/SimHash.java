@@ -0,0 +1,87 @@
+package com.codinghappy.fintechai.common.util;
+
+import java.util.Arrays;
+
+/**
+ * 64 位 SimHash 指纹
+ * 描述去掉公司名、统一小写并只保留字母数字与 CJK 字符后，取字符 3-gram 作为特征；
+ * 公司名被剔除后，"X is a company listed on LinkedIn." 这类模板描述会得到相同的指纹。
+ */
+public final class SimHash {
+
+    public static final int BITS = 64;
+
+    private static final int SHINGLE = 3;
+    private static final long FNV64_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV64_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    /**
+     * 计算描述指纹；companyName 不为空时先从描述中剔除公司名
+     */
+    public static Long fingerprint(String companyName, String description) {
+        if (description == null || description.isBlank()) {
+            return null;
+        }
+        String text = description;
+        if (companyName != null && !companyName.isBlank()) {
+            text = text.replace(companyName.trim(), " ");
+        }
+        char[] chars = normalize(text);
+        if (chars.length == 0) {
+            return null;
+        }
+
+        int[] votes = new int[BITS];
+        if (chars.length < SHINGLE) {
+            vote(votes, hash(chars, 0, chars.length));
+        } else {
+            for (int i = 0; i + SHINGLE <= chars.length; i++) {
+                vote(votes, hash(chars, i, SHINGLE));
+            }
+        }
+
+        long fingerprint = 0;
+        for (int bit = 0; bit < BITS; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static void vote(int[] votes, long hash) {
+        for (int bit = 0; bit < BITS; bit++) {
+            votes[bit] += ((hash >>> bit) & 1L) != 0 ? 1 : -1;
+        }
+    }
+
+    private static long hash(char[] chars, int from, int length) {
+        long h = FNV64_OFFSET;
+        for (int i = from; i < from + length; i++) {
+            h = (h ^ chars[i]) * FNV64_PRIME;
+        }
+        // splitmix64 终结函数，让每一位都足够均匀
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    private static char[] normalize(String text) {
+        char[] out = new char[text.length()];
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                out[length++] = Character.toLowerCase(c);
+            }
+        }
+        return Arrays.copyOf(out, length);
+    }
+}
@@ -0,0 +1,45 @@
+package com.codinghappy.fintechai.common.util;
+
+/**
+ * 本地 Token 数估算
+ * 按 DeepSeek 官方给出的经验值：1 个中文字符约 0.6 token，1 个英文字符约 0.3 token。
+ * 只用于预算和打包决策，不追求与服务端计费完全一致。
+ */
+public class TokenEstimator {
+
+    private static final double CJK_TOKENS_PER_CHAR = 0.6;
+    private static final double OTHER_TOKENS_PER_CHAR = 0.3;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 估算文本的 Token 数
+     */
+    public static int estimate(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                cjk++;
+            } else if (!Character.isWhitespace(c)) {
+                other++;
+            }
+        }
+        return (int) Math.ceil(cjk * CJK_TOKENS_PER_CHAR + other * OTHER_TOKENS_PER_CHAR);
+    }
+
+    /**
+     * 是否为中日韩文字或全角标点
+     */
+    public static boolean isCjk(char c) {
+        return (c >= '\u4e00' && c <= '\u9fff')
+                || (c >= '\u3000' && c <= '\u303f')
+                || (c >= '\uff00' && c <= '\uffef');
+    }
+}
@@ -0,0 +1,36 @@
+package com.codinghappy.fintechai.config;
+
+import com.codinghappy.fintechai.common.deadline.DeadlineAwareDataSource;
+import com.codinghappy.fintechai.common.deadline.DeadlineJobListener;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 截止时间传递：Quartz 任务入口创建截止时间，JDBC 语句超时随剩余时间收缩
+ * （HTTP 入口见 DeadlineFilter，线程池传递见 ThreadPoolConfig，RestTemplate 见 RestTemplateConfig）
+ */
+@Configuration
+public class DeadlineConfig {
+
+    @Bean
+    public SchedulerFactoryBeanCustomizer deadlineJobListenerCustomizer(DeadlineJobListener deadlineJobListener) {
+        return schedulerFactoryBean -> schedulerFactoryBean.setGlobalJobListeners(deadlineJobListener);
+    }
+
+    @Bean
+    public static BeanPostProcessor deadlineDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DeadlineAwareDataSource)) {
+                    return new DeadlineAwareDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
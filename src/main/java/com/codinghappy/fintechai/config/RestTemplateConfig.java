@@ -1,8 +1,8 @@
 package com.codinghappy.fintechai.config;
 
+import com.codinghappy.fintechai.common.deadline.DeadlineAwareRequestFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
@@ -11,14 +11,10 @@ public class RestTemplateConfig {
     @Bean
     public RestTemplate restTemplate() {
         // 配置超时时间，这对 AI 接口调用非常重要！
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        
-        // 连接超时设置 10秒 (连不上 DeepSeek 就报错)
-        factory.setConnectTimeout(10000); 
-        
-        // 读取超时设置 60秒 (AI 思考生成内容比较慢，给它 1 分钟时间)
-        factory.setReadTimeout(60000); 
-        
+        // 连接超时 10秒 (连不上 DeepSeek 就报错)，读取超时 60秒 (AI 思考生成内容比较慢，给它 1 分钟时间)
+        // 请求或定时任务带有截止时间时，两者都收缩到剩余时间以内
+        DeadlineAwareRequestFactory factory = new DeadlineAwareRequestFactory(10000, 60000);
+
         return new RestTemplate(factory);
     }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.codinghappy.fintechai.config;
 
+import com.codinghappy.fintechai.common.deadline.DeadlineTaskDecorator;
+import com.codinghappy.fintechai.module.analysis.usage.UsageAttribution;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -35,7 +38,52 @@ public class ThreadPoolConfig {
         // 等待时间
         executor.setAwaitTerminationSeconds(60);
 
+        // 沿用提交方（HTTP 请求 / 定时任务）的截止时间与费用归属（批次 / 订单）
+        DeadlineTaskDecorator deadlineDecorator = new DeadlineTaskDecorator();
+        executor.setTaskDecorator(runnable -> UsageAttribution.wrap(deadlineDecorator.decorate(runnable)));
+
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean("deepseekHedgeThreadPool")
+    public ThreadPoolTaskExecutor deepseekHedgeThreadPool() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 对冲模式下每次 DeepSeek 调用都在该池中执行（主请求 + 可能的对冲请求）
+        executor.setCorePoolSize(10);
+        executor.setMaxPoolSize(100);
+
+        // 不排队：请求排队会让延迟分位失真，池满时由调用线程直接执行
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("deepseek-hedge-");
+        executor.setRejectedExecutionHandler(
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(new DeadlineTaskDecorator());
+
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean("batchJobThreadPool")
+    public ThreadPoolTaskExecutor batchJobThreadPool(
+            @Value("${finance.analysis.batch-job.pool-size:8}") int poolSize,
+            @Value("${finance.analysis.batch-job.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 异步批量分析任务：固定线程数，任务之间轮流使用；不沿用提交请求的截止时间
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("batch-job-");
+
+        // 拒绝策略：抛出异常，由提交方决定拒绝任务或就地继续（不能占用 Tomcat 请求线程）
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+}
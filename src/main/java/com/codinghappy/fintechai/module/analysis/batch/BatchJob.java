@@ -0,0 +1,157 @@
+package com.codinghappy.fintechai.module.analysis.batch;
+
+import com.codinghappy.fintechai.module.analysis.dto.AnalysisRequest;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个异步批量分析任务
+ * 工作线程通过 claim 领取下一家公司，完成后 complete；结果按完成顺序追加，
+ * 结果流从任意偏移量开始读取，没有新结果时在 awaitItems 上等待。
+ */
+public class BatchJob {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED
+    }
+
+    private final String id;
+    // 提交请求归属的订单（X-Order-Id），工作线程分析时沿用
+    private final String orderId;
+    private final List<AnalysisRequest> requests;
+    private final int concurrency;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    // 以下状态受 this 保护
+    private final List<BatchJobItem> items = new ArrayList<>();
+    private State state = State.QUEUED;
+    private int succeeded;
+    private int failed;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    BatchJob(String id, String orderId, List<AnalysisRequest> requests, int concurrency) {
+        this.id = id;
+        this.orderId = orderId;
+        this.requests = List.copyOf(requests);
+        this.concurrency = concurrency;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getTotal() {
+        return requests.size();
+    }
+
+    /**
+     * 领取下一家待分析的公司，全部领完返回 -1
+     */
+    int claim() {
+        int index = nextIndex.getAndIncrement();
+        if (index >= requests.size()) {
+            return -1;
+        }
+        synchronized (this) {
+            if (state == State.QUEUED) {
+                state = State.RUNNING;
+                startedAt = LocalDateTime.now();
+            }
+        }
+        return index;
+    }
+
+    AnalysisRequest request(int index) {
+        return requests.get(index);
+    }
+
+    boolean hasUnclaimed() {
+        return nextIndex.get() < requests.size();
+    }
+
+    /**
+     * 记录一家公司的结果；返回本次是否让整个任务结束
+     */
+    synchronized boolean complete(BatchJobItem item) {
+        items.add(item);
+        if (item.success()) {
+            succeeded++;
+        } else {
+            failed++;
+        }
+        notifyAll();
+        if (items.size() == requests.size()) {
+            state = State.COMPLETED;
+            finishedAt = LocalDateTime.now();
+            return true;
+        }
+        return false;
+    }
+
+    synchronized boolean isDone() {
+        return state == State.COMPLETED;
+    }
+
+    synchronized LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * 返回偏移量 from 之后的结果；暂无新结果且任务未结束时最多等待 waitMillis
+     */
+    synchronized List<BatchJobItem> awaitItems(int from, long waitMillis) throws InterruptedException {
+        if (items.size() <= from && !isDone()) {
+            wait(waitMillis);
+        }
+        return from < items.size() ? new ArrayList<>(items.subList(from, items.size())) : List.of();
+    }
+
+    synchronized int getItemCount() {
+        return items.size();
+    }
+
+    public synchronized BatchJobStatus getStatus() {
+        return new BatchJobStatus(id, state.name(), requests.size(), items.size(), succeeded, failed,
+                concurrency, submittedAt, startedAt, finishedAt);
+    }
+
+    /**
+     * 结果流中的一行
+     */
+    public record BatchJobItem(
+            int index,
+            Long companyId,
+            String companyName,
+            boolean success,
+            long durationMs,
+            String errorMessage,
+            AnalysisResultEntity result
+    ) {}
+
+    public record BatchJobStatus(
+            String jobId,
+            String state,
+            int total,
+            int completed,
+            int succeeded,
+            int failed,
+            int concurrency,
+            LocalDateTime submittedAt,
+            LocalDateTime startedAt,
+            LocalDateTime finishedAt
+    ) {}
+}
@@ -0,0 +1,193 @@
+package com.codinghappy.fintechai.module.analysis.batch;
+
+import com.codinghappy.fintechai.module.analysis.dto.AnalysisRequest;
+import com.codinghappy.fintechai.module.analysis.service.DeepSeekAnalysisService;
+import com.codinghappy.fintechai.module.analysis.usage.UsageAttribution;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 异步批量分析任务
+ * 提交后立即返回任务 ID，公司在 batchJobThreadPool 上逐家分析：每个任务最多同时占用 concurrency 个线程，
+ * 每分析完一家就把自己重新排到队尾，多个任务之间轮流使用线程池。
+ * 结果按完成顺序以 NDJSON 流式输出，已结束的任务保留 retention-minutes 后清理。
+ */
+@Slf4j
+@Service
+public class BatchJobService {
+
+    private static final long STREAM_POLL_MILLIS = 1000;
+
+    private final DeepSeekAnalysisService analysisService;
+    private final ThreadPoolTaskExecutor batchJobThreadPool;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${finance.analysis.batch-job.concurrency:4}")
+    private int defaultConcurrency;
+
+    // 调用方可指定的单任务并发上限
+    @Value("${finance.analysis.batch-job.max-concurrency:10}")
+    private int maxConcurrency;
+
+    @Value("${finance.analysis.batch-job.max-companies:1000}")
+    private int maxCompanies;
+
+    @Value("${finance.analysis.batch-job.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private Counter succeededCounter;
+    private Counter failedCounter;
+
+    public BatchJobService(DeepSeekAnalysisService analysisService,
+                           @Qualifier("batchJobThreadPool") ThreadPoolTaskExecutor batchJobThreadPool,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.analysisService = analysisService;
+        this.batchJobThreadPool = batchJobThreadPool;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        succeededCounter = Counter.builder("analysis.batch_job.items").tag("outcome", "success").register(meterRegistry);
+        failedCounter = Counter.builder("analysis.batch_job.items").tag("outcome", "failed").register(meterRegistry);
+        Gauge.builder("analysis.batch_job.active", jobs, j -> j.values().stream().filter(job -> !job.isDone()).count())
+                .register(meterRegistry);
+    }
+
+    /**
+     * 提交批量分析任务；concurrency 为空时使用默认值。
+     * 公司数超过上限抛出 IllegalArgumentException，线程池已满时抛出 TaskRejectedException。
+     */
+    public BatchJob submit(List<AnalysisRequest> requests, Integer concurrency) {
+        if (requests.isEmpty() || requests.size() > maxCompanies) {
+            throw new IllegalArgumentException(String.format("公司数需在 1 到 %d 之间", maxCompanies));
+        }
+        evictExpired();
+
+        int workers = Math.max(1, Math.min(concurrency != null ? concurrency : defaultConcurrency, maxConcurrency));
+        UsageAttribution.Tags attribution = UsageAttribution.current();
+        BatchJob job = new BatchJob(UUID.randomUUID().toString(), attribution != null ? attribution.orderId() : null,
+                requests, Math.min(workers, requests.size()));
+
+        int started = 0;
+        for (int i = 0; i < job.getConcurrency(); i++) {
+            try {
+                batchJobThreadPool.execute(() -> runWorker(job));
+                started++;
+            } catch (TaskRejectedException e) {
+                break;
+            }
+        }
+        if (started == 0) {
+            throw new TaskRejectedException("批量分析线程池已满，请稍后再试");
+        }
+
+        jobs.put(job.getId(), job);
+        log.info("📥 批量分析任务已提交: {}，公司数 {}，并发 {}", job.getId(), job.getTotal(), started);
+        return job;
+    }
+
+    public Optional<BatchJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * 从偏移量 from 开始把结果逐行写出（NDJSON），任务结束且结果全部写出后返回
+     */
+    public void streamResults(BatchJob job, int from, OutputStream out) throws IOException {
+        int offset = Math.max(0, from);
+        try {
+            while (true) {
+                boolean done = job.isDone();
+                List<BatchJob.BatchJobItem> items = job.awaitItems(offset, STREAM_POLL_MILLIS);
+                for (BatchJob.BatchJobItem item : items) {
+                    out.write(objectMapper.writeValueAsBytes(item));
+                    out.write('\n');
+                }
+                if (!items.isEmpty()) {
+                    out.flush();
+                    offset += items.size();
+                }
+                if (done && offset >= job.getItemCount()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            out.write("{\"error\":\"interrupted\"}\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 分析一家公司后把自己重新提交到队尾，让多个任务轮流使用线程；重新提交被拒绝时就地继续
+     */
+    private void runWorker(BatchJob job) {
+        while (true) {
+            int index = job.claim();
+            if (index < 0) {
+                return;
+            }
+            analyzeOne(job, index);
+            if (!job.hasUnclaimed()) {
+                return;
+            }
+            try {
+                batchJobThreadPool.execute(() -> runWorker(job));
+                return;
+            } catch (TaskRejectedException e) {
+                // 队列已满，继续在当前线程处理
+            }
+        }
+    }
+
+    private void analyzeOne(BatchJob job, int index) {
+        AnalysisRequest request = job.request(index);
+        long start = System.currentTimeMillis();
+        BatchJob.BatchJobItem item;
+        // 任务 ID 即费用批次 ID
+        try (UsageAttribution.Scope ignored = UsageAttribution.attach(job.getId(), job.getOrderId())) {
+            AnalysisResultEntity result = analysisService.analyzeCompany(
+                    request.getCompanyId(), request.getCompanyName(), request.getDescription());
+            boolean success = result != null && Boolean.TRUE.equals(result.getSuccess());
+            item = new BatchJob.BatchJobItem(index, request.getCompanyId(), request.getCompanyName(), success,
+                    System.currentTimeMillis() - start, result != null ? result.getErrorMessage() : "分析失败", result);
+        } catch (Exception e) {
+            item = new BatchJob.BatchJobItem(index, request.getCompanyId(), request.getCompanyName(), false,
+                    System.currentTimeMillis() - start, e.getMessage(), null);
+        }
+        (item.success() ? succeededCounter : failedCounter).increment();
+        if (job.complete(item)) {
+            BatchJob.BatchJobStatus status = job.getStatus();
+            log.info("✅ 批量分析任务完成: {}，成功 {}，失败 {}", job.getId(), status.succeeded(), status.failed());
+        }
+    }
+
+    private void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.isDone() && job.getFinishedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,209 @@
+package com.codinghappy.fintechai.module.analysis.cache;
+
+import com.codinghappy.fintechai.common.constant.SystemConstant;
+import com.codinghappy.fintechai.module.analysis.prompt.PromptTemplate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DeepSeek 分析结果两级缓存
+ * L1：进程内 Guava Cache（容量 + TTL 淘汰）；L2：Redis（跨节点共享，TTL 淘汰）。
+ * 缓存值是模型返回的 JSON 内容，键是 模型 + Prompt 模板名与版本 + 归一化输入 的 SHA-256 指纹。
+ */
+@Slf4j
+@Component
+public class AnalysisResponseCache {
+
+    private static final String KEY_PREFIX = SystemConstant.CACHE_PREFIX_ANALYSIS + "response:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${finance.analysis.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${finance.analysis.cache.expire-minutes:30}")
+    private long expireMinutes;
+
+    @Value("${finance.analysis.cache.max-size:1000}")
+    private long maxSize;
+
+    private Cache<String, String> localCache;
+
+    private Counter localHits;
+    private Counter redisHits;
+    private Counter misses;
+
+    public AnalysisResponseCache(RedisTemplate<String, String> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        localCache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+
+        localHits = Counter.builder("analysis.cache.requests")
+                .tag("tier", "local").tag("result", "hit")
+                .register(meterRegistry);
+        redisHits = Counter.builder("analysis.cache.requests")
+                .tag("tier", "redis").tag("result", "hit")
+                .register(meterRegistry);
+        misses = Counter.builder("analysis.cache.requests")
+                .tag("tier", "all").tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("analysis.cache.local.size", localCache, Cache::size)
+                .register(meterRegistry);
+        FunctionCounter.builder("analysis.cache.local.evictions", localCache, c -> c.stats().evictionCount())
+                .register(meterRegistry);
+
+        log.info("分析缓存已初始化，enabled: {}, 过期: {} 分钟, 本地容量: {}", enabled, expireMinutes, maxSize);
+    }
+
+    /**
+     * 生成缓存键：模型、Prompt 模板（名称 + 版本）与归一化后的公司名称、简介共同决定指纹；
+     * 不同模板即使版本号相同，输出也不能互相复用
+     */
+    public String buildKey(String model, PromptTemplate template, String companyName, String description) {
+        String fingerprint = Hashing.sha256()
+                .hashString(model + "|" + template.getName() + "|v" + template.getVersion()
+                                + "|" + normalize(companyName) + "|" + normalize(description),
+                        StandardCharsets.UTF_8)
+                .toString();
+        return KEY_PREFIX + fingerprint;
+    }
+
+    /**
+     * 依次查询本地与 Redis，Redis 命中时回填本地
+     */
+    public String get(String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        String value = localCache.getIfPresent(key);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+
+        try {
+            value = redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            log.warn("Redis 缓存读取失败，降级为本地缓存: {}", e.getMessage());
+        }
+
+        if (value != null) {
+            redisHits.increment();
+            localCache.put(key, value);
+            return value;
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 同时写入两级缓存
+     */
+    public void put(String key, String value) {
+        if (!enabled || value == null) {
+            return;
+        }
+
+        localCache.put(key, value);
+        try {
+            redisTemplate.opsForValue().set(key, value, Duration.ofMinutes(expireMinutes));
+        } catch (Exception e) {
+            log.warn("Redis 缓存写入失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 清空两级缓存，返回删除的 Redis 键数量
+     */
+    public long clear() {
+        localCache.invalidateAll();
+
+        long deleted = 0;
+        try {
+            List<String> keys = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(500).build();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                cursor.forEachRemaining(keys::add);
+            }
+            if (!keys.isEmpty()) {
+                Long count = redisTemplate.delete(keys);
+                deleted = count != null ? count : 0;
+            }
+        } catch (Exception e) {
+            log.warn("Redis 缓存清理失败: {}", e.getMessage());
+        }
+
+        log.info("分析缓存已清空，Redis 删除 {} 个键", deleted);
+        return deleted;
+    }
+
+    /**
+     * 获取缓存统计
+     */
+    public CacheStatus getStatus() {
+        CacheStats stats = localCache.stats();
+        return new CacheStatus(
+                enabled,
+                localCache.size(),
+                maxSize,
+                expireMinutes,
+                (long) localHits.count(),
+                (long) redisHits.count(),
+                (long) misses.count(),
+                stats.evictionCount()
+        );
+    }
+
+    private String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    public record CacheStatus(
+            boolean enabled,
+            long localSize,
+            long maxSize,
+            long expireMinutes,
+            long localHits,
+            long redisHits,
+            long misses,
+            long localEvictions
+    ) {
+        public double getHitRate() {
+            long total = localHits + redisHits + misses;
+            return total > 0 ? (double) (localHits + redisHits) / total : 0;
+        }
+    }
+}
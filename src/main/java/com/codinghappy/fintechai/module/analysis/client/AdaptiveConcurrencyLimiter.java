@@ -0,0 +1,248 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import com.codinghappy.fintechai.common.deadline.DeadlineContext;
+import com.codinghappy.fintechai.module.analysis.exception.RateLimitException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * DeepSeek 出站调用的自适应并发限制（梯度算法 + 丢包时乘性减）
+ *
+ * 每次调用结束后用耗时样本更新上限：
+ * - 长期耗时基线取指数滑动平均，短期耗时超过基线 rtt-tolerance 倍时按比例收缩上限（排队变长 = 服务端过载）；
+ * - 耗时正常时上限每次增加约 sqrt(limit)，向可持续的最大吞吐探测；
+ * - 429 / 5xx / 超时视为丢包，上限直接乘以 backoff-ratio。
+ * 超出上限的调用在队列中等待，队列满或等待超时即拒绝。
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    @Value("${finance.analysis.deepseek.concurrency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${finance.analysis.deepseek.concurrency.initial-limit:5}")
+    private int initialLimit;
+
+    @Value("${finance.analysis.deepseek.concurrency.min-limit:1}")
+    private int minLimit;
+
+    @Value("${finance.analysis.deepseek.concurrency.max-limit:50}")
+    private int maxLimit;
+
+    // 短期耗时超过基线多少倍才开始收缩（LLM 输出长度不一，耗时天然抖动较大）
+    @Value("${finance.analysis.deepseek.concurrency.rtt-tolerance:2.0}")
+    private double rttTolerance;
+
+    // 丢包（429 / 5xx / 超时）时的乘性减系数
+    @Value("${finance.analysis.deepseek.concurrency.backoff-ratio:0.8}")
+    private double backoffRatio;
+
+    // 新上限的平滑系数
+    @Value("${finance.analysis.deepseek.concurrency.smoothing:0.2}")
+    private double smoothing;
+
+    // 长期耗时基线的滑动窗口（样本数）
+    @Value("${finance.analysis.deepseek.concurrency.long-window:100}")
+    private int longWindow;
+
+    @Value("${finance.analysis.deepseek.concurrency.max-queue:100}")
+    private int maxQueue;
+
+    @Value("${finance.analysis.deepseek.concurrency.queue-timeout-millis:30000}")
+    private long queueTimeoutMillis;
+
+    // 以下状态受 lock 保护
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private double longRttMillis;
+
+    private Counter queueFullCounter;
+    private Counter timeoutCounter;
+    private Counter dropCounter;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        Gauge.builder("deepseek.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("deepseek.concurrency.in_flight", this, AdaptiveConcurrencyLimiter::getInFlight).register(meterRegistry);
+        Gauge.builder("deepseek.concurrency.queue_depth", this, AdaptiveConcurrencyLimiter::getQueued).register(meterRegistry);
+        queueFullCounter = Counter.builder("deepseek.concurrency.rejections").tag("reason", "queue_full").register(meterRegistry);
+        timeoutCounter = Counter.builder("deepseek.concurrency.rejections").tag("reason", "timeout").register(meterRegistry);
+        dropCounter = Counter.builder("deepseek.concurrency.drops").register(meterRegistry);
+
+        log.info("DeepSeek 自适应并发限制: {}，初始上限 {}，范围 [{}, {}]",
+                enabled ? "开启" : "关闭", getLimit(), minLimit, maxLimit);
+    }
+
+    /**
+     * 获取一个在途名额；超过上限时排队等待，队列已满或等待超时抛出 RateLimitException
+     */
+    public Permit acquire() {
+        if (!enabled) {
+            return new Permit(false);
+        }
+        lock.lock();
+        try {
+            if (inFlight >= getLimit()) {
+                if (queued >= maxQueue) {
+                    queueFullCounter.increment();
+                    throw new RateLimitException("DeepSeek 并发已达上限且等待队列已满");
+                }
+                queued++;
+                try {
+                    long remaining = TimeUnit.MILLISECONDS.toNanos(DeadlineContext.boundMillis(queueTimeoutMillis));
+                    while (inFlight >= getLimit()) {
+                        if (remaining <= 0) {
+                            timeoutCounter.increment();
+                            throw new RateLimitException("等待 DeepSeek 并发名额超时");
+                        }
+                        remaining = released.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RateLimitException("等待 DeepSeek 并发名额时被中断");
+                } finally {
+                    queued--;
+                }
+            }
+            inFlight++;
+            return new Permit(true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSample(long rttMillis, boolean dropped, int inFlightAtStart) {
+        lock.lock();
+        try {
+            if (dropped) {
+                dropCounter.increment();
+                limit = Math.max(minLimit, limit * backoffRatio);
+                return;
+            }
+
+            long sample = Math.max(1, rttMillis);
+            longRttMillis = longRttMillis == 0 ? sample
+                    : longRttMillis + (sample - longRttMillis) * 2.0 / (longWindow + 1);
+
+            // 调用方本身没有用满上限时，耗时信号不足以说明还能继续加并发
+            if (inFlightAtStart < limit / 2) {
+                return;
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttMillis / sample));
+            double newLimit = limit * gradient + Math.sqrt(limit);
+            limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + newLimit * smoothing));
+        } finally {
+            released.signalAll();
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public LimiterStats getStats() {
+        return new LimiterStats(
+                getLimit(),
+                inFlight,
+                queued,
+                (long) longRttMillis,
+                (long) queueFullCounter.count(),
+                (long) timeoutCounter.count(),
+                (long) dropCounter.count()
+        );
+    }
+
+    /**
+     * 一次调用占用的名额：成功调用 success，过载信号 dropped，其余（如被主动断开）ignore；
+     * 必须在 finally 中 close
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final boolean tracked;
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart;
+        private boolean closed;
+
+        private Permit(boolean tracked) {
+            this.tracked = tracked;
+            this.inFlightAtStart = inFlight;
+        }
+
+        public void success() {
+            if (tracked && !closed) {
+                release();
+                onSample(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), false, inFlightAtStart);
+                closed = true;
+            }
+        }
+
+        public void dropped() {
+            if (tracked && !closed) {
+                release();
+                onSample(0, true, inFlightAtStart);
+                closed = true;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (tracked && !closed) {
+                release();
+                closed = true;
+            }
+        }
+    }
+
+    @Data
+    public static class LimiterStats {
+        private final int limit;
+        private final int inFlight;
+        private final int queued;
+        private final long baselineRttMs;
+        private final long rejectedQueueFull;
+        private final long rejectedTimeout;
+        private final long drops;
+    }
+}
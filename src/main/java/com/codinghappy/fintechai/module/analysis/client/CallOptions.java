@@ -0,0 +1,13 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+/**
+ * 单次调用参数：模型、输出 Token 上限（null 表示不限制）与温度
+ */
+public record CallOptions(String model, Integer maxTokens, double temperature) {
+
+    public static final double DEFAULT_TEMPERATURE = 0.7;
+
+    public static CallOptions of(String model) {
+        return new CallOptions(model, null, DEFAULT_TEMPERATURE);
+    }
+}
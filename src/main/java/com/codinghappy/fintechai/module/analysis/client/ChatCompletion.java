@@ -0,0 +1,42 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 一次 DeepSeek 调用的结果
+ */
+@Data
+@Builder
+public class ChatCompletion {
+
+    /** 模型输出的正文（choices[0].message.content 或流式拼接结果） */
+    private String content;
+
+    /** 原始响应；流式调用时与 content 相同 */
+    private String rawResponse;
+
+    /** 是否流式调用 */
+    private boolean streamed;
+
+    /** 是否在生成中途被主动取消 */
+    private boolean cancelled;
+
+    /** 首个 Token 到达耗时（毫秒） */
+    private long firstTokenMs;
+
+    /** 整体生成耗时（毫秒） */
+    private long totalMs;
+
+    /** 响应 usage 块；响应中没有（如流式生成被提前取消）时按 Prompt 与已收到的输出本地估算 */
+    private TokenUsage usage;
+
+    /** usage 是否为本地估算值 */
+    private boolean usageEstimated;
+
+    /** 对冲落败、已发出但被断开的请求的估算用量（只含 Prompt Token），没有对冲落败时为 null */
+    private TokenUsage hedgeLoserUsage;
+
+    /** 流式解析过程中提前提取到的关键字段 */
+    private StreamingFieldExtractor.PartialResult partial;
+}
@@ -0,0 +1,125 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Chat Completions 响应外层信封的流式解析
+ * 只按 choices[0].message.content 路径取正文，并读取 usage 块，其余字段直接跳过，不构建对象树。
+ */
+public final class ChatResponseParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private ChatResponseParser() {
+    }
+
+    /**
+     * 取出 choices[0].message.content；不是 OpenAI 格式时原样返回（防止 DeepSeek 改格式）
+     */
+    public static String extractContent(String rawResponse) {
+        return parse(rawResponse).content();
+    }
+
+    /**
+     * 单遍读取正文与 usage 块；不是 OpenAI 格式时正文为原始响应、usage 为 null
+     */
+    public static Envelope parse(String rawResponse) {
+        if (rawResponse == null) {
+            return new Envelope(null, null);
+        }
+
+        String content = null;
+        TokenUsage usage = null;
+        try (JsonParser parser = JSON_FACTORY.createParser(rawResponse)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new Envelope(rawResponse, null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                    content = readChoices(parser);
+                } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                    usage = readUsage(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            // 最后的兜底：把它当纯文本处理（已读到的字段保留）
+        }
+        return new Envelope(content != null ? content : rawResponse, usage);
+    }
+
+    /**
+     * 读取 usage 对象（当前位于其 START_OBJECT），结束时停在对应的 END_OBJECT
+     */
+    public static TokenUsage readUsage(JsonParser parser) throws IOException {
+        int prompt = 0;
+        int completion = 0;
+        int hit = 0;
+        int miss = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "prompt_tokens" -> prompt = parser.getValueAsInt();
+                case "completion_tokens" -> completion = parser.getValueAsInt();
+                case "prompt_cache_hit_tokens" -> hit = parser.getValueAsInt();
+                case "prompt_cache_miss_tokens" -> miss = parser.getValueAsInt();
+                default -> parser.skipChildren();
+            }
+        }
+        return new TokenUsage(prompt, completion, hit, miss);
+    }
+
+    /**
+     * 读完整个 choices 数组，返回第一个 choice 的 message.content
+     */
+    private static String readChoices(JsonParser parser) throws IOException {
+        String content = null;
+        boolean first = true;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (first && token == JsonToken.START_OBJECT) {
+                content = readChoiceContent(parser);
+            } else {
+                parser.skipChildren();
+            }
+            first = false;
+        }
+        return content;
+    }
+
+    private static String readChoiceContent(JsonParser parser) throws IOException {
+        String content = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("message".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String messageField = parser.currentName();
+                    JsonToken messageValue = parser.nextToken();
+                    if ("content".equals(messageField) && messageValue.isScalarValue()) {
+                        content = parser.getValueAsString();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return content;
+    }
+
+    /**
+     * 响应正文与 usage（响应里没有 usage 时为 null）
+     */
+    public record Envelope(String content, TokenUsage usage) {
+    }
+}
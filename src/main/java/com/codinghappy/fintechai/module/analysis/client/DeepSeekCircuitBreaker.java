@@ -0,0 +1,198 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * DeepSeek 熔断器（基于最近 N 次调用的滑动窗口）
+ * - CLOSED：失败率或慢调用率超过阈值时打开；
+ * - OPEN：直接拒绝调用，等待 open-wait-millis 后进入半开；
+ * - HALF_OPEN：只放行少量探测请求，探测结果达标则关闭，否则重新打开。
+ */
+@Slf4j
+@Component
+public class DeepSeekCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte OUTCOME_FAILURE = 1;
+    private static final byte OUTCOME_SLOW = 2;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${finance.analysis.deepseek.circuit-breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${finance.analysis.deepseek.circuit-breaker.window-size:50}")
+    private int windowSize;
+
+    // 窗口内至少有这么多次调用才计算比例
+    @Value("${finance.analysis.deepseek.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${finance.analysis.deepseek.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${finance.analysis.deepseek.circuit-breaker.slow-call-rate-threshold:0.8}")
+    private double slowCallRateThreshold;
+
+    // 超过该耗时的调用记为慢调用
+    @Value("${finance.analysis.deepseek.circuit-breaker.slow-call-millis:30000}")
+    private long slowCallMillis;
+
+    @Value("${finance.analysis.deepseek.circuit-breaker.open-wait-millis:30000}")
+    private long openWaitMillis;
+
+    @Value("${finance.analysis.deepseek.circuit-breaker.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    // 以下状态受 this 保护
+    private State state = State.CLOSED;
+    private byte[] window;
+    private int windowCursor;
+    private int windowCount;
+    private int failures;
+    private int slowCalls;
+    private long openedAt;
+    private int probesInFlight;
+
+    private Counter rejectedCounter;
+
+    public DeepSeekCircuitBreaker(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        window = new byte[Math.max(1, windowSize)];
+        rejectedCounter = Counter.builder("deepseek.circuit.rejected").register(meterRegistry);
+        Gauge.builder("deepseek.circuit.state", this, b -> b.getState().ordinal()).register(meterRegistry);
+        log.info("DeepSeek 熔断器: {}，失败率阈值 {}，慢调用阈值 {}ms / {}",
+                enabled ? "开启" : "关闭", failureRateThreshold, slowCallMillis, slowCallRateThreshold);
+    }
+
+    /**
+     * 是否允许发起调用；OPEN 状态到期后转为 HALF_OPEN 并占用一个探测名额
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (!enabled) {
+            return true;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openWaitMillis) {
+            transitionTo(State.HALF_OPEN);
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (probesInFlight < halfOpenProbes) {
+                    probesInFlight++;
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        rejectedCounter.increment();
+        return false;
+    }
+
+    public synchronized void onSuccess(long durationMillis) {
+        record(durationMillis >= slowCallMillis ? OUTCOME_SLOW : 0);
+    }
+
+    public synchronized void onError(long durationMillis) {
+        record((byte) (OUTCOME_FAILURE | (durationMillis >= slowCallMillis ? OUTCOME_SLOW : 0)));
+    }
+
+    /**
+     * 本次调用不反映 DeepSeek 的健康状况（如本地限流），只归还探测名额
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    private void record(byte outcome) {
+        if (!enabled || state == State.OPEN) {
+            return;
+        }
+        if (windowCount == window.length) {
+            byte evicted = window[windowCursor];
+            failures -= evicted & OUTCOME_FAILURE;
+            slowCalls -= (evicted & OUTCOME_SLOW) >> 1;
+        } else {
+            windowCount++;
+        }
+        window[windowCursor] = outcome;
+        windowCursor = (windowCursor + 1) % window.length;
+        failures += outcome & OUTCOME_FAILURE;
+        slowCalls += (outcome & OUTCOME_SLOW) >> 1;
+
+        if (state == State.HALF_OPEN) {
+            // 半开期间窗口只包含探测结果，全部探测返回后再判定
+            if (windowCount >= halfOpenProbes) {
+                transitionTo(exceedsThresholds() ? State.OPEN : State.CLOSED);
+            }
+        } else if (windowCount >= minimumCalls && exceedsThresholds()) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private boolean exceedsThresholds() {
+        return (double) failures / windowCount >= failureRateThreshold
+                || (double) slowCalls / windowCount >= slowCallRateThreshold;
+    }
+
+    private void transitionTo(State next) {
+        if (state == next) {
+            return;
+        }
+        log.warn("⚡ DeepSeek 熔断器 {} -> {}（窗口 {} 次调用，失败 {}，慢调用 {}）",
+                state, next, windowCount, failures, slowCalls);
+        Counter.builder("deepseek.circuit.transitions").tag("to", next.name().toLowerCase())
+                .register(meterRegistry).increment();
+        state = next;
+        windowCount = 0;
+        windowCursor = 0;
+        failures = 0;
+        slowCalls = 0;
+        probesInFlight = 0;
+        if (next == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 熔断器当前是否拒绝调用（不占用探测名额）
+     */
+    public synchronized boolean isOpen() {
+        return enabled && state == State.OPEN && System.currentTimeMillis() - openedAt < openWaitMillis;
+    }
+
+    public synchronized CircuitStats getStats() {
+        return new CircuitStats(state.name(), windowCount, failures, slowCalls, (long) rejectedCounter.count());
+    }
+
+    @Data
+    public static class CircuitStats {
+        private final String state;
+        private final int windowCalls;
+        private final int failures;
+        private final int slowCalls;
+        private final long rejected;
+    }
+}
@@ -0,0 +1,417 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.codinghappy.fintechai.common.deadline.DeadlineAwareRequestFactory;
+import com.codinghappy.fintechai.common.deadline.DeadlineContext;
+import com.codinghappy.fintechai.common.deadline.DeadlineExceededException;
+import com.codinghappy.fintechai.common.util.TokenEstimator;
+import com.codinghappy.fintechai.module.analysis.exception.CircuitOpenException;
+import com.codinghappy.fintechai.module.analysis.exception.RateLimitException;
+import com.codinghappy.fintechai.module.analysis.retry.LlmRetryPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * DeepSeek Chat Completions 客户端
+ * 支持普通调用与 SSE 流式调用；流式模式下边接收边提取 score / confidence / business_category，
+ * 调用方可据此在生成中途取消。每次调用都记录首 Token 耗时与总生成耗时。
+ * 请求经 {@link LlmEndpointPool} 分摊到多个 URL / API Key；开启对冲时，迟迟没有开始响应的请求会由 {@link RequestHedger} 补发一次，先返回者胜出。
+ */
+@Slf4j
+@Component
+public class DeepSeekClient {
+
+    private static final String SSE_DATA_PREFIX = "data:";
+    private static final String SSE_DONE = "[DONE]";
+
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final RequestHedger requestHedger;
+    private final LlmEndpointPool endpointPool;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final DeepSeekCircuitBreaker circuitBreaker;
+
+    @Value("${finance.analysis.deepseek.stream.enabled:false}")
+    private boolean streamEnabled;
+
+    // DeepSeek JSON 输出模式：保证返回合法 JSON 对象（Prompt 中必须包含 "json" 字样）
+    @Value("${finance.analysis.deepseek.json-mode:true}")
+    private boolean jsonMode;
+
+    public DeepSeekClient(RestTemplate restTemplate, MeterRegistry meterRegistry,
+                          RequestHedger requestHedger, LlmEndpointPool endpointPool,
+                          AdaptiveConcurrencyLimiter concurrencyLimiter,
+                          DeepSeekCircuitBreaker circuitBreaker) {
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.requestHedger = requestHedger;
+        this.endpointPool = endpointPool;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public boolean isStreamEnabled() {
+        return streamEnabled;
+    }
+
+    /**
+     * 发送一次对话请求；开启流式时走 SSE，但不做提前取消
+     */
+    public ChatCompletion complete(String model, String prompt) {
+        return complete(CallOptions.of(model), prompt);
+    }
+
+    public ChatCompletion complete(CallOptions options, String prompt) {
+        if (streamEnabled) {
+            return stream(options, prompt, partial -> true);
+        }
+
+        return guarded(() -> hedged(prompt, attempt -> onEndpoint(attempt,
+                endpoint -> doComplete(endpoint, options, prompt, attempt))));
+    }
+
+    private ChatCompletion doComplete(LlmEndpoint endpoint, CallOptions options, String prompt,
+                                      RequestHedger.Attempt attempt) {
+        String model = options.model();
+        long start = System.currentTimeMillis();
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(buildBody(options, prompt, false),
+                buildHeaders(endpoint));
+        String rawResponse;
+        try (DeadlineContext.Scope ignored = cancellable(attempt)) {
+            rawResponse = restTemplate.execute(endpoint.getUrl(), HttpMethod.POST, restTemplate.httpEntityCallback(request), response -> {
+                attempt.responded();
+                return StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+            });
+        }
+        long total = System.currentTimeMillis() - start;
+
+        // 非流式调用拿不到逐 Token 的时间，首 Token 耗时按整体响应时间计
+        recordTimings(model, "blocking", total, total);
+        ChatResponseParser.Envelope envelope = ChatResponseParser.parse(rawResponse);
+        recordUsage(model, envelope.usage());
+
+        return ChatCompletion.builder()
+                .content(envelope.content())
+                .rawResponse(rawResponse)
+                .usage(envelope.usage() != null ? envelope.usage() : TokenUsage.estimate(prompt, envelope.content()))
+                .usageEstimated(envelope.usage() == null)
+                .streamed(false)
+                .firstTokenMs(total)
+                .totalMs(total)
+                .build();
+    }
+
+    /**
+     * 流式调用。每当提取到新字段就回调 continueWhile，返回 false 时立即断开连接停止生成。
+     */
+    public ChatCompletion stream(String model, String prompt,
+                                 Predicate<StreamingFieldExtractor.PartialResult> continueWhile) {
+        return stream(CallOptions.of(model), prompt, continueWhile);
+    }
+
+    public ChatCompletion stream(CallOptions options, String prompt,
+                                 Predicate<StreamingFieldExtractor.PartialResult> continueWhile) {
+        return guarded(() -> hedged(prompt, attempt -> onEndpoint(attempt,
+                endpoint -> doStream(endpoint, options, prompt, continueWhile, attempt))));
+    }
+
+    /**
+     * 经对冲执行；落败被断开的请求服务端同样按 Prompt 计费，估算用量挂在胜出结果上交给调用方记录
+     */
+    private ChatCompletion hedged(String prompt, Function<RequestHedger.Attempt, ChatCompletion> call) {
+        AtomicInteger abandoned = new AtomicInteger();
+        ChatCompletion completion = requestHedger.execute(call, attempt -> abandoned.incrementAndGet());
+        if (abandoned.get() > 0) {
+            int promptTokens = TokenEstimator.estimate(prompt) * abandoned.get();
+            completion.setHedgeLoserUsage(new TokenUsage(promptTokens, 0, 0, 0));
+        }
+        return completion;
+    }
+
+    /**
+     * 熔断保护：熔断器打开时直接抛出 CircuitOpenException，不再等待超时；
+     * 本地限流与普通 4xx 不反映 DeepSeek 的健康状况，不计入熔断统计
+     */
+    private ChatCompletion guarded(Supplier<ChatCompletion> call) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new CircuitOpenException("DeepSeek 熔断器已打开，暂停调用");
+        }
+        long start = System.currentTimeMillis();
+        try {
+            ChatCompletion completion = call.get();
+            circuitBreaker.onSuccess(System.currentTimeMillis() - start);
+            return completion;
+        } catch (RateLimitException | DeadlineExceededException e) {
+            circuitBreaker.onIgnored();
+            throw e;
+        } catch (RestClientResponseException e) {
+            int status = e.getStatusCode().value();
+            if (status == 429 || status >= 500) {
+                circuitBreaker.onError(System.currentTimeMillis() - start);
+            } else {
+                circuitBreaker.onIgnored();
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.currentTimeMillis() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * 先取自适应并发名额，再从端点池借一个端点执行调用；
+     * 结果同时反馈给并发限制与端点健康状态（落败被断开的对冲请求、提前取消的流式生成不计入耗时样本）
+     */
+    private ChatCompletion onEndpoint(RequestHedger.Attempt attempt, Function<LlmEndpoint, ChatCompletion> call) {
+        try (AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire();
+             LlmEndpointPool.Lease lease = endpointPool.acquire()) {
+            try {
+                ChatCompletion result = call.apply(lease.getEndpoint());
+                lease.succeeded();
+                if (!result.isCancelled()) {
+                    permit.success();
+                }
+                return result;
+            } catch (RestClientResponseException e) {
+                if (!attempt.isCancelled()) {
+                    int status = e.getStatusCode().value();
+                    lease.failed(status, LlmRetryPolicy.INSTANCE.retryAfterMillis(e));
+                    if (status == 429 || status >= 500) {
+                        permit.dropped();
+                    }
+                }
+                throw e;
+            } catch (ResourceAccessException e) {
+                // 超时被收缩到调用方剩余时间而触发的，不是 DeepSeek 过载
+                if (DeadlineContext.isExpired()) {
+                    throw new DeadlineExceededException("截止时间已过，放弃 DeepSeek 调用", e);
+                }
+                // 连接或读取超时同样是过载信号
+                if (!attempt.isCancelled()) {
+                    lease.failed(0, 0);
+                    permit.dropped();
+                }
+                throw e;
+            } catch (DeadlineExceededException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (!attempt.isCancelled()) {
+                    lease.failed(0, 0);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private ChatCompletion doStream(LlmEndpoint endpoint, CallOptions options, String prompt,
+                                    Predicate<StreamingFieldExtractor.PartialResult> continueWhile,
+                                    RequestHedger.Attempt attempt) {
+        String model = options.model();
+        long start = System.currentTimeMillis();
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(buildBody(options, prompt, true),
+                buildHeaders(endpoint));
+        StreamingFieldExtractor extractor = new StreamingFieldExtractor();
+        long[] firstTokenAt = {-1};
+        boolean[] cancelled = {false};
+        TokenUsage[] usage = {null};
+
+        try (DeadlineContext.Scope ignored = cancellable(attempt)) {
+            restTemplate.execute(endpoint.getUrl(), HttpMethod.POST, restTemplate.httpEntityCallback(request), response -> {
+                InputStream body = response.getBody();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.startsWith(SSE_DATA_PREFIX)) {
+                        continue;
+                    }
+                    String data = line.substring(SSE_DATA_PREFIX.length()).trim();
+                    if (SSE_DONE.equals(data)) {
+                        break;
+                    }
+
+                    JSONObject chunk = parseChunk(data);
+                    if (chunk == null) {
+                        continue;
+                    }
+                    // 开启 include_usage 后，usage 随最后一个（choices 为空的）数据块返回
+                    JSONObject chunkUsage = chunk.getJSONObject("usage");
+                    if (chunkUsage != null) {
+                        usage[0] = new TokenUsage(chunkUsage.getIntValue("prompt_tokens"),
+                                chunkUsage.getIntValue("completion_tokens"),
+                                chunkUsage.getIntValue("prompt_cache_hit_tokens"),
+                                chunkUsage.getIntValue("prompt_cache_miss_tokens"));
+                    }
+                    String delta = extractDelta(chunk);
+                    if (delta == null || delta.isEmpty()) {
+                        continue;
+                    }
+                    if (firstTokenAt[0] < 0) {
+                        firstTokenAt[0] = System.currentTimeMillis() - start;
+                        attempt.responded();
+                    }
+
+                    // 读取超时只限制单次读取，整体耗时由截止时间约束
+                    if (DeadlineContext.isExpired()) {
+                        body.close();
+                        throw new DeadlineExceededException("截止时间已过，停止 DeepSeek 流式生成");
+                    }
+                    if (extractor.append(delta) && !continueWhile.test(extractor.getPartial())) {
+                        cancelled[0] = true;
+                        // 直接关闭底层流，避免 RestTemplate 关闭响应时把剩余内容读完
+                        body.close();
+                        break;
+                    }
+                }
+                return null;
+            });
+        }
+
+        long total = System.currentTimeMillis() - start;
+        long firstToken = firstTokenAt[0] >= 0 ? firstTokenAt[0] : total;
+        recordTimings(model, cancelled[0] ? "stream_cancelled" : "stream", firstToken, total);
+        recordUsage(model, usage[0]);
+        if (cancelled[0]) {
+            log.info("流式生成已提前取消，耗时 {}ms，已提取: {}", total, extractor.getPartial());
+        }
+
+        String content = extractor.getContent();
+        return ChatCompletion.builder()
+                .content(content)
+                .rawResponse(content)
+                .streamed(true)
+                .cancelled(cancelled[0])
+                // 提前取消时服务端来不及返回 usage：Prompt 已全部计费，输出按已收到的内容估算
+                .usage(usage[0] != null ? usage[0] : TokenUsage.estimate(prompt, content))
+                .usageEstimated(usage[0] == null)
+                .firstTokenMs(firstToken)
+                .totalMs(total)
+                .partial(extractor.getPartial())
+                .build();
+    }
+
+    /**
+     * 在发出请求之前注册断开钩子：落败的对冲请求即使还没收到响应头（阻塞在读取上）也能被立即断开，
+     * 而不是占着对冲线程、并发名额与端点直到读取超时
+     */
+    private DeadlineContext.Scope cancellable(RequestHedger.Attempt attempt) {
+        AtomicReference<HttpURLConnection> connection = new AtomicReference<>();
+        attempt.onCancel(() -> {
+            HttpURLConnection opened = connection.get();
+            if (opened != null) {
+                opened.disconnect();
+            }
+        });
+        return DeadlineAwareRequestFactory.observeConnections(opened -> {
+            connection.set(opened);
+            // 连接打开前已落败：钩子执行时还拿不到连接，这里补上
+            if (attempt.isCancelled()) {
+                opened.disconnect();
+            }
+        });
+    }
+
+    private HttpHeaders buildHeaders(LlmEndpoint endpoint) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", "Bearer " + endpoint.getApiKey());
+        return headers;
+    }
+
+    private Map<String, Object> buildBody(CallOptions options, String prompt, boolean stream) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("role", "user");
+        message.put("content", prompt);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("model", options.model());
+        body.put("messages", List.of(message));
+        body.put("temperature", options.temperature());
+        if (options.maxTokens() != null) {
+            body.put("max_tokens", options.maxTokens());
+        }
+        if (jsonMode) {
+            body.put("response_format", Map.of("type", "json_object"));
+        }
+        if (stream) {
+            body.put("stream", true);
+            // 让最后一个数据块带上 usage，流式调用同样能统计 Prompt 缓存命中
+            body.put("stream_options", Map.of("include_usage", true));
+        }
+        return body;
+    }
+
+    private void recordTimings(String model, String mode, long firstTokenMs, long totalMs) {
+        Timer.builder("deepseek.call.first_token")
+                .tag("model", model).tag("mode", mode)
+                .register(meterRegistry)
+                .record(firstTokenMs, TimeUnit.MILLISECONDS);
+        Timer.builder("deepseek.call.duration")
+                .tag("model", model).tag("mode", mode)
+                .register(meterRegistry)
+                .record(totalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Prompt 缓存命中 / 未命中的 Token 数，按模型累计（命中率 = hit / (hit + miss)）
+     */
+    private void recordUsage(String model, TokenUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        Counter.builder("deepseek.prompt_cache.tokens")
+                .tag("model", model).tag("result", "hit")
+                .register(meterRegistry)
+                .increment(usage.promptCacheHitTokens());
+        Counter.builder("deepseek.prompt_cache.tokens")
+                .tag("model", model).tag("result", "miss")
+                .register(meterRegistry)
+                .increment(usage.promptCacheMissTokens());
+    }
+
+    private JSONObject parseChunk(String data) {
+        try {
+            return JSON.parseObject(data);
+        } catch (Exception e) {
+            log.debug("忽略无法解析的 SSE 数据: {}", data);
+            return null;
+        }
+    }
+
+    private String extractDelta(JSONObject chunk) {
+        JSONArray choices = chunk.getJSONArray("choices");
+        if (choices == null || choices.isEmpty()) {
+            return null;
+        }
+        JSONObject delta = choices.getJSONObject(0).getJSONObject("delta");
+        return delta != null ? delta.getString("content") : null;
+    }
+}
@@ -0,0 +1,124 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import lombok.Data;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LLM 端点（URL + API Key）的运行时状态：本地令牌桶、在途请求数与健康状态。
+ * 返回 429 / 5xx 的端点会被临时摘除，连续失败时摘除时间指数增长。
+ */
+public class LlmEndpoint {
+
+    private final String name;
+    private final String url;
+    private final String apiKey;
+    private final int maxConcurrency;
+    private final double requestsPerSecond;
+    private final double burstCapacity;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    // 令牌桶状态（受 this 保护）
+    private double tokens;
+    private long lastRefillNanos;
+
+    private volatile long ejectedUntilMillis;
+    private int consecutiveFailures;
+
+    public LlmEndpoint(Settings settings) {
+        this.name = settings.getName();
+        this.url = settings.getUrl();
+        this.apiKey = settings.getApiKey();
+        this.maxConcurrency = Math.max(1, settings.getMaxConcurrency());
+        this.requestsPerSecond = settings.getRequestsPerSecond();
+        this.burstCapacity = Math.max(1, settings.getBurstCapacity());
+        this.tokens = burstCapacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public boolean isHealthy() {
+        return System.currentTimeMillis() >= ejectedUntilMillis;
+    }
+
+    public long getEjectedUntilMillis() {
+        return ejectedUntilMillis;
+    }
+
+    /**
+     * 健康、未达并发上限且令牌桶有余量时占用一个请求名额
+     */
+    synchronized boolean tryAcquire() {
+        if (!isHealthy() || outstanding.get() >= maxConcurrency) {
+            return false;
+        }
+        // requests-per-second <= 0 表示该端点不做本地限速
+        if (requestsPerSecond > 0) {
+            long now = System.nanoTime();
+            tokens = Math.min(burstCapacity,
+                    tokens + (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1) * requestsPerSecond);
+            lastRefillNanos = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+        }
+        outstanding.incrementAndGet();
+        return true;
+    }
+
+    void release() {
+        outstanding.decrementAndGet();
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * 摘除端点；retryAfterMillis > 0 时以服务端给出的时间为准
+     */
+    synchronized long eject(long baseMillis, long maxMillis, long retryAfterMillis) {
+        consecutiveFailures++;
+        long millis = retryAfterMillis > 0 ? retryAfterMillis
+                : Math.min(maxMillis, baseMillis << Math.min(consecutiveFailures - 1, 20));
+        ejectedUntilMillis = Math.max(ejectedUntilMillis, System.currentTimeMillis() + millis);
+        return millis;
+    }
+
+    /**
+     * yaml 中单个端点的配置
+     */
+    @Data
+    public static class Settings {
+        private String name;
+        private String url;
+        private String apiKey;
+        // 本地令牌桶：每秒请求数与突发容量
+        private double requestsPerSecond = 5;
+        private double burstCapacity = 10;
+        // 该端点同时在途的请求上限
+        private int maxConcurrency = 5;
+    }
+}
@@ -0,0 +1,243 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import com.codinghappy.fintechai.common.deadline.DeadlineContext;
+import com.codinghappy.fintechai.module.analysis.exception.RateLimitException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LLM 端点池
+ * 在 yaml 配置的多个 URL / API Key 之间按「在途请求最少」做负载均衡，
+ * 每个端点各自限速、限并发；返回 429 / 5xx 的端点被临时摘除（最后一个可用端点除外），恢复后自动重新参与调度。
+ * 未配置 finance.analysis.deepseek.endpoints 时退化为 spring.ai.openai 的单一端点。
+ */
+@Slf4j
+@Component
+public class LlmEndpointPool {
+
+    private static final long POLL_INTERVAL_MILLIS = 20;
+
+    private final List<LlmEndpoint> endpoints;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<String, Counter>> outcomeCounters = new LinkedHashMap<>();
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    // 所有端点都不可用时最多等待多久
+    @Value("${finance.analysis.deepseek.endpoint-pool.acquire-wait-millis:30000}")
+    private long acquireWaitMillis;
+
+    // 首次摘除时长，连续失败时翻倍
+    @Value("${finance.analysis.deepseek.endpoint-pool.eject-millis:5000}")
+    private long ejectMillis;
+
+    @Value("${finance.analysis.deepseek.endpoint-pool.max-eject-millis:120000}")
+    private long maxEjectMillis;
+
+    @Autowired
+    public LlmEndpointPool(MeterRegistry meterRegistry, Environment environment) {
+        this(meterRegistry, loadSettings(environment));
+    }
+
+    public LlmEndpointPool(MeterRegistry meterRegistry, List<LlmEndpoint.Settings> settings) {
+        if (settings.isEmpty()) {
+            throw new IllegalArgumentException("至少需要配置一个 LLM 端点");
+        }
+        this.meterRegistry = meterRegistry;
+        this.endpoints = settings.stream().map(LlmEndpoint::new).toList();
+        endpoints.forEach(this::registerMetrics);
+        log.info("LLM 端点池初始化完成，共 {} 个端点: {}", endpoints.size(),
+                endpoints.stream().map(LlmEndpoint::getName).toList());
+    }
+
+    private static List<LlmEndpoint.Settings> loadSettings(Environment environment) {
+        List<LlmEndpoint.Settings> configured = Binder.get(environment)
+                .bind("finance.analysis.deepseek.endpoints", Bindable.listOf(LlmEndpoint.Settings.class))
+                .orElse(List.of());
+
+        List<LlmEndpoint.Settings> settings = new ArrayList<>();
+        for (int i = 0; i < configured.size(); i++) {
+            LlmEndpoint.Settings s = configured.get(i);
+            if (s.getUrl() == null || s.getUrl().isBlank() || s.getApiKey() == null || s.getApiKey().isBlank()) {
+                log.warn("忽略缺少 url 或 api-key 的 LLM 端点配置: {}", s.getName());
+                continue;
+            }
+            if (s.getName() == null || s.getName().isBlank()) {
+                s.setName("endpoint-" + i);
+            }
+            settings.add(s);
+        }
+
+        if (settings.isEmpty()) {
+            LlmEndpoint.Settings single = new LlmEndpoint.Settings();
+            single.setName("default");
+            single.setUrl(environment.getRequiredProperty("spring.ai.openai.base-url"));
+            single.setApiKey(environment.getRequiredProperty("spring.ai.openai.api-key"));
+            // 单端点时限速交给 RateLimitService，这里只保留并发上限
+            single.setRequestsPerSecond(0);
+            single.setMaxConcurrency(Integer.MAX_VALUE);
+            settings.add(single);
+        }
+        return settings;
+    }
+
+    private void registerMetrics(LlmEndpoint endpoint) {
+        Map<String, Counter> counters = new LinkedHashMap<>();
+        for (String outcome : List.of("success", "rate_limited", "server_error", "error")) {
+            counters.put(outcome, Counter.builder("deepseek.endpoint.requests")
+                    .tag("endpoint", endpoint.getName()).tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        counters.put("ejected", Counter.builder("deepseek.endpoint.ejections")
+                .tag("endpoint", endpoint.getName()).register(meterRegistry));
+        outcomeCounters.put(endpoint.getName(), counters);
+
+        Gauge.builder("deepseek.endpoint.outstanding", endpoint, LlmEndpoint::getOutstanding)
+                .tag("endpoint", endpoint.getName()).register(meterRegistry);
+        Gauge.builder("deepseek.endpoint.healthy", endpoint, e -> e.isHealthy() ? 1 : 0)
+                .tag("endpoint", endpoint.getName()).register(meterRegistry);
+    }
+
+    /**
+     * 占用一个端点名额；所有端点都被摘除、限速或打满时最多等待 acquire-wait-millis
+     */
+    public Lease acquire() {
+        long deadline = System.currentTimeMillis() + DeadlineContext.boundMillis(acquireWaitMillis);
+        while (true) {
+            LlmEndpoint endpoint = pick();
+            if (endpoint != null) {
+                return new Lease(endpoint);
+            }
+            long now = System.currentTimeMillis();
+            if (now >= deadline) {
+                long retryAfterMillis = endpoints.stream()
+                        .mapToLong(e -> Math.max(0, e.getEjectedUntilMillis() - now))
+                        .min().orElse(0);
+                throw new RateLimitException("所有 LLM 端点均被限流、摘除或已满载",
+                        Math.max(1, retryAfterMillis / 1000));
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RateLimitException("等待 LLM 端点时被中断");
+            }
+        }
+    }
+
+    /**
+     * 按在途请求数从少到多依次尝试；起点轮转，使空闲端点之间均匀分摊
+     */
+    private LlmEndpoint pick() {
+        int size = endpoints.size();
+        int start = Math.floorMod(cursor.getAndIncrement(), size);
+        List<LlmEndpoint> candidates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LlmEndpoint endpoint = endpoints.get((start + i) % size);
+            if (endpoint.isHealthy()) {
+                candidates.add(endpoint);
+            }
+        }
+        candidates.sort(Comparator.comparingInt(LlmEndpoint::getOutstanding));
+        for (LlmEndpoint endpoint : candidates) {
+            if (endpoint.tryAcquire()) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    public List<EndpointStats> getStats() {
+        return endpoints.stream().map(e -> {
+            Map<String, Counter> counters = outcomeCounters.get(e.getName());
+            return new EndpointStats(
+                    e.getName(),
+                    e.isHealthy(),
+                    e.getOutstanding(),
+                    (long) counters.get("success").count(),
+                    (long) counters.get("rate_limited").count(),
+                    (long) counters.get("server_error").count(),
+                    (long) counters.get("error").count(),
+                    (long) counters.get("ejected").count()
+            );
+        }).toList();
+    }
+
+    /**
+     * 一次请求对端点的占用；必须在 finally 中 close
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final LlmEndpoint endpoint;
+        private boolean released;
+
+        private Lease(LlmEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public LlmEndpoint getEndpoint() {
+            return endpoint;
+        }
+
+        public void succeeded() {
+            endpoint.recordSuccess();
+            outcomeCounters.get(endpoint.getName()).get("success").increment();
+        }
+
+        /**
+         * 记录失败；429 与 5xx 会摘除端点（429 优先使用服务端 Retry-After）。
+         * 最后一个可用端点不摘除：否则 DeepSeek 整体故障时每次调用都会在 acquire 里空等后以限流失败，
+         * 熔断器忽略限流、永远不会打开，降级也不会生效；留着它让错误如实反馈给熔断器。
+         */
+        public void failed(int statusCode, long retryAfterMillis) {
+            Map<String, Counter> counters = outcomeCounters.get(endpoint.getName());
+            if (statusCode == 429 || statusCode >= 500) {
+                counters.get(statusCode == 429 ? "rate_limited" : "server_error").increment();
+                synchronized (LlmEndpointPool.this) {
+                    if (endpoints.stream().noneMatch(e -> e != endpoint && e.isHealthy())) {
+                        log.warn("LLM 端点 {} 返回 {}，已是最后一个可用端点，不摘除", endpoint.getName(), statusCode);
+                        return;
+                    }
+                    counters.get("ejected").increment();
+                    long millis = endpoint.eject(ejectMillis, maxEjectMillis, statusCode == 429 ? retryAfterMillis : 0);
+                    log.warn("LLM 端点 {} 返回 {}，摘除 {}ms", endpoint.getName(), statusCode, millis);
+                }
+            } else {
+                counters.get("error").increment();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                endpoint.release();
+            }
+        }
+    }
+
+    public record EndpointStats(
+            String name,
+            boolean healthy,
+            int outstanding,
+            long success,
+            long rateLimited,
+            long serverErrors,
+            long otherErrors,
+            long ejections
+    ) {}
+}
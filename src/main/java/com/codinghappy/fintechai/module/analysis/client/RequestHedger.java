@@ -0,0 +1,349 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * DeepSeek 对冲请求（hedged request）
+ * 主请求在「最近响应耗时的 P 分位」内还没有开始返回时，再发一个相同的对冲请求，
+ * 谁先成功用谁，另一个立即断开连接。
+ *
+ * 对冲有独立的令牌预算：每次成功调用积累 budget-ratio 个令牌，每次对冲消耗 1 个，
+ * 因此对冲比例不会超过 budget-ratio；DeepSeek 故障期间调用全部失败、不再积累令牌，对冲随之停止，不会放大负载。
+ */
+@Slf4j
+@Component
+public class RequestHedger {
+
+    private final TaskExecutor hedgeThreadPool;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${finance.analysis.deepseek.hedge.enabled:false}")
+    private boolean enabled;
+
+    // 对冲触发点：最近响应耗时的分位数
+    @Value("${finance.analysis.deepseek.hedge.percentile:0.95}")
+    private double percentile;
+
+    // 参与分位数计算的最近样本数
+    @Value("${finance.analysis.deepseek.hedge.window-size:200}")
+    private int windowSize;
+
+    // 样本不足时使用的固定触发延迟
+    @Value("${finance.analysis.deepseek.hedge.initial-delay-millis:10000}")
+    private long initialDelayMillis;
+
+    @Value("${finance.analysis.deepseek.hedge.min-samples:20}")
+    private int minSamples;
+
+    @Value("${finance.analysis.deepseek.hedge.min-delay-millis:500}")
+    private long minDelayMillis;
+
+    @Value("${finance.analysis.deepseek.hedge.max-delay-millis:30000}")
+    private long maxDelayMillis;
+
+    // 每次成功调用积累的对冲令牌数（即对冲比例上限）
+    @Value("${finance.analysis.deepseek.hedge.budget-ratio:0.1}")
+    private double budgetRatio;
+
+    // 令牌桶容量，限制空闲一段时间后的突发对冲
+    @Value("${finance.analysis.deepseek.hedge.budget-capacity:10}")
+    private double budgetCapacity;
+
+    private long[] samples;
+    private int sampleCount;
+    private int sampleCursor;
+    private double budgetTokens;
+
+    private Counter callCounter;
+    private Counter hedgeCounter;
+    private Counter hedgeWinCounter;
+    private Counter budgetExhaustedCounter;
+
+    public RequestHedger(@Qualifier("deepseekHedgeThreadPool") TaskExecutor hedgeThreadPool,
+                         MeterRegistry meterRegistry) {
+        this.hedgeThreadPool = hedgeThreadPool;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        samples = new long[Math.max(1, windowSize)];
+        budgetTokens = budgetCapacity;
+
+        callCounter = Counter.builder("deepseek.hedge.calls").register(meterRegistry);
+        hedgeCounter = Counter.builder("deepseek.hedge.fired").register(meterRegistry);
+        hedgeWinCounter = Counter.builder("deepseek.hedge.wins").register(meterRegistry);
+        budgetExhaustedCounter = Counter.builder("deepseek.hedge.budget_exhausted").register(meterRegistry);
+        Gauge.builder("deepseek.hedge.rate", this, h -> h.getStats().getHedgeRate()).register(meterRegistry);
+        Gauge.builder("deepseek.hedge.win_rate", this, h -> h.getStats().getWinRate()).register(meterRegistry);
+        Gauge.builder("deepseek.hedge.delay_ms", this, RequestHedger::currentDelayMillis).register(meterRegistry);
+
+        log.info("DeepSeek 对冲请求: {}，触发分位 P{}，对冲预算比例 {}",
+                enabled ? "开启" : "关闭", Math.round(percentile * 100), budgetRatio);
+    }
+
+    /**
+     * 执行一次（可能被对冲的）调用。call 需要在开始返回内容时调用 {@link Attempt#responded()}，
+     * 并在发出请求之前通过 {@link Attempt#onCancel(Closeable)} 注册断开连接的钩子，
+     * 这样还没收到响应头的落败请求也能被立即断开，不会占着线程、并发名额和端点直到读取超时。
+     */
+    public <T> T execute(Function<Attempt, T> call) {
+        return execute(call, abandoned -> { });
+    }
+
+    /**
+     * 同 {@link #execute(Function)}；已经发出、因对冲落败被断开或结果被丢弃的请求会回调 onAbandoned（在返回胜出结果之前），
+     * 调用方据此记录落败请求同样产生的 Prompt 费用。还在队列里就落败、从未发出的请求不回调。
+     */
+    public <T> T execute(Function<Attempt, T> call, Consumer<Attempt> onAbandoned) {
+        if (!enabled) {
+            return call.apply(new Attempt());
+        }
+        callCounter.increment();
+
+        Attempt primary = new Attempt();
+        CompletableFuture<T> primaryFuture = submit(call, primary);
+
+        long delay = currentDelayMillis();
+        if (!respondsWithin(primary, primaryFuture, delay)) {
+            if (tryAcquireBudget()) {
+                hedgeCounter.increment();
+                log.info("DeepSeek 请求 {}ms 内未响应，发出对冲请求", delay);
+                Attempt hedge = new Attempt();
+                return race(primary, primaryFuture, hedge, submit(call, hedge), onAbandoned);
+            }
+            budgetExhaustedCounter.increment();
+        }
+        T result = join(primaryFuture);
+        earnBudget();
+        return result;
+    }
+
+    private <T> CompletableFuture<T> submit(Function<Attempt, T> call, Attempt attempt) {
+        return CompletableFuture.supplyAsync(() -> {
+            // 还在线程池队列里就已落败的请求不再发出
+            if (attempt.isCancelled()) {
+                throw new CancellationException("对冲请求已落败，不再发出");
+            }
+            attempt.started = true;
+            try {
+                return call.apply(attempt);
+            } finally {
+                // 失败的请求同样结束等待，但不计入耗时样本：快速返回的 4xx / 5xx 会把对冲分位拉低
+                attempt.finished();
+            }
+        }, hedgeThreadPool);
+    }
+
+    private boolean respondsWithin(Attempt attempt, CompletableFuture<?> future, long delay) {
+        try {
+            CompletableFuture.anyOf(attempt.respondedFuture, future).get(delay, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (ExecutionException e) {
+            // 主请求已失败，交由 join 抛出
+            return true;
+        }
+    }
+
+    /**
+     * 两个请求赛跑：先成功者胜出并断开另一方；两者都失败时抛出主请求的异常
+     */
+    private <T> T race(Attempt primary, CompletableFuture<T> primaryFuture,
+                       Attempt hedge, CompletableFuture<T> hedgeFuture, Consumer<Attempt> onAbandoned) {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicReference<Attempt> winningAttempt = new AtomicReference<>();
+        AtomicInteger failures = new AtomicInteger();
+        primaryFuture.whenComplete((value, error) ->
+                settle(winner, winningAttempt, primary, failures, value, error, primaryFuture));
+        hedgeFuture.whenComplete((value, error) ->
+                settle(winner, winningAttempt, hedge, failures, value, error, primaryFuture));
+
+        try {
+            T result = join(winner);
+            Attempt loser = winningAttempt.get() == hedge ? primary : hedge;
+            if (loser == primary) {
+                hedgeWinCounter.increment();
+            }
+            // 落败方自己已经失败的不计；仍在进行或也已成功返回的，结果被丢弃但请求同样计费
+            boolean abandoned = loser.started
+                    && !(loser == primary ? primaryFuture : hedgeFuture).isCompletedExceptionally();
+            loser.cancel();
+            if (abandoned) {
+                onAbandoned.accept(loser);
+            }
+            earnBudget();
+            return result;
+        } catch (RuntimeException e) {
+            primary.cancel();
+            hedge.cancel();
+            throw e;
+        }
+    }
+
+    private <T> void settle(CompletableFuture<T> winner, AtomicReference<Attempt> winningAttempt, Attempt attempt,
+                            AtomicInteger failures, T value, Throwable error, CompletableFuture<T> primaryFuture) {
+        if (error == null) {
+            // 先登记胜出者再完成 winner，保证调用方 join 返回后能看到胜出者
+            if (winningAttempt.compareAndSet(null, attempt)) {
+                winner.complete(value);
+            }
+        } else if (failures.incrementAndGet() == 2) {
+            primaryFuture.whenComplete((v, primaryError) -> winner.completeExceptionally(primaryError));
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 记录一次「开始响应」的耗时样本
+     */
+    private synchronized void recordLatency(long millis) {
+        samples[sampleCursor] = millis;
+        sampleCursor = (sampleCursor + 1) % samples.length;
+        sampleCount = Math.min(sampleCount + 1, samples.length);
+    }
+
+    public synchronized long currentDelayMillis() {
+        if (sampleCount < minSamples) {
+            return initialDelayMillis;
+        }
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        long delay = sorted[Math.max(0, index)];
+        return Math.min(maxDelayMillis, Math.max(minDelayMillis, delay));
+    }
+
+    private synchronized boolean tryAcquireBudget() {
+        if (budgetTokens < 1) {
+            return false;
+        }
+        budgetTokens -= 1;
+        return true;
+    }
+
+    private synchronized void earnBudget() {
+        budgetTokens = Math.min(budgetCapacity, budgetTokens + budgetRatio);
+    }
+
+    public HedgeStats getStats() {
+        return new HedgeStats(
+                (long) callCounter.count(),
+                (long) hedgeCounter.count(),
+                (long) hedgeWinCounter.count(),
+                (long) budgetExhaustedCounter.count(),
+                currentDelayMillis()
+        );
+    }
+
+    /**
+     * 一次具体的 HTTP 尝试：记录开始响应的时间点，落败时断开底层连接
+     */
+    public final class Attempt {
+
+        private final long startNanos = System.nanoTime();
+        private final CompletableFuture<Void> respondedFuture = new CompletableFuture<>();
+        private volatile Closeable connection;
+        private volatile boolean cancelled;
+        // 已经开始发出请求（不再是排队中）
+        private volatile boolean started;
+
+        private Attempt() {
+        }
+
+        /**
+         * 收到首个响应内容时调用（重复调用无副作用）；只有真正开始响应的请求才计入耗时样本
+         */
+        public void responded() {
+            if (respondedFuture.complete(null) && !cancelled && enabled) {
+                recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            }
+        }
+
+        private void finished() {
+            respondedFuture.complete(null);
+        }
+
+        public void onCancel(Closeable connection) {
+            this.connection = connection;
+            if (cancelled) {
+                closeQuietly(connection);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            closeQuietly(connection);
+        }
+
+        private void closeQuietly(Closeable closeable) {
+            if (closeable == null) {
+                return;
+            }
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.debug("断开落败的 DeepSeek 请求失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Data
+    public static class HedgeStats {
+        private final long calls;
+        private final long hedged;
+        private final long hedgeWins;
+        private final long budgetExhausted;
+        private final long currentDelayMs;
+
+        public double getHedgeRate() {
+            return calls > 0 ? (double) hedged / calls : 0;
+        }
+
+        public double getWinRate() {
+            return hedged > 0 ? (double) hedgeWins / hedged : 0;
+        }
+    }
+}
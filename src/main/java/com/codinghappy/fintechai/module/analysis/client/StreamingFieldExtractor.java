@@ -0,0 +1,124 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import lombok.Data;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 流式 JSON 关键字段增量提取器
+ * 每收到一段 delta 就追加到缓冲区，只对尚未解析出的字段做匹配；
+ * 数字字段要求后面已出现分隔符，避免把 "0.8" 截成 "0." 或把 "10" 截成 "1"。
+ * 每个字段记住自己的扫描位置：只在新内容里找字段名，找到后只从字段名处匹配取值，
+ * 始终不出现的字段不会让每个 delta 都重扫整个缓冲区。
+ */
+public class StreamingFieldExtractor {
+
+    private static final Pattern SCORE = Pattern.compile("\"score\"\\s*:\\s*(\\d+)\\s*[,}\\n]");
+    private static final Pattern CONFIDENCE = Pattern.compile("\"confidence\"\\s*:\\s*([0-9]*\\.?[0-9]+)\\s*[,}\\n]");
+    private static final Pattern CATEGORY = Pattern.compile("\"business_category\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    private final StringBuilder buffer = new StringBuilder(1024);
+    private final PartialResult partial = new PartialResult();
+    private final FieldScanner scoreScanner = new FieldScanner("\"score\"", SCORE);
+    private final FieldScanner confidenceScanner = new FieldScanner("\"confidence\"", CONFIDENCE);
+    private final FieldScanner categoryScanner = new FieldScanner("\"business_category\"", CATEGORY);
+
+    /**
+     * 追加一段增量内容，返回是否解析出了新字段
+     */
+    public boolean append(String delta) {
+        if (delta == null || delta.isEmpty()) {
+            return false;
+        }
+        buffer.append(delta);
+
+        boolean changed = false;
+        if (partial.score == null) {
+            String value = scoreScanner.scan(buffer);
+            if (value != null) {
+                partial.score = Integer.parseInt(value);
+                changed = true;
+            }
+        }
+        if (partial.confidence == null) {
+            String value = confidenceScanner.scan(buffer);
+            if (value != null) {
+                partial.confidence = Double.parseDouble(value);
+                changed = true;
+            }
+        }
+        if (partial.businessCategory == null) {
+            String value = categoryScanner.scan(buffer);
+            if (value != null) {
+                partial.businessCategory = value;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public String getContent() {
+        return buffer.toString();
+    }
+
+    public PartialResult getPartial() {
+        return partial;
+    }
+
+    /**
+     * 单个字段的增量扫描：先在未扫描过的内容里定位字段名，再从字段名处匹配取值。
+     * 取值还不完整（后续 delta 可能补全）时停在原处等待；确定不匹配（如字段名出现在字符串里）时跳到下一个候选。
+     */
+    private static final class FieldScanner {
+
+        private final String key;
+        private final Pattern pattern;
+        // 下一次查找字段名的起点
+        private int searchFrom;
+        // 已定位、等待取值补全的字段名位置，-1 表示没有
+        private int candidate = -1;
+
+        private FieldScanner(String key, Pattern pattern) {
+            this.key = key;
+            this.pattern = pattern;
+        }
+
+        String scan(StringBuilder buffer) {
+            while (true) {
+                if (candidate < 0) {
+                    int index = buffer.indexOf(key, searchFrom);
+                    if (index < 0) {
+                        // 字段名可能跨 delta 边界，保留末尾不足一个字段名长度的部分下次再找
+                        searchFrom = Math.max(searchFrom, buffer.length() - key.length() + 1);
+                        return null;
+                    }
+                    candidate = index;
+                }
+                Matcher m = pattern.matcher(buffer).region(candidate, buffer.length());
+                if (m.lookingAt()) {
+                    return m.group(1);
+                }
+                if (m.hitEnd()) {
+                    return null;
+                }
+                searchFrom = candidate + 1;
+                candidate = -1;
+            }
+        }
+    }
+
+    /**
+     * 已提取到的字段
+     */
+    @Data
+    public static class PartialResult {
+        private Integer score;
+        private Double confidence;
+        private String businessCategory;
+
+        public boolean isComplete() {
+            return score != null && confidence != null && businessCategory != null;
+        }
+    }
+}
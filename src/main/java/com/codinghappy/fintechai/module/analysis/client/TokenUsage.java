@@ -0,0 +1,39 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import com.codinghappy.fintechai.common.util.TokenEstimator;
+
+/**
+ * 响应 usage 块：Prompt / 输出 Token 数与 Prompt 缓存命中情况
+ * DeepSeek 对命中缓存的 Prompt 前缀按折扣计费且首 Token 更快；字段缺失时为 0。
+ */
+public record TokenUsage(int promptTokens, int completionTokens,
+                         int promptCacheHitTokens, int promptCacheMissTokens) {
+
+    public static final TokenUsage EMPTY = new TokenUsage(0, 0, 0, 0);
+
+    /**
+     * 响应没有 usage 时的本地估算：Prompt 与输出各自按 {@link TokenEstimator} 估算，缓存命中按 0 计
+     */
+    public static TokenUsage estimate(String prompt, String completion) {
+        return new TokenUsage(TokenEstimator.estimate(prompt), TokenEstimator.estimate(completion), 0, 0);
+    }
+
+    /**
+     * 命中率（命中 / (命中 + 未命中)），没有数据时为 0
+     */
+    public double cacheHitRatio() {
+        int total = promptCacheHitTokens + promptCacheMissTokens;
+        return total == 0 ? 0 : (double) promptCacheHitTokens / total;
+    }
+
+    /**
+     * 按份数均摊（打包调用拆到每家公司）
+     */
+    public TokenUsage share(int shares) {
+        if (shares <= 1) {
+            return this;
+        }
+        return new TokenUsage(promptTokens / shares, completionTokens / shares,
+                promptCacheHitTokens / shares, promptCacheMissTokens / shares);
+    }
+}
@@ -1,15 +1,35 @@
 package com.codinghappy.fintechai.module.analysis.controller;
 
+import com.codinghappy.fintechai.module.analysis.batch.BatchJob;
+import com.codinghappy.fintechai.module.analysis.batch.BatchJobService;
+import com.codinghappy.fintechai.module.analysis.cache.AnalysisResponseCache;
+import com.codinghappy.fintechai.module.analysis.client.AdaptiveConcurrencyLimiter;
+import com.codinghappy.fintechai.module.analysis.client.DeepSeekCircuitBreaker;
+import com.codinghappy.fintechai.module.analysis.client.LlmEndpointPool;
+import com.codinghappy.fintechai.module.analysis.deadletter.DeadLetterStore;
+import com.codinghappy.fintechai.module.analysis.dedup.NearDuplicateResolver;
 import com.codinghappy.fintechai.module.analysis.dto.AnalysisRequest;
+import com.codinghappy.fintechai.module.analysis.learning.LearnedLeadScorer;
+import com.codinghappy.fintechai.module.analysis.prompt.PromptTemplateRegistry;
 import com.codinghappy.fintechai.module.analysis.service.DeepSeekAnalysisService;
+import com.codinghappy.fintechai.module.analysis.service.StrategyCascade;
+import com.codinghappy.fintechai.module.analysis.usage.LlmUsageRecorder;
+import com.codinghappy.fintechai.module.analysis.usage.UsageAttribution;
 import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -19,7 +39,17 @@ import java.util.List;
 @Validated
 public class AnalysisController {
 
+    private static final String BATCH_ID_HEADER = "X-Batch-Id";
+    private static final int MAX_COST_RANGE_DAYS = 366;
+
     private final DeepSeekAnalysisService analysisService;
+    private final LearnedLeadScorer learnedLeadScorer;
+    private final LlmEndpointPool endpointPool;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final DeadLetterStore deadLetterStore;
+    private final BatchJobService batchJobService;
+    private final PromptTemplateRegistry promptTemplates;
+    private final LlmUsageRecorder usageRecorder;
     // private final RateLimitService rateLimitService; // 暂时注释
 
     /**
@@ -45,16 +75,17 @@ public class AnalysisController {
     }
 
     /**
-     * 批量分析公司
+     * 批量分析公司；响应头 X-Batch-Id 为本批次的费用归属 ID
      */
     @PostMapping("/batch")
     public ResponseEntity<List<AnalysisResultEntity>> analyzeBatch(
             @Valid @RequestBody List<AnalysisRequest> requests) {
         log.info("🚀 批量分析请求，数量: {}", requests.size());
 
-        try {
+        String batchId = UsageAttribution.newBatchId();
+        try (UsageAttribution.Scope ignored = UsageAttribution.attach(batchId, null)) {
             List<AnalysisResultEntity> results = analysisService.batchAnalyze(requests);
-            return ResponseEntity.ok(results);
+            return ResponseEntity.ok().header(BATCH_ID_HEADER, batchId).body(results);
         } catch (Exception e) {
             log.error("批量分析失败", e);
             return ResponseEntity.internalServerError().build();
@@ -62,13 +93,175 @@ public class AnalysisController {
     }
 
     /**
-     * 清空分析缓存 (临时实现，防止报错)
+     * 提交异步批量分析任务，立即返回任务 ID；concurrency 为该任务同时分析的公司数
+     */
+    @PostMapping("/batch/jobs")
+    public ResponseEntity<BatchJob.BatchJobStatus> submitBatchJob(
+            @Valid @RequestBody List<AnalysisRequest> requests,
+            @RequestParam(required = false) Integer concurrency) {
+        try {
+            BatchJob job = batchJobService.submit(requests, concurrency);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/analysis/batch/jobs/" + job.getId()))
+                    .body(job.getStatus());
+        } catch (IllegalArgumentException e) {
+            log.warn("批量分析任务参数无效: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (TaskRejectedException e) {
+            log.warn("批量分析任务被拒绝: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * 批量分析任务进度
+     */
+    @GetMapping("/batch/jobs/{jobId}")
+    public ResponseEntity<BatchJob.BatchJobStatus> batchJobStatus(@PathVariable String jobId) {
+        return batchJobService.find(jobId)
+                .map(job -> ResponseEntity.ok(job.getStatus()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 批量分析结果流（NDJSON，每完成一家输出一行）；from 为起始偏移量，断线后可从已收到的行数继续
+     */
+    @GetMapping(value = "/batch/jobs/{jobId}/results", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> batchJobResults(@PathVariable String jobId,
+                                                                 @RequestParam(defaultValue = "0") int from) {
+        return batchJobService.find(jobId)
+                .map(job -> ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                        .body((StreamingResponseBody) out -> batchJobService.streamResults(job, from, out)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 清空分析缓存（本地 + Redis）
      */
     @PostMapping("/cache/clear")
-    public ResponseEntity<Void> clearCache() {
-        log.info("清空分析缓存 (暂未实现具体逻辑)");
-        // analysisService.clearCache();
-        return ResponseEntity.ok().build();
+    public ResponseEntity<String> clearCache() {
+        long deleted = analysisService.clearCache();
+        log.info("清空分析缓存，Redis 删除 {} 个键", deleted);
+        return ResponseEntity.ok(String.format("✅ 分析缓存已清空，Redis 删除 %d 个键", deleted));
+    }
+
+    /**
+     * 缓存命中统计
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<AnalysisResponseCache.CacheStatus> cacheStats() {
+        return ResponseEntity.ok(analysisService.getCacheStatus());
+    }
+
+    /**
+     * 关键词策略级联统计（本地定论数与跳过 LLM 的比例）
+     */
+    @GetMapping("/cascade/stats")
+    public ResponseEntity<StrategyCascade.CascadeStats> cascadeStats() {
+        return ResponseEntity.ok(analysisService.getCascadeStats());
+    }
+
+    /**
+     * 近似重复复用统计（索引规模与复用率）
+     */
+    @GetMapping("/simhash/stats")
+    public ResponseEntity<NearDuplicateResolver.SimHashStats> simHashStats() {
+        return ResponseEntity.ok(analysisService.getSimHashStats());
+    }
+
+    /**
+     * LLM 端点池状态（各端点健康状态、在途请求数与请求结果计数）
+     */
+    @GetMapping("/endpoints/stats")
+    public ResponseEntity<List<LlmEndpointPool.EndpointStats>> endpointStats() {
+        return ResponseEntity.ok(endpointPool.getStats());
+    }
+
+    /**
+     * DeepSeek 熔断器状态
+     */
+    @GetMapping("/circuit/stats")
+    public ResponseEntity<DeepSeekCircuitBreaker.CircuitStats> circuitStats() {
+        return ResponseEntity.ok(analysisService.getCircuitStats());
+    }
+
+    /**
+     * DeepSeek 自适应并发限制状态（当前上限、在途数、排队数与拒绝次数）
+     */
+    @GetMapping("/concurrency/stats")
+    public ResponseEntity<AdaptiveConcurrencyLimiter.LimiterStats> concurrencyStats() {
+        return ResponseEntity.ok(concurrencyLimiter.getStats());
+    }
+
+    /**
+     * 分析死信队列状态（待重放 / 已放弃 / 已恢复，以及待重放的失败分类分布）
+     */
+    @GetMapping("/dead-letter/stats")
+    public ResponseEntity<DeadLetterStore.DeadLetterStats> deadLetterStats() {
+        return ResponseEntity.ok(deadLetterStore.getStats());
+    }
+
+    /**
+     * 已编译的 Prompt 模板（名称、版本、槽位数、静态片段长度，以及当前使用的模板）
+     */
+    @GetMapping("/prompt-templates")
+    public ResponseEntity<List<PromptTemplateRegistry.TemplateInfo>> promptTemplates() {
+        return ResponseEntity.ok(promptTemplates.list());
+    }
+
+    /**
+     * 切换完整报告使用的 Prompt 模板（重启后恢复为配置中的 active）
+     */
+    @PostMapping("/prompt-templates/active")
+    public ResponseEntity<List<PromptTemplateRegistry.TemplateInfo>> activatePromptTemplate(@RequestParam String name) {
+        try {
+            promptTemplates.activate(name);
+            return ResponseEntity.ok(promptTemplates.list());
+        } catch (IllegalArgumentException e) {
+            log.warn("切换 Prompt 模板失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * LLM 费用汇总：group-by 为 batch / day / order，日期范围默认最近 30 天（含首尾）
+     */
+    @GetMapping("/usage/cost")
+    public ResponseEntity<LlmUsageRecorder.CostReport> usageCost(
+            @RequestParam(name = "group-by", defaultValue = "day") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LlmUsageRecorder.GroupBy group;
+        try {
+            group = LlmUsageRecorder.GroupBy.valueOf(groupBy.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end) || start.plusDays(MAX_COST_RANGE_DAYS).isBefore(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(usageRecorder.summarize(group, start, end));
+    }
+
+    /**
+     * 本地评分模型离线评估：在留出集上对比 DeepSeek，给出各置信度阈值下的覆盖率与一致率
+     */
+    @GetMapping("/learned/evaluate")
+    public ResponseEntity<LearnedLeadScorer.EvaluationReport> evaluateLearnedScorer() {
+        LearnedLeadScorer.EvaluationReport report = learnedLeadScorer.evaluate();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 立即重新训练本地评分模型
+     */
+    @PostMapping("/learned/retrain")
+    public ResponseEntity<LearnedLeadScorer.EvaluationReport> retrainLearnedScorer() {
+        LearnedLeadScorer.EvaluationReport report = learnedLeadScorer.retrain();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
     }
 
     /**
@@ -0,0 +1,130 @@
+package com.codinghappy.fintechai.module.analysis.deadletter;
+
+import com.codinghappy.fintechai.module.analysis.client.DeepSeekCircuitBreaker;
+import com.codinghappy.fintechai.module.analysis.service.DeepSeekAnalysisService;
+import com.codinghappy.fintechai.repository.AnalysisResultRepository;
+import com.codinghappy.fintechai.repository.CompanyRepository;
+import com.codinghappy.fintechai.repository.entity.AnalysisDeadLetterEntity;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 死信重放：按 next_attempt_at 先后取出到期的死信，逐条以受控速率重新分析。
+ * 重放失败由 DeepSeekAnalysisService 再次写入死信（次数 +1，按失败分类退避）；
+ * 熔断器打开时整批跳过，避免重放流量冲击尚未恢复的 DeepSeek。
+ */
+@Slf4j
+@Component
+public class DeadLetterReplayer {
+
+    @Autowired
+    private DeadLetterStore deadLetterStore;
+
+    @Autowired
+    private DeepSeekAnalysisService deepSeekAnalysisService;
+
+    @Autowired
+    private DeepSeekCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private AnalysisResultRepository analysisResultRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 相邻两次重放之间的最小间隔，控制重放速率
+    @Value("${finance.analysis.dead-letter.replay-min-interval-millis:2000}")
+    private long minIntervalMillis;
+
+    /**
+     * 重放最多 maxItems 条到期死信
+     */
+    public ReplayReport replay(int maxItems) {
+        if (!deadLetterStore.isEnabled()) {
+            return new ReplayReport(0, 0, 0, 0);
+        }
+        if (circuitBreaker.isOpen()) {
+            log.info("DeepSeek 熔断中，本轮死信重放跳过");
+            return new ReplayReport(0, 0, 0, 0);
+        }
+
+        List<AnalysisDeadLetterEntity> due = deadLetterStore.findDue(maxItems);
+        int recovered = 0;
+        int failed = 0;
+        int discarded = 0;
+        long lastCallAt = 0;
+
+        for (AnalysisDeadLetterEntity letter : due) {
+            CompanyEntity company = companyRepository.findById(letter.getCompanyId()).orElse(null);
+            if (company == null || company.getDescription() == null) {
+                deadLetterStore.resolve(letter);
+                count("discarded");
+                discarded++;
+                continue;
+            }
+            // 期间已被其他入口成功分析的，直接标记恢复
+            AnalysisResultEntity latest = analysisResultRepository.findTopByCompanyIdOrderByAnalysisTimeDesc(company.getId());
+            if (latest != null && Boolean.TRUE.equals(latest.getSuccess())) {
+                deadLetterStore.resolve(letter);
+                count("already_analyzed");
+                recovered++;
+                continue;
+            }
+
+            long wait = lastCallAt + minIntervalMillis - System.currentTimeMillis();
+            if (wait > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            lastCallAt = System.currentTimeMillis();
+
+            try {
+                deepSeekAnalysisService.analyzeCompany(company.getId(), company.getName(), company.getDescription());
+                deadLetterStore.resolve(letter);
+                count("recovered");
+                recovered++;
+            } catch (Exception e) {
+                count("failed");
+                failed++;
+                log.warn("死信重放失败: {} (第 {} 次)", company.getName(), letter.getAttempts() + 1);
+            }
+
+            // 重放过程中触发熔断，剩余死信留待下一轮
+            if (circuitBreaker.isOpen()) {
+                log.warn("死信重放过程中 DeepSeek 熔断，剩余死信留待下次");
+                break;
+            }
+        }
+        return new ReplayReport(due.size(), recovered, failed, discarded);
+    }
+
+    private void count(String outcome) {
+        Counter.builder("analysis.dead_letter.replayed").tag("outcome", outcome)
+                .register(meterRegistry).increment();
+    }
+
+    @Data
+    public static class ReplayReport {
+        private final int due;
+        private final int recovered;
+        private final int failed;
+        private final int discarded;
+    }
+}
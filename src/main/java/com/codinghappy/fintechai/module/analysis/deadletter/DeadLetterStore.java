@@ -0,0 +1,184 @@
+package com.codinghappy.fintechai.module.analysis.deadletter;
+
+import com.codinghappy.fintechai.repository.AnalysisDeadLetterRepository;
+import com.codinghappy.fintechai.repository.entity.AnalysisDeadLetterEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 分析失败死信存储（analysis_dead_letter 表）
+ * 每次失败按失败分类计算下次重放时间：初始延迟 × 2^(次数-1)，上限 max-delay-seconds，附加 ±20% 抖动；
+ * 超过该分类的最大尝试次数后标记为 EXHAUSTED，不再自动重放。
+ */
+@Slf4j
+@Component
+public class DeadLetterStore {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final AnalysisDeadLetterRepository deadLetterRepository;
+    private final MeterRegistry meterRegistry;
+    private final Map<FailureClass, Backoff> backoffs = new EnumMap<>(FailureClass.class);
+
+    @Value("${finance.analysis.dead-letter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${finance.analysis.dead-letter.max-delay-seconds:21600}")
+    private long maxDelaySeconds;
+
+    public DeadLetterStore(AnalysisDeadLetterRepository deadLetterRepository, MeterRegistry meterRegistry,
+                           Environment environment) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.meterRegistry = meterRegistry;
+
+        // finance.analysis.dead-letter.backoff.<分类>.{initial-delay-seconds, max-attempts} 覆盖默认值
+        Map<String, Backoff> configured = Binder.get(environment)
+                .bind("finance.analysis.dead-letter.backoff", Bindable.mapOf(String.class, Backoff.class))
+                .orElse(Map.of());
+        for (FailureClass failureClass : FailureClass.values()) {
+            Backoff backoff = configured.getOrDefault(failureClass.name().toLowerCase().replace('_', '-'),
+                    configured.get(failureClass.name()));
+            Backoff resolved = new Backoff();
+            resolved.setInitialDelaySeconds(backoff != null && backoff.getInitialDelaySeconds() != null
+                    ? backoff.getInitialDelaySeconds() : failureClass.getDefaultInitialDelaySeconds());
+            resolved.setMaxAttempts(backoff != null && backoff.getMaxAttempts() != null
+                    ? backoff.getMaxAttempts() : failureClass.getDefaultMaxAttempts());
+            backoffs.put(failureClass, resolved);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("analysis.dead_letter.pending", deadLetterRepository,
+                        r -> r.countByStatus(AnalysisDeadLetterEntity.STATUS_PENDING))
+                .register(meterRegistry);
+        log.info("分析死信队列: {}，退避策略: {}", enabled ? "开启" : "关闭", backoffs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录一次失败；同一公司的死信累加次数并重新计算下次重放时间
+     */
+    public AnalysisDeadLetterEntity record(Long companyId, Throwable error) {
+        if (!enabled || companyId == null) {
+            return null;
+        }
+        FailureClass failureClass = FailureClass.classify(error);
+        Backoff backoff = backoffs.get(failureClass);
+        LocalDateTime now = LocalDateTime.now();
+
+        AnalysisDeadLetterEntity letter = deadLetterRepository.findByCompanyId(companyId)
+                .orElseGet(() -> AnalysisDeadLetterEntity.builder()
+                        .companyId(companyId)
+                        .attempts(0)
+                        .firstFailedAt(now)
+                        .build());
+        // 已恢复的公司再次失败，重新开始计数
+        if (AnalysisDeadLetterEntity.STATUS_RESOLVED.equals(letter.getStatus())) {
+            letter.setAttempts(0);
+            letter.setFirstFailedAt(now);
+        }
+
+        int attempts = letter.getAttempts() + 1;
+        letter.setAttempts(attempts);
+        letter.setFailureClass(failureClass.name());
+        letter.setErrorMessage(truncate(error.getMessage()));
+        letter.setLastFailedAt(now);
+
+        if (attempts >= backoff.getMaxAttempts()) {
+            letter.setStatus(AnalysisDeadLetterEntity.STATUS_EXHAUSTED);
+            letter.setNextAttemptAt(null);
+            log.warn("☠️ 公司 {} 分析失败 {} 次（{}），不再自动重放", companyId, attempts, failureClass);
+        } else {
+            letter.setStatus(AnalysisDeadLetterEntity.STATUS_PENDING);
+            letter.setNextAttemptAt(now.plusSeconds(delaySeconds(backoff, attempts)));
+        }
+
+        Counter.builder("analysis.dead_letter.recorded").tag("failure_class", failureClass.name())
+                .register(meterRegistry).increment();
+        return deadLetterRepository.save(letter);
+    }
+
+    /**
+     * 标记为已恢复
+     */
+    public void resolve(AnalysisDeadLetterEntity letter) {
+        letter.setStatus(AnalysisDeadLetterEntity.STATUS_RESOLVED);
+        letter.setNextAttemptAt(null);
+        deadLetterRepository.save(letter);
+    }
+
+    public List<AnalysisDeadLetterEntity> findDue(int limit) {
+        return deadLetterRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                AnalysisDeadLetterEntity.STATUS_PENDING, LocalDateTime.now(),
+                PageRequest.of(0, limit));
+    }
+
+    public List<Long> findUnresolvedCompanyIds() {
+        return enabled ? deadLetterRepository.findUnresolvedCompanyIds() : List.of();
+    }
+
+    public DeadLetterStats getStats() {
+        Map<String, Long> pendingByClass = new LinkedHashMap<>();
+        for (Object[] row : deadLetterRepository.countByFailureClass(AnalysisDeadLetterEntity.STATUS_PENDING)) {
+            pendingByClass.put((String) row[0], (Long) row[1]);
+        }
+        return new DeadLetterStats(
+                deadLetterRepository.countByStatus(AnalysisDeadLetterEntity.STATUS_PENDING),
+                deadLetterRepository.countByStatus(AnalysisDeadLetterEntity.STATUS_EXHAUSTED),
+                deadLetterRepository.countByStatus(AnalysisDeadLetterEntity.STATUS_RESOLVED),
+                pendingByClass
+        );
+    }
+
+    private long delaySeconds(Backoff backoff, int attempts) {
+        long base = backoff.getInitialDelaySeconds() << Math.min(attempts - 1, 20);
+        long capped = Math.min(maxDelaySeconds, base);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Math.max(1, (long) (capped * jitter));
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    /**
+     * 单个失败分类的退避配置
+     */
+    @Data
+    public static class Backoff {
+        private Long initialDelaySeconds;
+        private Integer maxAttempts;
+    }
+
+    @Data
+    public static class DeadLetterStats {
+        private final long pending;
+        private final long exhausted;
+        private final long resolved;
+        private final Map<String, Long> pendingByFailureClass;
+    }
+}
@@ -0,0 +1,82 @@
+package com.codinghappy.fintechai.module.analysis.deadletter;
+
+import com.codinghappy.fintechai.common.deadline.DeadlineExceededException;
+import com.codinghappy.fintechai.module.analysis.exception.AnalysisException;
+import com.codinghappy.fintechai.module.analysis.exception.CircuitOpenException;
+import com.codinghappy.fintechai.module.analysis.exception.RateLimitException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+/**
+ * 分析失败分类，每类有各自的默认重放退避与最大尝试次数（可在 yaml 中覆盖）
+ */
+public enum FailureClass {
+
+    // 429 或本地限流：很快会恢复
+    RATE_LIMITED(60, 8),
+    // DeepSeek 5xx
+    SERVER_ERROR(300, 6),
+    // 连接 / 读取超时、408、调用方截止时间已过
+    TIMEOUT(120, 6),
+    // 熔断打开且未开启降级
+    CIRCUIT_OPEN(300, 10),
+    // 响应无法解析成有效结果，换个时间再试一次两次即可
+    PARSE_ERROR(600, 3),
+    // 其余 4xx：请求本身有问题，重放一次确认后放弃
+    CLIENT_ERROR(3600, 2),
+    UNKNOWN(600, 3);
+
+    // 解析失败的错误码（AnalysisException.errorCode）
+    public static final String PARSE_ERROR_CODE = "PARSE_001";
+
+    private final long defaultInitialDelaySeconds;
+    private final int defaultMaxAttempts;
+
+    FailureClass(long defaultInitialDelaySeconds, int defaultMaxAttempts) {
+        this.defaultInitialDelaySeconds = defaultInitialDelaySeconds;
+        this.defaultMaxAttempts = defaultMaxAttempts;
+    }
+
+    public long getDefaultInitialDelaySeconds() {
+        return defaultInitialDelaySeconds;
+    }
+
+    public int getDefaultMaxAttempts() {
+        return defaultMaxAttempts;
+    }
+
+    /**
+     * 沿 cause 链找到第一个能识别的异常
+     */
+    public static FailureClass classify(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof RestClientResponseException responseException) {
+                int status = responseException.getStatusCode().value();
+                if (status == 429) {
+                    return RATE_LIMITED;
+                }
+                if (status == 408) {
+                    return TIMEOUT;
+                }
+                return status >= 500 ? SERVER_ERROR : CLIENT_ERROR;
+            }
+            if (e instanceof ResourceAccessException || e instanceof DeadlineExceededException) {
+                return TIMEOUT;
+            }
+            if (e instanceof RateLimitException) {
+                return RATE_LIMITED;
+            }
+            if (e instanceof CircuitOpenException) {
+                return CIRCUIT_OPEN;
+            }
+            if (e instanceof AnalysisException analysisException
+                    && PARSE_ERROR_CODE.equals(analysisException.getErrorCode())) {
+                return PARSE_ERROR;
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return UNKNOWN;
+    }
+}
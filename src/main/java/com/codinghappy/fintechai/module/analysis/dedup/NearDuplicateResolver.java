@@ -0,0 +1,165 @@
+package com.codinghappy.fintechai.module.analysis.dedup;
+
+import com.codinghappy.fintechai.common.util.SimHash;
+import com.codinghappy.fintechai.module.analysis.service.DeepSeekAnalysisService;
+import com.codinghappy.fintechai.repository.AnalysisResultRepository;
+import com.codinghappy.fintechai.repository.CompanyRepository;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 近似重复描述复用
+ * 已由 DeepSeek 分析过的公司按描述 SimHash 建立分段索引；新描述与某个已分析描述的海明距离
+ * 不超过 max-distance 时，直接复用对方的分析结果，不再调用 LLM。
+ */
+@Slf4j
+@Component
+public class NearDuplicateResolver {
+
+    public static final String MODEL_NAME = "simhash-reuse";
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final SimHashIndex index = new SimHashIndex();
+    private final AnalysisResultRepository analysisResultRepository;
+    private final CompanyRepository companyRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${finance.analysis.simhash.enabled:true}")
+    private boolean enabled;
+
+    // 判定为近似重复的最大海明距离（不能超过分段数 - 1）
+    @Value("${finance.analysis.simhash.max-distance:3}")
+    private int maxDistance;
+
+    private Counter reusedCounter;
+    private Counter missCounter;
+
+    public NearDuplicateResolver(AnalysisResultRepository analysisResultRepository,
+                                 CompanyRepository companyRepository,
+                                 MeterRegistry meterRegistry) {
+        this.analysisResultRepository = analysisResultRepository;
+        this.companyRepository = companyRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        maxDistance = Math.min(maxDistance, SimHashIndex.BANDS - 1);
+        reusedCounter = Counter.builder("analysis.simhash.lookups").tag("result", "reused").register(meterRegistry);
+        missCounter = Counter.builder("analysis.simhash.lookups").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("analysis.simhash.index.size", index, SimHashIndex::size).register(meterRegistry);
+        Gauge.builder("analysis.simhash.reuse_rate", this, r -> r.getStats().getReuseRate()).register(meterRegistry);
+    }
+
+    /**
+     * 启动后在后台把已有的 DeepSeek 分析结果载入索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                Set<Long> companyIds = new LinkedHashSet<>();
+                int page = 0;
+                Page<AnalysisResultEntity> rows;
+                do {
+                    rows = analysisResultRepository.findSuccessfulByModel(DeepSeekAnalysisService.RESULT_MODEL,
+                            PageRequest.of(page++, PAGE_SIZE, Sort.by("id")));
+                    rows.forEach(r -> companyIds.add(r.getCompanyId()));
+                } while (rows.hasNext());
+
+                for (CompanyEntity company : companyRepository.findAllById(companyIds)) {
+                    Long fingerprint = company.getDescriptionSimhash() != null
+                            ? company.getDescriptionSimhash()
+                            : SimHash.fingerprint(company.getName(), company.getDescription());
+                    if (fingerprint != null) {
+                        index.add(company.getId(), fingerprint);
+                    }
+                }
+                log.info("SimHash 索引预热完成，已索引 {} 家公司，耗时 {}ms", index.size(), System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.warn("SimHash 索引预热失败: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 查找可复用的近似重复分析；没有时返回 null
+     */
+    public Reuse findReusable(Long companyId, String companyName, String description) {
+        if (!enabled) {
+            return null;
+        }
+        Long fingerprint = SimHash.fingerprint(companyName, description);
+        if (fingerprint == null) {
+            return null;
+        }
+
+        SimHashIndex.Match match = index.findNearest(fingerprint, maxDistance, companyId);
+        if (match != null) {
+            AnalysisResultEntity source = analysisResultRepository.findTopByCompanyIdOrderByAnalysisTimeDesc(match.companyId());
+            if (source != null && Boolean.TRUE.equals(source.getSuccess())
+                    && DeepSeekAnalysisService.RESULT_MODEL.equals(source.getAnalysisModel())) {
+                reusedCounter.increment();
+                return new Reuse(source, match.distance());
+            }
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * DeepSeek 分析成功后登记到索引，供后续近似描述复用
+     */
+    public void register(Long companyId, String companyName, String description) {
+        if (!enabled || companyId == null) {
+            return;
+        }
+        Long fingerprint = SimHash.fingerprint(companyName, description);
+        if (fingerprint != null) {
+            index.add(companyId, fingerprint);
+        }
+    }
+
+    public SimHashStats getStats() {
+        return new SimHashStats(index.size(), (long) reusedCounter.count(), (long) missCounter.count());
+    }
+
+    /**
+     * 可复用的分析结果及其与当前描述的海明距离
+     */
+    public record Reuse(AnalysisResultEntity source, int distance) {}
+
+    @Data
+    public static class SimHashStats {
+        private final int indexSize;
+        private final long reused;
+        private final long missed;
+
+        public double getReuseRate() {
+            long total = reused + missed;
+            return total > 0 ? (double) reused / total : 0;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.codinghappy.fintechai.module.analysis.dedup;
+
+import com.codinghappy.fintechai.common.util.SimHash;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SimHash 分段索引
+ * 64 位指纹切成 BANDS 段，每段作为一个桶键。根据抽屉原理，
+ * 海明距离小于 BANDS 的两个指纹至少有一段完全相同，因此只需比较同桶候选。
+ */
+public class SimHashIndex {
+
+    public static final int BANDS = 4;
+    private static final int BAND_BITS = SimHash.BITS / BANDS;
+    private static final long BAND_MASK = (1L << BAND_BITS) - 1;
+
+    // 桶键：段号在高位、段值在低位
+    private final Map<Long, List<Entry>> buckets = new ConcurrentHashMap<>();
+    private final Map<Long, Long> fingerprintByCompany = new ConcurrentHashMap<>();
+
+    public void add(Long companyId, long fingerprint) {
+        Long previous = fingerprintByCompany.put(companyId, fingerprint);
+        if (previous != null && previous == fingerprint) {
+            return;
+        }
+        if (previous != null) {
+            remove(companyId, previous);
+        }
+        Entry entry = new Entry(companyId, fingerprint);
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bucketKey(band, fingerprint), k -> new CopyOnWriteArrayList<>()).add(entry);
+        }
+    }
+
+    /**
+     * 查找海明距离不超过 maxDistance（且小于 BANDS）的最近指纹，排除 excludeCompanyId 本身
+     */
+    public Match findNearest(long fingerprint, int maxDistance, Long excludeCompanyId) {
+        Match best = null;
+        for (int band = 0; band < BANDS; band++) {
+            List<Entry> candidates = buckets.get(bucketKey(band, fingerprint));
+            if (candidates == null) {
+                continue;
+            }
+            for (Entry candidate : candidates) {
+                if (candidate.companyId().equals(excludeCompanyId)) {
+                    continue;
+                }
+                int distance = SimHash.distance(fingerprint, candidate.fingerprint());
+                if (distance <= maxDistance && (best == null || distance < best.distance())) {
+                    best = new Match(candidate.companyId(), distance);
+                    if (distance == 0) {
+                        return best;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    public int size() {
+        return fingerprintByCompany.size();
+    }
+
+    private void remove(Long companyId, long fingerprint) {
+        for (int band = 0; band < BANDS; band++) {
+            List<Entry> bucket = buckets.get(bucketKey(band, fingerprint));
+            if (bucket != null) {
+                bucket.removeIf(e -> e.companyId().equals(companyId));
+            }
+        }
+    }
+
+    private static long bucketKey(int band, long fingerprint) {
+        return ((long) band << BAND_BITS) | ((fingerprint >>> (band * BAND_BITS)) & BAND_MASK);
+    }
+
+    private record Entry(Long companyId, long fingerprint) {}
+
+    public record Match(Long companyId, int distance) {}
+}
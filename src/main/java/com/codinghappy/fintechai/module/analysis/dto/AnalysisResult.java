@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -36,6 +37,15 @@ public class AnalysisResult {
     /** 分析理由 */
     private String analysisReason;
 
+    /** 命中的正向关键词数（本地策略分析时填充） */
+    private Integer keywordHits;
+
+    /** 命中的否定关键词数（本地策略分析时填充） */
+    private Integer negativeHits;
+
+    /** 各业务类型的策略评分（组合策略评分时填充） */
+    private Map<BusinessType, Integer> typeScores;
+
     /** 原始API响应 */
     private String rawResponse;
 
@@ -0,0 +1,11 @@
+package com.codinghappy.fintechai.module.analysis.exception;
+
+/**
+ * DeepSeek 熔断器处于打开状态，调用被直接拒绝
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,111 @@
+package com.codinghappy.fintechai.module.analysis.learning;
+
+import java.util.Arrays;
+
+/**
+ * 字符 n-gram 哈希特征
+ * 描述统一小写、空白折叠后取字符 1~3-gram，用 FNV-1a 哈希到固定维度的桶中；
+ * 词频取 1 + log(tf) 后做 L2 归一化。不依赖分词，中英文混排的描述都能直接使用。
+ */
+public final class HashedNGramFeaturizer {
+
+    public static final int BITS = 18;
+    public static final int DIMENSIONS = 1 << BITS;
+
+    private static final int MIN_N = 1;
+    private static final int MAX_N = 3;
+    private static final int FNV_OFFSET = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private HashedNGramFeaturizer() {
+    }
+
+    public static SparseVector featurize(String text) {
+        if (text == null || text.isBlank()) {
+            return SparseVector.EMPTY;
+        }
+
+        char[] chars = normalize(text);
+        int length = chars.length;
+        int[] buckets = new int[Math.max(0, length * (MAX_N - MIN_N + 1))];
+        int count = 0;
+        for (int start = 0; start < length; start++) {
+            int hash = FNV_OFFSET;
+            for (int n = 1; n <= MAX_N && start + n <= length; n++) {
+                char c = chars[start + n - 1];
+                hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+                if (n >= MIN_N) {
+                    // 混入 n，避免不同长度的 gram 共享同一前缀哈希
+                    buckets[count++] = ((hash ^ n) * FNV_PRIME) & (DIMENSIONS - 1);
+                }
+            }
+        }
+
+        Arrays.sort(buckets, 0, count);
+        int[] indices = new int[count];
+        float[] values = new float[count];
+        int unique = 0;
+        double norm = 0;
+        for (int i = 0; i < count; ) {
+            int j = i;
+            while (j < count && buckets[j] == buckets[i]) {
+                j++;
+            }
+            float value = (float) (1 + Math.log(j - i));
+            indices[unique] = buckets[i];
+            values[unique] = value;
+            norm += value * value;
+            unique++;
+            i = j;
+        }
+
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < unique; i++) {
+            values[i] *= scale;
+        }
+        return new SparseVector(Arrays.copyOf(indices, unique), Arrays.copyOf(values, unique));
+    }
+
+    private static char[] normalize(String text) {
+        char[] out = new char[text.length()];
+        int length = 0;
+        boolean lastSpace = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (!lastSpace) {
+                    out[length++] = ' ';
+                    lastSpace = true;
+                }
+                continue;
+            }
+            out[length++] = Character.toLowerCase(c);
+            lastSpace = false;
+        }
+        if (length > 0 && out[length - 1] == ' ') {
+            length--;
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    /**
+     * 稀疏向量：indices 升序、不重复
+     */
+    public record SparseVector(int[] indices, float[] values) {
+
+        public static final SparseVector EMPTY = new SparseVector(new int[0], new float[0]);
+
+        public double dot(float[] weights) {
+            double sum = 0;
+            for (int i = 0; i < indices.length; i++) {
+                sum += weights[indices[i]] * values[i];
+            }
+            return sum;
+        }
+
+        public boolean isEmpty() {
+            return indices.length == 0;
+        }
+    }
+}
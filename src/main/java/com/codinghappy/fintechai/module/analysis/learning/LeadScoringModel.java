@@ -0,0 +1,190 @@
+package com.codinghappy.fintechai.module.analysis.learning;
+
+import com.codinghappy.fintechai.module.analysis.learning.HashedNGramFeaturizer.SparseVector;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 线索评分模型：哈希 n-gram 特征上的三组线性头，全部用 SGD 训练
+ * - 高意向头（逻辑回归）：评分 >= highScore 的概率，max(p, 1 - p) 作为模型置信度
+ * - 评分头（线性回归）：预测 1~10 分
+ * - 业务分类头（一对多逻辑回归）：只覆盖训练集中出现最多的若干个分类
+ *
+ * 训练完成后不可变，预测只读权重数组，可被多线程共享。
+ */
+public final class LeadScoringModel {
+
+    private final int highScore;
+    private final float[] intentWeights;
+    private final float intentBias;
+    private final float[] scoreWeights;
+    private final float scoreBias;
+    private final List<String> categories;
+    private final float[][] categoryWeights;
+    private final float[] categoryBias;
+    private final int trainingSize;
+    private final LocalDateTime trainedAt;
+
+    private LeadScoringModel(int highScore, float[] intentWeights, float intentBias,
+                             float[] scoreWeights, float scoreBias, List<String> categories,
+                             float[][] categoryWeights, float[] categoryBias, int trainingSize) {
+        this.highScore = highScore;
+        this.intentWeights = intentWeights;
+        this.intentBias = intentBias;
+        this.scoreWeights = scoreWeights;
+        this.scoreBias = scoreBias;
+        this.categories = categories;
+        this.categoryWeights = categoryWeights;
+        this.categoryBias = categoryBias;
+        this.trainingSize = trainingSize;
+        this.trainedAt = LocalDateTime.now();
+    }
+
+    public Prediction predict(String description) {
+        SparseVector x = HashedNGramFeaturizer.featurize(description);
+
+        double probability = sigmoid(x.dot(intentWeights) + intentBias);
+        double rawScore = 1 + 9 * (x.dot(scoreWeights) + scoreBias);
+        int score = (int) Math.max(1, Math.min(10, Math.round(rawScore)));
+
+        String category = null;
+        double bestCategory = 0.5;
+        for (int k = 0; k < categories.size(); k++) {
+            double p = sigmoid(x.dot(categoryWeights[k]) + categoryBias[k]);
+            if (p > bestCategory) {
+                bestCategory = p;
+                category = categories.get(k);
+            }
+        }
+
+        return new Prediction(score, probability, Math.max(probability, 1 - probability),
+                probability >= 0.5, category);
+    }
+
+    public int getHighScore() {
+        return highScore;
+    }
+
+    public int getTrainingSize() {
+        return trainingSize;
+    }
+
+    public LocalDateTime getTrainedAt() {
+        return trainedAt;
+    }
+
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    /**
+     * 训练模型。样本顺序每轮用固定种子打乱，保证同样的数据训练出同样的模型。
+     */
+    public static LeadScoringModel train(List<TrainingExample> examples, TrainingOptions options) {
+        List<SparseVector> features = new ArrayList<>(examples.size());
+        examples.forEach(e -> features.add(HashedNGramFeaturizer.featurize(e.description())));
+
+        List<String> categories = topCategories(examples, options.maxCategories(), options.minCategorySupport());
+        int dims = HashedNGramFeaturizer.DIMENSIONS;
+        float[] intentWeights = new float[dims];
+        float[] scoreWeights = new float[dims];
+        float[][] categoryWeights = new float[categories.size()][dims];
+        float[] biases = new float[2 + categories.size()];
+
+        List<Integer> order = new ArrayList<>(examples.size());
+        for (int i = 0; i < examples.size(); i++) {
+            order.add(i);
+        }
+        Random random = new Random(42);
+
+        for (int epoch = 0; epoch < options.epochs(); epoch++) {
+            Collections.shuffle(order, random);
+            float rate = (float) (options.learningRate() / (1 + epoch * 0.5));
+
+            for (int i : order) {
+                SparseVector x = features.get(i);
+                TrainingExample example = examples.get(i);
+
+                // 逻辑回归与线性回归的梯度形式相同：(预测 - 目标) * x
+                double intentTarget = example.score() >= options.highScore() ? 1 : 0;
+                double intentError = sigmoid(x.dot(intentWeights) + biases[0]) - intentTarget;
+                biases[0] -= (float) (rate * intentError);
+                update(intentWeights, x, rate, intentError, options.l2());
+
+                double scoreTarget = (example.score() - 1) / 9.0;
+                double scoreError = x.dot(scoreWeights) + biases[1] - scoreTarget;
+                biases[1] -= (float) (rate * scoreError);
+                update(scoreWeights, x, rate, scoreError, options.l2());
+
+                for (int k = 0; k < categories.size(); k++) {
+                    double target = categories.get(k).equals(example.businessCategory()) ? 1 : 0;
+                    double error = sigmoid(x.dot(categoryWeights[k]) + biases[2 + k]) - target;
+                    biases[2 + k] -= (float) (rate * error);
+                    update(categoryWeights[k], x, rate, error, options.l2());
+                }
+            }
+        }
+
+        float[] categoryBias = new float[categories.size()];
+        System.arraycopy(biases, 2, categoryBias, 0, categories.size());
+        return new LeadScoringModel(options.highScore(), intentWeights, biases[0], scoreWeights, biases[1],
+                List.copyOf(categories), categoryWeights, categoryBias, examples.size());
+    }
+
+    private static void update(float[] weights, SparseVector x, float rate, double error, double l2) {
+        int[] indices = x.indices();
+        float[] values = x.values();
+        for (int j = 0; j < indices.length; j++) {
+            int index = indices[j];
+            // L2 正则只作用于本条样本涉及的权重（稀疏 SGD 的常用近似）
+            weights[index] -= (float) (rate * (error * values[j] + l2 * weights[index]));
+        }
+    }
+
+    private static List<String> topCategories(List<TrainingExample> examples, int maxCategories, int minSupport) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (TrainingExample example : examples) {
+            if (example.businessCategory() != null && !example.businessCategory().isBlank()) {
+                counts.merge(example.businessCategory(), 1, Integer::sum);
+            }
+        }
+        return counts.entrySet().stream()
+                .filter(e -> e.getValue() >= minSupport)
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(maxCategories)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static double sigmoid(double z) {
+        return 1 / (1 + Math.exp(-z));
+    }
+
+    /**
+     * 模型预测结果
+     */
+    public record Prediction(
+            int score,
+            double highIntentProbability,
+            double confidence,
+            boolean highIntent,
+            String businessCategory
+    ) {}
+
+    public record TrainingOptions(
+            int epochs,
+            double learningRate,
+            double l2,
+            int highScore,
+            int maxCategories,
+            int minCategorySupport
+    ) {}
+}
@@ -0,0 +1,280 @@
+package com.codinghappy.fintechai.module.analysis.learning;
+
+import com.codinghappy.fintechai.repository.AnalysisResultRepository;
+import com.codinghappy.fintechai.repository.CompanyRepository;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 本地学习型线索评分器
+ * 以 analysis_result 表中 DeepSeek 的历史结果为标签训练 {@link LeadScoringModel}，
+ * 模型置信度达到阈值时直接替代 LLM 给出结果。按公司 ID 固定划出一部分作为留出集，用于离线评估与 DeepSeek 的一致率。
+ */
+@Slf4j
+@Component
+public class LearnedLeadScorer {
+
+    public static final String MODEL_NAME = "learned-lr";
+
+    // 调整阈值时参考的候选置信度
+    private static final double[] EVALUATION_CUTOFFS = {0.6, 0.7, 0.8, 0.85, 0.9, 0.95};
+    private static final int PAGE_SIZE = 1000;
+
+    private final AnalysisResultRepository analysisResultRepository;
+    private final CompanyRepository companyRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${finance.analysis.learned.enabled:true}")
+    private boolean enabled;
+
+    // 模型置信度达到该值时替代 LLM
+    @Value("${finance.analysis.learned.min-confidence:0.9}")
+    private double minConfidence;
+
+    // 训练所用的 DeepSeek 结果行的 analysis_model
+    @Value("${finance.analysis.learned.label-model:deepseek-chat-v3}")
+    private String labelModel;
+
+    @Value("${finance.analysis.learned.min-training-rows:200}")
+    private int minTrainingRows;
+
+    @Value("${finance.analysis.learned.max-training-rows:20000}")
+    private int maxTrainingRows;
+
+    // 按公司 ID 取模划入留出集的比例（百分比）
+    @Value("${finance.analysis.learned.holdout-percent:20}")
+    private int holdoutPercent;
+
+    @Value("${finance.analysis.learned.high-score:7}")
+    private int highScore;
+
+    @Value("${finance.analysis.learned.epochs:6}")
+    private int epochs;
+
+    private volatile LeadScoringModel model;
+    private volatile EvaluationReport lastEvaluation;
+
+    private Counter standInCounter;
+    private Counter deferCounter;
+
+    public LearnedLeadScorer(AnalysisResultRepository analysisResultRepository,
+                             CompanyRepository companyRepository,
+                             MeterRegistry meterRegistry) {
+        this.analysisResultRepository = analysisResultRepository;
+        this.companyRepository = companyRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        standInCounter = Counter.builder("analysis.learned.predictions").tag("decision", "stand_in").register(meterRegistry);
+        deferCounter = Counter.builder("analysis.learned.predictions").tag("decision", "llm").register(meterRegistry);
+        Gauge.builder("analysis.learned.training_size", this,
+                s -> s.model != null ? s.model.getTrainingSize() : 0).register(meterRegistry);
+    }
+
+    /**
+     * 模型足够自信时返回预测结果，否则返回 null 交给 LLM
+     */
+    public LeadScoringModel.Prediction standIn(String description) {
+        LeadScoringModel current = model;
+        if (!enabled || current == null || description == null || description.isBlank()) {
+            return null;
+        }
+        LeadScoringModel.Prediction prediction = current.predict(description);
+        if (prediction.confidence() >= minConfidence) {
+            standInCounter.increment();
+            return prediction;
+        }
+        deferCounter.increment();
+        return null;
+    }
+
+    public LeadScoringModel getModel() {
+        return model;
+    }
+
+    public EvaluationReport getLastEvaluation() {
+        return lastEvaluation;
+    }
+
+    /**
+     * 用最新的 DeepSeek 结果重新训练，并在留出集上评估后替换线上模型
+     */
+    public synchronized EvaluationReport retrain() {
+        long start = System.currentTimeMillis();
+        List<TrainingExample> examples = loadExamples();
+        List<TrainingExample> training = new ArrayList<>();
+        List<TrainingExample> holdout = new ArrayList<>();
+        examples.forEach(e -> (isHoldout(e.companyId()) ? holdout : training).add(e));
+
+        if (training.size() < minTrainingRows) {
+            log.info("可用训练样本 {} 条，少于 {} 条，暂不训练本地评分模型", training.size(), minTrainingRows);
+            return null;
+        }
+
+        LeadScoringModel trained = LeadScoringModel.train(training, new LeadScoringModel.TrainingOptions(
+                epochs, 0.5, 1e-6, highScore, 8, 5));
+        EvaluationReport report = evaluate(trained, holdout);
+        model = trained;
+        lastEvaluation = report;
+
+        log.info("本地评分模型训练完成，训练样本: {}，留出样本: {}，耗时: {}ms，阈值 {} 下覆盖率 {}，一致率 {}",
+                training.size(), holdout.size(), System.currentTimeMillis() - start, minConfidence,
+                String.format("%.2f", report.atCurrentCutoff().coverage()),
+                String.format("%.2f", report.atCurrentCutoff().intentAgreement()));
+        return report;
+    }
+
+    /**
+     * 离线评估：在留出集上比较当前模型与 DeepSeek 的一致程度
+     */
+    public EvaluationReport evaluate() {
+        LeadScoringModel current = model;
+        if (current == null) {
+            return null;
+        }
+        List<TrainingExample> holdout = loadExamples().stream()
+                .filter(e -> isHoldout(e.companyId()))
+                .toList();
+        EvaluationReport report = evaluate(current, holdout);
+        lastEvaluation = report;
+        return report;
+    }
+
+    private EvaluationReport evaluate(LeadScoringModel evaluated, List<TrainingExample> holdout) {
+        List<LeadScoringModel.Prediction> predictions = holdout.stream()
+                .map(e -> evaluated.predict(e.description()))
+                .toList();
+
+        List<CutoffStats> cutoffs = new ArrayList<>();
+        for (double cutoff : EVALUATION_CUTOFFS) {
+            cutoffs.add(statsAt(cutoff, holdout, predictions, evaluated.getHighScore()));
+        }
+        return new EvaluationReport(
+                holdout.size(),
+                evaluated.getTrainingSize(),
+                evaluated.getTrainedAt(),
+                minConfidence,
+                statsAt(0, holdout, predictions, evaluated.getHighScore()),
+                statsAt(minConfidence, holdout, predictions, evaluated.getHighScore()),
+                cutoffs
+        );
+    }
+
+    private CutoffStats statsAt(double cutoff, List<TrainingExample> holdout,
+                                List<LeadScoringModel.Prediction> predictions, int highScore) {
+        int covered = 0;
+        int intentAgreed = 0;
+        int withinOne = 0;
+        int categoryAgreed = 0;
+        double absoluteError = 0;
+        for (int i = 0; i < holdout.size(); i++) {
+            LeadScoringModel.Prediction prediction = predictions.get(i);
+            if (prediction.confidence() < cutoff) {
+                continue;
+            }
+            TrainingExample label = holdout.get(i);
+            covered++;
+            if (prediction.highIntent() == (label.score() >= highScore)) {
+                intentAgreed++;
+            }
+            int error = Math.abs(prediction.score() - label.score());
+            absoluteError += error;
+            if (error <= 1) {
+                withinOne++;
+            }
+            if (prediction.businessCategory() != null && prediction.businessCategory().equals(label.businessCategory())) {
+                categoryAgreed++;
+            }
+        }
+        return new CutoffStats(
+                cutoff,
+                covered,
+                ratio(covered, holdout.size()),
+                ratio(intentAgreed, covered),
+                covered > 0 ? absoluteError / covered : 0,
+                ratio(withinOne, covered),
+                ratio(categoryAgreed, covered)
+        );
+    }
+
+    /**
+     * 读取最近的 DeepSeek 成功结果，每家公司只保留最新一条
+     */
+    private List<TrainingExample> loadExamples() {
+        Map<Long, AnalysisResultEntity> latestByCompany = new LinkedHashMap<>();
+        int page = 0;
+        while (latestByCompany.size() < maxTrainingRows) {
+            Page<AnalysisResultEntity> rows = analysisResultRepository.findSuccessfulByModel(labelModel,
+                    PageRequest.of(page++, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "analysisTime")));
+            rows.forEach(r -> latestByCompany.putIfAbsent(r.getCompanyId(), r));
+            if (!rows.hasNext()) {
+                break;
+            }
+        }
+
+        Map<Long, CompanyEntity> companies = companyRepository.findAllById(latestByCompany.keySet()).stream()
+                .collect(Collectors.toMap(CompanyEntity::getId, Function.identity()));
+
+        List<TrainingExample> examples = new ArrayList<>(latestByCompany.size());
+        for (AnalysisResultEntity row : latestByCompany.values()) {
+            CompanyEntity company = companies.get(row.getCompanyId());
+            if (company == null || company.getDescription() == null || company.getDescription().isBlank()) {
+                continue;
+            }
+            examples.add(new TrainingExample(company.getId(), company.getDescription(),
+                    row.getPaymentWillingnessScore(), row.getBusinessTypes()));
+        }
+        return examples;
+    }
+
+    private boolean isHoldout(Long companyId) {
+        return Math.floorMod(companyId, 100) < holdoutPercent;
+    }
+
+    private static double ratio(int part, int total) {
+        return total > 0 ? (double) part / total : 0;
+    }
+
+    /**
+     * 某个置信度阈值下的覆盖率与一致率
+     */
+    public record CutoffStats(
+            double cutoff,
+            int covered,
+            double coverage,
+            double intentAgreement,
+            double scoreMae,
+            double withinOneRate,
+            double categoryAgreement
+    ) {}
+
+    public record EvaluationReport(
+            int holdoutSize,
+            int trainingSize,
+            LocalDateTime trainedAt,
+            double currentCutoff,
+            CutoffStats overall,
+            CutoffStats atCurrentCutoff,
+            List<CutoffStats> cutoffs
+    ) {}
+}
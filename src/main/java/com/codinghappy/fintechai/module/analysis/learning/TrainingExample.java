@@ -0,0 +1,11 @@
+package com.codinghappy.fintechai.module.analysis.learning;
+
+/**
+ * 一条训练样本：公司描述 + DeepSeek 给出的评分与业务分类
+ */
+public record TrainingExample(
+        Long companyId,
+        String description,
+        int score,
+        String businessCategory
+) {}
@@ -0,0 +1,34 @@
+package com.codinghappy.fintechai.module.analysis.parser;
+
+import java.util.List;
+
+/**
+ * 模型返回的单公司分析结果
+ *
+ * @param companyId        打包模式下对应的公司ID，单公司模式为 null
+ * @param businessCategory 业务本质
+ * @param painPoints       核心痛点
+ * @param score            付费意愿评分 (1-10)
+ * @param confidence       置信度 (0-1)
+ * @param salesHook        销售破冰话术
+ * @param valueSummary     价值评估
+ * @param truncated        响应是否被截断（只恢复出部分字段）
+ */
+public record LeadAnalysis(
+        Long companyId,
+        String businessCategory,
+        List<String> painPoints,
+        Integer score,
+        Double confidence,
+        String salesHook,
+        String valueSummary,
+        boolean truncated
+) {
+
+    /**
+     * 至少要有评分才算可用结果
+     */
+    public boolean isUsable() {
+        return score != null;
+    }
+}
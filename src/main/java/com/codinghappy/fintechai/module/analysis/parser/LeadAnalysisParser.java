@@ -0,0 +1,233 @@
+package com.codinghappy.fintechai.module.analysis.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 单遍流式解析器：直接把模型输出的 JSON 映射为 {@link LeadAnalysis}，不构建中间 JSONObject 树。
+ * 跳过 markdown 代码块前缀只需定位第一个括号，不再做正则替换；
+ * 响应被截断时保留已解析出的字段，只要评分已经出现就视为可用结果。
+ */
+@Slf4j
+@Component
+public class LeadAnalysisParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // 取值可以是数组的字段；其余字段遇到数组或对象时跳过
+    private static final Set<String> ARRAY_FIELDS = Set.of("pain_points", "business_types");
+
+    /**
+     * 解析单公司结果；完全无法解析时返回 null
+     */
+    public LeadAnalysis parse(String content) {
+        int start = indexOf(content, '{');
+        if (start < 0) {
+            return null;
+        }
+
+        try (JsonParser parser = JSON_FACTORY.createParser(content.substring(start))) {
+            parser.nextToken();
+            return readObject(parser);
+        } catch (IOException e) {
+            log.error("JSON解析失败，内容: {}", content);
+            return null;
+        }
+    }
+
+    /**
+     * 解析打包结果，支持顶层数组或 {"results": [...]}；截断时返回已完整解析的条目
+     */
+    public List<LeadAnalysis> parseList(String content) {
+        int start = indexOfAny(content);
+        if (start < 0) {
+            return Collections.emptyList();
+        }
+
+        List<LeadAnalysis> items = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(content.substring(start))) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                // {"results": [...]}：找到第一个数组字段
+                while ((token = parser.nextToken()) != null && token != JsonToken.START_ARRAY) {
+                    if (token == JsonToken.END_OBJECT) {
+                        return items;
+                    }
+                }
+            }
+            if (token != JsonToken.START_ARRAY) {
+                return items;
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                LeadAnalysis item = readObject(parser);
+                if (item.truncated()) {
+                    if (item.isUsable()) {
+                        items.add(item);
+                    }
+                    break;
+                }
+                items.add(item);
+            }
+        } catch (IOException e) {
+            log.error("打包响应解析失败，内容: {}", content);
+        }
+        return items;
+    }
+
+    /**
+     * 把结果重新序列化为与 Prompt 约定一致的 JSON（用于缓存单条结果）
+     */
+    public String toJson(LeadAnalysis analysis) {
+        StringWriter writer = new StringWriter(256);
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+            gen.writeStartObject();
+            gen.writeStringField("business_category", analysis.businessCategory());
+            gen.writeArrayFieldStart("pain_points");
+            if (analysis.painPoints() != null) {
+                for (String point : analysis.painPoints()) {
+                    gen.writeString(point);
+                }
+            }
+            gen.writeEndArray();
+            if (analysis.score() != null) {
+                gen.writeNumberField("score", analysis.score());
+            }
+            if (analysis.confidence() != null) {
+                gen.writeNumberField("confidence", analysis.confidence());
+            }
+            gen.writeStringField("sales_hook", analysis.salesHook());
+            gen.writeStringField("value_summary", analysis.valueSummary());
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("序列化分析结果失败", e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * 从当前 START_OBJECT 开始读取一个结果对象；遇到截断时返回已读出的字段
+     */
+    private LeadAnalysis readObject(JsonParser parser) {
+        Long companyId = null;
+        String category = null;
+        List<String> painPoints = null;
+        Integer score = null;
+        Double confidence = null;
+        String salesHook = null;
+        String valueSummary = null;
+        boolean truncated = false;
+
+        try {
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+                if (token == null) {
+                    truncated = true;
+                    break;
+                }
+                String field = parser.currentName();
+                token = parser.nextToken();
+                if (token == null) {
+                    truncated = true;
+                    break;
+                }
+                // 值是对象，或不该出现数组的字段给了数组：整体跳过，字段保持为空
+                if (token == JsonToken.START_OBJECT
+                        || (token == JsonToken.START_ARRAY && !ARRAY_FIELDS.contains(field))) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                switch (field) {
+                    case "company_id" -> companyId = token.isNumeric()
+                            ? Long.valueOf(parser.getLongValue()) : parseLong(parser.getText());
+                    case "business_category" -> category = parser.getValueAsString();
+                    case "business_types" -> category = token == JsonToken.START_ARRAY
+                            ? String.join(",", readStringArray(parser)) : parser.getValueAsString();
+                    case "pain_points" -> painPoints = token == JsonToken.START_ARRAY ? readStringArray(parser)
+                            : token == JsonToken.VALUE_NULL ? null : List.of(parser.getText());
+                    case "score", "payment_willingness_score" -> score = token.isNumeric()
+                            ? Integer.valueOf(parser.getValueAsInt()) : parseInt(parser.getText());
+                    case "confidence" -> confidence = token.isNumeric()
+                            ? Double.valueOf(parser.getValueAsDouble()) : parseDouble(parser.getText());
+                    case "sales_hook" -> salesHook = parser.getValueAsString();
+                    case "value_summary", "reason" -> valueSummary = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            // 输出被 max_tokens 截断：保留已解析的字段
+            truncated = true;
+        }
+
+        return new LeadAnalysis(companyId, category, painPoints, score, confidence, salesHook, valueSummary, truncated);
+    }
+
+    private List<String> readStringArray(JsonParser parser) throws IOException {
+        List<String> values = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IOException("数组被截断");
+            }
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            } else if (token != JsonToken.VALUE_NULL) {
+                values.add(parser.getText());
+            }
+        }
+        return values;
+    }
+
+    private static int indexOf(String content, char c) {
+        return content == null ? -1 : content.indexOf(c);
+    }
+
+    private static int indexOfAny(String content) {
+        if (content == null) {
+            return -1;
+        }
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '{' || c == '[') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Integer parseInt(String text) {
+        try {
+            return text == null ? null : (int) Math.round(Double.parseDouble(text.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long parseLong(String text) {
+        try {
+            return text == null ? null : Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String text) {
+        try {
+            return text == null ? null : Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.codinghappy.fintechai.module.analysis.prompt;
+
+import com.codinghappy.fintechai.common.util.TokenEstimator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 公司描述压缩
+ * 拼进 Prompt 之前去掉 URL、营销套话和重复句子，再按 Token 预算截断（以句子为单位，保留靠前的内容）。
+ * 每次压缩都记录原始 / 压缩后的估算 Token 数与节省量。
+ */
+@Slf4j
+@Component
+public class DescriptionCompactor {
+
+    private static final Pattern URL = Pattern.compile("(?i)\\b(?:https?://|www\\.)\\S+");
+    // 句子切分：中文句末标点、换行，以及后面跟空白的英文句号 / 问号 / 叹号
+    private static final Pattern SENTENCE_END = Pattern.compile("[。！？；;\\n]+|[.!?]+(?=\\s|$)");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final List<String> DEFAULT_BOILERPLATE = List.of(
+            "(?i)see more",
+            "(?i)show more",
+            "(?i)learn more",
+            "(?i)follow us[^。.!?]*",
+            "(?i)click here[^。.!?]*",
+            "点击查看更多",
+            "展开全部",
+            "欢迎关注[^。！？]*",
+            "更多信息请访问[^。！？]*"
+    );
+
+    private final MeterRegistry meterRegistry;
+    private final List<Pattern> boilerplate;
+
+    @Value("${finance.analysis.compaction.enabled:true}")
+    private boolean enabled;
+
+    // 描述部分的 Token 预算
+    @Value("${finance.analysis.compaction.max-description-tokens:600}")
+    private int maxDescriptionTokens;
+
+    private DistributionSummary originalTokens;
+    private DistributionSummary compactedTokens;
+    private DistributionSummary savedTokens;
+
+    public DescriptionCompactor(MeterRegistry meterRegistry, Environment environment) {
+        this.meterRegistry = meterRegistry;
+        this.boilerplate = Binder.get(environment)
+                .bind("finance.analysis.compaction.boilerplate-patterns", Bindable.listOf(String.class))
+                .orElse(DEFAULT_BOILERPLATE)
+                .stream()
+                .map(Pattern::compile)
+                .toList();
+    }
+
+    @PostConstruct
+    public void init() {
+        originalTokens = DistributionSummary.builder("analysis.prompt.description.tokens")
+                .tag("stage", "original").register(meterRegistry);
+        compactedTokens = DistributionSummary.builder("analysis.prompt.description.tokens")
+                .tag("stage", "compacted").register(meterRegistry);
+        savedTokens = DistributionSummary.builder("analysis.prompt.description.tokens.saved")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 压缩描述并记录节省的 Token 数
+     */
+    public Compaction compact(String description) {
+        Compaction compaction = doCompact(description);
+        originalTokens.record(compaction.originalTokens());
+        compactedTokens.record(compaction.compactedTokens());
+        savedTokens.record(compaction.savedTokens());
+        return compaction;
+    }
+
+    /**
+     * 只估算压缩后的 Token 数，不计入指标（供打包预算使用）
+     */
+    public int estimateCompactedTokens(String description) {
+        return doCompact(description).compactedTokens();
+    }
+
+    private Compaction doCompact(String description) {
+        if (description == null || description.isBlank()) {
+            return new Compaction(description, 0, 0);
+        }
+        int original = TokenEstimator.estimate(description);
+        if (!enabled) {
+            return new Compaction(description, original, original);
+        }
+
+        String text = URL.matcher(description).replaceAll(" ");
+        for (Pattern pattern : boilerplate) {
+            text = pattern.matcher(text).replaceAll(" ");
+        }
+
+        StringBuilder out = new StringBuilder(text.length());
+        Set<String> seen = new HashSet<>();
+        int budget = maxDescriptionTokens;
+        int used = 0;
+
+        Matcher end = SENTENCE_END.matcher(text);
+        int start = 0;
+        while (start < text.length()) {
+            int stop = end.find() ? end.end() : text.length();
+            String sentence = text.substring(start, stop).replaceAll("\\s+", " ").trim();
+            start = stop;
+
+            String fingerprint = NON_WORD.matcher(sentence.toLowerCase()).replaceAll("");
+            if (fingerprint.isEmpty() || !seen.add(fingerprint)) {
+                continue;
+            }
+
+            int tokens = TokenEstimator.estimate(sentence);
+            if (used + tokens > budget) {
+                // 第一句就超预算时按字符截断，保证至少有内容
+                if (out.length() == 0) {
+                    out.append(truncateToBudget(sentence, budget));
+                }
+                break;
+            }
+            if (out.length() > 0 && !isCjkSentence(out)) {
+                out.append(' ');
+            }
+            out.append(sentence);
+            used += tokens;
+        }
+
+        String compacted = out.toString().trim();
+        return new Compaction(compacted, original, TokenEstimator.estimate(compacted));
+    }
+
+    private static String truncateToBudget(String sentence, int budget) {
+        int low = 0;
+        int high = sentence.length();
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (TokenEstimator.estimate(sentence.substring(0, mid)) <= budget) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return sentence.substring(0, low);
+    }
+
+    private static boolean isCjkSentence(CharSequence text) {
+        return TokenEstimator.isCjk(text.charAt(text.length() - 1));
+    }
+
+    /**
+     * 压缩结果
+     */
+    public record Compaction(String text, int originalTokens, int compactedTokens) {
+
+        public int savedTokens() {
+            return Math.max(0, originalTokens - compactedTokens);
+        }
+    }
+}
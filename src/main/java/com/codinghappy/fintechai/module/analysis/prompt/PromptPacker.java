@@ -0,0 +1,80 @@
+package com.codinghappy.fintechai.module.analysis.prompt;
+
+import com.codinghappy.fintechai.common.util.TokenEstimator;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多公司 Prompt 打包器
+ * 按估算 Token 数把公司贪心装箱，每个包只发一次 DeepSeek 请求，
+ * 同时限制单包公司数，避免输出过长被截断。
+ */
+@Slf4j
+@Component
+public class PromptPacker {
+
+    private final DescriptionCompactor descriptionCompactor;
+
+    @Value("${finance.analysis.packing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${finance.analysis.packing.max-items:8}")
+    private int maxItems;
+
+    // 单包内公司资料部分的 Token 上限（不含固定指令）
+    @Value("${finance.analysis.packing.max-input-tokens:3000}")
+    private int maxInputTokens;
+
+    public PromptPacker(DescriptionCompactor descriptionCompactor) {
+        this.descriptionCompactor = descriptionCompactor;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 将公司列表切分为若干个包；关闭打包时每家公司单独成包
+     */
+    public List<List<CompanyEntity>> pack(List<CompanyEntity> companies) {
+        List<List<CompanyEntity>> packs = new ArrayList<>();
+        if (!enabled) {
+            companies.forEach(c -> packs.add(List.of(c)));
+            return packs;
+        }
+
+        List<CompanyEntity> current = new ArrayList<>();
+        int currentTokens = 0;
+
+        for (CompanyEntity company : companies) {
+            int tokens = estimateItemTokens(company);
+            boolean full = current.size() >= maxItems || currentTokens + tokens > maxInputTokens;
+            if (!current.isEmpty() && full) {
+                packs.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            // 超过预算的单个公司独立成包
+            current.add(company);
+            currentTokens += tokens;
+        }
+
+        if (!current.isEmpty()) {
+            packs.add(current);
+        }
+
+        log.info("打包完成：{} 家公司 -> {} 个请求", companies.size(), packs.size());
+        return packs;
+    }
+
+    private int estimateItemTokens(CompanyEntity company) {
+        // 按压缩后的描述估算，与实际拼进 Prompt 的内容一致
+        return TokenEstimator.estimate(company.getName())
+                + descriptionCompactor.estimateCompactedTokens(company.getDescription()) + 16;
+    }
+}
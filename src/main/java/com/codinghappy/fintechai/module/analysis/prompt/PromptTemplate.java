@@ -0,0 +1,145 @@
+package com.codinghappy.fintechai.module.analysis.prompt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 编译后的 Prompt 模板
+ * 模板文本中的 {变量名} 在编译时切分为「静态片段 + 槽位」，渲染时按顺序拼接，不再做任何解析；
+ * 渲染复用线程内预分配的缓冲区，只在最后生成一次结果字符串。
+ * 模板里的 JSON 花括号（如 {"score": ...}）不是合法变量名，原样保留；{{ 表示字面量 {。
+ */
+public final class PromptTemplate {
+
+    private static final Pattern SLOT = Pattern.compile("\\{\\{|\\{([a-z][a-z0-9_]*)}");
+
+    // 缓冲区超过该容量时渲染后丢弃，避免个别超长描述让线程长期占用大块内存
+    private static final int MAX_RETAINED_CAPACITY = 32 * 1024;
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    private final String name;
+    private final int version;
+    private final List<String> variables;
+    // segments[i] 之后紧跟 slots[i] 对应的变量；最后一个片段后没有槽位
+    private final String[] segments;
+    private final int[] slots;
+    private final int staticLength;
+
+    private PromptTemplate(String name, int version, List<String> variables, String[] segments, int[] slots) {
+        this.name = name;
+        this.version = version;
+        this.variables = variables;
+        this.segments = segments;
+        this.slots = slots;
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.staticLength = length;
+    }
+
+    /**
+     * 编译模板；模板中出现未声明的变量时抛出 IllegalArgumentException（启动时即暴露拼写错误）
+     *
+     * @param variables 渲染时按此顺序传入变量值
+     */
+    public static PromptTemplate compile(String name, int version, String source, List<String> variables) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("Prompt 模板 " + name + " 内容为空");
+        }
+        List<String> segments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        Matcher matcher = SLOT.matcher(source);
+        int last = 0;
+        while (matcher.find()) {
+            segment.append(source, last, matcher.start());
+            last = matcher.end();
+            if (matcher.group(1) == null) {
+                segment.append('{');
+                continue;
+            }
+            int index = variables.indexOf(matcher.group(1));
+            if (index < 0) {
+                throw new IllegalArgumentException("Prompt 模板 " + name + " 使用了未声明的变量: "
+                        + matcher.group(1) + "，可用变量: " + variables);
+            }
+            segments.add(segment.toString());
+            slots.add(index);
+            segment.setLength(0);
+        }
+        segment.append(source, last, source.length());
+        segments.add(segment.toString());
+
+        return new PromptTemplate(name, version, List.copyOf(variables), segments.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * 按声明顺序传入变量值渲染；null 渲染为空串
+     */
+    public String render(String... values) {
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException("Prompt 模板 " + name + " 需要 " + variables.size()
+                    + " 个变量，实际传入 " + values.length);
+        }
+        int length = staticLength;
+        for (int slot : slots) {
+            String value = values[slot];
+            length += value != null ? value.length() : 0;
+        }
+
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        sb.ensureCapacity(length);
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(segments[i]);
+            String value = values[slots[i]];
+            if (value != null) {
+                sb.append(value);
+            }
+        }
+        sb.append(segments[segments.length - 1]);
+        String rendered = sb.toString();
+
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return rendered;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * 静态片段的总长度（字符数）
+     */
+    public int getStaticLength() {
+        return staticLength;
+    }
+
+    /**
+     * 第一个槽位之前的固定前缀长度（字符数）；所有渲染结果共享这段前缀，可命中 LLM 的 Prompt 缓存
+     */
+    public int getStaticPrefixLength() {
+        return segments[0].length();
+    }
+
+    public int getSlotCount() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,236 @@
+package com.codinghappy.fintechai.module.analysis.prompt;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prompt 模板注册表
+ * 启动时把 finance.analysis.deepseek.prompt-template.templates 下的命名模板全部编译好，
+ * 按 active 选择当前使用的完整报告模板；模板名与版本参与缓存指纹并记录在结果行上。
+ * 未配置任何模板时使用内置的 commercial-spy 模板。
+ * 初筛、打包与打包初筛使用保留名的专用模板（triage / packed / packed-triage），
+ * 同样可在 templates 下按名覆盖并独立递增版本，但不能被 active 选为完整报告模板。
+ */
+@Slf4j
+@Component
+public class PromptTemplateRegistry {
+
+    public static final String VAR_COMPANY_NAME = "company_name";
+    public static final String VAR_DESCRIPTION = "description";
+    // 渲染时的变量顺序
+    public static final List<String> VARIABLES = List.of(VAR_COMPANY_NAME, VAR_DESCRIPTION);
+    // 打包模板只有一个变量：按「公司ID / 目标公司 / 公司简介」逐家拼好的公司列表
+    public static final String VAR_COMPANIES = "companies";
+    public static final List<String> PACKED_VARIABLES = List.of(VAR_COMPANIES);
+
+    public static final String ROLE_REPORT = "report";
+    public static final String TRIAGE_NAME = "triage";
+    public static final String PACKED_NAME = "packed";
+    public static final String PACKED_TRIAGE_NAME = "packed-triage";
+
+    public static final String BUILTIN_NAME = "commercial-spy";
+    public static final int BUILTIN_VERSION = 4;
+    // 固定的指令与输出格式在前、公司信息在后，所有调用共享同一段前缀以命中 DeepSeek 的 Prompt 缓存
+    public static final String BUILTIN_TEXT = """
+            你是一名拥有10年经验的Fintech行业销售总监，负责从目标公司的信息中为我挖掘销售线索。
+
+            请务必严格按照以下 JSON 格式输出结果（不要输出 markdown 代码块，只输出纯文本 JSON）：
+            {
+              "business_category": "用3-5个字精准定义其业务(如:跨境支付/Web3钱包)",
+              "pain_points": ["痛点1: 描述具体的技术或合规难题", "痛点2", "痛点3"],
+              "score": 1-10的整数(代表付费意愿),
+              "confidence": 0.0-1.0(代表你的判断置信度),
+              "sales_hook": "一句为销售量身定制的破冰开场白(中文)",
+              "value_summary": "简述为什么这家公司值得跟进(50字以内)"
+            }
+
+            待分析的目标公司如下：
+            【目标公司】: {company_name}
+            【公司简介】: {description}""";
+
+    public static final int TRIAGE_VERSION = 1;
+    public static final String TRIAGE_TEXT = """
+            你是Fintech行业销售总监，请快速判断目标公司的付费意愿。
+            只输出 JSON：{"score": 1-10的整数, "confidence": 0.0-1.0}
+
+            待判断的目标公司如下：
+            【目标公司】: {company_name}
+            【公司简介】: {description}""";
+
+    public static final int PACKED_VERSION = 1;
+    public static final String PACKED_TEXT = """
+            你是一名拥有10年经验的Fintech行业销售总监。请逐一分析下列目标公司的信息，为我挖掘销售线索。
+
+            请务必输出一个 JSON 对象，results 数组中每家公司一个对象，用 company_id 对应公司ID，\
+            不要输出 markdown 代码块，只输出纯文本 JSON：
+            {"results": [
+              {
+                "company_id": 公司ID(整数),
+                "business_category": "用3-5个字精准定义其业务(如:跨境支付/Web3钱包)",
+                "pain_points": ["痛点1: 描述具体的技术或合规难题", "痛点2", "痛点3"],
+                "score": 1-10的整数(代表付费意愿),
+                "confidence": 0.0-1.0(代表你的判断置信度),
+                "sales_hook": "一句为销售量身定制的破冰开场白(中文)",
+                "value_summary": "简述为什么这家公司值得跟进(50字以内)"
+              }
+            ]}
+
+            待分析的公司如下：
+
+            {companies}""";
+
+    public static final int PACKED_TRIAGE_VERSION = 1;
+    public static final String PACKED_TRIAGE_TEXT = """
+            你是Fintech行业销售总监，请快速判断下列每家公司的付费意愿。
+            只输出 JSON：{"results": [{"company_id": 公司ID, "score": 1-10的整数, "confidence": 0.0-1.0}]}
+
+            待判断的公司如下：
+
+            {companies}""";
+
+    // 固定前缀不足静态内容的一半时告警：变量靠前会让每次调用的可缓存前缀很短
+    private static final double MIN_PREFIX_RATIO = 0.5;
+
+    private static final String PREFIX = "finance.analysis.deepseek.prompt-template";
+
+    private final Map<String, PromptTemplate> templates;
+    private volatile PromptTemplate active;
+
+    public PromptTemplateRegistry(Environment environment) {
+        Binder binder = Binder.get(environment);
+        Map<String, Definition> definitions = binder
+                .bind(PREFIX + ".templates", Bindable.mapOf(String.class, Definition.class))
+                .orElse(Map.of());
+        String activeName = binder.bind(PREFIX + ".active", String.class).orElse(null);
+        this.templates = compileAll(definitions);
+        this.active = resolveActive(activeName);
+        log.info("Prompt 模板加载完成: {}，当前使用 {} v{}", templates.keySet(), active.getName(), active.getVersion());
+    }
+
+    PromptTemplateRegistry(Map<String, Definition> definitions, String activeName) {
+        this.templates = compileAll(definitions);
+        this.active = resolveActive(activeName);
+    }
+
+    private static Map<String, PromptTemplate> compileAll(Map<String, Definition> definitions) {
+        Map<String, PromptTemplate> compiled = new LinkedHashMap<>();
+        compiled.put(BUILTIN_NAME, PromptTemplate.compile(BUILTIN_NAME, BUILTIN_VERSION, BUILTIN_TEXT, VARIABLES));
+        compiled.put(TRIAGE_NAME, PromptTemplate.compile(TRIAGE_NAME, TRIAGE_VERSION, TRIAGE_TEXT, VARIABLES));
+        compiled.put(PACKED_NAME, PromptTemplate.compile(PACKED_NAME, PACKED_VERSION, PACKED_TEXT, PACKED_VARIABLES));
+        compiled.put(PACKED_TRIAGE_NAME, PromptTemplate.compile(
+                PACKED_TRIAGE_NAME, PACKED_TRIAGE_VERSION, PACKED_TRIAGE_TEXT, PACKED_VARIABLES));
+        definitions.forEach((name, definition) -> {
+            if (definition.getVersion() == null) {
+                throw new IllegalArgumentException("Prompt 模板 " + name + " 缺少 version");
+            }
+            // 同名配置覆盖内置模板
+            PromptTemplate template = PromptTemplate.compile(name, definition.getVersion(), definition.getText(),
+                    isPacked(name) ? PACKED_VARIABLES : VARIABLES);
+            if (template.getStaticPrefixLength() < template.getStaticLength() * MIN_PREFIX_RATIO) {
+                log.warn("⚠️ Prompt 模板 {} 的固定前缀只有 {}/{} 字符，变量应放在模板末尾以命中 Prompt 缓存",
+                        name, template.getStaticPrefixLength(), template.getStaticLength());
+            }
+            compiled.put(name, template);
+        });
+        return Map.copyOf(compiled);
+    }
+
+    private PromptTemplate resolveActive(String activeName) {
+        if (activeName == null || activeName.isBlank()) {
+            return templates.get(BUILTIN_NAME);
+        }
+        if (!ROLE_REPORT.equals(roleOf(activeName))) {
+            throw new IllegalArgumentException("Prompt 模板 " + activeName + " 是" + roleOf(activeName)
+                    + "专用模板，不能作为完整报告模板");
+        }
+        PromptTemplate template = templates.get(activeName);
+        if (template == null) {
+            throw new IllegalArgumentException("未配置的 Prompt 模板: " + activeName + "，可用模板: " + templates.keySet());
+        }
+        return template;
+    }
+
+    /**
+     * 当前使用的模板；一次分析应只取一次，保证 Prompt、缓存指纹与结果版本一致
+     */
+    public PromptTemplate active() {
+        return active;
+    }
+
+    /**
+     * 单公司初筛模板，变量同完整报告模板
+     */
+    public PromptTemplate triage() {
+        return templates.get(TRIAGE_NAME);
+    }
+
+    /**
+     * 多家公司打包生成完整报告的模板，变量为 {companies}
+     */
+    public PromptTemplate packed() {
+        return templates.get(PACKED_NAME);
+    }
+
+    /**
+     * 多家公司打包初筛的模板，变量为 {companies}
+     */
+    public PromptTemplate packedTriage() {
+        return templates.get(PACKED_TRIAGE_NAME);
+    }
+
+    /**
+     * 运行时切换到另一个已编译的模板（无需重新部署）；模板不存在时抛出 IllegalArgumentException
+     */
+    public PromptTemplate activate(String name) {
+        PromptTemplate next = resolveActive(name);
+        PromptTemplate previous = active;
+        active = next;
+        log.info("🔁 Prompt 模板切换: {} v{} -> {} v{}",
+                previous.getName(), previous.getVersion(), next.getName(), next.getVersion());
+        return next;
+    }
+
+    public List<TemplateInfo> list() {
+        PromptTemplate current = active;
+        return templates.values().stream()
+                .map(t -> new TemplateInfo(t.getName(), roleOf(t.getName()), t.getVersion(), t.getSlotCount(),
+                        t.getStaticLength(), t.getStaticPrefixLength(), t == current))
+                .sorted((a, b) -> a.name().compareTo(b.name()))
+                .toList();
+    }
+
+    private static boolean isPacked(String name) {
+        return PACKED_NAME.equals(name) || PACKED_TRIAGE_NAME.equals(name);
+    }
+
+    /**
+     * 保留名的专用模板返回其名称，其余都是完整报告模板
+     */
+    private static String roleOf(String name) {
+        return TRIAGE_NAME.equals(name) || isPacked(name) ? name : ROLE_REPORT;
+    }
+
+    @Data
+    public static class Definition {
+        private Integer version;
+        private String text;
+    }
+
+    public record TemplateInfo(
+            String name,
+            String role,
+            int version,
+            int slots,
+            int staticChars,
+            int prefixChars,
+            boolean active
+    ) {}
+}
@@ -1,33 +1,90 @@
 package com.codinghappy.fintechai.module.analysis.retry;
 
+import com.codinghappy.fintechai.common.deadline.DeadlineContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 
+/**
+ * 指数退避重试（decorrelated jitter）
+ * 每次等待时间在 [initial-interval, 上次等待 × multiplier] 之间随机取值，上限 max-interval，
+ * 避免多个节点在同一时刻一起重试；服务端给出 Retry-After 时至少等待该时长。
+ *
+ * 重试受令牌桶预算限制：每次调用积累 budget-ratio 个令牌，每次重试消耗 1 个，
+ * 因此重试量不会超过正常流量的 budget-ratio 倍，下游故障时不会被重试放大。
+ */
 @Slf4j
 @Component
 public class ExponentialBackoffRetry {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${finance.analysis.retry.max-attempts:3}")
     private int maxAttempts;
 
     @Value("${finance.analysis.retry.initial-interval:1000}")
     private long initialInterval;
 
-    @Value("${finance.analysis.retry.multiplier:2.0}")
+    @Value("${finance.analysis.retry.multiplier:3.0}")
     private double multiplier;
 
+    @Value("${finance.analysis.retry.max-interval:10000}")
+    private long maxInterval;
+
+    // 服务端要求等待超过该时长时直接放弃，不占用调用线程
+    @Value("${finance.analysis.retry.max-retry-after:30000}")
+    private long maxRetryAfter;
+
+    @Value("${finance.analysis.retry.budget-ratio:0.2}")
+    private double budgetRatio;
+
+    @Value("${finance.analysis.retry.budget-capacity:10}")
+    private double budgetCapacity;
+
+    // 令牌桶余量（受 this 保护）
+    private double budgetTokens;
+
+    private Counter retryCounter;
+    private Counter budgetExhaustedCounter;
+
+    public ExponentialBackoffRetry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        budgetTokens = budgetCapacity;
+        retryCounter = Counter.builder("analysis.retry.attempts").register(meterRegistry);
+        budgetExhaustedCounter = Counter.builder("analysis.retry.budget_exhausted").register(meterRegistry);
+        Gauge.builder("analysis.retry.budget_tokens", this, ExponentialBackoffRetry::getBudgetTokens)
+                .register(meterRegistry);
+    }
+
     /**
      * 执行带指数退避的重试
      */
     public <T> T execute(RetryableOperation<T> operation, Predicate<Exception> retryPredicate) {
+        return execute(operation, retryPredicate::test, retries -> { });
+    }
+
+    /**
+     * 按重试策略执行；每次重试前以「第几次重试」回调 onRetry，便于调用方记录重试次数
+     */
+    public <T> T execute(RetryableOperation<T> operation, RetryPolicy policy, IntConsumer onRetry) {
+        earnBudget();
         int attempt = 0;
         long interval = initialInterval;
 
-        while (attempt < maxAttempts) {
+        while (true) {
             attempt++;
 
             try {
@@ -37,30 +94,40 @@ public class ExponentialBackoffRetry {
                 log.warn("操作失败，尝试次数: {}, 错误: {}", attempt, e.getMessage());
 
                 // 检查是否应该重试
-                if (!retryPredicate.test(e) || attempt >= maxAttempts) {
-                    log.error("达到最大重试次数或不可重试错误，放弃重试", e);
-                    try {
-                        throw e;
-                    } catch (Exception ex) {
-                        throw new RuntimeException(ex);
-                    }
+                if (!policy.isRetryable(e) || attempt >= maxAttempts) {
+                    log.error("达到最大重试次数或不可重试错误，放弃重试: {}", e.getMessage());
+                    throw propagate(e);
+                }
+                long retryAfter = policy.retryAfterMillis(e);
+                if (retryAfter > maxRetryAfter) {
+                    log.warn("服务端要求等待 {}ms，超过上限 {}ms，放弃重试", retryAfter, maxRetryAfter);
+                    throw propagate(e);
+                }
+                if (!tryConsumeBudget()) {
+                    budgetExhaustedCounter.increment();
+                    log.warn("重试预算已耗尽，放弃重试");
+                    throw propagate(e);
                 }
 
-                // 指数退避等待
+                // decorrelated jitter，且不短于服务端要求的等待时间
+                interval = nextInterval(interval);
+                long sleep = Math.max(interval, retryAfter);
+                // 等完已超过调用方的截止时间，重试没有意义
+                if (DeadlineContext.boundMillis(sleep) < sleep) {
+                    log.warn("剩余时间不足 {}ms，放弃重试", sleep);
+                    throw propagate(e);
+                }
+                retryCounter.increment();
+                onRetry.accept(attempt);
                 try {
-                    log.info("等待 {}ms 后重试", interval);
-                    TimeUnit.MILLISECONDS.sleep(interval);
+                    log.info("等待 {}ms 后重试", sleep);
+                    TimeUnit.MILLISECONDS.sleep(sleep);
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
                     throw new RuntimeException("重试被中断", ie);
                 }
-
-                // 增加等待时间
-                interval = (long) (interval * multiplier);
             }
         }
-
-        throw new IllegalStateException("不应到达此处");
     }
 
     /**
@@ -70,6 +137,31 @@ public class ExponentialBackoffRetry {
         return execute(operation, e -> true);
     }
 
+    private long nextInterval(long previous) {
+        long upper = Math.max(initialInterval + 1, (long) (previous * multiplier));
+        return Math.min(maxInterval, ThreadLocalRandom.current().nextLong(initialInterval, upper));
+    }
+
+    private static RuntimeException propagate(Exception e) {
+        return e instanceof RuntimeException runtime ? runtime : new RuntimeException(e);
+    }
+
+    private synchronized void earnBudget() {
+        budgetTokens = Math.min(budgetCapacity, budgetTokens + budgetRatio);
+    }
+
+    private synchronized boolean tryConsumeBudget() {
+        if (budgetTokens < 1) {
+            return false;
+        }
+        budgetTokens -= 1;
+        return true;
+    }
+
+    public synchronized double getBudgetTokens() {
+        return budgetTokens;
+    }
+
     /**
      * 可重试操作接口
      */
@@ -77,4 +169,4 @@ public class ExponentialBackoffRetry {
     public interface RetryableOperation<T> {
         T execute() throws Exception;
     }
-}
\ No newline at end of file
+}
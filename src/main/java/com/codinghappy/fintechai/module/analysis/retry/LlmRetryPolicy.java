@@ -0,0 +1,50 @@
+package com.codinghappy.fintechai.module.analysis.retry;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LLM 调用的重试分类
+ * - 408 / 429 / 500 / 502 / 503 / 504 与连接、读取超时可重试；
+ * - 其余 4xx（参数错误、鉴权失败等）重试也不会成功；
+ * - 熔断、本地限流等本地拒绝已经包含了等待，不在这一层重试。
+ */
+public final class LlmRetryPolicy implements RetryPolicy {
+
+    public static final LlmRetryPolicy INSTANCE = new LlmRetryPolicy();
+
+    private static final Set<Integer> RETRYABLE_STATUS = Set.of(408, 429, 500, 502, 503, 504);
+
+    private LlmRetryPolicy() {
+    }
+
+    @Override
+    public boolean isRetryable(Exception e) {
+        if (e instanceof RestClientResponseException responseException) {
+            return RETRYABLE_STATUS.contains(responseException.getStatusCode().value());
+        }
+        return e instanceof ResourceAccessException;
+    }
+
+    @Override
+    public long retryAfterMillis(Exception e) {
+        if (!(e instanceof RestClientResponseException responseException)) {
+            return 0;
+        }
+        HttpHeaders headers = responseException.getResponseHeaders();
+        String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException ex) {
+            // HTTP-date 格式的 Retry-After 较少见，按没有要求处理
+            return 0;
+        }
+    }
+}
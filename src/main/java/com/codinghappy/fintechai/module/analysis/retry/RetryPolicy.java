@@ -0,0 +1,17 @@
+package com.codinghappy.fintechai.module.analysis.retry;
+
+/**
+ * 重试策略：判断异常是否可重试，以及服务端要求的最短等待时间
+ */
+@FunctionalInterface
+public interface RetryPolicy {
+
+    boolean isRetryable(Exception e);
+
+    /**
+     * 服务端通过 Retry-After 等方式给出的等待时间，0 表示没有要求
+     */
+    default long retryAfterMillis(Exception e) {
+        return 0;
+    }
+}
@@ -3,6 +3,7 @@ package com.codinghappy.fintechai.module.analysis.retry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 
 @Component("customRetryTemplate")
@@ -28,4 +29,12 @@ public class RetryTemplate {
                                   Predicate<Exception> retryPredicate) {
         return exponentialBackoffRetry.execute(operation, retryPredicate);
     }
+
+    /**
+     * 执行带重试的操作（按重试策略分类异常，并回调重试次数）
+     */
+    public <T> T executeWithRetry(ExponentialBackoffRetry.RetryableOperation<T> operation,
+                                  RetryPolicy policy, IntConsumer onRetry) {
+        return exponentialBackoffRetry.execute(operation, policy, onRetry);
+    }
 }
\ No newline at end of file
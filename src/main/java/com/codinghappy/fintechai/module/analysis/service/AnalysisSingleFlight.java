@@ -0,0 +1,373 @@
+package com.codinghappy.fintechai.module.analysis.service;
+
+import com.codinghappy.fintechai.common.constant.SystemConstant;
+import com.codinghappy.fintechai.module.analysis.exception.AnalysisException;
+import com.codinghappy.fintechai.repository.AnalysisResultRepository;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 同一公司的分析请求合并（single-flight）
+ * 键为 公司ID + Prompt 版本。同一 JVM 内的并发调用共享同一个 Future；
+ * 跨节点通过 Redis SETNX 锁选出唯一执行者，其余节点等锁释放后读取执行者写入的结果。
+ * 执行者持锁期间由看门狗每 1/3 TTL 续期一次：一次分析（重试 + 对冲 + 流式读取）可能超过锁 TTL，
+ * 锁中途过期会让其他节点重复分析；执行者进程退出后停止续期，锁在一个 TTL 内自动释放。
+ */
+@Slf4j
+@Component
+public class AnalysisSingleFlight {
+
+    private static final String LOCK_PREFIX = SystemConstant.CACHE_PREFIX_ANALYSIS + "inflight:";
+
+    // 只删除自己持有的锁，避免锁过期后误删其他节点的锁
+    private static final String RELEASE_LUA = """
+        if redis.call('get', KEYS[1]) == ARGV[1] then
+            return redis.call('del', KEYS[1])
+        end
+        return 0
+        """;
+
+    // 只续期自己持有的锁
+    private static final String RENEW_LUA = """
+        if redis.call('get', KEYS[1]) == ARGV[1] then
+            return redis.call('pexpire', KEYS[1], ARGV[2])
+        end
+        return 0
+        """;
+
+    private static final long MIN_RENEW_INTERVAL_MILLIS = 100;
+
+    private final ConcurrentHashMap<String, CompletableFuture<AnalysisResultEntity>> inFlight = new ConcurrentHashMap<>();
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final AnalysisResultRepository analysisResultRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${finance.analysis.single-flight.lock-ttl-seconds:120}")
+    private long lockTtlSeconds;
+
+    @Value("${finance.analysis.single-flight.wait-timeout-seconds:180}")
+    private long waitTimeoutSeconds;
+
+    @Value("${finance.analysis.single-flight.poll-millis:500}")
+    private long pollMillis;
+
+    private DefaultRedisScript<Long> releaseScript;
+    private DefaultRedisScript<Long> renewScript;
+    private ScheduledExecutorService watchdog;
+    private Counter leaderCounter;
+    private Counter localFollowerCounter;
+    private Counter remoteFollowerCounter;
+
+    public AnalysisSingleFlight(RedisTemplate<String, String> redisTemplate,
+                                AnalysisResultRepository analysisResultRepository,
+                                MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.analysisResultRepository = analysisResultRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        releaseScript = new DefaultRedisScript<>();
+        releaseScript.setScriptText(RELEASE_LUA);
+        releaseScript.setResultType(Long.class);
+        renewScript = new DefaultRedisScript<>();
+        renewScript.setScriptText(RENEW_LUA);
+        renewScript.setResultType(Long.class);
+
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "singleflight-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        leaderCounter = Counter.builder("analysis.singleflight.calls").tag("role", "leader").register(meterRegistry);
+        localFollowerCounter = Counter.builder("analysis.singleflight.calls").tag("role", "local_follower").register(meterRegistry);
+        remoteFollowerCounter = Counter.builder("analysis.singleflight.calls").tag("role", "remote_follower").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 执行分析；若同一公司已有分析在进行，则等待并共享其结果
+     */
+    public AnalysisResultEntity execute(Long companyId, int promptVersion, Supplier<AnalysisResultEntity> work) {
+        if (companyId == null) {
+            return work.get();
+        }
+
+        String key = companyId + ":v" + promptVersion;
+        CompletableFuture<AnalysisResultEntity> mine = new CompletableFuture<>();
+        CompletableFuture<AnalysisResultEntity> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            localFollowerCounter.increment();
+            log.info("公司 {} 已在本节点分析中，等待共享结果", companyId);
+            return awaitLocal(existing, companyId);
+        }
+
+        try {
+            AnalysisResultEntity result = executeAcrossCluster(key, companyId, work);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 批量认领多家公司的执行权（打包分析用）：本节点和其他节点都没有在分析的公司归调用方执行，
+     * 认领期间与 execute 的执行者一样持有本地 Future 与 Redis 锁（看门狗续期）。
+     * 未认领到的公司应在关闭 Claim 之后用 {@link #awaitShared} 等待共享结果，避免两个打包批次互相等待。
+     */
+    public Claim claimAll(Collection<Long> companyIds, int promptVersion) {
+        Claim claim = new Claim();
+        for (Long companyId : companyIds) {
+            String key = companyId + ":v" + promptVersion;
+            CompletableFuture<AnalysisResultEntity> mine = new CompletableFuture<>();
+            if (inFlight.putIfAbsent(key, mine) != null) {
+                localFollowerCounter.increment();
+                continue;
+            }
+            String lockKey = LOCK_PREFIX + key;
+            String token = UUID.randomUUID().toString();
+            if (!tryLock(lockKey, token)) {
+                inFlight.remove(key, mine);
+                remoteFollowerCounter.increment();
+                continue;
+            }
+            leaderCounter.increment();
+            claim.held.put(companyId, new Held(key, lockKey, token, mine, scheduleRenewal(lockKey, token, companyId)));
+        }
+        return claim;
+    }
+
+    /**
+     * 等待其他调用方正在进行（或 since 之后刚完成）的分析并共享其结果；
+     * 没有可共享的结果时返回 null，由调用方自行分析
+     */
+    public AnalysisResultEntity awaitShared(Long companyId, int promptVersion, LocalDateTime since) {
+        String key = companyId + ":v" + promptVersion;
+        CompletableFuture<AnalysisResultEntity> local = inFlight.get(key);
+        if (local != null) {
+            localFollowerCounter.increment();
+            return awaitLocal(local, companyId);
+        }
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(waitTimeoutSeconds);
+        if (!waitForUnlock(LOCK_PREFIX + key, deadline)) {
+            throw new AnalysisException("等待其他节点分析超时", "SINGLE_FLIGHT_TIMEOUT", String.valueOf(companyId));
+        }
+        AnalysisResultEntity shared = analysisResultRepository.findTopByCompanyIdOrderByAnalysisTimeDesc(companyId);
+        if (shared != null && shared.getCreatedAt() != null && !shared.getCreatedAt().isBefore(since.withNano(0))) {
+            return shared;
+        }
+        return null;
+    }
+
+    /**
+     * 当前在本节点进行中的分析数
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private AnalysisResultEntity executeAcrossCluster(String key, Long companyId, Supplier<AnalysisResultEntity> work) {
+        String lockKey = LOCK_PREFIX + key;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(waitTimeoutSeconds);
+        // 数据库 DATETIME 只保留到秒，比较基准同样截断
+        LocalDateTime waitStart = LocalDateTime.now().withNano(0);
+
+        while (true) {
+            if (tryLock(lockKey, token)) {
+                leaderCounter.increment();
+                ScheduledFuture<?> renewal = scheduleRenewal(lockKey, token, companyId);
+                try {
+                    return work.get();
+                } finally {
+                    renewal.cancel(false);
+                    unlock(lockKey, token);
+                }
+            }
+
+            // 其他节点正在分析：等锁释放后读取对方写入的结果
+            remoteFollowerCounter.increment();
+            log.info("公司 {} 正在其他节点分析中，等待结果", companyId);
+            if (!waitForUnlock(lockKey, deadline)) {
+                throw new AnalysisException("等待其他节点分析超时", "SINGLE_FLIGHT_TIMEOUT", String.valueOf(companyId));
+            }
+
+            AnalysisResultEntity shared = analysisResultRepository.findTopByCompanyIdOrderByAnalysisTimeDesc(companyId);
+            if (shared != null && shared.getCreatedAt() != null && !shared.getCreatedAt().isBefore(waitStart)) {
+                if (!Boolean.TRUE.equals(shared.getSuccess())) {
+                    throw new RuntimeException("分析失败: " + shared.getErrorMessage());
+                }
+                return shared;
+            }
+            // 对方异常退出没有留下结果，重新竞争执行权
+        }
+    }
+
+    private boolean tryLock(String lockKey, String token) {
+        try {
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, token, Duration.ofSeconds(lockTtlSeconds));
+            return Boolean.TRUE.equals(acquired);
+        } catch (Exception e) {
+            // Redis 不可用时退化为单机合并
+            log.warn("分布式合并锁获取失败，退化为本地合并: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    private void release(Held held) {
+        held.renewal().cancel(false);
+        unlock(held.lockKey(), held.token());
+        inFlight.remove(held.key(), held.future());
+    }
+
+    private ScheduledFuture<?> scheduleRenewal(String lockKey, String token, Long companyId) {
+        long ttlMillis = TimeUnit.SECONDS.toMillis(lockTtlSeconds);
+        long interval = Math.max(MIN_RENEW_INTERVAL_MILLIS, ttlMillis / 3);
+        AtomicReference<ScheduledFuture<?>> self = new AtomicReference<>();
+        ScheduledFuture<?> renewal = watchdog.scheduleAtFixedRate(() -> {
+            try {
+                Long renewed = redisTemplate.execute(renewScript, Collections.singletonList(lockKey),
+                        token, String.valueOf(ttlMillis));
+                if (renewed == null || renewed == 0) {
+                    // 锁已过期或被其他节点持有，继续续期没有意义
+                    log.warn("⚠️ 公司 {} 的分布式合并锁已丢失，停止续期", companyId);
+                    self.get().cancel(false);
+                }
+            } catch (Exception e) {
+                // Redis 暂时不可用：下个周期再试，锁在 TTL 内仍然有效
+                log.debug("分布式合并锁续期失败: {}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        self.set(renewal);
+        return renewal;
+    }
+
+    private void unlock(String lockKey, String token) {
+        try {
+            redisTemplate.execute(releaseScript, Collections.singletonList(lockKey), token);
+        } catch (Exception e) {
+            log.warn("分布式合并锁释放失败，等待自动过期: {}", e.getMessage());
+        }
+    }
+
+    private boolean waitForUnlock(String lockKey, long deadline) {
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                if (!Boolean.TRUE.equals(redisTemplate.hasKey(lockKey))) {
+                    return true;
+                }
+                TimeUnit.MILLISECONDS.sleep(pollMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("查询分布式合并锁失败: {}", e.getMessage());
+            return true;
+        }
+        return false;
+    }
+
+    private AnalysisResultEntity awaitLocal(CompletableFuture<AnalysisResultEntity> future, Long companyId) {
+        try {
+            return future.get(waitTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new AnalysisException("共享分析结果失败", cause);
+        } catch (TimeoutException e) {
+            throw new AnalysisException("等待本节点分析超时", "SINGLE_FLIGHT_TIMEOUT", String.valueOf(companyId));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("等待分析结果被中断", e);
+        }
+    }
+
+    private record Held(String key, String lockKey, String token,
+                        CompletableFuture<AnalysisResultEntity> future, ScheduledFuture<?> renewal) {}
+
+    /**
+     * 打包分析认领到的执行权；每家公司的结果落库后调用 complete 立即释放，
+     * 关闭时仍未完成的公司按失败通知等待者。只在认领线程上使用。
+     */
+    public final class Claim implements AutoCloseable {
+
+        private final Map<Long, Held> held = new LinkedHashMap<>();
+
+        private Claim() {
+        }
+
+        public boolean owns(Long companyId) {
+            return held.containsKey(companyId);
+        }
+
+        public int size() {
+            return held.size();
+        }
+
+        public void complete(AnalysisResultEntity result) {
+            Held entry = held.remove(result.getCompanyId());
+            if (entry != null) {
+                release(entry);
+                entry.future().complete(result);
+            }
+        }
+
+        public void fail(Long companyId, RuntimeException error) {
+            Held entry = held.remove(companyId);
+            if (entry != null) {
+                release(entry);
+                entry.future().completeExceptionally(error);
+            }
+        }
+
+        @Override
+        public void close() {
+            for (Long companyId : List.copyOf(held.keySet())) {
+                fail(companyId, new AnalysisException("打包分析未产出结果", "SINGLE_FLIGHT_ABANDONED",
+                        String.valueOf(companyId)));
+            }
+        }
+    }
+}
@@ -1,81 +1,224 @@
 package com.codinghappy.fintechai.module.analysis.service; // ⚠️ 确认你的包名
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
+import com.codinghappy.fintechai.common.deadline.DeadlineContext;
+import com.codinghappy.fintechai.module.analysis.cache.AnalysisResponseCache;
+import com.codinghappy.fintechai.module.analysis.client.CallOptions;
+import com.codinghappy.fintechai.module.analysis.client.ChatCompletion;
+import com.codinghappy.fintechai.module.analysis.client.DeepSeekCircuitBreaker;
+import com.codinghappy.fintechai.module.analysis.client.DeepSeekClient;
+import com.codinghappy.fintechai.module.analysis.client.StreamingFieldExtractor;
+import com.codinghappy.fintechai.module.analysis.client.TokenUsage;
+import com.codinghappy.fintechai.module.analysis.deadletter.DeadLetterStore;
+import com.codinghappy.fintechai.module.analysis.deadletter.FailureClass;
+import com.codinghappy.fintechai.common.util.ContentHash;
+import com.codinghappy.fintechai.module.analysis.dedup.NearDuplicateResolver;
+import com.codinghappy.fintechai.module.analysis.dto.BusinessType;
+import com.codinghappy.fintechai.module.analysis.exception.AnalysisException;
+import com.codinghappy.fintechai.module.analysis.exception.CircuitOpenException;
+import com.codinghappy.fintechai.module.analysis.exception.RateLimitException;
+import com.codinghappy.fintechai.module.analysis.learning.LeadScoringModel;
+import com.codinghappy.fintechai.module.analysis.learning.LearnedLeadScorer;
+import com.codinghappy.fintechai.module.analysis.parser.LeadAnalysis;
+import com.codinghappy.fintechai.module.analysis.parser.LeadAnalysisParser;
+import com.codinghappy.fintechai.module.analysis.prompt.DescriptionCompactor;
+import com.codinghappy.fintechai.module.analysis.prompt.PromptTemplate;
+import com.codinghappy.fintechai.module.analysis.prompt.PromptTemplateRegistry;
+import com.codinghappy.fintechai.module.analysis.retry.LlmRetryPolicy;
+import com.codinghappy.fintechai.module.analysis.retry.RetryTemplate;
+import com.codinghappy.fintechai.module.analysis.usage.LlmUsageRecorder;
 import com.codinghappy.fintechai.repository.AnalysisResultRepository;
+import com.codinghappy.fintechai.repository.CompanyRepository;
 import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
 public class DeepSeekAnalysisService {
 
+    // 当前调用的模型（与 Prompt 模板版本一起参与缓存指纹）
+    public static final String MODEL = "deepseek-chat";
+    // 结果行上记录的 DeepSeek 模型标识（本地评分模型以此为训练标签来源）
+    public static final String RESULT_MODEL = "deepseek-chat-v3";
+
     @Autowired
     private AnalysisResultRepository analysisResultRepository;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private AnalysisResponseCache responseCache;
+
+    @Autowired
+    private AnalysisSingleFlight singleFlight;
+
+    @Autowired
+    private DeepSeekClient deepSeekClient;
+
+    @Autowired
+    private LeadAnalysisParser leadAnalysisParser;
+
+    @Autowired
+    private StrategyCascade strategyCascade;
+
+    @Autowired
+    private LearnedLeadScorer learnedLeadScorer;
+
+    @Autowired
+    private NearDuplicateResolver nearDuplicateResolver;
+
+    @Autowired
+    private DescriptionCompactor descriptionCompactor;
+
+    @Autowired
+    private PromptTemplateRegistry promptTemplates;
+
+    @Autowired
+    private ModelRoutingPolicy routingPolicy;
+
+    @Autowired
+    private DeepSeekCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private RetryTemplate retryTemplate;
+
+    @Autowired
+    private DeadLetterStore deadLetterStore;
+
+    @Autowired
+    private LlmUsageRecorder usageRecorder;
 
-    @Value("${spring.ai.openai.api-key}")
-    private String apiKey;
+    @Autowired
+    private RateLimitService rateLimitService;
 
-    @Value("${spring.ai.openai.base-url}")
-    private String apiUrl;
+    // 熔断期间是否用关键词策略降级产出结果（否则按失败处理）
+    @Value("${finance.analysis.deepseek.fallback.enabled:true}")
+    private boolean fallbackEnabled;
 
+    // 流式模式下评分低于该值时提前终止生成（0 表示不取消）
+    @Value("${finance.analysis.deepseek.stream.cancel-below-score:0}")
+    private int cancelBelowScore;
+
+    // 打包分析中每次额外请求等待限流令牌的最长时间（与批量引擎一致）
+    @Value("${finance.analysis.task.permit-wait-millis:30000}")
+    private long permitWaitMillis;
+
+    /**
+     * 分析单个公司；同一公司并发的多次调用只会真正请求一次 DeepSeek
+     */
     public AnalysisResultEntity analyzeCompany(Long companyId, String companyName, String description) {
+        return singleFlight.execute(companyId, promptVersion(),
+                () -> doAnalyzeCompany(companyId, companyName, description, true, true));
+    }
+
+    private AnalysisResultEntity doAnalyzeCompany(Long companyId, String companyName, String description,
+                                                  boolean useLocalStages, boolean useTriage) {
         log.info(">>> 开始分析公司: {} (ID: {})", companyName, companyId);
         long startTime = System.currentTimeMillis();
 
-        AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder = AnalysisResultEntity.builder()
-                .companyId(companyId)
-                .analysisModel("deepseek-chat-v3")
-                .version(3)
-                .analysisTime(LocalDateTime.now());
+        AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder = newResultBuilder(companyId, companyName, description);
 
         try {
-            String prompt = buildCommercialSpyPrompt(companyName, description);
-            String rawResponse = callDeepSeekApi(prompt);
+            // 调用方已放弃（HTTP 请求超时或定时任务超出预算），记为失败交给死信队列稍后重放
+            DeadlineContext.checkNotExpired("分析公司 " + companyName);
+
+            // 近似重复复用 / 关键词策略 / 本地评分模型能定论的公司不再调用 LLM
+            if (useLocalStages) {
+                AnalysisResultEntity local = analyzeLocally(companyId, companyName, description, startTime);
+                if (local != null) {
+                    return local;
+                }
+            }
+
+            // 去掉 URL、套话与重复句子并按 Token 预算截断，缓存键与 Prompt 都基于压缩后的描述
+            DescriptionCompactor.Compaction compaction = descriptionCompactor.compact(description);
+            resultBuilder.promptTokensSaved(compaction.savedTokens());
+
+            // 先查两级缓存，相同模型/Prompt/输入不再重复调用 DeepSeek
+            CallOptions fullOptions = routingPolicy.fullOptions();
+            PromptTemplate template = promptTemplates.active();
+            resultBuilder.version(template.getVersion()).promptTemplate(template.getName());
+            String cacheKey = responseCache.buildKey(fullOptions.model(), template, companyName, compaction.text());
+            String content = responseCache.get(cacheKey);
+            boolean cached = content != null;
+            String rawResponse;
+            Long firstTokenMs = null;
+
+            if (cached) {
+                log.info(">>> 命中分析缓存: {}", companyName);
+                rawResponse = content;
+            } else {
+                // 分级路由：先快速初筛，低价值且有把握的线索不再生成完整报告
+                if (useTriage && routingPolicy.isEnabled()) {
+                    PromptTemplate triageTemplate = promptTemplates.triage();
+                    LeadAnalysis triage = triage(companyId, companyName, compaction.text(), triageTemplate, resultBuilder);
+                    if (!routingPolicy.shouldEscalate(triage)) {
+                        resultBuilder.version(triageTemplate.getVersion()).promptTemplate(triageTemplate.getName());
+                        AnalysisResultEntity saved = analysisResultRepository.save(
+                                buildTriageEntity(resultBuilder, triage, System.currentTimeMillis() - startTime));
+                        nearDuplicateResolver.register(companyId, companyName, description);
+                        return saved;
+                    }
+                }
+
+                String prompt = template.render(companyName, compaction.text());
+                // 429 / 5xx / 超时按退避重试，重试次数记录在结果行上
+                ChatCompletion completion = retryTemplate.executeWithRetry(
+                        () -> callDeepSeek(fullOptions, prompt), LlmRetryPolicy.INSTANCE, resultBuilder::retryCount);
+                firstTokenMs = completion.getFirstTokenMs();
+                usageRecorder.record(LlmUsageRecorder.CALL_FULL, fullOptions.model(), template.getVersion(),
+                        companyId, 1, completion);
+                applyUsage(resultBuilder, completion.getUsage(), 1);
+
+                if (completion.isCancelled()) {
+                    return analysisResultRepository.save(buildCancelledEntity(resultBuilder, completion));
+                }
+                rawResponse = completion.getRawResponse();
+                content = completion.getContent();
+            }
+            resultBuilder.firstTokenMs(firstTokenMs);
             long duration = System.currentTimeMillis() - startTime;
 
-            // 🔥 核心修复：解析 OpenAI 格式的响应
-            JSONObject aiData = parseAiResponse(rawResponse);
+            // 单遍流式解析；被截断的响应只要评分已出现就直接使用，不再重新调用
+            LeadAnalysis analysis = leadAnalysisParser.parse(content);
 
-            if (aiData == null) {
+            if (analysis == null || !analysis.isUsable()) {
                 // 如果解析失败，抛异常，让外层重试或记录
-                throw new RuntimeException("无法从AI响应中提取有效JSON");
+                throw new AnalysisException("无法从AI响应中提取有效JSON", FailureClass.PARSE_ERROR_CODE, companyName);
+            }
+            if (analysis.truncated()) {
+                log.warn(">>> AI 响应被截断，已恢复部分字段: {}", companyName);
             }
 
-            // 组装成好看的报告
-            String commercialReport = generateCommercialReport(aiData);
-
-            AnalysisResultEntity entity = resultBuilder
-                    .success(true)
-                    .rawResponse(rawResponse)
-                    .processingTimeMs((double) duration)
-                    .analysisReason(commercialReport) // 这里现在肯定有值了！
-                    .businessTypes(aiData.getString("business_category"))
-                    .paymentWillingnessScore(aiData.getInteger("score"))
-                    .confidence(aiData.getDouble("confidence"))
-                    .build();
+            if (!cached && !analysis.truncated()) {
+                responseCache.put(cacheKey, content);
+            }
 
-            return analysisResultRepository.save(entity);
+            AnalysisResultEntity saved = analysisResultRepository.save(
+                    buildSuccessEntity(resultBuilder, analysis, rawResponse, duration));
+            nearDuplicateResolver.register(companyId, companyName, description);
+            return saved;
 
         } catch (Exception e) {
+            if (e instanceof CircuitOpenException && fallbackEnabled) {
+                log.warn(">>> DeepSeek 熔断中，关键词策略降级分析: {}", companyName);
+                return saveFallback(resultBuilder, description, startTime);
+            }
             log.error(">>> 分析失败: {}", companyName, e);
             AnalysisResultEntity errorEntity = resultBuilder
                     .success(false)
@@ -83,7 +226,13 @@ public class DeepSeekAnalysisService {
                     .processingTimeMs((double) (System.currentTimeMillis() - startTime))
                     .build();
             analysisResultRepository.save(errorEntity);
-            throw new RuntimeException("分析失败: " + e.getMessage());
+            // 写入死信队列，由 DeadLetterReplayJob 按失败分类退避重放
+            try {
+                deadLetterStore.record(companyId, e);
+            } catch (Exception recordError) {
+                log.error(">>> 写入分析死信失败: {}", companyName, recordError);
+            }
+            throw new RuntimeException("分析失败: " + e.getMessage(), e);
         }
     }
 
@@ -97,97 +246,682 @@ public class DeepSeekAnalysisService {
         return results;
     }
 
-    // --- 私有辅助方法 ---
-
-    private String buildCommercialSpyPrompt(String name, String desc) {
-        return "你是一名拥有10年经验的Fintech行业销售总监。请分析以下目标公司的信息，为我挖掘销售线索。\n\n" +
-                "【目标公司】: " + name + "\n" +
-                "【公司简介】: " + desc + "\n\n" +
-                "请务必严格按照以下 JSON 格式输出结果（不要输出 markdown 代码块，只输出纯文本 JSON）：\n" +
-                "{\n" +
-                "  \"business_category\": \"用3-5个字精准定义其业务(如:跨境支付/Web3钱包)\",\n" +
-                "  \"pain_points\": [\"痛点1: 描述具体的技术或合规难题\", \"痛点2\", \"痛点3\"],\n" +
-                "  \"score\": 1-10的整数(代表付费意愿),\n" +
-                "  \"confidence\": 0.0-1.0(代表你的判断置信度),\n" +
-                "  \"sales_hook\": \"一句为销售量身定制的破冰开场白(中文)\",\n" +
-                "  \"value_summary\": \"简述为什么这家公司值得跟进(50字以内)\"\n" +
-                "}";
-    }
-
-    private String generateCommercialReport(JSONObject data) {
-        StringBuilder sb = new StringBuilder();
-        // 增加空值判断，防止 NullPointerException
-        String category = data.getString("business_category");
-        sb.append("【业务本质】: ").append(category != null ? category : "未识别").append("\n\n");
+    /**
+     * 打包分析：一次请求分析多家公司，按 company_id 拆分为独立的结果行。
+     * 未能从打包响应中解析出的公司自动退回单公司分析。
+     * 与单公司分析共用单飞键：先认领整包公司的执行权，其他批次或节点正在分析的公司不进包，
+     * 等本包处理完后共享对方的结果。
+     * 调用方（批量引擎）为整包取得的限流许可只覆盖包内第一次请求，之后的每次请求各自再取许可。
+     */
+    public List<AnalysisResultEntity> analyzePacked(List<CompanyEntity> pack) {
+        if (pack.size() == 1) {
+            CompanyEntity only = pack.get(0);
+            return List.of(analyzeCompany(only.getId(), only.getName(), only.getDescription()));
+        }
 
-        sb.append("【核心痛点预测】:\n");
-        JSONArray painPoints = data.getJSONArray("pain_points");
-        if (painPoints != null) {
-            for (int i = 0; i < painPoints.size(); i++) {
-                sb.append(i + 1).append(". ").append(painPoints.getString(i)).append("\n");
+        LocalDateTime claimTime = LocalDateTime.now();
+        int promptVersion = promptVersion();
+        List<AnalysisResultEntity> results = new ArrayList<>();
+        List<CompanyEntity> busy = new ArrayList<>();
+        try (AnalysisSingleFlight.Claim claim = singleFlight.claimAll(
+                pack.stream().map(CompanyEntity::getId).toList(), promptVersion)) {
+            List<CompanyEntity> owned = new ArrayList<>(claim.size());
+            for (CompanyEntity company : pack) {
+                (claim.owns(company.getId()) ? owned : busy).add(company);
+            }
+            try (PackPermits permits = new PackPermits()) {
+                analyzeClaimed(owned, results, claim, permits);
             }
+            // 结果已全部落库：逐家释放执行权并把结果交给等待者，没有结果的公司在关闭时按失败通知
+            results.forEach(claim::complete);
         }
 
-        sb.append("\n【销售敲门砖】:\n\"").append(data.getString("sales_hook")).append("\"\n\n");
-        sb.append("【深度价值评估】:\n").append(data.getString("value_summary"));
-        return sb.toString();
+        if (!busy.isEmpty()) {
+            log.info(">>> {} 家公司正在被其他批次分析，等待共享结果", busy.size());
+        }
+        for (CompanyEntity company : busy) {
+            try {
+                AnalysisResultEntity shared = singleFlight.awaitShared(company.getId(), promptVersion, claimTime);
+                results.add(shared != null ? shared
+                        : analyzeCompany(company.getId(), company.getName(), company.getDescription()));
+            } catch (Exception e) {
+                log.error(">>> 共享分析结果失败: {}", company.getName());
+            }
+        }
+        return results;
     }
 
-    // 🔥 修复后的解析逻辑
-    private JSONObject parseAiResponse(String rawResponse) {
+    /**
+     * 分析已认领执行权的公司，结果追加到 results
+     */
+    private void analyzeClaimed(List<CompanyEntity> pack, List<AnalysisResultEntity> results,
+                                AnalysisSingleFlight.Claim claim, PackPermits permits) {
+        long startTime = System.currentTimeMillis();
+        List<CompanyEntity> fallback = new ArrayList<>();
+        Map<Long, LeadAnalysis> items = new HashMap<>();
+
+        // 先用本地阶段过滤掉能定论的公司，只打包模棱两可的
+        long localStart = System.currentTimeMillis();
+        List<CompanyEntity> candidates = new ArrayList<>();
+        for (CompanyEntity company : pack) {
+            AnalysisResultEntity reused = reuseNearDuplicate(company.getId(), company.getName(),
+                    company.getDescription(), localStart);
+            if (reused != null) {
+                results.add(reused);
+            } else {
+                candidates.add(company);
+            }
+        }
+
+        List<CompanyEntity> companies = new ArrayList<>();
+        List<StrategyCascade.Decision> decisions = strategyCascade.evaluateAll(candidates);
+        for (int i = 0; i < candidates.size(); i++) {
+            CompanyEntity company = candidates.get(i);
+            AnalysisResultEntity local = decideLocally(company.getId(), company.getName(),
+                    company.getDescription(), decisions.get(i), localStart);
+            if (local != null) {
+                results.add(local);
+            } else {
+                companies.add(company);
+            }
+        }
+        if (companies.size() <= 1) {
+            companies.forEach(c -> analyzeClaimedSingle(c, results, claim, permits, true));
+            return;
+        }
+
+        // 熔断中不再尝试打包请求，直接降级
+        if (fallbackEnabled && circuitBreaker.isOpen()) {
+            log.warn(">>> DeepSeek 熔断中，{} 家公司走关键词策略降级", companies.size());
+            companies.forEach(c -> results.add(
+                    saveFallback(newResultBuilder(c), c.getDescription(), localStart)));
+            return;
+        }
+
+        Map<Long, DescriptionCompactor.Compaction> compactions = new HashMap<>();
+        companies.forEach(c -> compactions.put(c.getId(), descriptionCompactor.compact(c.getDescription())));
+
+        // 打包模板下已分析过的公司直接复用缓存，与单公司调用一样先查缓存再初筛
+        CallOptions fullOptions = routingPolicy.fullOptions();
+        PromptTemplate packedTemplate = promptTemplates.packed();
+        companies = reuseCachedPacked(companies, compactions, fullOptions.model(), packedTemplate, results);
+        if (companies.size() <= 1) {
+            companies.forEach(c -> analyzeClaimedSingle(c, results, claim, permits, true));
+            return;
+        }
+
+        // 分级路由：整包先做一次快速初筛，只把需要完整报告的公司再打包
+        if (routingPolicy.isEnabled()) {
+            companies = triagePacked(companies, compactions, results, permits);
+            if (companies.size() <= 1) {
+                companies.forEach(c -> analyzeClaimedSingle(c, results, claim, permits, false));
+                return;
+            }
+        }
+
+        log.info(">>> 开始打包分析 {} 家公司", companies.size());
+        TokenUsage packedUsage = null;
+        AtomicInteger packRetries = new AtomicInteger();
+
         try {
-            JSONObject root = JSON.parseObject(rawResponse);
-
-            // 优先检查 OpenAI 格式 (choices -> message -> content)
-            if (root.containsKey("choices")) {
-                JSONArray choices = root.getJSONArray("choices");
-                if (!choices.isEmpty()) {
-                    String content = choices.getJSONObject(0)
-                            .getJSONObject("message")
-                            .getString("content");
-                    return parseCleanJson(content);
+            // 与单公司调用一样：截止时间已过不再发送，429 / 5xx / 超时按退避重试后才拆成单公司调用
+            DeadlineContext.checkNotExpired("打包分析");
+            permits.acquire("打包分析");
+            CallOptions packOptions = scaleMaxTokens(fullOptions, companies.size());
+            String prompt = packedTemplate.render(renderCompanies(companies, compactions));
+            ChatCompletion completion = retryTemplate.executeWithRetry(
+                    () -> deepSeekClient.complete(packOptions, prompt), LlmRetryPolicy.INSTANCE, packRetries::set);
+            usageRecorder.record(LlmUsageRecorder.CALL_PACKED_FULL, fullOptions.model(), packedTemplate.getVersion(),
+                    null, companies.size(), completion);
+            packedUsage = completion.getUsage();
+            // 同一个 company_id 出现多次说明模型把公司对应关系弄乱了，这些公司改走单公司分析
+            Set<Long> duplicated = new HashSet<>();
+            for (LeadAnalysis item : leadAnalysisParser.parseList(completion.getContent())) {
+                if (item.companyId() != null && item.isUsable() && items.putIfAbsent(item.companyId(), item) != null) {
+                    duplicated.add(item.companyId());
                 }
             }
+            if (!duplicated.isEmpty()) {
+                log.warn(">>> 打包响应中公司ID重复: {}", duplicated);
+                items.keySet().removeAll(duplicated);
+            }
+        } catch (Exception e) {
+            log.error(">>> 打包分析请求失败，全部退回单公司分析", e);
+        }
+
+        // 整包耗时按公司数均摊，便于与单公司调用对比
+        long perItemDuration = (System.currentTimeMillis() - startTime) / companies.size();
 
-            // 否则尝试直接解析 root (防止 DeepSeek 改格式)
-            return root;
+        for (CompanyEntity company : companies) {
+            LeadAnalysis analysis = items.get(company.getId());
+            if (analysis == null) {
+                fallback.add(company);
+                continue;
+            }
 
+            String content = leadAnalysisParser.toJson(analysis);
+            DescriptionCompactor.Compaction compaction = compactions.get(company.getId());
+            if (!analysis.truncated()) {
+                responseCache.put(responseCache.buildKey(fullOptions.model(), packedTemplate, company.getName(), compaction.text()), content);
+            }
+            AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder = newResultBuilder(company, packedTemplate)
+                    .promptTokensSaved(compaction.savedTokens())
+                    .retryCount(packRetries.get());
+            applyUsage(resultBuilder, packedUsage, companies.size());
+            results.add(analysisResultRepository.save(
+                    buildSuccessEntity(resultBuilder, analysis, content, perItemDuration)));
+            nearDuplicateResolver.register(company.getId(), company.getName(), company.getDescription());
+        }
+
+        if (!fallback.isEmpty()) {
+            log.warn(">>> 打包响应中 {} 家公司解析失败，退回单公司分析", fallback.size());
+        }
+        // 能走到完整打包的公司已经过初筛（或未开启路由），回退时不再重复初筛
+        fallback.forEach(c -> analyzeClaimedSingle(c, results, claim, permits, false));
+    }
+
+    /**
+     * 整包初筛：不需要升级的公司直接落库初筛结果，返回需要完整报告的公司
+     */
+    private List<CompanyEntity> triagePacked(List<CompanyEntity> companies,
+                                             Map<Long, DescriptionCompactor.Compaction> compactions,
+                                             List<AnalysisResultEntity> results,
+                                             PackPermits permits) {
+        long startTime = System.currentTimeMillis();
+        Map<Long, LeadAnalysis> triaged = new HashMap<>();
+        CallOptions triageOptions = routingPolicy.triageOptions();
+        PromptTemplate template = promptTemplates.packedTriage();
+        TokenUsage triageUsage = null;
+        try {
+            DeadlineContext.checkNotExpired("打包初筛");
+            permits.acquire("打包初筛");
+            CallOptions packOptions = scaleMaxTokens(triageOptions, companies.size());
+            String prompt = template.render(renderCompanies(companies, compactions));
+            ChatCompletion completion = retryTemplate.executeWithRetry(
+                    () -> deepSeekClient.complete(packOptions, prompt), LlmRetryPolicy.INSTANCE, retries -> { });
+            usageRecorder.record(LlmUsageRecorder.CALL_PACKED_TRIAGE, triageOptions.model(), template.getVersion(),
+                    null, companies.size(), completion);
+            triageUsage = completion.getUsage();
+            for (LeadAnalysis item : leadAnalysisParser.parseList(completion.getContent())) {
+                if (item.companyId() != null) {
+                    triaged.put(item.companyId(), item);
+                }
+            }
         } catch (Exception e) {
-            // 最后的兜底：把它当纯文本处理
-            return parseCleanJson(rawResponse);
+            log.warn(">>> 打包初筛失败，全部升级到完整报告: {}", e.getMessage());
         }
+
+        long perItemDuration = (System.currentTimeMillis() - startTime) / companies.size();
+        List<CompanyEntity> escalated = new ArrayList<>();
+        for (CompanyEntity company : companies) {
+            LeadAnalysis triage = triaged.get(company.getId());
+            if (routingPolicy.shouldEscalate(triage)) {
+                escalated.add(company);
+                continue;
+            }
+            AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder = newResultBuilder(company, template)
+                    .promptTokensSaved(compactions.get(company.getId()).savedTokens());
+            applyUsage(resultBuilder, triageUsage, companies.size());
+            results.add(analysisResultRepository.save(buildTriageEntity(resultBuilder, triage, perItemDuration)));
+            nearDuplicateResolver.register(company.getId(), company.getName(), company.getDescription());
+        }
+        log.info(">>> 打包初筛 {} 家公司，{} 家升级到完整报告", companies.size(), escalated.size());
+        return escalated;
     }
 
-    private JSONObject parseCleanJson(String content) {
-        if (content == null) return null;
+    /**
+     * 单公司初筛，结果按初筛模型与初筛模板单独缓存；失败时返回 null（随后升级到完整报告）
+     */
+    private LeadAnalysis triage(Long companyId, String companyName, String description, PromptTemplate template,
+                                AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder) {
+        CallOptions triageOptions = routingPolicy.triageOptions();
+        String cacheKey = responseCache.buildKey(triageOptions.model(), template, companyName, description);
         try {
-            // 去掉 markdown 的 ```json 和 ``` 包裹
-            String clean = content.replaceAll("```json", "")
-                    .replaceAll("```", "")
-                    .trim();
-            return JSON.parseObject(clean);
+            String content = responseCache.get(cacheKey);
+            boolean cached = content != null;
+            if (!cached) {
+                ChatCompletion completion = deepSeekClient.complete(triageOptions, template.render(companyName, description));
+                usageRecorder.record(LlmUsageRecorder.CALL_TRIAGE, triageOptions.model(), template.getVersion(),
+                        companyId, 1, completion);
+                applyUsage(resultBuilder, completion.getUsage(), 1);
+                content = completion.getContent();
+            }
+            LeadAnalysis triage = leadAnalysisParser.parse(content);
+            if (!cached && triage != null && triage.isUsable() && !triage.truncated()) {
+                responseCache.put(cacheKey, content);
+            }
+            return triage;
         } catch (Exception e) {
-            log.error("JSON清洗失败，内容: {}", content);
+            log.warn(">>> 初筛失败，直接升级到完整报告: {} - {}", companyName, e.getMessage());
             return null;
         }
     }
 
-    private String callDeepSeekApi(String prompt) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Authorization", "Bearer " + apiKey);
+    /**
+     * 查打包模板的缓存：命中的公司直接落库，返回仍需调用 DeepSeek 的公司
+     */
+    private List<CompanyEntity> reuseCachedPacked(List<CompanyEntity> companies,
+                                                  Map<Long, DescriptionCompactor.Compaction> compactions,
+                                                  String model, PromptTemplate template,
+                                                  List<AnalysisResultEntity> results) {
+        List<CompanyEntity> misses = new ArrayList<>();
+        for (CompanyEntity company : companies) {
+            long startTime = System.currentTimeMillis();
+            DescriptionCompactor.Compaction compaction = compactions.get(company.getId());
+            String content = responseCache.get(responseCache.buildKey(model, template, company.getName(), compaction.text()));
+            LeadAnalysis analysis = content != null ? leadAnalysisParser.parse(content) : null;
+            if (analysis == null || !analysis.isUsable()) {
+                misses.add(company);
+                continue;
+            }
+            log.info(">>> 命中分析缓存: {}", company.getName());
+            AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder = newResultBuilder(company, template)
+                    .promptTokensSaved(compaction.savedTokens());
+            results.add(analysisResultRepository.save(buildSuccessEntity(resultBuilder, analysis, content,
+                    System.currentTimeMillis() - startTime)));
+            nearDuplicateResolver.register(company.getId(), company.getName(), company.getDescription());
+        }
+        return misses;
+    }
+
+    /**
+     * 已经过本地定论阶段、且已认领执行权的公司走单公司分析（不再经过单飞，否则会等待自己）；
+     * 失败只记录日志（失败行已由分析流程落库），并把失败通知给等待者。
+     * 与批量引擎的单公司路径一致，一次单公司分析（含其初筛）占一个限流许可
+     */
+    private void analyzeClaimedSingle(CompanyEntity company, List<AnalysisResultEntity> results,
+                                      AnalysisSingleFlight.Claim claim, PackPermits permits, boolean useTriage) {
+        try {
+            permits.acquire("分析公司 " + company.getName());
+            results.add(doAnalyzeCompany(company.getId(), company.getName(), company.getDescription(),
+                    false, useTriage));
+        } catch (RuntimeException e) {
+            log.error(">>> 单公司回退分析失败: {}", company.getName());
+            claim.fail(company.getId(), e);
+        }
+    }
+
+    /**
+     * 熔断降级：用关键词策略给出结果，并标记为待 DeepSeek 恢复后重新分析
+     */
+    private AnalysisResultEntity saveFallback(AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder,
+                                              String description, long startTime) {
+        StrategyCascade.Decision decision = strategyCascade.fallback(description);
+        return analysisResultRepository.save(resultBuilder
+                .success(true)
+                .analysisModel(StrategyCascade.FALLBACK_MODEL)
+                .analysisTier(ModelRoutingPolicy.TIER_LOCAL)
+                .needsLlmUpgrade(true)
+                .processingTimeMs((double) (System.currentTimeMillis() - startTime))
+                .analysisReason(decision.reason())
+                .businessTypes(decision.businessType())
+                .paymentWillingnessScore(decision.score())
+                .confidence(decision.confidence())
+                .build());
+    }
+
+    /**
+     * 把熔断期间的降级结果交给 DeepSeek 重新分析，返回成功升级的条数。
+     * 熔断器仍打开时不做任何事；升级过程中再次熔断，新的降级结果会继续排队。
+     */
+    public int upgradeFallbackResults(int limit) {
+        if (circuitBreaker.isOpen()) {
+            return 0;
+        }
+        int upgraded = 0;
+        for (AnalysisResultEntity pending : analysisResultRepository
+                .findByNeedsLlmUpgradeTrueOrderByAnalysisTimeAsc(PageRequest.of(0, limit))) {
+            CompanyEntity company = companyRepository.findById(pending.getCompanyId()).orElse(null);
+            if (company == null) {
+                pending.setNeedsLlmUpgrade(false);
+                analysisResultRepository.save(pending);
+                continue;
+            }
+            try {
+                AnalysisResultEntity result = singleFlight.execute(company.getId(), promptVersion(),
+                        () -> doAnalyzeCompany(company.getId(), company.getName(), company.getDescription(),
+                                false, true));
+                pending.setNeedsLlmUpgrade(false);
+                analysisResultRepository.save(pending);
+                if (Boolean.TRUE.equals(result.getNeedsLlmUpgrade())) {
+                    log.warn(">>> 升级过程中 DeepSeek 再次熔断，剩余结果留待下次");
+                    break;
+                }
+                upgraded++;
+            } catch (Exception e) {
+                log.error(">>> 降级结果升级失败: {}", company.getName());
+            }
+        }
+        return upgraded;
+    }
+
+    /**
+     * 重新分析一家公司。描述变化的公司走完整流程；描述未变、只是结果质量低的公司
+     * 跳过本地阶段与初筛，直接生成完整报告（否则本地阶段会给出同样的结论）。
+     */
+    public AnalysisResultEntity reanalyzeCompany(CompanyEntity company, boolean descriptionChanged) {
+        return singleFlight.execute(company.getId(), promptVersion(),
+                () -> doAnalyzeCompany(company.getId(), company.getName(), company.getDescription(),
+                        descriptionChanged, descriptionChanged));
+    }
+
+    /**
+     * 本地阶段，按结果可信度依次尝试：近似重复复用、关键词策略级联、本地评分模型。
+     * 任一阶段能定论即落库返回，否则返回 null 交给 LLM。
+     */
+    private AnalysisResultEntity analyzeLocally(Long companyId, String companyName, String description, long startTime) {
+        AnalysisResultEntity reused = reuseNearDuplicate(companyId, companyName, description, startTime);
+        if (reused != null) {
+            return reused;
+        }
+        return decideLocally(companyId, companyName, description, strategyCascade.evaluate(description), startTime);
+    }
+
+    private AnalysisResultEntity reuseNearDuplicate(Long companyId, String companyName, String description, long startTime) {
+        NearDuplicateResolver.Reuse reuse = nearDuplicateResolver.findReusable(companyId, companyName, description);
+        if (reuse == null) {
+            return null;
+        }
+        log.info(">>> 复用近似描述的分析结果(公司 {}，海明距离 {}): {}",
+                reuse.source().getCompanyId(), reuse.distance(), companyName);
+        return analysisResultRepository.save(
+                buildReusedEntity(newResultBuilder(companyId, companyName, description), reuse,
+                        System.currentTimeMillis() - startTime));
+    }
+
+    private AnalysisResultEntity decideLocally(Long companyId, String companyName, String description,
+                                               StrategyCascade.Decision decision, long startTime) {
+        if (decision != null) {
+            log.info(">>> 关键词策略本地定论({}): {}", decision.positive() ? "正向" : "负向", companyName);
+            return analysisResultRepository.save(
+                    buildLocalEntity(newResultBuilder(companyId, companyName, description), decision,
+                            System.currentTimeMillis() - startTime));
+        }
+
+        LeadScoringModel.Prediction prediction = learnedLeadScorer.standIn(description);
+        if (prediction != null) {
+            log.info(">>> 本地评分模型替代 LLM(置信度 {}): {}", String.format("%.2f", prediction.confidence()), companyName);
+            return analysisResultRepository.save(
+                    buildLearnedEntity(newResultBuilder(companyId, companyName, description), prediction,
+                            System.currentTimeMillis() - startTime));
+        }
+        return null;
+    }
+
+    /**
+     * 当前完整报告 Prompt 模板的版本（参与缓存指纹与单飞合并，并记录在结果行上）
+     */
+    public int promptVersion() {
+        return promptTemplates.active().getVersion();
+    }
+
+    /**
+     * 当前完整报告 Prompt 模板的名称，与 promptVersion 一起判断结果是否由当前模板生成
+     */
+    public String promptTemplateName() {
+        return promptTemplates.active().getName();
+    }
+
+    // --- 私有辅助方法 ---
+
+    private AnalysisResultEntity.AnalysisResultEntityBuilder newResultBuilder(CompanyEntity company) {
+        return newResultBuilder(company.getId(), company.getName(), company.getDescription());
+    }
+
+    /**
+     * 由专用模板（打包 / 初筛）生成的结果行记录该模板自己的名称与版本
+     */
+    private AnalysisResultEntity.AnalysisResultEntityBuilder newResultBuilder(CompanyEntity company,
+                                                                              PromptTemplate template) {
+        return newResultBuilder(company)
+                .version(template.getVersion())
+                .promptTemplate(template.getName());
+    }
+
+    private AnalysisResultEntity.AnalysisResultEntityBuilder newResultBuilder(Long companyId, String companyName,
+                                                                              String description) {
+        return AnalysisResultEntity.builder()
+                .companyId(companyId)
+                .descriptionHash(ContentHash.of(companyName, description))
+                .retryCount(0)
+                .analysisModel(RESULT_MODEL)
+                .version(promptVersion())
+                .promptTemplate(promptTemplateName())
+                .analysisTime(LocalDateTime.now());
+    }
+
+    private AnalysisResultEntity buildLocalEntity(AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder,
+                                                  StrategyCascade.Decision decision, long duration) {
+        return resultBuilder
+                .success(true)
+                .analysisModel(StrategyCascade.CASCADE_MODEL)
+                .analysisTier(ModelRoutingPolicy.TIER_LOCAL)
+                .processingTimeMs((double) duration)
+                .analysisReason(decision.reason())
+                .businessTypes(decision.businessType())
+                .paymentWillingnessScore(decision.score())
+                .confidence(decision.confidence())
+                .build();
+    }
+
+    private AnalysisResultEntity buildTriageEntity(AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder,
+                                                   LeadAnalysis triage, long duration) {
+        return resultBuilder
+                .success(true)
+                .analysisTier(ModelRoutingPolicy.TIER_TRIAGE)
+                .rawResponse(leadAnalysisParser.toJson(triage))
+                .processingTimeMs((double) duration)
+                .analysisReason(String.format("【快速初筛】付费意愿评分 %d，置信度 %.2f，未达到升级阈值，未生成完整报告。",
+                        triage.score(), triage.confidence()))
+                .businessTypes(triage.businessCategory())
+                .paymentWillingnessScore(triage.score())
+                .confidence(triage.confidence())
+                .build();
+    }
+
+    private AnalysisResultEntity buildReusedEntity(AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder,
+                                                   NearDuplicateResolver.Reuse reuse, long duration) {
+        AnalysisResultEntity source = reuse.source();
+        // 距离越大越不确定，每差一位置信度打 5% 折扣
+        Double confidence = source.getConfidence() != null
+                ? source.getConfidence() * (1 - 0.05 * reuse.distance()) : null;
+        return resultBuilder
+                .success(true)
+                .analysisModel(NearDuplicateResolver.MODEL_NAME)
+                .analysisTier(ModelRoutingPolicy.TIER_LOCAL)
+                .processingTimeMs((double) duration)
+                .analysisReason(String.format("【近似描述复用】参考公司 %d 的分析结果（海明距离 %d）\n\n%s",
+                        source.getCompanyId(), reuse.distance(), source.getAnalysisReason()))
+                .businessTypes(source.getBusinessTypes())
+                .paymentWillingnessScore(source.getPaymentWillingnessScore())
+                .confidence(confidence)
+                .build();
+    }
+
+    private AnalysisResultEntity buildLearnedEntity(AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder,
+                                                    LeadScoringModel.Prediction prediction, long duration) {
+        String businessType = prediction.businessCategory() != null
+                ? prediction.businessCategory() : BusinessType.OTHER_FINANCIAL.getName();
+        return resultBuilder
+                .success(true)
+                .analysisModel(LearnedLeadScorer.MODEL_NAME)
+                .analysisTier(ModelRoutingPolicy.TIER_LOCAL)
+                .processingTimeMs((double) duration)
+                .analysisReason(String.format("【本地模型预测】未调用 LLM，高意向概率 %.2f，预测评分 %d，业务分类: %s",
+                        prediction.highIntentProbability(), prediction.score(), businessType))
+                .businessTypes(businessType)
+                .paymentWillingnessScore(prediction.score())
+                .confidence(prediction.confidence())
+                .build();
+    }
+
+    private AnalysisResultEntity buildSuccessEntity(AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder,
+                                                    LeadAnalysis analysis, String rawResponse, long duration) {
+        // 组装成好看的报告
+        String commercialReport = generateCommercialReport(analysis);
+
+        return resultBuilder
+                .success(true)
+                .analysisTier(ModelRoutingPolicy.TIER_FULL)
+                .rawResponse(rawResponse)
+                .processingTimeMs((double) duration)
+                .analysisReason(commercialReport) // 这里现在肯定有值了！
+                .businessTypes(analysis.businessCategory())
+                .paymentWillingnessScore(analysis.score())
+                .confidence(analysis.confidence())
+                .build();
+    }
+
+    /**
+     * 调用 DeepSeek；开启流式且配置了取消阈值时，评分一出来低于阈值就停止生成
+     */
+    private ChatCompletion callDeepSeek(CallOptions options, String prompt) {
+        if (deepSeekClient.isStreamEnabled() && cancelBelowScore > 0) {
+            return deepSeekClient.stream(options, prompt,
+                    partial -> partial.getScore() == null || partial.getScore() >= cancelBelowScore);
+        }
+        return deepSeekClient.complete(options, prompt);
+    }
+
+    /**
+     * 在结果行上记录生成它的那次调用的 Token 用量；打包调用按公司数均摊
+     */
+    private static void applyUsage(AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder,
+                                   TokenUsage usage, int shares) {
+        if (usage == null) {
+            return;
+        }
+        TokenUsage share = usage.share(shares);
+        resultBuilder.promptTokens(share.promptTokens())
+                .completionTokens(share.completionTokens())
+                .promptCacheHitTokens(share.promptCacheHitTokens())
+                .promptCacheMissTokens(share.promptCacheMissTokens());
+    }
+
+    /**
+     * 打包请求的输出长度随公司数线性增长
+     */
+    private static CallOptions scaleMaxTokens(CallOptions options, int items) {
+        return options.maxTokens() == null ? options
+                : new CallOptions(options.model(), options.maxTokens() * items, options.temperature());
+    }
 
-        Map<String, Object> message = new HashMap<>();
-        message.put("role", "user");
-        message.put("content", prompt);
+    private AnalysisResultEntity buildCancelledEntity(AnalysisResultEntity.AnalysisResultEntityBuilder resultBuilder,
+                                                      ChatCompletion completion) {
+        StreamingFieldExtractor.PartialResult partial = completion.getPartial();
+        return resultBuilder
+                .success(true)
+                .analysisTier(ModelRoutingPolicy.TIER_FULL)
+                .rawResponse(completion.getRawResponse())
+                .processingTimeMs((double) completion.getTotalMs())
+                .firstTokenMs(completion.getFirstTokenMs())
+                .analysisReason(String.format("【低价值线索】付费意愿评分 %d 低于阈值 %d，已提前终止完整报告生成。",
+                        partial.getScore(), cancelBelowScore))
+                .businessTypes(partial.getBusinessCategory())
+                .paymentWillingnessScore(partial.getScore())
+                .confidence(partial.getConfidence())
+                .build();
+    }
 
-        Map<String, Object> body = new HashMap<>();
-        body.put("model", "deepseek-chat");
-        body.put("messages", new Object[]{message});
-        body.put("temperature", 0.7);
+    /**
+     * 打包模板的 {companies} 变量：逐家列出公司ID、名称与压缩后的简介
+     */
+    private static String renderCompanies(List<CompanyEntity> companies,
+                                          Map<Long, DescriptionCompactor.Compaction> compactions) {
+        StringBuilder sb = new StringBuilder();
+        for (CompanyEntity company : companies) {
+            sb.append("【公司ID】: ").append(company.getId()).append("\n")
+                    .append("【目标公司】: ").append(company.getName()).append("\n")
+                    .append("【公司简介】: ").append(compactions.get(company.getId()).text()).append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 一个打包批次内的限流许可：第一次请求沿用批量引擎为整包取得的许可，
+     * 之后每次请求各取一个，整包结束时统一释放。等待超时后不再等待，后续请求直接按限流失败。
+     */
+    private final class PackPermits implements AutoCloseable {
+
+        private boolean first = true;
+        private boolean exhausted;
+        private int held;
+
+        void acquire(String what) {
+            if (first) {
+                first = false;
+                return;
+            }
+            if (exhausted) {
+                throw new RateLimitException("等待限流许可超时: " + what);
+            }
+            try {
+                if (!rateLimitService.tryAcquire(DeadlineContext.boundMillis(permitWaitMillis), TimeUnit.MILLISECONDS)) {
+                    exhausted = true;
+                    throw new RateLimitException("等待限流许可超时: " + what);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exhausted = true;
+                throw new RateLimitException("等待限流许可时被中断: " + what);
+            }
+            held++;
+        }
+
+        @Override
+        public void close() {
+            for (; held > 0; held--) {
+                rateLimitService.release();
+            }
+        }
+    }
+
+    /**
+     * 组装销售报告；截断恢复的结果可能只有评分，缺失的段落直接省略
+     */
+    static String generateCommercialReport(LeadAnalysis analysis) {
+        List<String> sections = new ArrayList<>();
+        // 增加空值判断，防止 NullPointerException
+        String category = analysis.businessCategory();
+        sections.add("【业务本质】: " + (category != null ? category : "未识别"));
+
+        List<String> painPoints = analysis.painPoints();
+        if (painPoints != null && !painPoints.isEmpty()) {
+            StringBuilder sb = new StringBuilder("【核心痛点预测】:");
+            for (int i = 0; i < painPoints.size(); i++) {
+                sb.append("\n").append(i + 1).append(". ").append(painPoints.get(i));
+            }
+            sections.add(sb.toString());
+        }
+        if (analysis.salesHook() != null) {
+            sections.add("【销售敲门砖】:\n\"" + analysis.salesHook() + "\"");
+        }
+        if (analysis.valueSummary() != null) {
+            sections.add("【深度价值评估】:\n" + analysis.valueSummary());
+        }
+        return String.join("\n\n", sections);
+    }
+
+    /**
+     * 清空分析缓存，返回 Redis 中删除的键数量
+     */
+    public long clearCache() {
+        return responseCache.clear();
+    }
+
+    public AnalysisResponseCache.CacheStatus getCacheStatus() {
+        return responseCache.getStatus();
+    }
+
+    public StrategyCascade.CascadeStats getCascadeStats() {
+        return strategyCascade.getStats();
+    }
+
+    public NearDuplicateResolver.SimHashStats getSimHashStats() {
+        return nearDuplicateResolver.getStats();
+    }
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
-        ResponseEntity<String> response = restTemplate.postForEntity(apiUrl, request, String.class);
-        return response.getBody();
+    public DeepSeekCircuitBreaker.CircuitStats getCircuitStats() {
+        return circuitBreaker.getStats();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+package com.codinghappy.fintechai.module.analysis.service;
+
+import com.codinghappy.fintechai.module.analysis.client.CallOptions;
+import com.codinghappy.fintechai.module.analysis.parser.LeadAnalysis;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 模型分级路由策略
+ * 先用短 Prompt + 低 max_tokens 做一次快速初筛（只要评分和置信度），
+ * 只有评分达到升级阈值、或初筛置信度不足的公司才进入完整商业报告 Prompt。
+ */
+@Slf4j
+@Component
+public class ModelRoutingPolicy {
+
+    public static final String TIER_LOCAL = "local";
+    public static final String TIER_TRIAGE = "triage";
+    public static final String TIER_FULL = "full";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${finance.analysis.routing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${finance.analysis.routing.triage.model:deepseek-chat}")
+    private String triageModel;
+
+    @Value("${finance.analysis.routing.triage.max-tokens:40}")
+    private int triageMaxTokens;
+
+    @Value("${finance.analysis.routing.triage.temperature:0.0}")
+    private double triageTemperature;
+
+    @Value("${finance.analysis.routing.full.model:deepseek-chat}")
+    private String fullModel;
+
+    @Value("${finance.analysis.routing.full.max-tokens:1000}")
+    private int fullMaxTokens;
+
+    @Value("${finance.analysis.routing.full.temperature:0.7}")
+    private double fullTemperature;
+
+    // 初筛评分达到该值的公司升级到完整报告
+    @Value("${finance.analysis.routing.escalate-min-score:6}")
+    private int escalateMinScore;
+
+    // 初筛置信度低于该值的公司同样升级（不确定的交给完整 Prompt 再判断）
+    @Value("${finance.analysis.routing.escalate-below-confidence:0.6}")
+    private double escalateBelowConfidence;
+
+    private Counter settledCounter;
+    private Counter escalatedCounter;
+
+    public ModelRoutingPolicy(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        settledCounter = Counter.builder("analysis.routing.decisions").tag("tier", TIER_TRIAGE).register(meterRegistry);
+        escalatedCounter = Counter.builder("analysis.routing.decisions").tag("tier", TIER_FULL).register(meterRegistry);
+        log.info("模型分级路由: {}，初筛 {}(max_tokens={})，升级条件: 评分 >= {} 或置信度 < {}",
+                enabled ? "开启" : "关闭", triageModel, triageMaxTokens, escalateMinScore, escalateBelowConfidence);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CallOptions triageOptions() {
+        return new CallOptions(triageModel, triageMaxTokens, triageTemperature);
+    }
+
+    public CallOptions fullOptions() {
+        return new CallOptions(fullModel, fullMaxTokens, fullTemperature);
+    }
+
+    /**
+     * 初筛结果是否需要升级到完整报告；初筛失败（null）时一律升级
+     */
+    public boolean shouldEscalate(LeadAnalysis triage) {
+        boolean escalate = triage == null || !triage.isUsable()
+                || triage.score() >= escalateMinScore
+                || triage.confidence() == null
+                || triage.confidence() < escalateBelowConfidence;
+        (escalate ? escalatedCounter : settledCounter).increment();
+        return escalate;
+    }
+}
@@ -19,7 +19,7 @@ import java.util.concurrent.TimeUnit;
 public class RateLimitService {
 
     private final RedisTemplate<String, String> redisTemplate;
-    private final Semaphore localSemaphore;
+    private Semaphore localSemaphore;
 
     @Value("${finance.analysis.rate-limit.tokens-per-second:5}")
     private double tokensPerSecond;
@@ -69,12 +69,13 @@ public class RateLimitService {
 
     public RateLimitService(RedisTemplate<String, String> redisTemplate) {
         this.redisTemplate = redisTemplate;
-        // 本地信号量作为第二道防线
-        this.localSemaphore = new Semaphore((int) burstCapacity);
     }
 
     @PostConstruct
     public void init() {
+        // 本地信号量作为第二道防线（构造时 @Value 尚未注入，必须在这里初始化）
+        this.localSemaphore = new Semaphore((int) burstCapacity);
+
         redisScript = new DefaultRedisScript<>();
         redisScript.setScriptText(TOKEN_BUCKET_LUA);
         redisScript.setResultType(Long.class);
@@ -140,7 +141,14 @@ public class RateLimitService {
      * 带超时的尝试获取
      */
     private boolean tryAcquireWithTimeout() throws InterruptedException {
-        long deadline = System.currentTimeMillis() + timeoutMillis;
+        return tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在指定时间内等待获取调用许可（批量任务按令牌节奏推进，而不是固定休眠）
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
 
         while (System.currentTimeMillis() < deadline) {
             if (tryAcquire()) {
@@ -0,0 +1,181 @@
+package com.codinghappy.fintechai.module.analysis.service;
+
+import com.codinghappy.fintechai.module.analysis.dto.AnalysisResult;
+import com.codinghappy.fintechai.module.analysis.dto.BusinessType;
+import com.codinghappy.fintechai.module.analysis.service.strategy.CompositeStrategyScorer;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 关键词策略级联：在调用 DeepSeek 之前先用组合策略评分器对描述打分。
+ * 明显的正向线索（某策略置信度达到阈值）或明显的负向线索（只命中否定词且命中足够多）直接在本地定论，
+ * 其余模棱两可的公司才交给 LLM。
+ */
+@Slf4j
+@Component
+public class StrategyCascade {
+
+    public static final String CASCADE_MODEL = "keyword-cascade";
+    // DeepSeek 熔断期间由关键词策略降级产出的结果
+    public static final String FALLBACK_MODEL = "keyword-fallback";
+
+    // 负向定论置信度 = 基础值 + 每个否定词命中的增量（上限 0.95）
+    private static final double NEGATIVE_BASE_CONFIDENCE = 0.2;
+    private static final double NEGATIVE_CONFIDENCE_PER_HIT = 0.2;
+    private static final double NEGATIVE_MAX_CONFIDENCE = 0.95;
+
+    private final CompositeStrategyScorer compositeScorer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${finance.analysis.cascade.enabled:true}")
+    private boolean enabled;
+
+    // 本地定论所需的最低置信度
+    @Value("${finance.analysis.deepseek.fallback.min-confidence:0.6}")
+    private double minConfidence;
+
+    private Counter positiveCounter;
+    private Counter negativeCounter;
+    private Counter llmCounter;
+
+    public StrategyCascade(CompositeStrategyScorer compositeScorer, MeterRegistry meterRegistry) {
+        this.compositeScorer = compositeScorer;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        positiveCounter = Counter.builder("analysis.cascade.decisions").tag("decision", "local_positive").register(meterRegistry);
+        negativeCounter = Counter.builder("analysis.cascade.decisions").tag("decision", "local_negative").register(meterRegistry);
+        llmCounter = Counter.builder("analysis.cascade.decisions").tag("decision", "llm").register(meterRegistry);
+        Gauge.builder("analysis.cascade.skip_rate", this, c -> c.getStats().getSkipRate())
+                .register(meterRegistry);
+        log.info("关键词策略级联已启用: {}，本地定论阈值: {}", enabled, minConfidence);
+    }
+
+    /**
+     * 尝试本地定论；返回 null 表示需要交给 LLM
+     */
+    public Decision evaluate(String description) {
+        if (!enabled || description == null) {
+            return null;
+        }
+        return decide(compositeScorer.score(description));
+    }
+
+    /**
+     * 批量定论，返回与入参顺序一致的列表（元素为 null 表示需要交给 LLM）
+     */
+    public List<Decision> evaluateAll(List<CompanyEntity> companies) {
+        if (!enabled) {
+            return new ArrayList<>(Collections.nCopies(companies.size(), null));
+        }
+        List<AnalysisResult> scores = compositeScorer.scoreAll(companies);
+        List<Decision> decisions = new ArrayList<>(scores.size());
+        scores.forEach(score -> decisions.add(decide(score)));
+        return decisions;
+    }
+
+    /**
+     * 熔断降级：不论置信度高低都直接采用组合策略评分（不计入级联统计）
+     */
+    public Decision fallback(String description) {
+        AnalysisResult score = compositeScorer.score(description);
+        if (!score.isSuccess()) {
+            return new Decision(false, 1, 0, BusinessType.OTHER_FINANCIAL.getName(),
+                    "【熔断降级】DeepSeek 暂不可用，且描述为空无法评分");
+        }
+        String businessType = score.getBusinessTypes().isEmpty()
+                ? BusinessType.OTHER_FINANCIAL.getName()
+                : score.getBusinessTypes().get(0).getName();
+        return new Decision(valueOf(score.getKeywordHits()) > 0, score.getPaymentWillingnessScore(),
+                valueOf(score.getConfidence()), businessType,
+                "【熔断降级】DeepSeek 暂不可用，依据" + score.getAnalysisReason());
+    }
+
+    private Decision decide(AnalysisResult score) {
+        if (!score.isSuccess()) {
+            return null;
+        }
+        int positiveHits = valueOf(score.getKeywordHits());
+        int negativeHits = valueOf(score.getNegativeHits());
+        double confidence = valueOf(score.getConfidence());
+
+        // 正向：加权最强策略的置信度达标即定论
+        if (positiveHits > 0 && confidence >= minConfidence) {
+            positiveCounter.increment();
+            String businessType = score.getBusinessTypes().isEmpty()
+                    ? BusinessType.OTHER_FINANCIAL.getName()
+                    : score.getBusinessTypes().get(0).getName();
+            return new Decision(true, score.getPaymentWillingnessScore(), confidence,
+                    businessType, buildReason("本地正向定论", score));
+        }
+
+        // 负向：只命中否定词。没有正向命中时最强策略的置信度总是其下限，不能区分强弱，
+        // 因此按否定词命中数计算置信度：默认阈值下单个否定词不足以定论
+        double negativeConfidence = Math.min(NEGATIVE_MAX_CONFIDENCE,
+                NEGATIVE_BASE_CONFIDENCE + NEGATIVE_CONFIDENCE_PER_HIT * negativeHits);
+        if (positiveHits == 0 && negativeHits > 0 && negativeConfidence >= minConfidence) {
+            negativeCounter.increment();
+            return new Decision(false, 1, negativeConfidence,
+                    BusinessType.OTHER_FINANCIAL.getName(), buildReason("本地负向定论", score));
+        }
+
+        llmCounter.increment();
+        return null;
+    }
+
+    public CascadeStats getStats() {
+        return new CascadeStats(
+                (long) positiveCounter.count(),
+                (long) negativeCounter.count(),
+                (long) llmCounter.count()
+        );
+    }
+
+    private String buildReason(String title, AnalysisResult score) {
+        return "【" + title + "】未调用 LLM，依据" + score.getAnalysisReason();
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * 本地定论结果
+     */
+    public record Decision(
+            boolean positive,
+            Integer score,
+            double confidence,
+            String businessType,
+            String reason
+    ) {}
+
+    @Data
+    public static class CascadeStats {
+        private final long localPositive;
+        private final long localNegative;
+        private final long sentToLlm;
+
+        public double getSkipRate() {
+            long total = localPositive + localNegative + sentToLlm;
+            return total > 0 ? (double) (localPositive + localNegative) / total : 0;
+        }
+    }
+}
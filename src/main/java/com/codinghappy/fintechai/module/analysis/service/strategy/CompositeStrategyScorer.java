@@ -0,0 +1,195 @@
+package com.codinghappy.fintechai.module.analysis.service.strategy;
+
+import com.codinghappy.fintechai.module.analysis.dto.AnalysisResult;
+import com.codinghappy.fintechai.module.analysis.dto.BusinessType;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 组合策略评分器
+ * 自动发现所有 AnalysisStrategy，关键词策略共用 {@link StrategyKeywordMatcher} 的一次扫描，
+ * 按 权重 × 置信度 加权合并成一个 AnalysisResult，并给出每个业务类型的分项评分。
+ * 批量评分时在独立的 ForkJoinPool 上按公司列表二分并行。
+ */
+@Slf4j
+@Component
+public class CompositeStrategyScorer {
+
+    private final List<AnalysisStrategy> strategies;
+    private final StrategyKeywordMatcher keywordMatcher;
+    private final List<BusinessType> strategyTypes;
+
+    // 批量评分并行度，0 表示使用 CPU 核数
+    @Value("${finance.analysis.strategy.parallelism:0}")
+    private int parallelism;
+
+    // 子任务不再拆分的公司数
+    @Value("${finance.analysis.strategy.bulk-threshold:64}")
+    private int bulkThreshold;
+
+    private ForkJoinPool pool;
+
+    public CompositeStrategyScorer(List<AnalysisStrategy> strategies, StrategyKeywordMatcher keywordMatcher) {
+        this.strategies = strategies;
+        this.keywordMatcher = keywordMatcher;
+        this.strategyTypes = strategies.stream().map(CompositeStrategyScorer::businessTypeOf).toList();
+    }
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        log.info("组合策略评分器已加载 {} 个策略，批量并行度: {}", strategies.size(), threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public List<AnalysisStrategy> getStrategies() {
+        return Collections.unmodifiableList(strategies);
+    }
+
+    /**
+     * 对单条描述评分：关键词策略只扫描一遍文本
+     */
+    public AnalysisResult score(String description) {
+        if (description == null || strategies.isEmpty()) {
+            return AnalysisResult.errorResult("描述为空或没有可用策略");
+        }
+
+        StrategyKeywordMatcher.Hits hits = keywordMatcher.match(description);
+        List<TypeScore> typeScores = new ArrayList<>(strategies.size());
+        for (int i = 0; i < strategies.size(); i++) {
+            AnalysisStrategy strategy = strategies.get(i);
+            AnalysisResult result = strategy instanceof KeywordStrategy keywordStrategy
+                    ? keywordStrategy.score(hits.positive(keywordStrategy), hits.negative(keywordStrategy))
+                    : strategy.analyze(description);
+            typeScores.add(new TypeScore(strategyTypes.get(i), strategy.getWeight(), result));
+        }
+        return combine(typeScores);
+    }
+
+    /**
+     * 批量评分，返回结果与入参顺序一致
+     */
+    public List<AnalysisResult> scoreAll(List<CompanyEntity> companies) {
+        AnalysisResult[] results = new AnalysisResult[companies.size()];
+        if (companies.size() <= bulkThreshold) {
+            new ScoreTask(companies, results, 0, companies.size()).compute();
+        } else {
+            pool.invoke(new ScoreTask(companies, results, 0, companies.size()));
+        }
+        return Arrays.asList(results);
+    }
+
+    private AnalysisResult combine(List<TypeScore> typeScores) {
+        double weightSum = 0;
+        double scoreSum = 0;
+        int keywordHits = 0;
+        int negativeHits = 0;
+        TypeScore dominant = typeScores.get(0);
+        Map<BusinessType, Integer> scoresByType = new EnumMap<>(BusinessType.class);
+        StringBuilder reason = new StringBuilder("组合策略评分：");
+
+        for (TypeScore typeScore : typeScores) {
+            AnalysisResult result = typeScore.result;
+            double weight = typeScore.weightedConfidence();
+            weightSum += weight;
+            scoreSum += weight * valueOf(result.getPaymentWillingnessScore());
+            keywordHits += valueOf(result.getKeywordHits());
+            negativeHits += valueOf(result.getNegativeHits());
+            if (weight > dominant.weightedConfidence()) {
+                dominant = typeScore;
+            }
+            scoresByType.merge(typeScore.type, valueOf(result.getPaymentWillingnessScore()), Math::max);
+            reason.append("\n- ").append(result.getAnalysisReason());
+        }
+
+        // 只有命中正向关键词的类型才算识别出的业务类型，按加权强度排序
+        List<BusinessType> businessTypes = typeScores.stream()
+                .filter(t -> valueOf(t.result.getKeywordHits()) > 0)
+                .sorted(Comparator.comparingDouble(TypeScore::weightedConfidence).reversed())
+                .map(t -> t.type)
+                .distinct()
+                .toList();
+
+        int score = weightSum > 0 ? (int) Math.round(scoreSum / weightSum) : 1;
+        return AnalysisResult.builder()
+                .success(true)
+                .businessTypes(new ArrayList<>(businessTypes))
+                .paymentWillingnessScore(Math.max(1, Math.min(10, score)))
+                .confidence(valueOf(dominant.result.getConfidence()))
+                .keywordHits(keywordHits)
+                .negativeHits(negativeHits)
+                .typeScores(scoresByType)
+                .analysisReason(reason.toString())
+                .build();
+    }
+
+    private static BusinessType businessTypeOf(AnalysisStrategy strategy) {
+        return Arrays.stream(BusinessType.values())
+                .filter(strategy::supports)
+                .findFirst()
+                .orElse(BusinessType.OTHER_FINANCIAL);
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : 0;
+    }
+
+    private record TypeScore(BusinessType type, double weight, AnalysisResult result) {
+        double weightedConfidence() {
+            return weight * valueOf(result.getConfidence());
+        }
+    }
+
+    /**
+     * 按下标区间二分的批量评分任务，结果直接写入共享数组的对应位置
+     */
+    private class ScoreTask extends RecursiveAction {
+
+        private final List<CompanyEntity> companies;
+        private final AnalysisResult[] results;
+        private final int from;
+        private final int to;
+
+        ScoreTask(List<CompanyEntity> companies, AnalysisResult[] results, int from, int to) {
+            this.companies = companies;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= Math.max(1, bulkThreshold)) {
+                for (int i = from; i < to; i++) {
+                    results[i] = score(companies.get(i).getDescription());
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreTask(companies, results, from, mid), new ScoreTask(companies, results, mid, to));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.codinghappy.fintechai.module.analysis.service.strategy;
 import com.codinghappy.fintechai.module.analysis.dto.AnalysisResult;
 import com.codinghappy.fintechai.module.analysis.dto.BusinessType;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
@@ -10,7 +11,7 @@ import java.util.List;
 
 @Slf4j
 @Component
-public class CrossBorderPaymentStrategy implements AnalysisStrategy {
+public class CrossBorderPaymentStrategy implements KeywordStrategy {
 
     private static final List<String> KEYWORDS = Arrays.asList(
             "跨境支付", "国际支付", "跨境结算", "外汇支付",
@@ -22,6 +23,12 @@ public class CrossBorderPaymentStrategy implements AnalysisStrategy {
             "国内支付", "境内支付", "本地支付", "人民币支付"
     );
 
+    private final StrategyKeywordMatcher keywordMatcher;
+
+    public CrossBorderPaymentStrategy(@Lazy StrategyKeywordMatcher keywordMatcher) {
+        this.keywordMatcher = keywordMatcher;
+    }
+
     @Override
     public boolean supports(BusinessType businessType) {
         return BusinessType.CROSS_BORDER_PAYMENT.equals(businessType);
@@ -29,24 +36,27 @@ public class CrossBorderPaymentStrategy implements AnalysisStrategy {
 
     @Override
     public AnalysisResult analyze(String companyDescription) {
-        String lowerDesc = companyDescription.toLowerCase();
-        int keywordCount = 0;
-        int negativeCount = 0;
-
-        // 统计关键词出现次数
-        for (String keyword : KEYWORDS) {
-            if (lowerDesc.contains(keyword.toLowerCase())) {
-                keywordCount++;
-            }
-        }
-
-        // 统计否定关键词
-        for (String negative : NEGATIVE_KEYWORDS) {
-            if (lowerDesc.contains(negative.toLowerCase())) {
-                negativeCount++;
-            }
-        }
+        StrategyKeywordMatcher.Hits hits = keywordMatcher.match(companyDescription);
+        return score(hits.positive(this), hits.negative(this));
+    }
+
+    @Override
+    public String getKeywordKey() {
+        return "cross-border-payment";
+    }
 
+    @Override
+    public List<String> getKeywords() {
+        return KEYWORDS;
+    }
+
+    @Override
+    public List<String> getNegativeKeywords() {
+        return NEGATIVE_KEYWORDS;
+    }
+
+    @Override
+    public AnalysisResult score(int keywordCount, int negativeCount) {
         // 计算得分
         double score = calculateScore(keywordCount, negativeCount);
 
@@ -54,6 +64,8 @@ public class CrossBorderPaymentStrategy implements AnalysisStrategy {
                 .success(true)
                 .paymentWillingnessScore((int) Math.min(10, Math.round(score)))
                 .confidence(calculateConfidence(keywordCount, negativeCount))
+                .keywordHits(keywordCount)
+                .negativeHits(negativeCount)
                 .analysisReason(String.format(
                         "跨境支付关键词匹配%d个，否定词%d个，计算得分%.1f",
                         keywordCount, negativeCount, score
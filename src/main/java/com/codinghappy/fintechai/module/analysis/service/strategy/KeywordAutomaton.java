@@ -0,0 +1,264 @@
+package com.codinghappy.fintechai.module.analysis.service.strategy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho–Corasick 多模式匹配自动机（忽略大小写）
+ * 每个关键词可以挂到一个或多个计数槽（slot）上，一次扫描即可得到所有槽的命中数。
+ * 与原来 contains 循环的语义一致：同一个关键词在文本中出现多次只计一次。
+ *
+ * 自动机构建后不可变，可被多个线程共享；扫描状态放在 {@link Scan} 中，由调用方按线程复用，
+ * 扫描过程不分配任何对象，也不生成小写副本。
+ */
+public final class KeywordAutomaton {
+
+    private static final int ROOT = 0;
+    private static final int NO_PATTERN = -1;
+
+    // 转移表：状态 s 的出边为 edgeChars/edgeTargets[edgeStart[s], edgeStart[s + 1])，按字符升序
+    private final int[] edgeStart;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+
+    private final int[] fail;
+    // 恰好在该状态结束的关键词编号，没有则为 -1
+    private final int[] nodePattern;
+    // 沿失败链最近的一个"有关键词结束"的状态，没有则为 -1
+    private final int[] outputLink;
+
+    // 关键词编号 -> 计数槽
+    private final int[][] patternSlots;
+    private final int slotCount;
+
+    private KeywordAutomaton(int[] edgeStart, char[] edgeChars, int[] edgeTargets, int[] fail,
+                             int[] nodePattern, int[] outputLink, int[][] patternSlots, int slotCount) {
+        this.edgeStart = edgeStart;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.nodePattern = nodePattern;
+        this.outputLink = outputLink;
+        this.patternSlots = patternSlots;
+        this.slotCount = slotCount;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public int getPatternCount() {
+        return patternSlots.length;
+    }
+
+    /**
+     * 创建一份可复用的扫描状态（非线程安全，建议每个线程一份）
+     */
+    public Scan newScan() {
+        return new Scan(patternSlots.length, slotCount);
+    }
+
+    /**
+     * 单遍扫描文本，结果写入 scan（调用前的内容会被清空）
+     */
+    public Scan scan(CharSequence text, Scan scan) {
+        scan.reset();
+        if (text == null) {
+            return scan;
+        }
+
+        int state = ROOT;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = transition(state, c)) < 0 && state != ROOT) {
+                state = fail[state];
+            }
+            state = next < 0 ? ROOT : next;
+
+            int out = nodePattern[state] != NO_PATTERN ? state : outputLink[state];
+            while (out >= 0) {
+                int pattern = nodePattern[out];
+                if (scan.markSeen(pattern)) {
+                    for (int slot : patternSlots[pattern]) {
+                        scan.counts[slot]++;
+                    }
+                }
+                out = outputLink[out];
+            }
+        }
+        return scan;
+    }
+
+    private int transition(int state, char c) {
+        int low = edgeStart[state];
+        int high = edgeStart[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = edgeChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 扫描状态：已命中关键词的位图 + 每个槽的命中数
+     */
+    public static final class Scan {
+
+        private final long[] seen;
+        private final int[] counts;
+
+        private Scan(int patternCount, int slotCount) {
+            this.seen = new long[(patternCount + 63) >>> 6];
+            this.counts = new int[slotCount];
+        }
+
+        public int count(int slot) {
+            return counts[slot];
+        }
+
+        private void reset() {
+            Arrays.fill(seen, 0L);
+            Arrays.fill(counts, 0);
+        }
+
+        private boolean markSeen(int pattern) {
+            long bit = 1L << (pattern & 63);
+            int word = pattern >>> 6;
+            if ((seen[word] & bit) != 0) {
+                return false;
+            }
+            seen[word] |= bit;
+            return true;
+        }
+    }
+
+    public static final class Builder {
+
+        // 小写关键词 -> 挂载的槽（去重、保持插入顺序）
+        private final Map<String, List<Integer>> keywords = new LinkedHashMap<>();
+        private int slotCount;
+
+        private Builder() {
+        }
+
+        /**
+         * 把关键词挂到指定槽；同一关键词重复挂到同一槽只计一次
+         */
+        public Builder add(int slot, String keyword) {
+            if (slot < 0) {
+                throw new IllegalArgumentException("slot 不能为负数: " + slot);
+            }
+            if (keyword == null || keyword.isBlank()) {
+                return this;
+            }
+            List<Integer> slots = keywords.computeIfAbsent(keyword.trim().toLowerCase(), k -> new ArrayList<>(1));
+            if (!slots.contains(slot)) {
+                slots.add(slot);
+            }
+            slotCount = Math.max(slotCount, slot + 1);
+            return this;
+        }
+
+        public Builder addAll(int slot, Iterable<String> keywords) {
+            if (keywords != null) {
+                keywords.forEach(keyword -> add(slot, keyword));
+            }
+            return this;
+        }
+
+        public KeywordAutomaton build() {
+            // 1. 构建 Trie
+            List<TreeMap<Character, Integer>> children = new ArrayList<>();
+            List<Integer> patternAtNode = new ArrayList<>();
+            children.add(new TreeMap<>());
+            patternAtNode.add(NO_PATTERN);
+
+            int[][] patternSlots = new int[keywords.size()][];
+            int patternId = 0;
+            for (Map.Entry<String, List<Integer>> entry : keywords.entrySet()) {
+                int node = ROOT;
+                for (char c : entry.getKey().toCharArray()) {
+                    Integer child = children.get(node).get(c);
+                    if (child == null) {
+                        child = children.size();
+                        children.add(new TreeMap<>());
+                        patternAtNode.add(NO_PATTERN);
+                        children.get(node).put(c, child);
+                    }
+                    node = child;
+                }
+                patternAtNode.set(node, patternId);
+                patternSlots[patternId] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+                patternId++;
+            }
+
+            // 2. 压平成按字符排序的数组转移表
+            int nodeCount = children.size();
+            int edgeCount = nodeCount - 1;
+            int[] edgeStart = new int[nodeCount + 1];
+            char[] edgeChars = new char[edgeCount];
+            int[] edgeTargets = new int[edgeCount];
+            int offset = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                edgeStart[node] = offset;
+                for (Map.Entry<Character, Integer> edge : children.get(node).entrySet()) {
+                    edgeChars[offset] = edge.getKey();
+                    edgeTargets[offset] = edge.getValue();
+                    offset++;
+                }
+            }
+            edgeStart[nodeCount] = offset;
+
+            int[] nodePattern = patternAtNode.stream().mapToInt(Integer::intValue).toArray();
+            int[] fail = new int[nodeCount];
+            int[] outputLink = new int[nodeCount];
+            Arrays.fill(outputLink, -1);
+
+            KeywordAutomaton automaton = new KeywordAutomaton(edgeStart, edgeChars, edgeTargets, fail,
+                    nodePattern, outputLink, patternSlots, slotCount);
+
+            // 3. BFS 计算失败链与输出链
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+                fail[edgeTargets[e]] = ROOT;
+                queue.add(edgeTargets[e]);
+            }
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                    int child = edgeTargets[e];
+                    char c = edgeChars[e];
+
+                    int f = fail[node];
+                    int next;
+                    while ((next = automaton.transition(f, c)) < 0 && f != ROOT) {
+                        f = fail[f];
+                    }
+                    fail[child] = next < 0 ? ROOT : next;
+
+                    int suffix = fail[child];
+                    outputLink[child] = nodePattern[suffix] != NO_PATTERN ? suffix : outputLink[suffix];
+                    queue.add(child);
+                }
+            }
+            return automaton;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.codinghappy.fintechai.module.analysis.service.strategy;
+
+import com.codinghappy.fintechai.module.analysis.dto.AnalysisResult;
+
+import java.util.List;
+
+/**
+ * 基于关键词命中数打分的策略
+ * 关键词匹配统一交给 {@link StrategyKeywordMatcher} 的共享自动机，策略本身只负责根据命中数打分。
+ */
+public interface KeywordStrategy extends AnalysisStrategy {
+
+    /**
+     * 配置键，对应 finance.analysis.strategy.{key}.keywords
+     */
+    String getKeywordKey();
+
+    /**
+     * 内置正向关键词
+     */
+    List<String> getKeywords();
+
+    /**
+     * 内置否定关键词
+     */
+    List<String> getNegativeKeywords();
+
+    /**
+     * 根据命中数打分
+     */
+    AnalysisResult score(int keywordCount, int negativeCount);
+}
@@ -5,6 +5,7 @@ import com.codinghappy.fintechai.module.analysis.dto.AnalysisResult;
 
 import com.codinghappy.fintechai.module.analysis.dto.BusinessType;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
@@ -12,7 +13,7 @@ import java.util.List;
 
 @Slf4j
 @Component
-public class OverseasLoanStrategy implements AnalysisStrategy {
+public class OverseasLoanStrategy implements KeywordStrategy {
 
     private static final List<String> KEYWORDS = Arrays.asList(
             "海外借贷", "国际贷款", "跨境融资", "海外融资",
@@ -24,6 +25,12 @@ public class OverseasLoanStrategy implements AnalysisStrategy {
             "国内贷款", "境内融资", "本地借贷", "消费贷款"
     );
 
+    private final StrategyKeywordMatcher keywordMatcher;
+
+    public OverseasLoanStrategy(@Lazy StrategyKeywordMatcher keywordMatcher) {
+        this.keywordMatcher = keywordMatcher;
+    }
+
     @Override
     public boolean supports(BusinessType businessType) {
         return BusinessType.OVERSEAS_LOAN.equals(businessType);
@@ -31,24 +38,27 @@ public class OverseasLoanStrategy implements AnalysisStrategy {
 
     @Override
     public AnalysisResult analyze(String companyDescription) {
-        String lowerDesc = companyDescription.toLowerCase();
-        int keywordCount = 0;
-        int negativeCount = 0;
-
-        // 统计关键词出现次数
-        for (String keyword : KEYWORDS) {
-            if (lowerDesc.contains(keyword.toLowerCase())) {
-                keywordCount++;
-            }
-        }
-
-        // 统计否定关键词
-        for (String negative : NEGATIVE_KEYWORDS) {
-            if (lowerDesc.contains(negative.toLowerCase())) {
-                negativeCount++;
-            }
-        }
+        StrategyKeywordMatcher.Hits hits = keywordMatcher.match(companyDescription);
+        return score(hits.positive(this), hits.negative(this));
+    }
+
+    @Override
+    public String getKeywordKey() {
+        return "overseas-loan";
+    }
 
+    @Override
+    public List<String> getKeywords() {
+        return KEYWORDS;
+    }
+
+    @Override
+    public List<String> getNegativeKeywords() {
+        return NEGATIVE_KEYWORDS;
+    }
+
+    @Override
+    public AnalysisResult score(int keywordCount, int negativeCount) {
         // 计算得分
         double score = calculateScore(keywordCount, negativeCount);
 
@@ -56,6 +66,8 @@ public class OverseasLoanStrategy implements AnalysisStrategy {
                 .success(true)
                 .paymentWillingnessScore((int) Math.min(10, Math.round(score)))
                 .confidence(calculateConfidence(keywordCount, negativeCount))
+                .keywordHits(keywordCount)
+                .negativeHits(negativeCount)
                 .analysisReason(String.format(
                         "海外借贷关键词匹配%d个，否定词%d个，计算得分%.1f",
                         keywordCount, negativeCount, score
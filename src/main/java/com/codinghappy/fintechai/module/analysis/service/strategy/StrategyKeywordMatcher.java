@@ -0,0 +1,78 @@
+package com.codinghappy.fintechai.module.analysis.service.strategy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 所有关键词策略共享的匹配器
+ * 启动时把各策略的内置关键词与 finance.analysis.strategy.*.keywords 合并编译成一个 Aho–Corasick 自动机，
+ * 对一段描述只扫描一遍就能得到每个策略的正向 / 否定命中数。
+ */
+@Slf4j
+@Component
+public class StrategyKeywordMatcher {
+
+    private static final String CONFIG_PREFIX = "finance.analysis.strategy.";
+
+    private final KeywordAutomaton automaton;
+    // 策略配置键 -> 正向计数槽（否定计数槽为其 + 1）
+    private final Map<String, Integer> slotByKey = new HashMap<>();
+    private final ThreadLocal<Hits> hits;
+
+    public StrategyKeywordMatcher(List<KeywordStrategy> strategies, Environment environment) {
+        Binder binder = Binder.get(environment);
+        KeywordAutomaton.Builder builder = KeywordAutomaton.builder();
+
+        for (KeywordStrategy strategy : strategies) {
+            int slot = slotByKey.size() * 2;
+            slotByKey.put(strategy.getKeywordKey(), slot);
+
+            List<String> configured = binder
+                    .bind(CONFIG_PREFIX + strategy.getKeywordKey() + ".keywords", Bindable.listOf(String.class))
+                    .orElse(List.of());
+            builder.addAll(slot, strategy.getKeywords())
+                    .addAll(slot, configured)
+                    .addAll(slot + 1, strategy.getNegativeKeywords());
+        }
+
+        this.automaton = builder.build();
+        this.hits = ThreadLocal.withInitial(() -> new Hits(automaton.newScan()));
+        log.info("关键词自动机已编译，策略数: {}，关键词数: {}", slotByKey.size(), automaton.getPatternCount());
+    }
+
+    /**
+     * 单遍扫描描述，返回所有策略的命中数。
+     * 返回值是当前线程复用的扫描状态，只在下一次 match 调用之前有效。
+     */
+    public Hits match(CharSequence description) {
+        Hits current = hits.get();
+        automaton.scan(description, current.scan);
+        return current;
+    }
+
+    public final class Hits {
+
+        private final KeywordAutomaton.Scan scan;
+
+        private Hits(KeywordAutomaton.Scan scan) {
+            this.scan = scan;
+        }
+
+        public int positive(KeywordStrategy strategy) {
+            Integer slot = slotByKey.get(strategy.getKeywordKey());
+            return slot != null ? scan.count(slot) : 0;
+        }
+
+        public int negative(KeywordStrategy strategy) {
+            Integer slot = slotByKey.get(strategy.getKeywordKey());
+            return slot != null ? scan.count(slot + 1) : 0;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.codinghappy.fintechai.module.analysis.task;
 
+import com.codinghappy.fintechai.module.analysis.deadletter.DeadLetterStore;
 import com.codinghappy.fintechai.module.analysis.service.DeepSeekAnalysisService;
 import com.codinghappy.fintechai.repository.AnalysisResultRepository;
 import com.codinghappy.fintechai.repository.CompanyRepository;
@@ -11,12 +12,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -26,18 +26,21 @@ public class AnalysisTask {
     @Autowired
     private DeepSeekAnalysisService deepSeekAnalysisService;
 
+    @Autowired
+    private BatchAnalysisEngine batchAnalysisEngine;
+
     @Autowired
     private CompanyRepository companyRepository;
 
     @Autowired
     private AnalysisResultRepository analysisResultRepository;
 
+    @Autowired
+    private DeadLetterStore deadLetterStore;
+
     @Value("${finance.analysis.task.batch-size:20}")
     private int batchSize;
 
-    @Value("${finance.analysis.task.delay-seconds:2}")
-    private int delaySeconds;
-
     @Value("${finance.analysis.task.enabled:true}")
     private boolean enabled;
 
@@ -78,13 +81,12 @@ public class AnalysisTask {
     }
 
     /**
-     * 批量分析入口
+     * 批量分析入口（交给并发引擎执行，返回本批次汇总报告）
      */
-    @Transactional
-    public void executeBatchAnalysis() {
+    public BatchAnalysisEngine.BatchReport executeBatchAnalysis() {
         if (!enabled) {
             log.warn("分析任务已禁用");
-            return;
+            return BatchAnalysisEngine.BatchReport.empty();
         }
 
         log.info(">>> 开始执行批量分析任务...");
@@ -92,32 +94,12 @@ public class AnalysisTask {
 
         if (unanalyzedCompanies.isEmpty()) {
             log.info("没有待分析的公司");
-            return;
+            return BatchAnalysisEngine.BatchReport.empty();
         }
 
-        AtomicInteger successCount = new AtomicInteger(0);
-
-        for (CompanyEntity company : unanalyzedCompanies) {
-            try {
-                // 核心：调用 Service 进行分析
-                AnalysisResultEntity result = deepSeekAnalysisService.analyzeCompany(
-                        company.getId(),
-                        company.getName(),
-                        company.getDescription()
-                );
-
-                if (result != null && Boolean.TRUE.equals(result.getSuccess())) {
-                    successCount.incrementAndGet();
-                }
-
-                // 礼貌性延迟
-                if (delaySeconds > 0) TimeUnit.SECONDS.sleep(delaySeconds);
-
-            } catch (Exception e) {
-                log.error("分析异常: {}", company.getName(), e);
-            }
-        }
-        log.info("<<< 批量任务结束，成功分析: {} 家", successCount.get());
+        BatchAnalysisEngine.BatchReport report = batchAnalysisEngine.execute(unanalyzedCompanies);
+        log.info("<<< 批量任务结束，成功分析: {} 家", report.getSuccessCount());
+        return report;
     }
 
     /**
@@ -133,7 +115,7 @@ public class AnalysisTask {
                 enabled,
                 batchSize,
                 3, // maxRetries 固定
-                delaySeconds,
+                batchAnalysisEngine.getConcurrency(),
                 totalCompanies,
                 totalResults,
                 avgScore != null ? avgScore : 0.0,
@@ -142,11 +124,12 @@ public class AnalysisTask {
     }
 
     private List<CompanyEntity> findUnanalyzedCompanies(int limit) {
-        List<Long> analyzedIds = analysisResultRepository.findAll()
-                .stream().map(AnalysisResultEntity::getCompanyId).collect(Collectors.toList());
+        // 只有成功结果才算已分析；失败的公司在死信队列中按退避重放，这里不再重复挑选
+        Set<Long> excludedIds = new HashSet<>(analysisResultRepository.findSuccessfullyAnalyzedCompanyIds());
+        excludedIds.addAll(deadLetterStore.findUnresolvedCompanyIds());
 
         return companyRepository.findAll(PageRequest.of(0, 500)).getContent().stream()
-                .filter(c -> !analyzedIds.contains(c.getId()))
+                .filter(c -> !excludedIds.contains(c.getId()))
                 .filter(c -> c.getDescription() != null && c.getDescription().length() > 5)
                 .limit(limit)
                 .collect(Collectors.toList());
@@ -158,7 +141,8 @@ public class AnalysisTask {
         private final boolean enabled;
         private final int batchSize;
         private final int maxRetries;
-        private final int delaySeconds;
+        // 并发引擎同时在途的 DeepSeek 调用上限（取代原来每家公司之后的固定延迟）
+        private final int concurrency;
         private final long totalCompanies;
         private final long totalAnalysisResults;
         private final double averageScore;
@@ -166,13 +150,13 @@ public class AnalysisTask {
         private final LocalDateTime checkTime;
         private final double analysisCoverage;
 
-        public TaskStatus(boolean enabled, int batchSize, int maxRetries, int delaySeconds,
+        public TaskStatus(boolean enabled, int batchSize, int maxRetries, int concurrency,
                           long totalCompanies, long totalAnalysisResults,
                           double averageScore, long highScoreCount) {
             this.enabled = enabled;
             this.batchSize = batchSize;
             this.maxRetries = maxRetries;
-            this.delaySeconds = delaySeconds;
+            this.concurrency = concurrency;
             this.totalCompanies = totalCompanies;
             this.totalAnalysisResults = totalAnalysisResults;
             this.averageScore = averageScore;
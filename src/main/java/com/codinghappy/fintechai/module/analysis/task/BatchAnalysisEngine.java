@@ -0,0 +1,312 @@
+package com.codinghappy.fintechai.module.analysis.task;
+
+import com.codinghappy.fintechai.common.deadline.DeadlineContext;
+import com.codinghappy.fintechai.module.analysis.prompt.PromptPacker;
+import com.codinghappy.fintechai.module.analysis.service.DeepSeekAnalysisService;
+import com.codinghappy.fintechai.module.analysis.service.RateLimitService;
+import com.codinghappy.fintechai.module.analysis.usage.UsageAttribution;
+import com.codinghappy.fintechai.repository.AnalysisResultRepository;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 并发批量分析引擎
+ * 在 analysisThreadPool 上并发调用 DeepSeek，用信号量限制在途请求数，
+ * 用 RateLimitService 的令牌控制节奏（替代原来每家公司之后的固定 sleep）。
+ */
+@Slf4j
+@Component
+public class BatchAnalysisEngine {
+
+    private final DeepSeekAnalysisService deepSeekAnalysisService;
+    private final RateLimitService rateLimitService;
+    private final AnalysisResultRepository analysisResultRepository;
+    private final PromptPacker promptPacker;
+    private final ThreadPoolTaskExecutor analysisThreadPool;
+
+    // 同时在途的 DeepSeek 调用上限
+    @Value("${finance.analysis.task.concurrency:5}")
+    private int concurrency;
+
+    // 单家公司等待限流令牌的最长时间
+    @Value("${finance.analysis.task.permit-wait-millis:30000}")
+    private long permitWaitMillis;
+
+    public BatchAnalysisEngine(DeepSeekAnalysisService deepSeekAnalysisService,
+                               RateLimitService rateLimitService,
+                               AnalysisResultRepository analysisResultRepository,
+                               PromptPacker promptPacker,
+                               @Qualifier("analysisThreadPool") ThreadPoolTaskExecutor analysisThreadPool) {
+        this.deepSeekAnalysisService = deepSeekAnalysisService;
+        this.rateLimitService = rateLimitService;
+        this.analysisResultRepository = analysisResultRepository;
+        this.promptPacker = promptPacker;
+        this.analysisThreadPool = analysisThreadPool;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * 并发分析一批公司，全部完成后返回汇总报告。
+     * 开启打包模式时，以包为单位提交（一个包对应一次 DeepSeek 请求）。
+     */
+    public BatchReport execute(List<CompanyEntity> companies) {
+        List<List<CompanyEntity>> packs = promptPacker.pack(companies);
+        log.info(">>> 并发批量分析开始，公司数: {}，请求数: {}，并发上限: {}",
+                companies.size(), packs.size(), concurrency);
+        return run(packs, companies.size(), this::analyzePack);
+    }
+
+    /**
+     * 逐家公司用指定方式分析（不打包、不跳过已分析的公司），并发与限流与 execute 相同；
+     * 用于重新分析等需要绕过「已分析即跳过」的场景。
+     */
+    public BatchReport executeEach(List<CompanyEntity> companies,
+                                   Function<CompanyEntity, AnalysisResultEntity> analyzer) {
+        log.info(">>> 并发逐个分析开始，公司数: {}，并发上限: {}", companies.size(), concurrency);
+        List<List<CompanyEntity>> units = companies.stream().map(List::of).toList();
+        return run(units, companies.size(), unit -> analyzeEach(unit.get(0), analyzer));
+    }
+
+    private BatchReport run(List<List<CompanyEntity>> units, int companyCount,
+                            Function<List<CompanyEntity>, List<CompanyOutcome>> task) {
+        // 一次运行记为一个批次（外层已有批次时沿用），LLM 费用按批次汇总
+        try (UsageAttribution.Scope ignored = UsageAttribution.attachBatchIfAbsent()) {
+            return doRun(units, companyCount, task);
+        }
+    }
+
+    private BatchReport doRun(List<List<CompanyEntity>> units, int companyCount,
+                              Function<List<CompanyEntity>, List<CompanyOutcome>> task) {
+        long startTime = System.currentTimeMillis();
+        Semaphore inFlight = new Semaphore(Math.max(1, concurrency));
+        List<CompletableFuture<List<CompanyOutcome>>> futures = new ArrayList<>(units.size());
+
+        int expired = 0;
+        for (List<CompanyEntity> unit : units) {
+            // 截止时间已过不再提交，剩余公司留给下一轮
+            if (DeadlineContext.isExpired()) {
+                expired += unit.size();
+                continue;
+            }
+            try {
+                // 在提交线程上占位，形成背压，避免把整批任务一次性塞进线程池队列
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("批量分析被中断，已提交 {} 个请求", futures.size());
+                break;
+            }
+
+            CompletableFuture<List<CompanyOutcome>> future = CompletableFuture
+                    .supplyAsync(() -> task.apply(unit), analysisThreadPool)
+                    .whenComplete((outcome, error) -> inFlight.release());
+            futures.add(future);
+        }
+
+        List<CompanyOutcome> outcomes = new ArrayList<>(companyCount);
+        for (CompletableFuture<List<CompanyOutcome>> future : futures) {
+            outcomes.addAll(future.join());
+        }
+        if (expired > 0) {
+            log.warn("截止时间已过，{} 家公司未提交分析", expired);
+        }
+
+        BatchReport report = new BatchReport(outcomes, System.currentTimeMillis() - startTime);
+        log.info("<<< 并发批量分析结束: {}", report);
+        return report;
+    }
+
+    private List<CompanyOutcome> analyzeEach(CompanyEntity company,
+                                             Function<CompanyEntity, AnalysisResultEntity> analyzer) {
+        long start = System.currentTimeMillis();
+        boolean permitted = false;
+        try {
+            DeadlineContext.checkNotExpired("分析公司 " + company.getName());
+            permitted = rateLimitService.tryAcquire(DeadlineContext.boundMillis(permitWaitMillis), TimeUnit.MILLISECONDS);
+            if (!permitted) {
+                return List.of(CompanyOutcome.of(company, OutcomeStatus.RATE_LIMITED, null,
+                        System.currentTimeMillis() - start, "等待限流许可超时"));
+            }
+            AnalysisResultEntity result = analyzer.apply(company);
+            OutcomeStatus status = result != null && Boolean.TRUE.equals(result.getSuccess())
+                    ? OutcomeStatus.SUCCESS : OutcomeStatus.FAILED;
+            return List.of(CompanyOutcome.of(company, status, result, System.currentTimeMillis() - start,
+                    result == null ? "分析失败" : null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of(CompanyOutcome.of(company, OutcomeStatus.FAILED, null,
+                    System.currentTimeMillis() - start, "任务被中断"));
+        } catch (Exception e) {
+            log.error("分析异常: {}", company.getName(), e);
+            return List.of(CompanyOutcome.of(company, OutcomeStatus.FAILED, null,
+                    System.currentTimeMillis() - start, e.getMessage()));
+        } finally {
+            if (permitted) {
+                rateLimitService.release();
+            }
+        }
+    }
+
+    private List<CompanyOutcome> analyzePack(List<CompanyEntity> pack) {
+        long start = System.currentTimeMillis();
+        List<CompanyOutcome> outcomes = new ArrayList<>(pack.size());
+        List<CompanyEntity> pending = new ArrayList<>(pack.size());
+
+        // 多个入口可能先后挑中同一家公司：排队期间已被其他批次成功分析过的直接跳过（失败结果不算）
+        for (CompanyEntity company : pack) {
+            AnalysisResultEntity latest = analysisResultRepository.findTopByCompanyIdOrderByAnalysisTimeDesc(company.getId());
+            if (latest != null && Boolean.TRUE.equals(latest.getSuccess())) {
+                outcomes.add(CompanyOutcome.of(company, OutcomeStatus.SKIPPED, null, 0, "已被其他批次分析"));
+            } else {
+                pending.add(company);
+            }
+        }
+        if (pending.isEmpty()) {
+            return outcomes;
+        }
+
+        boolean permitted = false;
+        try {
+            DeadlineContext.checkNotExpired("批量分析");
+            // 这个许可覆盖包内第一次请求；初筛后的完整报告、单公司回退等后续请求由 analyzePacked 逐次取许可
+            permitted = rateLimitService.tryAcquire(DeadlineContext.boundMillis(permitWaitMillis), TimeUnit.MILLISECONDS);
+            if (!permitted) {
+                log.warn("等待限流许可超时，跳过 {} 家公司", pending.size());
+                long elapsed = System.currentTimeMillis() - start;
+                pending.forEach(c -> outcomes.add(
+                        CompanyOutcome.of(c, OutcomeStatus.RATE_LIMITED, null, elapsed, "等待限流许可超时")));
+                return outcomes;
+            }
+
+            List<AnalysisResultEntity> results = pending.size() == 1
+                    ? List.of(analyzeSingle(pending.get(0)))
+                    : deepSeekAnalysisService.analyzePacked(pending);
+
+            Map<Long, AnalysisResultEntity> byCompany = new HashMap<>();
+            results.forEach(r -> byCompany.put(r.getCompanyId(), r));
+            long elapsed = System.currentTimeMillis() - start;
+
+            for (CompanyEntity company : pending) {
+                AnalysisResultEntity result = byCompany.get(company.getId());
+                OutcomeStatus status = result != null && Boolean.TRUE.equals(result.getSuccess())
+                        ? OutcomeStatus.SUCCESS : OutcomeStatus.FAILED;
+                outcomes.add(CompanyOutcome.of(company, status, result, elapsed,
+                        result == null ? "分析失败" : null));
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            long elapsed = System.currentTimeMillis() - start;
+            pending.forEach(c -> outcomes.add(CompanyOutcome.of(c, OutcomeStatus.FAILED, null, elapsed, "任务被中断")));
+        } catch (Exception e) {
+            log.error("分析异常: {}", pending.get(0).getName(), e);
+            long elapsed = System.currentTimeMillis() - start;
+            pending.forEach(c -> outcomes.add(CompanyOutcome.of(c, OutcomeStatus.FAILED, null, elapsed, e.getMessage())));
+        } finally {
+            if (permitted) {
+                rateLimitService.release();
+            }
+        }
+        return outcomes;
+    }
+
+    private AnalysisResultEntity analyzeSingle(CompanyEntity company) {
+        return deepSeekAnalysisService.analyzeCompany(
+                company.getId(),
+                company.getName(),
+                company.getDescription()
+        );
+    }
+
+    public enum OutcomeStatus {
+        SUCCESS, FAILED, RATE_LIMITED, SKIPPED
+    }
+
+    /**
+     * 单家公司的分析结果
+     */
+    @Data
+    public static class CompanyOutcome {
+        private final Long companyId;
+        private final String companyName;
+        private final OutcomeStatus status;
+        private final Integer score;
+        private final long durationMs;
+        private final String errorMessage;
+
+        static CompanyOutcome of(CompanyEntity company, OutcomeStatus status,
+                                 AnalysisResultEntity result, long durationMs, String errorMessage) {
+            return new CompanyOutcome(
+                    company.getId(),
+                    company.getName(),
+                    status,
+                    result != null ? result.getPaymentWillingnessScore() : null,
+                    durationMs,
+                    errorMessage != null ? errorMessage : (result != null ? result.getErrorMessage() : null)
+            );
+        }
+    }
+
+    /**
+     * 批次汇总报告
+     */
+    @Data
+    public static class BatchReport {
+        // 费用归属的批次 ID（GET /analysis/usage/cost?group-by=batch）
+        private final String batchId;
+        private final int total;
+        private final int successCount;
+        private final int failureCount;
+        private final int rateLimitedCount;
+        private final int skippedCount;
+        private final long elapsedMs;
+        private final double throughputPerMinute;
+        private final double averageLatencyMs;
+        private final List<CompanyOutcome> outcomes;
+        private final LocalDateTime completionTime;
+
+        public BatchReport(List<CompanyOutcome> outcomes, long elapsedMs) {
+            this.outcomes = outcomes;
+            this.batchId = UsageAttribution.currentBatchId();
+            this.total = outcomes.size();
+            this.successCount = (int) outcomes.stream().filter(o -> o.getStatus() == OutcomeStatus.SUCCESS).count();
+            this.failureCount = (int) outcomes.stream().filter(o -> o.getStatus() == OutcomeStatus.FAILED).count();
+            this.rateLimitedCount = (int) outcomes.stream().filter(o -> o.getStatus() == OutcomeStatus.RATE_LIMITED).count();
+            this.skippedCount = (int) outcomes.stream().filter(o -> o.getStatus() == OutcomeStatus.SKIPPED).count();
+            this.elapsedMs = elapsedMs;
+            this.throughputPerMinute = elapsedMs > 0 ? total * 60000.0 / elapsedMs : 0;
+            this.averageLatencyMs = outcomes.stream().mapToLong(CompanyOutcome::getDurationMs).average().orElse(0);
+            this.completionTime = LocalDateTime.now();
+        }
+
+        public static BatchReport empty() {
+            return new BatchReport(new ArrayList<>(), 0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("批次: %s, 总数: %d, 成功: %d, 失败: %d, 限流跳过: %d, 重复跳过: %d, 耗时: %dms, 吞吐: %.1f 家/分钟, 平均耗时: %.0fms",
+                    batchId, total, successCount, failureCount, rateLimitedCount, skippedCount, elapsedMs,
+                    throughputPerMinute, averageLatencyMs);
+        }
+    }
+}
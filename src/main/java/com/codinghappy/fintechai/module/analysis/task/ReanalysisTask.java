@@ -0,0 +1,123 @@
+package com.codinghappy.fintechai.module.analysis.task;
+
+import com.codinghappy.fintechai.module.analysis.service.DeepSeekAnalysisService;
+import com.codinghappy.fintechai.module.analysis.usage.UsageAttribution;
+import com.codinghappy.fintechai.repository.AnalysisResultRepository;
+import com.codinghappy.fintechai.repository.CompanyRepository;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 重新分析任务
+ * 挑出描述已变化、或结果置信度偏低的公司，按批交给并发引擎重新分析；
+ * 描述未变且已是当前 Prompt 版本完整报告的公司不会被选中，避免重复花费。
+ */
+@Slf4j
+@Component
+public class ReanalysisTask {
+
+    @Autowired
+    private DeepSeekAnalysisService deepSeekAnalysisService;
+
+    @Autowired
+    private BatchAnalysisEngine batchAnalysisEngine;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private AnalysisResultRepository analysisResultRepository;
+
+    @Value("${finance.analysis.task.schedule.enabled:true}")
+    private boolean enabled;
+
+    // 置信度低于该值的结果视为低质量
+    @Value("${finance.analysis.task.reanalyze.min-confidence:0.6}")
+    private double minConfidence;
+
+    // 每批交给并发引擎的公司数
+    @Value("${finance.analysis.task.reanalyze.batch-size:20}")
+    private int batchSize;
+
+    // 单次任务最多重新分析的公司数
+    @Value("${finance.analysis.task.reanalyze.max-companies:200}")
+    private int maxCompanies;
+
+    /**
+     * 执行一轮重新分析，返回所有批次合并后的汇总报告
+     */
+    public BatchAnalysisEngine.BatchReport execute() {
+        if (!enabled) {
+            log.warn("重新分析任务已禁用");
+            return BatchAnalysisEngine.BatchReport.empty();
+        }
+        // 一轮内的多个批次记为同一个费用批次
+        try (UsageAttribution.Scope ignored = UsageAttribution.attachBatchIfAbsent()) {
+            return doExecute();
+        }
+    }
+
+    private BatchAnalysisEngine.BatchReport doExecute() {
+        long startTime = System.currentTimeMillis();
+        List<BatchAnalysisEngine.CompanyOutcome> outcomes = new ArrayList<>();
+        // 本轮已处理过的公司：重新分析后结果仍不达标的，不在同一轮里反复选中
+        Set<Long> processed = new HashSet<>();
+        int changedCount = 0;
+
+        while (processed.size() < maxCompanies) {
+            List<AnalysisResultEntity> candidates = analysisResultRepository.findReanalysisCandidates(
+                    minConfidence, deepSeekAnalysisService.promptTemplateName(),
+                    deepSeekAnalysisService.promptVersion(), PageRequest.of(0, batchSize + processed.size()));
+            Map<Long, AnalysisResultEntity> latestByCompany = candidates.stream()
+                    .filter(r -> !processed.contains(r.getCompanyId()))
+                    .limit(Math.min(batchSize, maxCompanies - processed.size()))
+                    .collect(Collectors.toMap(AnalysisResultEntity::getCompanyId, Function.identity(), (a, b) -> a));
+            if (latestByCompany.isEmpty()) {
+                break;
+            }
+            processed.addAll(latestByCompany.keySet());
+
+            List<CompanyEntity> companies = companyRepository.findAllById(latestByCompany.keySet()).stream()
+                    .filter(c -> c.getDescription() != null && c.getDescription().length() > 5)
+                    .toList();
+            Set<Long> changed = companies.stream()
+                    .filter(c -> isDescriptionChanged(c, latestByCompany.get(c.getId())))
+                    .map(CompanyEntity::getId)
+                    .collect(Collectors.toSet());
+            changedCount += changed.size();
+
+            log.info(">>> 重新分析批次: {} 家（描述变化 {} 家，低质量 {} 家）",
+                    companies.size(), changed.size(), companies.size() - changed.size());
+            outcomes.addAll(batchAnalysisEngine.executeEach(companies,
+                    c -> deepSeekAnalysisService.reanalyzeCompany(c, changed.contains(c.getId()))).getOutcomes());
+        }
+
+        BatchAnalysisEngine.BatchReport report = new BatchAnalysisEngine.BatchReport(
+                outcomes, System.currentTimeMillis() - startTime);
+        if (report.getTotal() > 0) {
+            log.info("<<< 重新分析结束（描述变化 {} 家）: {}", changedCount, report);
+        } else {
+            log.info("没有需要重新分析的公司");
+        }
+        return report;
+    }
+
+    private static boolean isDescriptionChanged(CompanyEntity company, AnalysisResultEntity latest) {
+        return company.getDescriptionHash() != null && latest.getDescriptionHash() != null
+                && !Objects.equals(company.getDescriptionHash(), latest.getDescriptionHash());
+    }
+}
@@ -0,0 +1,244 @@
+package com.codinghappy.fintechai.module.analysis.usage;
+
+import com.codinghappy.fintechai.module.analysis.client.ChatCompletion;
+import com.codinghappy.fintechai.module.analysis.client.TokenUsage;
+import com.codinghappy.fintechai.repository.LlmCallUsageRepository;
+import com.codinghappy.fintechai.repository.entity.LlmCallUsageEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LLM 调用的 Token 用量与费用记录
+ * 每次调用把响应 usage 块（prompt / completion / 缓存命中 Token）按 finance.analysis.cost.pricing 的单价折算成费用，
+ * 写入 llm_call_usage 表（带批次 / 订单归属），同时按模型与 Prompt 版本累计 Micrometer 指标。
+ * 响应没有 usage（如流式生成被提前取消）时记录本地估算值，对冲落败的请求单独记一行估算的 Prompt 用量，
+ * 两者都标记 estimated。记录失败只打日志，不影响分析流程。
+ */
+@Slf4j
+@Component
+public class LlmUsageRecorder {
+
+    public static final String CALL_FULL = "full";
+    public static final String CALL_TRIAGE = "triage";
+    public static final String CALL_PACKED_FULL = "packed_full";
+    public static final String CALL_PACKED_TRIAGE = "packed_triage";
+    // 对冲落败、被断开的请求
+    public static final String CALL_HEDGE_LOSER = "hedge_loser";
+
+    public enum GroupBy {
+        BATCH, DAY, ORDER
+    }
+
+    private static final double TOKENS_PER_UNIT = 1_000_000.0;
+
+    private final LlmCallUsageRepository usageRepository;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Price> pricing;
+    // 没有配置单价的模型只告警一次
+    private final Set<String> unpricedModels = ConcurrentHashMap.newKeySet();
+
+    @Value("${finance.analysis.cost.enabled:true}")
+    private boolean enabled;
+
+    @Value("${finance.analysis.cost.currency:CNY}")
+    private String currency;
+
+    public LlmUsageRecorder(LlmCallUsageRepository usageRepository, MeterRegistry meterRegistry,
+                            Environment environment) {
+        this.usageRepository = usageRepository;
+        this.meterRegistry = meterRegistry;
+        // finance.analysis.cost.pricing.<模型>.{cache-hit-per-million, cache-miss-per-million, output-per-million}
+        this.pricing = Binder.get(environment)
+                .bind("finance.analysis.cost.pricing", Bindable.mapOf(String.class, Price.class))
+                .orElse(Map.of());
+    }
+
+    /**
+     * 记录一次调用；带有对冲落败用量时另记一行 hedge_loser
+     *
+     * @param companies 本次调用分析的公司数（打包调用大于 1）
+     */
+    public void record(String callType, String model, int promptVersion, Long companyId, int companies,
+                       ChatCompletion completion) {
+        if (!enabled) {
+            return;
+        }
+        TokenUsage usage = completion.getUsage();
+        // 客户端已为缺少 usage 的响应估算；这里兜底只能按输出内容估算
+        boolean estimated = usage == null || completion.isUsageEstimated();
+        if (usage == null) {
+            usage = TokenUsage.estimate(null, completion.getContent());
+        }
+        save(callType, model, promptVersion, companyId, companies, usage, estimated, completion.getTotalMs());
+        if (completion.getHedgeLoserUsage() != null) {
+            save(CALL_HEDGE_LOSER, model, promptVersion, companyId, companies, completion.getHedgeLoserUsage(),
+                    true, completion.getTotalMs());
+        }
+    }
+
+    private void save(String callType, String model, int promptVersion, Long companyId, int companies,
+                      TokenUsage usage, boolean estimated, long durationMs) {
+        double cost = cost(model, usage);
+        recordMetrics(callType, model, promptVersion, usage, cost, durationMs);
+        if (estimated) {
+            Counter.builder("llm.usage.estimated")
+                    .tag("model", model).tag("call_type", callType)
+                    .register(meterRegistry)
+                    .increment();
+        }
+
+        UsageAttribution.Tags tags = UsageAttribution.current();
+        try {
+            usageRepository.save(LlmCallUsageEntity.builder()
+                    .model(model)
+                    .promptVersion(promptVersion)
+                    .callType(callType)
+                    .companyId(companyId)
+                    .companies(companies)
+                    .batchId(tags != null ? tags.batchId() : null)
+                    .orderId(tags != null ? tags.orderId() : null)
+                    .promptTokens(usage.promptTokens())
+                    .completionTokens(usage.completionTokens())
+                    .cachedTokens(usage.promptCacheHitTokens())
+                    .cost(cost)
+                    .estimated(estimated)
+                    .durationMs(durationMs)
+                    .callDate(LocalDate.now())
+                    .build());
+        } catch (Exception e) {
+            log.warn("记录 LLM 调用用量失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按单价折算费用；响应没有缓存字段时 Prompt 全部按未命中计
+     */
+    public double cost(String model, TokenUsage usage) {
+        Price price = pricing.get(model);
+        if (price == null) {
+            if (unpricedModels.add(model)) {
+                log.warn("⚠️ 模型 {} 未配置单价（finance.analysis.cost.pricing），费用按 0 计", model);
+            }
+            return 0;
+        }
+        int hit = usage.promptCacheHitTokens();
+        int miss = hit + usage.promptCacheMissTokens() > 0
+                ? usage.promptCacheMissTokens() : usage.promptTokens();
+        return (hit * price.getCacheHitPerMillion()
+                + miss * price.getCacheMissPerMillion()
+                + usage.completionTokens() * price.getOutputPerMillion()) / TOKENS_PER_UNIT;
+    }
+
+    private void recordMetrics(String callType, String model, int promptVersion, TokenUsage usage,
+                               double cost, long durationMs) {
+        String version = String.valueOf(promptVersion);
+        tokenCounter(model, version, callType, "prompt").increment(usage.promptTokens());
+        tokenCounter(model, version, callType, "completion").increment(usage.completionTokens());
+        tokenCounter(model, version, callType, "cached").increment(usage.promptCacheHitTokens());
+
+        tokenSummary(model, version, "prompt").record(usage.promptTokens());
+        tokenSummary(model, version, "completion").record(usage.completionTokens());
+
+        Counter.builder("llm.cost")
+                .tag("model", model).tag("prompt_version", version).tag("currency", currency)
+                .register(meterRegistry)
+                .increment(cost);
+        Timer.builder("llm.call.duration")
+                .tag("model", model).tag("prompt_version", version).tag("call_type", callType)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    private Counter tokenCounter(String model, String version, String callType, String type) {
+        return Counter.builder("llm.tokens")
+                .tag("model", model).tag("prompt_version", version).tag("call_type", callType).tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary tokenSummary(String model, String version, String type) {
+        return DistributionSummary.builder("llm.call.tokens")
+                .tag("model", model).tag("prompt_version", version).tag("type", type)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按批次 / 天 / 订单汇总 [from, to] 日期范围内的用量与费用
+     */
+    public CostReport summarize(GroupBy groupBy, LocalDate from, LocalDate to) {
+        List<Object[]> rows = switch (groupBy) {
+            case BATCH -> usageRepository.sumByBatch(from, to);
+            case DAY -> usageRepository.sumByDay(from, to);
+            case ORDER -> usageRepository.sumByOrder(from, to);
+        };
+        List<CostSummary> summaries = rows.stream().map(LlmUsageRecorder::toSummary).toList();
+        double total = summaries.stream().mapToDouble(CostSummary::cost).sum();
+        return new CostReport(groupBy.name().toLowerCase(), from, to, currency, total, summaries);
+    }
+
+    private static CostSummary toSummary(Object[] row) {
+        long companies = toLong(row[2]);
+        double cost = row[6] != null ? ((Number) row[6]).doubleValue() : 0;
+        return new CostSummary(
+                String.valueOf(row[0]),
+                toLong(row[1]),
+                companies,
+                toLong(row[3]),
+                toLong(row[4]),
+                toLong(row[5]),
+                cost,
+                companies > 0 ? cost / companies : 0
+        );
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+
+    /**
+     * 每百万 Token 的单价
+     */
+    @Data
+    public static class Price {
+        private double cacheHitPerMillion;
+        private double cacheMissPerMillion;
+        private double outputPerMillion;
+    }
+
+    public record CostSummary(
+            String key,
+            long calls,
+            long companies,
+            long promptTokens,
+            long completionTokens,
+            long cachedTokens,
+            double cost,
+            double costPerCompany
+    ) {}
+
+    public record CostReport(
+            String groupBy,
+            LocalDate from,
+            LocalDate to,
+            String currency,
+            double totalCost,
+            List<CostSummary> rows
+    ) {}
+}
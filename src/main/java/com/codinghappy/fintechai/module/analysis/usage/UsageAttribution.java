@@ -0,0 +1,76 @@
+package com.codinghappy.fintechai.module.analysis.usage;
+
+import java.util.UUID;
+
+/**
+ * 当前线程的 LLM 费用归属：批次 ID 与订单 ID
+ * 订单 ID 由 UsageAttributionFilter 从请求头读取；批次 ID 由批量入口（异步任务、并发引擎、同步批量接口）设置，
+ * 经 analysisThreadPool 的任务装饰器带到工作线程，LlmUsageRecorder 记录每次调用时读取。
+ */
+public final class UsageAttribution {
+
+    private static final ThreadLocal<Tags> CURRENT = new ThreadLocal<>();
+
+    private UsageAttribution() {
+    }
+
+    public static Tags current() {
+        return CURRENT.get();
+    }
+
+    public static String currentBatchId() {
+        Tags tags = CURRENT.get();
+        return tags != null ? tags.batchId() : null;
+    }
+
+    public static String newBatchId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * 设置批次 / 订单 ID；传 null 的一项沿用当前值。关闭 Scope 时恢复原值
+     */
+    public static Scope attach(String batchId, String orderId) {
+        Tags previous = CURRENT.get();
+        CURRENT.set(new Tags(
+                batchId != null ? batchId : previous != null ? previous.batchId() : null,
+                orderId != null ? orderId : previous != null ? previous.orderId() : null));
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * 当前没有批次 ID 时新建一个（嵌套的批量入口沿用外层批次）
+     */
+    public static Scope attachBatchIfAbsent() {
+        return attach(currentBatchId() == null ? newBatchId() : null, null);
+    }
+
+    /**
+     * 让任务在提交线程的费用归属下执行
+     */
+    public static Runnable wrap(Runnable task) {
+        Tags tags = CURRENT.get();
+        if (tags == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = attach(tags.batchId(), tags.orderId())) {
+                task.run();
+            }
+        };
+    }
+
+    public record Tags(String batchId, String orderId) {
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
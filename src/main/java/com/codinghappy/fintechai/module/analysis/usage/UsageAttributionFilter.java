@@ -0,0 +1,38 @@
+package com.codinghappy.fintechai.module.analysis.usage;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 调用方通过 X-Order-Id 声明本次请求归属的订单，该请求触发的 LLM 调用费用都记到这个订单上
+ */
+@Component
+public class UsageAttributionFilter extends OncePerRequestFilter {
+
+    public static final String ORDER_HEADER = "X-Order-Id";
+
+    private static final int MAX_ORDER_ID_LENGTH = 64;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String orderId = request.getHeader(ORDER_HEADER);
+        if (orderId == null || orderId.isBlank()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        orderId = orderId.trim();
+        if (orderId.length() > MAX_ORDER_ID_LENGTH) {
+            orderId = orderId.substring(0, MAX_ORDER_ID_LENGTH);
+        }
+        try (UsageAttribution.Scope ignored = UsageAttribution.attach(null, orderId)) {
+            chain.doFilter(request, response);
+        }
+    }
+}
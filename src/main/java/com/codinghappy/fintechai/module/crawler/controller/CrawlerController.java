@@ -1,5 +1,7 @@
 package com.codinghappy.fintechai.module.crawler.controller;
 
+import com.codinghappy.fintechai.common.deadline.DeadlineContext;
+import com.codinghappy.fintechai.common.deadline.DeadlineExceededException;
 import com.codinghappy.fintechai.module.crawler.dto.CompanyProfileDTO;
 import com.codinghappy.fintechai.module.crawler.service.CrawlerService;
 import com.codinghappy.fintechai.module.crawler.task.LinkedInCrawlerTask;
@@ -11,6 +13,7 @@ import com.codinghappy.fintechai.module.analysis.task.AnalysisTask;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -88,16 +91,24 @@ public class CrawlerController {
                 return entity;
             }).collect(Collectors.toList());
 
-            // 3. 存入 MySQL (原材料入库)
+            // 3. 存入 MySQL (原材料入库)；Serper 调用已耗尽请求时间则直接放弃
+            DeadlineContext.checkNotExpired("公司入库");
             companyRepository.saveAll(companies);
             log.info("✅ 已成功入库 {} 家公司", companies.size());
 
-            // 4. 🔥【核心联动】立即触发 AI 分析任务
+            // 4. 🔥【核心联动】立即触发 AI 分析任务；请求时间已用完时交给定时批量分析
+            if (DeadlineContext.isExpired()) {
+                log.warn("⏱️ 请求截止时间已过，跳过即时分析，等待定时任务处理");
+                return ResponseEntity.ok(results);
+            }
             log.info("🚀 触发 DeepSeek 批量分析...");
             analysisTask.executeBatchAnalysis();
 
             return ResponseEntity.ok(results);
 
+        } catch (DeadlineExceededException e) {
+            log.warn("⏱️ 搜索流程超出请求截止时间: {}", keyword);
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
         } catch (Exception e) {
             log.error("搜索并分析流程失败: {}", keyword, e);
             return ResponseEntity.internalServerError().build();
@@ -121,8 +132,12 @@ public class CrawlerController {
         log.info("✅ 名单抓取入库完成，成功: {}, 失败: {}。即将开始深度分析...",
                 crawlResult.getSuccessCount(), crawlResult.getFailureCount());
 
-        // 2. 立即触发 DeepSeek 分析 (分析刚才入库的那些)
-        analysisTask.executeBatchAnalysis();
+        // 2. 立即触发 DeepSeek 分析 (分析刚才入库的那些)；请求时间已用完时交给定时批量分析
+        if (DeadlineContext.isExpired()) {
+            log.warn("⏱️ 请求截止时间已过，跳过即时分析，等待定时任务处理");
+        } else {
+            analysisTask.executeBatchAnalysis();
+        }
 
         return ResponseEntity.ok(String.format(
                 "订单已接收！\n成功抓取: %d 家\n系统正在后台进行 DeepSeek 深度分析。\n请 2 分钟后访问 /api/export/pdf/latest 下载报告发给客户。",
@@ -2,6 +2,7 @@ package com.codinghappy.fintechai.module.crawler.service;
 
 
 import com.codinghappy.fintechai.common.constant.SystemConstant;
+import com.codinghappy.fintechai.common.deadline.DeadlineContext;
 import com.codinghappy.fintechai.module.crawler.dto.CompanyProfileDTO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -37,6 +38,10 @@ public class LinkedInCrawlerService implements CrawlerService {
         List<CompanyProfileDTO> results = new ArrayList<>();
 
         for (String url : urls) {
+            if (DeadlineContext.isExpired()) {
+                log.warn("截止时间已过，停止批量抓取");
+                break;
+            }
             try {
                 results.add(crawlCompany(url));
                 // 避免请求过快
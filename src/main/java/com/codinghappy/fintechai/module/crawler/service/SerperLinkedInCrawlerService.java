@@ -1,6 +1,7 @@
 package com.codinghappy.fintechai.module.crawler.service;
 
 import com.codinghappy.fintechai.common.constant.SystemConstant;
+import com.codinghappy.fintechai.common.deadline.DeadlineContext;
 import com.codinghappy.fintechai.module.crawler.dto.CompanyProfileDTO;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -72,6 +73,10 @@ public class SerperLinkedInCrawlerService implements CrawlerService {
     public List<CompanyProfileDTO> batchCrawl(List<String> urls) {
         List<CompanyProfileDTO> results = new ArrayList<>();
         for (String url : urls) {
+            if (DeadlineContext.isExpired()) {
+                log.warn("截止时间已过，剩余 {} 个 URL 不再抓取", urls.size() - urls.indexOf(url));
+                break;
+            }
             CompanyProfileDTO dto = crawlCompany(url);
             if (dto != null) {
                 results.add(dto);
@@ -1,5 +1,6 @@
 package com.codinghappy.fintechai.module.crawler.task;
 
+import com.codinghappy.fintechai.common.deadline.DeadlineContext;
 import com.codinghappy.fintechai.common.util.JsonUtil;
 import com.codinghappy.fintechai.module.crawler.dto.CompanyProfileDTO;
 import com.codinghappy.fintechai.module.crawler.service.CrawlerService;
@@ -122,6 +123,10 @@ public class LinkedInCrawlerTask {
         int totalBatches = (int) Math.ceil((double) linkedinUrls.size() / batchSize);
 
         for (int batchIndex = 0; batchIndex < totalBatches; batchIndex++) {
+            if (DeadlineContext.isExpired()) {
+                log.warn("截止时间已过，剩余 {} 个批次不再抓取", totalBatches - batchIndex);
+                break;
+            }
             int fromIndex = batchIndex * batchSize;
             int toIndex = Math.min(fromIndex + batchSize, linkedinUrls.size());
             List<String> batchUrls = linkedinUrls.subList(fromIndex, toIndex);
@@ -132,6 +137,11 @@ public class LinkedInCrawlerTask {
             // 使用普通 stream 而不是 parallelStream，防止被 LinkedIn 封 IP
             batchUrls.forEach(url -> {
                 try {
+                    if (DeadlineContext.isExpired()) {
+                        skipCount.incrementAndGet();
+                        return;
+                    }
+
                     // ✅ 核心修复：放宽 URL 校验，不再使用 strict 的 supports 方法
                     if (url == null || !url.contains("linkedin.com/company/")) {
                         log.warn("跳过非公司主页 URL: {}", url);
@@ -3,14 +3,36 @@ package com.codinghappy.fintechai.module.scheduler.config;
 import com.codinghappy.fintechai.module.scheduler.job.AnalysisBatchJob;
 import com.codinghappy.fintechai.module.scheduler.job.CompanySyncJob;
 import com.codinghappy.fintechai.module.scheduler.job.LeadGenerationJob;
+import com.codinghappy.fintechai.module.scheduler.job.LeadScorerTrainingJob;
+import com.codinghappy.fintechai.module.scheduler.job.DeadLetterReplayJob;
+import com.codinghappy.fintechai.module.scheduler.job.LlmUpgradeJob;
+import com.codinghappy.fintechai.module.scheduler.job.ReanalysisJob;
 import com.codinghappy.fintechai.module.scheduler.job.ReportGenerationJob;
 import org.quartz.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Date;
+
 @Configuration
 public class QuartzConfig {
 
+    @Value("${finance.analysis.learned.retrain-cron:0 30 3 * * ?}")
+    private String leadScorerRetrainCron;
+
+    @Value("${finance.analysis.learned.startup-delay-seconds:60}")
+    private int leadScorerStartupDelaySeconds;
+
+    @Value("${finance.analysis.deepseek.fallback.upgrade-cron:0 */5 * * * ?}")
+    private String llmUpgradeCron;
+
+    @Value("${finance.analysis.dead-letter.replay-cron:0 */2 * * * ?}")
+    private String deadLetterReplayCron;
+
+    @Value("${finance.analysis.task.schedule.reanalyze-cron:0 0 5 * * ?}")
+    private String reanalyzeCron;
+
     /**
      * 潜在客户生成任务
      */
@@ -104,4 +126,105 @@ public class QuartzConfig {
                 .withSchedule(CronScheduleBuilder.cronSchedule("0 0 1 * * ?"))
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * 本地线索评分模型训练任务
+     */
+    @Bean
+    public JobDetail leadScorerTrainingJobDetail() {
+        return JobBuilder.newJob(LeadScorerTrainingJob.class)
+                .withIdentity("leadScorerTrainingJob")
+                .withDescription("本地线索评分模型训练任务")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger leadScorerTrainingJobTrigger(JobDetail leadScorerTrainingJobDetail) {
+        return TriggerBuilder.newTrigger()
+                .forJob(leadScorerTrainingJobDetail)
+                .withIdentity("leadScorerTrainingTrigger")
+                .withDescription("按 retrain-cron 定期重新训练")
+                .withSchedule(CronScheduleBuilder.cronSchedule(leadScorerRetrainCron))
+                .build();
+    }
+
+    /**
+     * 模型只保存在内存中，启动后先训练一次
+     */
+    @Bean
+    public Trigger leadScorerStartupTrigger(JobDetail leadScorerTrainingJobDetail) {
+        return TriggerBuilder.newTrigger()
+                .forJob(leadScorerTrainingJobDetail)
+                .withIdentity("leadScorerStartupTrigger")
+                .withDescription("启动后训练一次")
+                .startAt(new Date(System.currentTimeMillis() + leadScorerStartupDelaySeconds * 1000L))
+                .build();
+    }
+
+    /**
+     * 熔断降级结果升级任务
+     */
+    @Bean
+    public JobDetail llmUpgradeJobDetail() {
+        return JobBuilder.newJob(LlmUpgradeJob.class)
+                .withIdentity("llmUpgradeJob")
+                .withDescription("熔断降级结果升级任务")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger llmUpgradeJobTrigger(JobDetail llmUpgradeJobDetail) {
+        return TriggerBuilder.newTrigger()
+                .forJob(llmUpgradeJobDetail)
+                .withIdentity("llmUpgradeTrigger")
+                .withDescription("按 upgrade-cron 检查并升级降级结果")
+                .withSchedule(CronScheduleBuilder.cronSchedule(llmUpgradeCron))
+                .build();
+    }
+
+    /**
+     * 分析死信重放任务
+     */
+    @Bean
+    public JobDetail deadLetterReplayJobDetail() {
+        return JobBuilder.newJob(DeadLetterReplayJob.class)
+                .withIdentity("deadLetterReplayJob")
+                .withDescription("分析死信重放任务")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger deadLetterReplayJobTrigger(JobDetail deadLetterReplayJobDetail) {
+        return TriggerBuilder.newTrigger()
+                .forJob(deadLetterReplayJobDetail)
+                .withIdentity("deadLetterReplayTrigger")
+                .withDescription("按 replay-cron 重放到期的失败分析")
+                .withSchedule(CronScheduleBuilder.cronSchedule(deadLetterReplayCron))
+                .build();
+    }
+
+    /**
+     * 重新分析任务（描述变化 / 低置信度结果）
+     */
+    @Bean
+    public JobDetail reanalysisJobDetail() {
+        return JobBuilder.newJob(ReanalysisJob.class)
+                .withIdentity("reanalysisJob")
+                .withDescription("重新分析任务")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger reanalysisJobTrigger(JobDetail reanalysisJobDetail) {
+        return TriggerBuilder.newTrigger()
+                .forJob(reanalysisJobDetail)
+                .withIdentity("reanalysisTrigger")
+                .withDescription("按 reanalyze-cron 重新分析")
+                .withSchedule(CronScheduleBuilder.cronSchedule(reanalyzeCron))
+                .build();
+    }
+}
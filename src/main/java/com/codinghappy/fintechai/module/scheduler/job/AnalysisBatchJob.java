@@ -2,6 +2,7 @@ package com.codinghappy.fintechai.module.scheduler.job;
 
 import com.alibaba.fastjson.JSON; // 引入 Fastjson
 import com.codinghappy.fintechai.module.analysis.task.AnalysisTask;
+import com.codinghappy.fintechai.module.analysis.task.BatchAnalysisEngine;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
@@ -25,15 +26,18 @@ public class AnalysisBatchJob implements Job {
             // AnalysisTask.TaskStatus preStatus = analysisTask.getTaskStatus();
             // log.info("任务前状态: {}", JSON.toJSONString(preStatus));
 
-            // 2. 执行批量分析 (注意：现在是 void，不返回结果)
-            analysisTask.executeBatchAnalysis();
+            // 2. 执行批量分析，返回本批次的汇总报告
+            BatchAnalysisEngine.BatchReport report = analysisTask.executeBatchAnalysis();
+            log.info("本批次: {}", report);
 
-            // 3. 获取执行后的最新状态 (用来替代原来的 result)
+            // 3. 获取执行后的系统累计状态
             AnalysisTask.TaskStatus postStatus = analysisTask.getTaskStatus();
 
             // 4. 保存关键指标到 JobDataMap
             context.getJobDetail().getJobDataMap().put("currentTotalAnalyzed", postStatus.getTotalAnalysisResults());
             context.getJobDetail().getJobDataMap().put("highScoreCount", postStatus.getHighScoreCount());
+            context.getJobDetail().getJobDataMap().put("batchSuccessCount", report.getSuccessCount());
+            context.getJobDetail().getJobDataMap().put("batchFailureCount", report.getFailureCount());
 
             // 使用 JSON.toJSONString 来序列化状态
             context.getJobDetail().getJobDataMap().put("taskStatusJson", JSON.toJSONString(postStatus));
@@ -0,0 +1,41 @@
+package com.codinghappy.fintechai.module.scheduler.job;
+
+import com.codinghappy.fintechai.module.analysis.deadletter.DeadLetterReplayer;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 分析死信重放任务：按失败分类的退避时间，把到期的失败分析重新交给 DeepSeek
+ */
+@Slf4j
+@Component
+@DisallowConcurrentExecution
+public class DeadLetterReplayJob implements Job {
+
+    @Autowired
+    private DeadLetterReplayer deadLetterReplayer;
+
+    @Value("${finance.analysis.dead-letter.replay-batch-size:20}")
+    private int batchSize;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            DeadLetterReplayer.ReplayReport report = deadLetterReplayer.replay(batchSize);
+            if (report.getDue() > 0) {
+                log.info("✅ 死信重放完成: 到期 {}，恢复 {}，失败 {}，丢弃 {}",
+                        report.getDue(), report.getRecovered(), report.getFailed(), report.getDiscarded());
+            }
+            context.getJobDetail().getJobDataMap().put("recovered", report.getRecovered());
+        } catch (Exception e) {
+            log.error("❌ 死信重放失败", e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
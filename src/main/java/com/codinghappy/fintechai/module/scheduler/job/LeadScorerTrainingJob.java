@@ -0,0 +1,36 @@
+package com.codinghappy.fintechai.module.scheduler.job;
+
+import com.codinghappy.fintechai.module.analysis.learning.LearnedLeadScorer;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@DisallowConcurrentExecution
+public class LeadScorerTrainingJob implements Job {
+
+    @Autowired
+    private LearnedLeadScorer learnedLeadScorer;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        log.info(">>> 开始训练本地线索评分模型...");
+
+        try {
+            LearnedLeadScorer.EvaluationReport report = learnedLeadScorer.retrain();
+            if (report != null) {
+                context.getJobDetail().getJobDataMap().put("trainingSize", report.trainingSize());
+                context.getJobDetail().getJobDataMap().put("holdoutSize", report.holdoutSize());
+            }
+            log.info("✅ 本地线索评分模型训练任务完成");
+        } catch (Exception e) {
+            log.error("❌ 本地线索评分模型训练失败", e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.codinghappy.fintechai.module.scheduler.job;
+
+import com.codinghappy.fintechai.module.analysis.service.DeepSeekAnalysisService;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 熔断降级结果升级任务：DeepSeek 恢复后，把关键词策略降级产出的结果重新交给 LLM 分析
+ */
+@Slf4j
+@Component
+@DisallowConcurrentExecution
+public class LlmUpgradeJob implements Job {
+
+    @Autowired
+    private DeepSeekAnalysisService deepSeekAnalysisService;
+
+    @Value("${finance.analysis.deepseek.fallback.upgrade-batch-size:20}")
+    private int batchSize;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            int upgraded = deepSeekAnalysisService.upgradeFallbackResults(batchSize);
+            if (upgraded > 0) {
+                log.info("✅ 已将 {} 条熔断降级结果升级为 DeepSeek 分析", upgraded);
+            }
+            context.getJobDetail().getJobDataMap().put("upgraded", upgraded);
+        } catch (Exception e) {
+            log.error("❌ 熔断降级结果升级失败", e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.codinghappy.fintechai.module.scheduler.job;
+
+import com.codinghappy.fintechai.module.analysis.task.BatchAnalysisEngine;
+import com.codinghappy.fintechai.module.analysis.task.ReanalysisTask;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 重新分析任务：描述变化或结果置信度偏低的公司重新交给 DeepSeek
+ */
+@Slf4j
+@Component
+@DisallowConcurrentExecution
+public class ReanalysisJob implements Job {
+
+    @Autowired
+    private ReanalysisTask reanalysisTask;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        log.info(">>> 开始执行重新分析定时任务...");
+        try {
+            BatchAnalysisEngine.BatchReport report = reanalysisTask.execute();
+            context.getJobDetail().getJobDataMap().put("reanalyzed", report.getTotal());
+            context.getJobDetail().getJobDataMap().put("succeeded", report.getSuccessCount());
+            log.info("✅ 重新分析任务完成: {}", report);
+        } catch (Exception e) {
+            log.error("❌ 重新分析任务执行失败", e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
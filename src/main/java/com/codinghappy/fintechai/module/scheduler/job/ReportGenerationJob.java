@@ -62,7 +62,7 @@ public class ReportGenerationJob implements Job {
         sb.append("   任务状态: ").append(taskStatus.isEnabled() ? "运行中" : "已禁用").append("\n");
         sb.append("   批处理大小: ").append(taskStatus.getBatchSize()).append("\n");
         sb.append("   最大重试次数: ").append(taskStatus.getMaxRetries()).append("\n");
-        sb.append("   延迟秒数: ").append(taskStatus.getDelaySeconds()).append("\n\n");
+        sb.append("   并发上限: ").append(taskStatus.getConcurrency()).append("\n\n");
 
         sb.append("2. 数据分析\n");
         sb.append("   总公司数量: ").append(taskStatus.getTotalCompanies()).append("\n");
@@ -0,0 +1,31 @@
+package com.codinghappy.fintechai.repository;
+
+import com.codinghappy.fintechai.repository.entity.AnalysisDeadLetterEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AnalysisDeadLetterRepository extends JpaRepository<AnalysisDeadLetterEntity, Long> {
+
+    Optional<AnalysisDeadLetterEntity> findByCompanyId(Long companyId);
+
+    // 到期待重放的死信，按到期时间先后
+    List<AnalysisDeadLetterEntity> findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+            String status, LocalDateTime now, Pageable pageable);
+
+    // 仍由死信队列负责（等待重放或已放弃）的公司，批量分析不再挑选
+    @Query("SELECT d.companyId FROM AnalysisDeadLetterEntity d WHERE d.status <> 'RESOLVED'")
+    List<Long> findUnresolvedCompanyIds();
+
+    long countByStatus(String status);
+
+    @Query("SELECT d.failureClass, COUNT(d) FROM AnalysisDeadLetterEntity d WHERE d.status = :status GROUP BY d.failureClass")
+    List<Object[]> countByFailureClass(@Param("status") String status);
+}
@@ -20,6 +20,37 @@ public interface AnalysisResultRepository extends JpaRepository<AnalysisResultEn
 
     Page<AnalysisResultEntity> findBySuccessTrue(Pageable pageable);
 
+    // 至少有一次成功结果的公司（失败结果不算已分析）
+    @Query("SELECT DISTINCT a.companyId FROM AnalysisResultEntity a WHERE a.success = true")
+    List<Long> findSuccessfullyAnalyzedCompanyIds();
+
+    @Query("SELECT a FROM AnalysisResultEntity a WHERE a.success = true AND a.analysisModel = :model " +
+            "AND a.paymentWillingnessScore IS NOT NULL")
+    Page<AnalysisResultEntity> findSuccessfulByModel(@Param("model") String model, Pageable pageable);
+
+    // 熔断降级结果，按时间先后等待 LLM 重新分析
+    Page<AnalysisResultEntity> findByNeedsLlmUpgradeTrueOrderByAnalysisTimeAsc(Pageable pageable);
+
+    /**
+     * 需要重新分析的公司的最新结果：
+     * - 描述哈希与公司当前描述不一致（两者都有哈希时才比较）；
+     * - 或置信度低于阈值，且不是当前完整报告模板的当前版本生成的完整报告（同样的输入再分析一次不会更好）；
+     *   打包模板生成的完整报告模板名不同，低置信度时同样会用单公司 Prompt 重新分析。
+     * 熔断降级结果由 LlmUpgradeJob 负责，这里不选。
+     */
+    @Query("SELECT a FROM AnalysisResultEntity a, CompanyEntity c WHERE c.id = a.companyId AND a.success = true " +
+            "AND a.analysisTime = (SELECT MAX(b.analysisTime) FROM AnalysisResultEntity b WHERE b.companyId = a.companyId) " +
+            "AND (a.needsLlmUpgrade IS NULL OR a.needsLlmUpgrade = false) " +
+            "AND ((a.descriptionHash IS NOT NULL AND c.descriptionHash IS NOT NULL AND a.descriptionHash <> c.descriptionHash) " +
+            "OR ((a.confidence IS NULL OR a.confidence < :minConfidence) " +
+            "AND (a.analysisTier IS NULL OR a.analysisTier <> 'full' OR a.version IS NULL OR a.version < :promptVersion " +
+            "OR (a.promptTemplate IS NOT NULL AND a.promptTemplate <> :promptTemplate)))) " +
+            "ORDER BY a.analysisTime ASC")
+    List<AnalysisResultEntity> findReanalysisCandidates(@Param("minConfidence") double minConfidence,
+                                                        @Param("promptTemplate") String promptTemplate,
+                                                        @Param("promptVersion") int promptVersion,
+                                                        Pageable pageable);
+
     @Query("SELECT a FROM AnalysisResultEntity a WHERE a.paymentWillingnessScore >= :minScore")
     List<AnalysisResultEntity> findByScoreGreaterThanEqual(@Param("minScore") Integer minScore);
 
@@ -0,0 +1,35 @@
+package com.codinghappy.fintechai.repository;
+
+import com.codinghappy.fintechai.repository.entity.LlmCallUsageEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 费用汇总查询的每一行: [分组键, 调用数, 公司数, prompt tokens, completion tokens, cached tokens, 费用]
+ */
+@Repository
+public interface LlmCallUsageRepository extends JpaRepository<LlmCallUsageEntity, Long> {
+
+    @Query("SELECT u.batchId, COUNT(u), SUM(u.companies), SUM(u.promptTokens), SUM(u.completionTokens), " +
+            "SUM(u.cachedTokens), SUM(u.cost) FROM LlmCallUsageEntity u " +
+            "WHERE u.callDate BETWEEN :from AND :to AND u.batchId IS NOT NULL " +
+            "GROUP BY u.batchId ORDER BY SUM(u.cost) DESC")
+    List<Object[]> sumByBatch(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT u.callDate, COUNT(u), SUM(u.companies), SUM(u.promptTokens), SUM(u.completionTokens), " +
+            "SUM(u.cachedTokens), SUM(u.cost) FROM LlmCallUsageEntity u " +
+            "WHERE u.callDate BETWEEN :from AND :to " +
+            "GROUP BY u.callDate ORDER BY u.callDate ASC")
+    List<Object[]> sumByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT u.orderId, COUNT(u), SUM(u.companies), SUM(u.promptTokens), SUM(u.completionTokens), " +
+            "SUM(u.cachedTokens), SUM(u.cost) FROM LlmCallUsageEntity u " +
+            "WHERE u.callDate BETWEEN :from AND :to AND u.orderId IS NOT NULL " +
+            "GROUP BY u.orderId ORDER BY SUM(u.cost) DESC")
+    List<Object[]> sumByOrder(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,69 @@
+package com.codinghappy.fintechai.repository.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分析失败死信：每家公司一行，记录失败分类、尝试次数与下次重放时间
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "analysis_dead_letter", indexes = {
+        @Index(name = "uk_dead_letter_company", columnList = "company_id", unique = true),
+        @Index(name = "idx_dead_letter_due", columnList = "status, next_attempt_at")
+})
+public class AnalysisDeadLetterEntity {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_EXHAUSTED = "EXHAUSTED";
+    public static final String STATUS_RESOLVED = "RESOLVED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    // 失败分类 (RATE_LIMITED / SERVER_ERROR / TIMEOUT / ...)
+    @Column(name = "failure_class", length = 30, nullable = false)
+    private String failureClass;
+
+    // PENDING 等待重放 / EXHAUSTED 超过最大次数 / RESOLVED 已恢复
+    @Column(name = "status", length = 20, nullable = false)
+    private String status;
+
+    // 累计失败次数（含首次）
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "first_failed_at")
+    private LocalDateTime firstFailedAt;
+
+    @Column(name = "last_failed_at")
+    private LocalDateTime lastFailedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -21,7 +21,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_score", columnList = "payment_willingness_score"),
         @Index(name = "idx_confidence", columnList = "confidence"),
         @Index(name = "idx_success", columnList = "success"),
-        @Index(name = "idx_model", columnList = "analysis_model")
+        @Index(name = "idx_model", columnList = "analysis_model"),
+        @Index(name = "idx_needs_llm_upgrade", columnList = "needs_llm_upgrade")
 })
 public class AnalysisResultEntity {
 
@@ -36,6 +37,14 @@ public class AnalysisResultEntity {
     @Column(name = "analysis_model", length = 100)
     private String analysisModel;
 
+    // 产出结果的分级路由层级 (local / triage / full)
+    @Column(name = "analysis_tier", length = 20)
+    private String analysisTier;
+
+    // 熔断降级产出的结果，DeepSeek 恢复后需要重新分析
+    @Column(name = "needs_llm_upgrade")
+    private Boolean needsLlmUpgrade;
+
     // 核心分析结果 (结构化的商业分析报告)
     @Column(name = "analysis_reason", columnDefinition = "TEXT")
     private String analysisReason;
@@ -64,6 +73,35 @@ public class AnalysisResultEntity {
     @Column(name = "processing_time_ms")
     private Double processingTimeMs;
 
+    // 首个 Token 到达耗时 (毫秒，流式调用时有意义)
+    @Column(name = "first_token_ms")
+    private Long firstTokenMs;
+
+    // DeepSeek 调用的重试次数（0 表示一次成功）
+    @Column(name = "retry_count")
+    private Integer retryCount;
+
+    // 描述压缩节省的估算 Token 数
+    @Column(name = "prompt_tokens_saved")
+    private Integer promptTokensSaved;
+
+    // 生成该结果的 LLM 调用的 Token 用量（打包调用按公司数均摊；未调用 LLM 时为空），逐次调用明细见 llm_call_usage
+    @Column(name = "prompt_tokens")
+    private Integer promptTokens;
+
+    @Column(name = "completion_tokens")
+    private Integer completionTokens;
+
+    @Column(name = "prompt_cache_hit_tokens")
+    private Integer promptCacheHitTokens;
+
+    @Column(name = "prompt_cache_miss_tokens")
+    private Integer promptCacheMissTokens;
+
+    // 分析时公司名 + 描述的内容哈希，与 company.description_hash 不一致说明描述已变化
+    @Column(name = "description_hash", length = 64)
+    private String descriptionHash;
+
     // 原始响应数据 (用于调试和训练，务必保留)
     @Column(name = "raw_response", columnDefinition = "LONGTEXT")
     private String rawResponse;
@@ -72,6 +110,10 @@ public class AnalysisResultEntity {
     @Column(name = "version")
     private Integer version;
 
+    // 生成该结果的 Prompt 模板名（完整报告 / triage / packed / packed-triage），version 是该模板自己的版本
+    @Column(name = "prompt_template", length = 64)
+    private String promptTemplate;
+
     @Column(name = "analysis_time")
     private LocalDateTime analysisTime;
 
@@ -1,5 +1,7 @@
 package com.codinghappy.fintechai.repository.entity;
 
+import com.codinghappy.fintechai.common.util.ContentHash;
+import com.codinghappy.fintechai.common.util.SimHash;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
@@ -13,7 +15,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_company_name", columnList = "name"),
         @Index(name = "idx_company_industry", columnList = "industry"),
         @Index(name = "idx_created_at", columnList = "createdAt"),
-        @Index(name = "idx_is_active", columnList = "isActive")
+        @Index(name = "idx_is_active", columnList = "isActive"),
+        @Index(name = "idx_description_simhash", columnList = "description_simhash")
 })
 public class CompanyEntity {
 
@@ -63,6 +66,14 @@ public class CompanyEntity {
     @Column(name = "headquarters", length = 200)
     private String headquarters;
 
+    // 描述的 SimHash 指纹（已剔除公司名），用于近似重复检测
+    @Column(name = "description_simhash")
+    private Long descriptionSimhash;
+
+    // 公司名 + 描述的内容哈希，与分析结果上的哈希比对判断描述是否变化
+    @Column(name = "description_hash", length = 64)
+    private String descriptionHash;
+
     @Column(name = "specialities", columnDefinition = "TEXT")
     private String specialities;
 
@@ -96,6 +107,13 @@ public class CompanyEntity {
     @Column(name = "version")
     private Integer version;
 
+    @PrePersist
+    @PreUpdate
+    void computeDescriptionFingerprints() {
+        descriptionSimhash = SimHash.fingerprint(name, description);
+        descriptionHash = ContentHash.of(name, description);
+    }
+
     // 为了方便查询，添加一个方法检查公司是否有效
     public boolean isValid() {
         return Boolean.TRUE.equals(isActive) &&
@@ -0,0 +1,82 @@
+package com.codinghappy.fintechai.repository.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每次 LLM 调用的 Token 用量与费用（按调用时的单价计算，单价调整不影响历史记录）
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "llm_call_usage", indexes = {
+        @Index(name = "idx_llm_usage_date", columnList = "call_date"),
+        @Index(name = "idx_llm_usage_batch", columnList = "batch_id"),
+        @Index(name = "idx_llm_usage_order", columnList = "order_id")
+})
+public class LlmCallUsageEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "model", length = 50, nullable = false)
+    private String model;
+
+    @Column(name = "prompt_version")
+    private Integer promptVersion;
+
+    // full / triage / packed_full / packed_triage / hedge_loser
+    @Column(name = "call_type", length = 20, nullable = false)
+    private String callType;
+
+    // 单公司调用的公司 ID（打包调用为空）
+    @Column(name = "company_id")
+    private Long companyId;
+
+    // 本次调用分析的公司数
+    @Column(name = "companies", nullable = false)
+    private Integer companies;
+
+    @Column(name = "batch_id", length = 64)
+    private String batchId;
+
+    @Column(name = "order_id", length = 64)
+    private String orderId;
+
+    @Column(name = "prompt_tokens", nullable = false)
+    private Integer promptTokens;
+
+    @Column(name = "completion_tokens", nullable = false)
+    private Integer completionTokens;
+
+    // 命中 Prompt 缓存的 Token 数（prompt_tokens 的一部分）
+    @Column(name = "cached_tokens", nullable = false)
+    private Integer cachedTokens;
+
+    @Column(name = "cost", nullable = false)
+    private Double cost;
+
+    // Token 数为本地估算（响应没有 usage，或对冲落败被断开的请求）
+    @Column(name = "estimated")
+    private Boolean estimated;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "call_date", nullable = false)
+    private LocalDate callDate;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
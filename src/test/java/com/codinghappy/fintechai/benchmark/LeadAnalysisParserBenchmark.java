@@ -0,0 +1,88 @@
+package com.codinghappy.fintechai.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.codinghappy.fintechai.module.analysis.client.ChatResponseParser;
+import com.codinghappy.fintechai.module.analysis.parser.LeadAnalysis;
+import com.codinghappy.fintechai.module.analysis.parser.LeadAnalysisParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 旧解析链路（fastjson 解析信封 + 两次正则清洗 + 再次 fastjson 解析）与单遍流式解析器的对比。
+ * 运行：mvn test-compile 后执行本类的 main 方法。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeadAnalysisParserBenchmark {
+
+    private static final String CONTENT = "```json\n{\n"
+            + "  \"business_category\": \"跨境支付\",\n"
+            + "  \"pain_points\": [\"痛点1: 多币种清结算合规成本高\", \"痛点2: 海外收单通道不稳定\", \"痛点3: 外汇敞口管理\"],\n"
+            + "  \"score\": 8,\n"
+            + "  \"confidence\": 0.85,\n"
+            + "  \"sales_hook\": \"看到贵司正在拓展东南亚市场，我们的本地收单方案可以帮你把到账时间缩短到 T+0。\",\n"
+            + "  \"value_summary\": \"业务高度依赖跨境资金流转，付费能力和意愿都较强。\"\n"
+            + "}\n```";
+
+    private String rawResponse;
+    private LeadAnalysisParser parser;
+
+    @Setup
+    public void setup() {
+        JSONObject message = new JSONObject();
+        message.put("role", "assistant");
+        message.put("content", CONTENT);
+        JSONObject choice = new JSONObject();
+        choice.put("index", 0);
+        choice.put("message", message);
+        choice.put("finish_reason", "stop");
+        JSONObject root = new JSONObject();
+        root.put("id", "chatcmpl-benchmark");
+        root.put("object", "chat.completion");
+        root.put("model", "deepseek-chat");
+        root.put("choices", new Object[]{choice});
+        rawResponse = root.toJSONString();
+        parser = new LeadAnalysisParser();
+    }
+
+    @Benchmark
+    public JSONObject legacyFastjson() {
+        JSONObject root = JSON.parseObject(rawResponse);
+        JSONArray choices = root.getJSONArray("choices");
+        String content = choices.getJSONObject(0).getJSONObject("message").getString("content");
+        String clean = content.replaceAll("```json", "")
+                .replaceAll("```", "")
+                .trim();
+        return JSON.parseObject(clean);
+    }
+
+    @Benchmark
+    public LeadAnalysis singlePassStreaming() {
+        return parser.parse(ChatResponseParser.extractContent(rawResponse));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LeadAnalysisParserBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
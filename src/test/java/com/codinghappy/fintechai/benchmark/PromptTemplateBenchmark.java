@@ -0,0 +1,83 @@
+package com.codinghappy.fintechai.benchmark;
+
+import com.codinghappy.fintechai.module.analysis.prompt.PromptTemplate;
+import com.codinghappy.fintechai.module.analysis.prompt.PromptTemplateRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 原 Prompt 构建方式（每次调用 + 拼接整段模板）、每次调用都做占位符替换的朴素模板，
+ * 与编译后模板（静态片段 + 槽位，复用线程内缓冲区）的渲染吞吐对比。
+ * 运行：mvn test-compile 后执行本类的 main 方法。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptTemplateBenchmark {
+
+    // 非常量字段，避免原拼接方式被编译期常量折叠
+    private String name = "Acme Payments";
+    private String description = "公司成立于2015年，总部位于深圳，是一家面向东南亚和中东市场的综合性金融科技服务商。"
+            + "核心业务包括跨境收款、外汇交易与多币种结算，持有香港 MSO 牌照，接入 SWIFT 网络，"
+            + "为跨境电商卖家提供全球收单和本地化清算服务。同时与多家银行合作开展出口信贷、国际保理等贸易融资产品，"
+            + "帮助中小外贸企业缓解回款周期长的问题。团队成员来自头部支付机构和国际投行，"
+            + "服务客户超过两万家，年处理交易额超过三百亿元。";
+
+    private PromptTemplate compiled;
+
+    @Setup
+    public void setup() {
+        compiled = PromptTemplate.compile(PromptTemplateRegistry.BUILTIN_NAME, PromptTemplateRegistry.BUILTIN_VERSION,
+                PromptTemplateRegistry.BUILTIN_TEXT, PromptTemplateRegistry.VARIABLES);
+    }
+
+    @Benchmark
+    public String legacyConcatenation() {
+        return "你是一名拥有10年经验的Fintech行业销售总监。请分析以下目标公司的信息，为我挖掘销售线索。\n\n" +
+                "【目标公司】: " + name + "\n" +
+                "【公司简介】: " + description + "\n\n" +
+                "请务必严格按照以下 JSON 格式输出结果（不要输出 markdown 代码块，只输出纯文本 JSON）：\n" +
+                "{\n" +
+                "  \"business_category\": \"用3-5个字精准定义其业务(如:跨境支付/Web3钱包)\",\n" +
+                "  \"pain_points\": [\"痛点1: 描述具体的技术或合规难题\", \"痛点2\", \"痛点3\"],\n" +
+                "  \"score\": 1-10的整数(代表付费意愿),\n" +
+                "  \"confidence\": 0.0-1.0(代表你的判断置信度),\n" +
+                "  \"sales_hook\": \"一句为销售量身定制的破冰开场白(中文)\",\n" +
+                "  \"value_summary\": \"简述为什么这家公司值得跟进(50字以内)\"\n" +
+                "}";
+    }
+
+    @Benchmark
+    public String naiveReplace() {
+        return PromptTemplateRegistry.BUILTIN_TEXT
+                .replace("{company_name}", name)
+                .replace("{description}", description);
+    }
+
+    @Benchmark
+    public String compiledTemplate() {
+        return compiled.render(name, description);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PromptTemplateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
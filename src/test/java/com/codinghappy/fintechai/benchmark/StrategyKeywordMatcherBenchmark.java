@@ -0,0 +1,92 @@
+package com.codinghappy.fintechai.benchmark;
+
+import com.codinghappy.fintechai.module.analysis.service.strategy.CrossBorderPaymentStrategy;
+import com.codinghappy.fintechai.module.analysis.service.strategy.KeywordStrategy;
+import com.codinghappy.fintechai.module.analysis.service.strategy.OverseasLoanStrategy;
+import com.codinghappy.fintechai.module.analysis.service.strategy.StrategyKeywordMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 原策略实现（整段描述转小写 + 每个关键词一次 contains，每个策略各扫一遍）
+ * 与共享 Aho–Corasick 自动机（单遍扫描得到所有策略命中数）的对比。
+ * 运行：mvn test-compile 后执行本类的 main 方法。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyKeywordMatcherBenchmark {
+
+    private static final String DESCRIPTION = "公司成立于2015年，总部位于深圳，是一家面向东南亚和中东市场的综合性金融科技服务商。"
+            + "核心业务包括跨境收款、外汇交易与多币种结算，持有香港 MSO 牌照，接入 SWIFT 网络，"
+            + "为跨境电商卖家提供全球收单和本地化清算服务。同时与多家银行合作开展出口信贷、国际保理等贸易融资产品，"
+            + "帮助中小外贸企业缓解回款周期长的问题。团队成员来自头部支付机构和国际投行，"
+            + "服务客户超过两万家，年处理交易额超过三百亿元。公司不涉及消费贷款业务。";
+
+    private List<KeywordStrategy> strategies;
+    private StrategyKeywordMatcher matcher;
+
+    @Setup
+    public void setup() {
+        CrossBorderPaymentStrategy crossBorder = new CrossBorderPaymentStrategy(null);
+        OverseasLoanStrategy overseasLoan = new OverseasLoanStrategy(null);
+        strategies = List.of(crossBorder, overseasLoan);
+        matcher = new StrategyKeywordMatcher(strategies, new StandardEnvironment());
+    }
+
+    @Benchmark
+    public int legacyContainsLoops() {
+        int total = 0;
+        for (KeywordStrategy strategy : strategies) {
+            String lowerDesc = DESCRIPTION.toLowerCase();
+            int keywordCount = 0;
+            int negativeCount = 0;
+            for (String keyword : strategy.getKeywords()) {
+                if (lowerDesc.contains(keyword.toLowerCase())) {
+                    keywordCount++;
+                }
+            }
+            for (String negative : strategy.getNegativeKeywords()) {
+                if (lowerDesc.contains(negative.toLowerCase())) {
+                    negativeCount++;
+                }
+            }
+            total += keywordCount * 31 + negativeCount;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int sharedAutomaton() {
+        StrategyKeywordMatcher.Hits hits = matcher.match(DESCRIPTION);
+        int total = 0;
+        for (KeywordStrategy strategy : strategies) {
+            total += hits.positive(strategy) * 31 + hits.negative(strategy);
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StrategyKeywordMatcherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
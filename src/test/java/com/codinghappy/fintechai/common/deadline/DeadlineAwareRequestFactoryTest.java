@@ -0,0 +1,54 @@
+package com.codinghappy.fintechai.common.deadline;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineAwareRequestFactoryTest {
+
+    @Test
+    void observedConnectionCanBeAbortedBeforeHeadersArrive() throws Exception {
+        // 只接受连接、从不返回响应头的服务端
+        try (ServerSocket server = new ServerSocket(0)) {
+            CompletableFuture<Socket> accepted = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return server.accept();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            RestTemplate restTemplate = new RestTemplate(new DeadlineAwareRequestFactory(1000, 30_000));
+            AtomicReference<HttpURLConnection> connection = new AtomicReference<>();
+
+            long start = System.currentTimeMillis();
+            CompletableFuture<String> call = CompletableFuture.supplyAsync(() -> {
+                try (DeadlineContext.Scope ignored = DeadlineAwareRequestFactory.observeConnections(connection::set)) {
+                    return restTemplate.execute("http://127.0.0.1:" + server.getLocalPort() + "/chat",
+                            HttpMethod.GET, null, response -> "unexpected");
+                }
+            });
+
+            // 连接建立后从另一个线程断开，阻塞中的读取立即结束，而不是等 30 秒读取超时
+            accepted.get(5, TimeUnit.SECONDS);
+            Thread.sleep(100);
+            connection.get().disconnect();
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+            assertTrue(error.getCause() instanceof ResourceAccessException, String.valueOf(error.getCause()));
+            assertTrue(System.currentTimeMillis() - start < 5000);
+            accepted.get().close();
+        }
+    }
+}
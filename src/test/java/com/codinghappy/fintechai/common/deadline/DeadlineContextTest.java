@@ -0,0 +1,79 @@
+package com.codinghappy.fintechai.common.deadline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineContextTest {
+
+    @Test
+    void boundsTimeoutsOnlyWhenDeadlinePresent() {
+        assertEquals(60_000, DeadlineContext.boundMillis(60_000));
+
+        try (DeadlineContext.Scope ignored = DeadlineContext.attach(Deadline.after(5_000))) {
+            long bounded = DeadlineContext.boundMillis(60_000);
+            assertTrue(bounded <= 5_000 && bounded > 4_000, "bounded " + bounded);
+            assertEquals(100, DeadlineContext.boundMillis(100));
+        }
+        assertNull(DeadlineContext.current());
+    }
+
+    @Test
+    void nestedScopeKeepsEarlierDeadlineAndRestores() {
+        Deadline outer = Deadline.after(1_000);
+        try (DeadlineContext.Scope ignored = DeadlineContext.attach(outer)) {
+            try (DeadlineContext.Scope nested = DeadlineContext.attach(Deadline.after(60_000))) {
+                assertSame(outer, DeadlineContext.current());
+            }
+            Deadline inner = Deadline.after(10);
+            try (DeadlineContext.Scope nested = DeadlineContext.attach(inner)) {
+                assertSame(inner, DeadlineContext.current());
+            }
+            assertSame(outer, DeadlineContext.current());
+        }
+        assertNull(DeadlineContext.current());
+    }
+
+    @Test
+    void expiredDeadlineAbandonsWork() {
+        try (DeadlineContext.Scope ignored = DeadlineContext.attach(Deadline.after(0))) {
+            assertTrue(DeadlineContext.isExpired());
+            assertEquals(0, DeadlineContext.boundMillis(60_000));
+            assertThrows(DeadlineExceededException.class, () -> DeadlineContext.checkNotExpired("测试"));
+        }
+    }
+
+    @Test
+    void decoratorCarriesDeadlineToWorkerThread() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Deadline deadline = Deadline.after(30_000);
+            CompletableFuture<Deadline> seen = new CompletableFuture<>();
+            try (DeadlineContext.Scope ignored = DeadlineContext.attach(deadline)) {
+                executor.execute(new DeadlineTaskDecorator().decorate(() -> seen.complete(DeadlineContext.current())));
+            }
+            assertSame(deadline, seen.get());
+
+            // 工作线程执行完后不残留截止时间
+            CompletableFuture<Deadline> after = new CompletableFuture<>();
+            executor.execute(() -> after.complete(DeadlineContext.current()));
+            assertNull(after.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void jobNamesMapToKebabCaseKeys() {
+        assertEquals("analysis-batch-job", DeadlineJobListener.toKebabCase("analysisBatchJob"));
+        assertEquals("llm-upgrade-job", DeadlineJobListener.toKebabCase("llmUpgradeJob"));
+    }
+}
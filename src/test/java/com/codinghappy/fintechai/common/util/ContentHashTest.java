@@ -0,0 +1,25 @@
+package com.codinghappy.fintechai.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ContentHashTest {
+
+    @Test
+    void ignoresWhitespaceButNotContent() {
+        String hash = ContentHash.of("Acme Pay", "Cross-border payments for SMEs.");
+        assertEquals(64, hash.length());
+        assertEquals(hash, ContentHash.of(" Acme Pay ", "Cross-border   payments\nfor SMEs.  "));
+        assertNotEquals(hash, ContentHash.of("Acme Pay", "Cross-border payments for enterprises."));
+        assertNotEquals(hash, ContentHash.of("Acme Lending", "Cross-border payments for SMEs."));
+    }
+
+    @Test
+    void blankDescriptionHasNoHash() {
+        assertNull(ContentHash.of("Acme Pay", null));
+        assertNull(ContentHash.of("Acme Pay", "   "));
+    }
+}
@@ -0,0 +1,118 @@
+package com.codinghappy.fintechai.module.analysis.batch;
+
+import com.codinghappy.fintechai.module.analysis.dto.AnalysisRequest;
+import com.codinghappy.fintechai.module.analysis.service.DeepSeekAnalysisService;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchJobServiceTest {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private ThreadPoolTaskExecutor pool;
+    private BatchJobService service;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(8);
+        pool.setMaxPoolSize(8);
+        pool.setQueueCapacity(50);
+        pool.initialize();
+
+        // 公司 ID 为偶数时分析失败
+        DeepSeekAnalysisService analysisService = new DeepSeekAnalysisService() {
+            @Override
+            public AnalysisResultEntity analyzeCompany(Long companyId, String companyName, String description) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                    if (companyId % 2 == 0) {
+                        throw new RuntimeException("分析失败: 500");
+                    }
+                    return AnalysisResultEntity.builder().companyId(companyId).success(true)
+                            .paymentWillingnessScore(7).build();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+
+        service = new BatchJobService(analysisService, pool, new ObjectMapper().findAndRegisterModules(),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "defaultConcurrency", 4);
+        ReflectionTestUtils.setField(service, "maxConcurrency", 2);
+        ReflectionTestUtils.setField(service, "maxCompanies", 100);
+        ReflectionTestUtils.setField(service, "retentionMinutes", 60L);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void streamsEveryResultWithinPerJobConcurrency() throws Exception {
+        BatchJob job = service.submit(requests(10), null);
+        assertEquals(2, job.getConcurrency());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.streamResults(job, 0, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(10, lines.length);
+        assertTrue(lines[0].contains("\"companyId\""));
+        assertTrue(maxInFlight.get() <= 2);
+
+        BatchJob.BatchJobStatus status = job.getStatus();
+        assertEquals("COMPLETED", status.state());
+        assertEquals(10, status.completed());
+        assertEquals(5, status.succeeded());
+        assertEquals(5, status.failed());
+    }
+
+    @Test
+    void resumesFromOffset() throws Exception {
+        BatchJob job = service.submit(requests(4), 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.streamResults(job, 3, out);
+        assertEquals(1, out.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    void rejectsOversizedJobs() {
+        assertThrows(IllegalArgumentException.class, () -> service.submit(requests(101), null));
+        assertThrows(IllegalArgumentException.class, () -> service.submit(List.of(), null));
+    }
+
+    private static List<AnalysisRequest> requests(int count) {
+        List<AnalysisRequest> requests = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            AnalysisRequest request = new AnalysisRequest();
+            request.setCompanyId(i);
+            request.setCompanyName("公司" + i);
+            request.setDescription("跨境支付服务商");
+            requests.add(request);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,117 @@
+package com.codinghappy.fintechai.module.analysis.cache;
+
+import com.codinghappy.fintechai.module.analysis.prompt.PromptTemplate;
+import com.codinghappy.fintechai.module.analysis.prompt.PromptTemplateRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnalysisResponseCacheTest {
+
+    private static final String MODEL = "deepseek-chat";
+    private static final PromptTemplate TEMPLATE = template("commercial-spy", 4);
+
+    private RedisTemplate<String, String> redisTemplate;
+    private ValueOperations<String, String> ops;
+    private AnalysisResponseCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        ops = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+
+        cache = new AnalysisResponseCache(redisTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "expireMinutes", 30L);
+        ReflectionTestUtils.setField(cache, "maxSize", 100L);
+        cache.init();
+    }
+
+    @Test
+    void keyIgnoresCaseAndWhitespace() {
+        assertEquals(cache.buildKey(MODEL, TEMPLATE, "Acme Pay", "cross border payments"),
+                cache.buildKey(MODEL, TEMPLATE, "  ACME   Pay ", "Cross\n\tBorder  payments "));
+        assertNotEquals(cache.buildKey(MODEL, TEMPLATE, "Acme Pay", "cross border payments"),
+                cache.buildKey(MODEL, TEMPLATE, "Acme Pay", "domestic payments"));
+    }
+
+    @Test
+    void keyChangesWithModelTemplateNameAndVersion() {
+        String key = cache.buildKey(MODEL, TEMPLATE, "Acme", "跨境支付");
+
+        assertNotEquals(key, cache.buildKey("deepseek-reasoner", TEMPLATE, "Acme", "跨境支付"));
+        // 版本号相同但模板不同，输出同样不能复用
+        assertNotEquals(key, cache.buildKey(MODEL, template("triage", 4), "Acme", "跨境支付"));
+        assertNotEquals(key, cache.buildKey(MODEL, template("commercial-spy", 5), "Acme", "跨境支付"));
+    }
+
+    @Test
+    void redisHitIsBackfilledIntoLocalCache() {
+        when(ops.get("k")).thenReturn("{\"score\": 8}");
+
+        assertEquals("{\"score\": 8}", cache.get("k"));
+        assertEquals("{\"score\": 8}", cache.get("k"));
+
+        // 第二次由本地缓存命中，不再访问 Redis
+        verify(ops, times(1)).get("k");
+        AnalysisResponseCache.CacheStatus status = cache.getStatus();
+        assertEquals(1, status.redisHits());
+        assertEquals(1, status.localHits());
+        assertEquals(1, status.localSize());
+    }
+
+    @Test
+    void redisFailureDegradesToMiss() {
+        when(ops.get(anyString())).thenThrow(new IllegalStateException("connection refused"));
+
+        assertNull(cache.get("k"));
+        assertEquals(1, cache.getStatus().misses());
+    }
+
+    @Test
+    void clearEmptiesLocalCacheAndDeletesScannedKeys() {
+        cache.put("k", "{\"score\": 8}");
+        List<String> keys = List.of("finance:analysis:response:a", "finance:analysis:response:b");
+        @SuppressWarnings("unchecked")
+        Cursor<String> cursor = mock(Cursor.class);
+        doAnswer(inv -> {
+            keys.forEach(inv.<Consumer<String>>getArgument(0));
+            return null;
+        }).when(cursor).forEachRemaining(any());
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        when(redisTemplate.delete(keys)).thenReturn(2L);
+
+        assertEquals(2, cache.clear());
+
+        // 本地已清空，再读会落到 Redis（这里已无数据）
+        assertNull(cache.get("k"));
+        assertEquals(0, cache.getStatus().localSize());
+        verify(cursor).close();
+    }
+
+    private static PromptTemplate template(String name, int version) {
+        return PromptTemplate.compile(name, version, "公司: {company_name}\n简介: {description}",
+                PromptTemplateRegistry.VARIABLES);
+    }
+}
@@ -0,0 +1,69 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import com.codinghappy.fintechai.module.analysis.exception.RateLimitException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new AdaptiveConcurrencyLimiter(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "initialLimit", 4);
+        ReflectionTestUtils.setField(limiter, "minLimit", 1);
+        ReflectionTestUtils.setField(limiter, "maxLimit", 20);
+        ReflectionTestUtils.setField(limiter, "rttTolerance", 2.0);
+        ReflectionTestUtils.setField(limiter, "backoffRatio", 0.5);
+        ReflectionTestUtils.setField(limiter, "smoothing", 0.5);
+        ReflectionTestUtils.setField(limiter, "longWindow", 10);
+        ReflectionTestUtils.setField(limiter, "maxQueue", 0);
+        ReflectionTestUtils.setField(limiter, "queueTimeoutMillis", 10L);
+        limiter.init();
+    }
+
+    @Test
+    void limitGrowsWhileSaturatedCallsStayFast() {
+        for (int round = 0; round < 5; round++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (int i = 0; i < limiter.getLimit(); i++) {
+                permits.add(limiter.acquire());
+            }
+            permits.forEach(AdaptiveConcurrencyLimiter.Permit::success);
+        }
+
+        assertTrue(limiter.getLimit() > 4, "limit = " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void overloadSignalsShrinkLimitMultiplicatively() {
+        limiter.acquire().dropped();
+        assertEquals(2, limiter.getLimit());
+
+        limiter.acquire().dropped();
+        limiter.acquire().dropped();
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void rejectsWhenLimitReachedAndQueueFull() {
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+
+        assertThrows(RateLimitException.class, limiter::acquire);
+        assertEquals(1, limiter.getStats().getRejectedQueueFull());
+    }
+}
@@ -0,0 +1,33 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ChatResponseParserTest {
+
+    @Test
+    void readsContentAndUsage() {
+        String raw = "{\"id\":\"x\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"{\\\"score\\\":8}\"},"
+                + "\"finish_reason\":\"stop\"},{\"index\":1,\"message\":{\"content\":\"ignored\"}}],"
+                + "\"usage\":{\"prompt_tokens\":300,\"completion_tokens\":50,\"total_tokens\":350,"
+                + "\"prompt_cache_hit_tokens\":256,\"prompt_cache_miss_tokens\":44}}";
+
+        ChatResponseParser.Envelope envelope = ChatResponseParser.parse(raw);
+
+        assertEquals("{\"score\":8}", envelope.content());
+        assertEquals(new TokenUsage(300, 50, 256, 44), envelope.usage());
+        assertEquals(256.0 / 300, envelope.usage().cacheHitRatio(), 1e-9);
+    }
+
+    @Test
+    void usageIsOptionalAndNonEnvelopeIsReturnedAsIs() {
+        ChatResponseParser.Envelope noUsage = ChatResponseParser.parse("{\"choices\":[{\"message\":{\"content\":\"hi\"}}]}");
+        assertEquals("hi", noUsage.content());
+        assertNull(noUsage.usage());
+
+        assertEquals("plain text", ChatResponseParser.parse("plain text").content());
+        assertEquals("{\"score\":8}", ChatResponseParser.parse("{\"score\":8}").content());
+    }
+}
@@ -0,0 +1,72 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeepSeekCircuitBreakerTest {
+
+    private DeepSeekCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new DeepSeekCircuitBreaker(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(breaker, "enabled", true);
+        ReflectionTestUtils.setField(breaker, "windowSize", 10);
+        ReflectionTestUtils.setField(breaker, "minimumCalls", 4);
+        ReflectionTestUtils.setField(breaker, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(breaker, "slowCallRateThreshold", 0.8);
+        ReflectionTestUtils.setField(breaker, "slowCallMillis", 1000L);
+        ReflectionTestUtils.setField(breaker, "openWaitMillis", 50L);
+        ReflectionTestUtils.setField(breaker, "halfOpenProbes", 2);
+        breaker.init();
+    }
+
+    @Test
+    void opensOnErrorRateAndClosesAfterSuccessfulProbes() throws InterruptedException {
+        breaker.onSuccess(10);
+        breaker.onError(10);
+        breaker.onSuccess(10);
+        breaker.onError(10);
+        assertEquals(DeepSeekCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+
+        Thread.sleep(60);
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        // 半开期间只放行 half-open-probes 个探测
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.onSuccess(10);
+        breaker.onSuccess(10);
+        assertEquals(DeepSeekCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void opensOnSlowCallRate() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(2000);
+        }
+        assertEquals(DeepSeekCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void failedProbeReopens() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(10);
+        }
+        Thread.sleep(60);
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onSuccess(10);
+        breaker.onError(10);
+
+        assertEquals(DeepSeekCircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.isOpen());
+    }
+}
@@ -0,0 +1,187 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import com.codinghappy.fintechai.module.analysis.exception.CircuitOpenException;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LlmEndpointPoolTest {
+
+    private static final String OK_BODY = "{\"choices\":[{\"message\":{\"content\":\"{\\\"score\\\": 5}\"}}]}";
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void rateLimitedKeyIsEjectedAndTrafficMovesToHealthyKey() {
+        AtomicInteger limitedHits = new AtomicInteger();
+        AtomicInteger healthyHits = new AtomicInteger();
+        String limited = startStub(limitedHits, 429, 0);
+        String healthy = startStub(healthyHits, 200, 0);
+
+        LlmEndpointPool pool = newPool(List.of(settings("limited", limited, 10), settings("healthy", healthy, 10)));
+        DeepSeekClient client = newClient(pool);
+
+        int succeeded = 0;
+        for (int i = 0; i < 6; i++) {
+            try {
+                client.complete(CallOptions.of("deepseek-chat"), "json");
+                succeeded++;
+            } catch (RuntimeException e) {
+                // 命中被限流的 Key 时本次调用失败，由上层重试
+            }
+        }
+
+        assertEquals(1, limitedHits.get());
+        assertTrue(succeeded >= 5);
+        LlmEndpointPool.EndpointStats limitedStats = pool.getStats().get(0);
+        assertFalse(limitedStats.healthy());
+        assertEquals(1, limitedStats.rateLimited());
+        assertEquals(succeeded, pool.getStats().get(1).success());
+    }
+
+    @Test
+    void concurrentCallsAreSpreadByOutstandingRequests() {
+        AtomicInteger hitsA = new AtomicInteger();
+        AtomicInteger hitsB = new AtomicInteger();
+        LlmEndpointPool pool = newPool(List.of(
+                settings("a", startStub(hitsA, 200, 300), 4),
+                settings("b", startStub(hitsB, 200, 300), 4)));
+        DeepSeekClient client = newClient(pool);
+
+        List<CompletableFuture<ChatCompletion>> calls = new ArrayList<>();
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("caller-");
+        for (int i = 0; i < 8; i++) {
+            calls.add(CompletableFuture.supplyAsync(
+                    () -> client.complete(CallOptions.of("deepseek-chat"), "json"), executor));
+        }
+        calls.forEach(CompletableFuture::join);
+
+        // 每个端点并发上限 4，8 个同时在途的请求只能各分一半
+        assertEquals(4, hitsA.get());
+        assertEquals(4, hitsB.get());
+        assertEquals(0, pool.getStats().get(0).outstanding());
+    }
+
+    @Test
+    void singleEndpointOutageOpensTheCircuitInsteadOfStalling() {
+        AtomicInteger hits = new AtomicInteger();
+        LlmEndpointPool pool = newPool(List.of(settings("default", startStub(hits, 503, 0), 10)));
+        DeepSeekCircuitBreaker breaker = new DeepSeekCircuitBreaker(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(breaker, "enabled", true);
+        ReflectionTestUtils.setField(breaker, "windowSize", 10);
+        ReflectionTestUtils.setField(breaker, "minimumCalls", 4);
+        ReflectionTestUtils.setField(breaker, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(breaker, "slowCallRateThreshold", 1.0);
+        ReflectionTestUtils.setField(breaker, "slowCallMillis", 30000L);
+        ReflectionTestUtils.setField(breaker, "openWaitMillis", 60000L);
+        ReflectionTestUtils.setField(breaker, "halfOpenProbes", 1);
+        breaker.init();
+        DeepSeekClient client = newClient(pool, breaker);
+
+        long start = System.currentTimeMillis();
+        List<Class<?>> errors = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            try {
+                client.complete(CallOptions.of("deepseek-chat"), "json");
+            } catch (RuntimeException e) {
+                errors.add(e.getClass());
+            }
+        }
+
+        // 唯一的端点不被摘除：503 如实计入熔断，之后直接熔断拒绝，而不是每次在 acquire 里等满 acquire-wait-millis
+        assertEquals(4, hits.get());
+        assertTrue(errors.subList(0, 4).stream().allMatch(HttpServerErrorException.class::isAssignableFrom), errors.toString());
+        assertEquals(List.of(CircuitOpenException.class, CircuitOpenException.class), errors.subList(4, 6));
+        assertEquals(DeepSeekCircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(pool.getStats().get(0).healthy());
+        assertEquals(0, pool.getStats().get(0).ejections());
+        assertTrue(System.currentTimeMillis() - start < 4000);
+    }
+
+    private String startStub(AtomicInteger hits, int status, long delayMillis) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.setExecutor(new SimpleAsyncTaskExecutor("stub-"));
+            server.createContext("/chat/completions", exchange -> {
+                hits.incrementAndGet();
+                sleep(delayMillis);
+                byte[] body = (status == 200 ? OK_BODY : "{\"error\":\"busy\"}").getBytes(StandardCharsets.UTF_8);
+                if (status == 429) {
+                    exchange.getResponseHeaders().add("Retry-After", "60");
+                }
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            servers.add(server);
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/chat/completions";
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static LlmEndpoint.Settings settings(String name, String url, int maxConcurrency) {
+        LlmEndpoint.Settings settings = new LlmEndpoint.Settings();
+        settings.setName(name);
+        settings.setUrl(url);
+        settings.setApiKey("sk-" + name);
+        settings.setRequestsPerSecond(0);
+        settings.setMaxConcurrency(maxConcurrency);
+        return settings;
+    }
+
+    private static LlmEndpointPool newPool(List<LlmEndpoint.Settings> settings) {
+        LlmEndpointPool pool = new LlmEndpointPool(new SimpleMeterRegistry(), settings);
+        ReflectionTestUtils.setField(pool, "acquireWaitMillis", 5000L);
+        ReflectionTestUtils.setField(pool, "ejectMillis", 1000L);
+        ReflectionTestUtils.setField(pool, "maxEjectMillis", 60000L);
+        return pool;
+    }
+
+    private static DeepSeekClient newClient(LlmEndpointPool pool) {
+        return newClient(pool, new DeepSeekCircuitBreaker(new SimpleMeterRegistry()));
+    }
+
+    private static DeepSeekClient newClient(LlmEndpointPool pool, DeepSeekCircuitBreaker breaker) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RequestHedger hedger = new RequestHedger(new SimpleAsyncTaskExecutor(), registry);
+        DeepSeekClient client = new DeepSeekClient(new RestTemplate(), registry, hedger, pool,
+                new AdaptiveConcurrencyLimiter(registry), breaker);
+        ReflectionTestUtils.setField(client, "jsonMode", true);
+        return client;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestHedgerTest {
+
+    private RequestHedger hedger;
+
+    @BeforeEach
+    void setUp() {
+        hedger = new RequestHedger(new SimpleAsyncTaskExecutor("hedge-test-"), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(hedger, "enabled", true);
+        ReflectionTestUtils.setField(hedger, "percentile", 0.95);
+        ReflectionTestUtils.setField(hedger, "windowSize", 50);
+        ReflectionTestUtils.setField(hedger, "minSamples", 5);
+        ReflectionTestUtils.setField(hedger, "initialDelayMillis", 50L);
+        ReflectionTestUtils.setField(hedger, "minDelayMillis", 10L);
+        ReflectionTestUtils.setField(hedger, "maxDelayMillis", 1000L);
+        ReflectionTestUtils.setField(hedger, "budgetRatio", 0.1);
+        ReflectionTestUtils.setField(hedger, "budgetCapacity", 1.0);
+        hedger.init();
+    }
+
+    @Test
+    void hedgeWinsAndSlowPrimaryIsCancelled() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch primaryClosed = new CountDownLatch(1);
+
+        String result = hedger.execute(attempt -> {
+            if (attempts.getAndIncrement() == 0) {
+                attempt.onCancel(primaryClosed::countDown);
+                sleep(2000);
+                return "primary";
+            }
+            attempt.responded();
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertTrue(primaryClosed.await(1, TimeUnit.SECONDS));
+        assertEquals(1, hedger.getStats().getHedged());
+        assertEquals(1.0, hedger.getStats().getWinRate());
+    }
+
+    @Test
+    void budgetCapsHedgesWhenEveryCallIsSlow() {
+        for (int i = 0; i < 5; i++) {
+            hedger.execute(attempt -> {
+                sleep(80);
+                return "slow";
+            });
+        }
+
+        // 容量 1 的预算只够第一次对冲，之后每次成功只积累 0.1 个令牌
+        assertEquals(1, hedger.getStats().getHedged());
+        assertEquals(4, hedger.getStats().getBudgetExhausted());
+    }
+
+    @Test
+    void delayTracksRecentLatencyPercentile() {
+        for (int i = 1; i <= 20; i++) {
+            long latency = i * 5L;
+            hedger.execute(attempt -> {
+                sleep(latency);
+                attempt.responded();
+                return "ok";
+            });
+        }
+
+        long delay = hedger.currentDelayMillis();
+        assertTrue(delay >= 80 && delay <= 200, "delay = " + delay);
+    }
+
+    @Test
+    void failedAttemptsDoNotFeedLatencySamples() {
+        // 快速失败的 4xx / 5xx 没有开始响应，不能把对冲分位拉低
+        for (int i = 0; i < 10; i++) {
+            assertThrows(IllegalStateException.class, () -> hedger.execute(attempt -> {
+                throw new IllegalStateException("429");
+            }));
+        }
+        assertEquals(50, hedger.currentDelayMillis());
+    }
+
+    @Test
+    void loserIsCancelledBeforeItResponds() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch primaryClosed = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        List<RequestHedger.Attempt> abandoned = new ArrayList<>();
+
+        // 主请求在发出前注册断开钩子，随后一直阻塞（相当于等不到响应头）
+        String result = hedger.execute(attempt -> {
+            if (attempts.getAndIncrement() == 0) {
+                attempt.onCancel(() -> {
+                    primaryClosed.countDown();
+                    unblock.countDown();
+                });
+                await(unblock);
+                throw new IllegalStateException("连接已断开");
+            }
+            attempt.responded();
+            return "hedge";
+        }, abandoned::add);
+
+        assertEquals("hedge", result);
+        assertTrue(primaryClosed.await(1, TimeUnit.SECONDS));
+        // 已发出的落败请求在返回前回调，调用方据此记录它的 Prompt 费用
+        assertEquals(1, abandoned.size());
+        assertTrue(abandoned.get(0).isCancelled());
+    }
+
+    @Test
+    void unhedgedAndFailedLosersAreNotReportedAsAbandoned() {
+        List<RequestHedger.Attempt> abandoned = new ArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+
+        // 没有触发对冲
+        hedger.execute(attempt -> {
+            attempt.responded();
+            return "fast";
+        }, abandoned::add);
+        // 主请求先失败、对冲请求成功：失败的一方不再计费
+        String result = hedger.execute(attempt -> {
+            if (attempts.getAndIncrement() == 0) {
+                sleep(80);
+                throw new IllegalStateException("503");
+            }
+            sleep(150);
+            attempt.responded();
+            return "hedge";
+        }, abandoned::add);
+
+        assertEquals("hedge", result);
+        assertTrue(abandoned.isEmpty());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.codinghappy.fintechai.module.analysis.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingFieldExtractorTest {
+
+    @Test
+    void waitsForSeparatorBeforeParsingSplitNumbers() {
+        StreamingFieldExtractor extractor = new StreamingFieldExtractor();
+
+        // "10" 被切成 "1" + "0"：分隔符出现前不能解析成 1
+        assertFalse(extractor.append("{\"score\": 1"));
+        assertNull(extractor.getPartial().getScore());
+        assertFalse(extractor.append("0"));
+        assertTrue(extractor.append(", \"confidence\": 0."));
+        assertEquals(10, extractor.getPartial().getScore());
+
+        // "0.85" 被切成 "0." + "85"
+        assertNull(extractor.getPartial().getConfidence());
+        assertFalse(extractor.append("85"));
+        assertTrue(extractor.append("\n}"));
+        assertEquals(0.85, extractor.getPartial().getConfidence());
+    }
+
+    @Test
+    void findsFieldNamesSplitAcrossDeltas() {
+        StreamingFieldExtractor extractor = new StreamingFieldExtractor();
+        for (String delta : new String[]{"{\"busi", "ness_cate", "gory\": \"跨境", "支付\", \"sco", "re\"", ": 7,"}) {
+            extractor.append(delta);
+        }
+        assertEquals("跨境支付", extractor.getPartial().getBusinessCategory());
+        assertEquals(7, extractor.getPartial().getScore());
+    }
+
+    @Test
+    void skipsFieldNamesThatDoNotCarryTheExpectedValue() {
+        StreamingFieldExtractor extractor = new StreamingFieldExtractor();
+        // 第一次出现的 "score" 取值不是数字，继续找下一个
+        extractor.append("{\"notes\": {\"score\": \"高\"}, ");
+        assertNull(extractor.getPartial().getScore());
+        extractor.append("\"score\": 4}");
+        assertEquals(4, extractor.getPartial().getScore());
+    }
+
+    @Test
+    void missingFieldDoesNotRescanTheWholeBuffer() {
+        StreamingFieldExtractor extractor = new StreamingFieldExtractor();
+        extractor.append("{\"score\": 6, \"confidence\": 0.7, \"pain_points\": [");
+        String delta = "\"合规难题、跨境结算成本高、汇率风险\", ";
+        // 从未出现 business_category：每个 delta 只扫描新内容，整体保持线性
+        long start = System.nanoTime();
+        for (int i = 0; i < 20000; i++) {
+            extractor.append(delta);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertNull(extractor.getPartial().getBusinessCategory());
+        assertEquals(6, extractor.getPartial().getScore());
+        assertTrue(elapsedMillis < 2000, "增量扫描耗时过长: " + elapsedMillis + "ms");
+    }
+}
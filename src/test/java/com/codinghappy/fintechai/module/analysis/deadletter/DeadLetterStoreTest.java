@@ -0,0 +1,102 @@
+package com.codinghappy.fintechai.module.analysis.deadletter;
+
+import com.codinghappy.fintechai.module.analysis.exception.AnalysisException;
+import com.codinghappy.fintechai.module.analysis.exception.RateLimitException;
+import com.codinghappy.fintechai.repository.AnalysisDeadLetterRepository;
+import com.codinghappy.fintechai.repository.entity.AnalysisDeadLetterEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeadLetterStoreTest {
+
+    private final Map<Long, AnalysisDeadLetterEntity> rows = new HashMap<>();
+    private DeadLetterStore store;
+
+    @BeforeEach
+    void setUp() {
+        AnalysisDeadLetterRepository repository = mock(AnalysisDeadLetterRepository.class);
+        when(repository.findByCompanyId(anyLong())).thenAnswer(inv -> Optional.ofNullable(rows.get(inv.<Long>getArgument(0))));
+        when(repository.save(any(AnalysisDeadLetterEntity.class))).thenAnswer(inv -> {
+            AnalysisDeadLetterEntity entity = inv.getArgument(0);
+            rows.put(entity.getCompanyId(), entity);
+            return entity;
+        });
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("finance.analysis.dead-letter.backoff.rate-limited.initial-delay-seconds", "10")
+                .withProperty("finance.analysis.dead-letter.backoff.rate-limited.max-attempts", "3");
+        store = new DeadLetterStore(repository, new SimpleMeterRegistry(), environment);
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "maxDelaySeconds", 3600L);
+    }
+
+    @Test
+    void classifiesByCauseChain() {
+        assertEquals(FailureClass.SERVER_ERROR, FailureClass.classify(
+                new RuntimeException("分析失败", HttpServerErrorException.create(
+                        HttpStatus.BAD_GATEWAY, "bad gateway", null, null, null))));
+        assertEquals(FailureClass.TIMEOUT, FailureClass.classify(new ResourceAccessException("read timed out")));
+        assertEquals(FailureClass.RATE_LIMITED, FailureClass.classify(new RateLimitException("限流")));
+        assertEquals(FailureClass.PARSE_ERROR, FailureClass.classify(
+                new AnalysisException("无效JSON", FailureClass.PARSE_ERROR_CODE, "某公司")));
+        assertEquals(FailureClass.UNKNOWN, FailureClass.classify(new IllegalStateException("?")));
+    }
+
+    @Test
+    void backsOffExponentiallyAndExhaustsAtMaxAttempts() {
+        AnalysisDeadLetterEntity first = store.record(1L, new RateLimitException("限流"));
+        assertEquals(1, first.getAttempts());
+        assertEquals(AnalysisDeadLetterEntity.STATUS_PENDING, first.getStatus());
+        assertEquals(FailureClass.RATE_LIMITED.name(), first.getFailureClass());
+        assertDelayAround(first, 10);
+
+        AnalysisDeadLetterEntity second = store.record(1L, new RateLimitException("限流"));
+        assertEquals(2, second.getAttempts());
+        assertDelayAround(second, 20);
+
+        // yaml 覆盖的 max-attempts = 3
+        AnalysisDeadLetterEntity third = store.record(1L, new RateLimitException("限流"));
+        assertEquals(AnalysisDeadLetterEntity.STATUS_EXHAUSTED, third.getStatus());
+        assertNull(third.getNextAttemptAt());
+    }
+
+    @Test
+    void restartsCountingAfterResolved() {
+        store.record(2L, new RateLimitException("限流"));
+        store.record(2L, new RateLimitException("限流"));
+        store.resolve(rows.get(2L));
+
+        AnalysisDeadLetterEntity again = store.record(2L, new ResourceAccessException("timeout"));
+        assertEquals(1, again.getAttempts());
+        assertEquals(FailureClass.TIMEOUT.name(), again.getFailureClass());
+        // TIMEOUT 使用默认初始延迟 120 秒
+        assertDelayAround(again, 120);
+    }
+
+    private static void assertDelayAround(AnalysisDeadLetterEntity letter, long expectedSeconds) {
+        long delay = Duration.between(letter.getLastFailedAt(), letter.getNextAttemptAt()).toSeconds();
+        assertTrue(delay >= expectedSeconds * 0.8 - 1 && delay <= expectedSeconds * 1.2 + 1,
+                "delay " + delay + "s, expected ~" + expectedSeconds + "s");
+        assertTrue(letter.getNextAttemptAt().isAfter(LocalDateTime.now().minusSeconds(1)));
+    }
+}
@@ -0,0 +1,40 @@
+package com.codinghappy.fintechai.module.analysis.dedup;
+
+import com.codinghappy.fintechai.common.util.SimHash;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SimHashIndexTest {
+
+    private static final String SNIPPET = "PayNova is a cross-border payment company headquartered in Singapore, "
+            + "providing multi-currency collection, FX conversion and local settlement for e-commerce sellers "
+            + "across Southeast Asia. Licensed by MAS. 500+ employees.";
+
+    @Test
+    void placeholderDescriptionsShareOneFingerprint() {
+        Long a = SimHash.fingerprint("Acme Pay", "Acme Pay is a company listed on LinkedIn.");
+        Long b = SimHash.fingerprint("Globex Finance Ltd", "Globex Finance Ltd is a company listed on LinkedIn.");
+
+        assertEquals(a, b);
+    }
+
+    @Test
+    void findsRegionalSnippetVariantButNotUnrelatedCompany() {
+        SimHashIndex index = new SimHashIndex();
+        index.add(1L, SimHash.fingerprint("PayNova", SNIPPET));
+
+        long regional = SimHash.fingerprint("PayNova Hong Kong",
+                SNIPPET.replace("PayNova", "PayNova Hong Kong").replace("500+", "501+"));
+        long unrelated = SimHash.fingerprint("Bistro", "Bistro is a family-owned restaurant chain serving "
+                + "Italian food in Shanghai and Hangzhou, with 12 locations and catering services.");
+
+        SimHashIndex.Match match = index.findNearest(regional, 3, 2L);
+        assertNotNull(match);
+        assertEquals(1L, match.companyId());
+        assertNull(index.findNearest(unrelated, 3, 3L));
+        assertNull(index.findNearest(regional, 3, 1L));
+    }
+}
@@ -0,0 +1,34 @@
+package com.codinghappy.fintechai.module.analysis.learning;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeadScoringModelTest {
+
+    @Test
+    void learnsToSeparateHighAndLowIntentDescriptions() {
+        List<TrainingExample> examples = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            examples.add(new TrainingExample((long) i, "第" + i + "号公司提供跨境支付与外汇结算服务，覆盖东南亚市场", 9, "跨境支付"));
+            examples.add(new TrainingExample((long) i + 1000, "第" + i + "号公司经营本地餐饮连锁与外卖配送", 2, "餐饮"));
+        }
+
+        LeadScoringModel model = LeadScoringModel.train(examples,
+                new LeadScoringModel.TrainingOptions(6, 0.5, 1e-6, 7, 8, 5));
+
+        LeadScoringModel.Prediction high = model.predict("一家做跨境支付和外汇结算的公司");
+        LeadScoringModel.Prediction low = model.predict("社区餐饮连锁品牌，提供外卖配送");
+
+        assertTrue(high.highIntent());
+        assertEquals("跨境支付", high.businessCategory());
+        assertFalse(low.highIntent());
+        assertTrue(high.score() - low.score() >= 2);
+        assertTrue(high.confidence() > 0.8);
+    }
+}
@@ -0,0 +1,95 @@
+package com.codinghappy.fintechai.module.analysis.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeadAnalysisParserTest {
+
+    private final LeadAnalysisParser parser = new LeadAnalysisParser();
+
+    @Test
+    void parsesFencedContent() {
+        LeadAnalysis analysis = parser.parse("```json\n{\"business_category\":\"跨境支付\",\"pain_points\":[\"a\",\"b\"],"
+                + "\"score\":8,\"confidence\":0.85,\"sales_hook\":\"hi\",\"value_summary\":\"ok\"}\n```");
+
+        assertEquals("跨境支付", analysis.businessCategory());
+        assertEquals(List.of("a", "b"), analysis.painPoints());
+        assertEquals(8, analysis.score());
+        assertEquals(0.85, analysis.confidence());
+        assertFalse(analysis.truncated());
+    }
+
+    @Test
+    void recoversTruncatedContent() {
+        LeadAnalysis analysis = parser.parse("{\"business_category\":\"跨境支付\",\"score\":6,\"confidence\":0.7,\"sales_hook\":\"看到贵司");
+
+        assertTrue(analysis.truncated());
+        assertTrue(analysis.isUsable());
+        assertEquals(6, analysis.score());
+        assertNull(analysis.salesHook());
+    }
+
+    @Test
+    void parsesPackedResultsUntilTruncation() {
+        List<LeadAnalysis> items = parser.parseList("{\"results\":[{\"company_id\":1,\"score\":7},"
+                + "{\"company_id\":\"2\",\"score\":3},{\"company_id\":3,\"busi");
+
+        assertEquals(2, items.size());
+        assertEquals(2L, items.get(1).companyId());
+    }
+
+    @Test
+    void roundTripsThroughJson() {
+        LeadAnalysis original = new LeadAnalysis(null, "海外借贷", List.of("x"), 5, 0.5, "hook", "summary", false);
+
+        assertEquals(original, parser.parse(parser.toJson(original)));
+    }
+
+    @Test
+    void toleratesNullObjectAndNumberPainPoints() {
+        LeadAnalysis nullPoints = parser.parse("{\"pain_points\": null, \"score\": 6, \"confidence\": 0.7}");
+        assertNull(nullPoints.painPoints());
+        assertEquals(6, nullPoints.score());
+        assertFalse(nullPoints.truncated());
+
+        // 对象值整体跳过，后面的字段照常解析
+        LeadAnalysis objectPoints = parser.parse("{\"pain_points\": {\"a\": [1, 2]}, \"score\": 4, \"sales_hook\": \"hi\"}");
+        assertNull(objectPoints.painPoints());
+        assertEquals(4, objectPoints.score());
+        assertEquals("hi", objectPoints.salesHook());
+
+        LeadAnalysis numberPoints = parser.parse("{\"pain_points\": 3, \"score\": 5}");
+        assertEquals(List.of("3"), numberPoints.painPoints());
+        assertEquals(5, numberPoints.score());
+    }
+
+    @Test
+    void skipsStructuredValuesInScalarFields() {
+        LeadAnalysis analysis = parser.parse("{\"business_category\": {\"name\": \"支付\"}, \"score\": [7],"
+                + " \"confidence\": null, \"pain_points\": [\"a\", {\"b\": 1}, null, [\"c\"], \"d\"],"
+                + " \"sales_hook\": \"hi\"}");
+
+        assertNull(analysis.businessCategory());
+        assertNull(analysis.score());
+        assertNull(analysis.confidence());
+        assertEquals(List.of("a", "d"), analysis.painPoints());
+        assertEquals("hi", analysis.salesHook());
+        assertFalse(analysis.truncated());
+    }
+
+    @Test
+    void oneMalformedItemDoesNotDiscardThePack() {
+        List<LeadAnalysis> items = parser.parseList("{\"results\":[{\"company_id\":1,\"pain_points\":null,\"score\":7},"
+                + "{\"company_id\":2,\"pain_points\":{\"x\":1},\"score\":3},{\"company_id\":3,\"score\":5}]}");
+
+        assertEquals(3, items.size());
+        assertEquals(3L, items.get(2).companyId());
+        assertEquals(5, items.get(2).score());
+    }
+}
@@ -0,0 +1,45 @@
+package com.codinghappy.fintechai.module.analysis.prompt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DescriptionCompactorTest {
+
+    private DescriptionCompactor compactor;
+
+    @BeforeEach
+    void setUp() {
+        compactor = new DescriptionCompactor(new SimpleMeterRegistry(), new StandardEnvironment());
+        ReflectionTestUtils.setField(compactor, "enabled", true);
+        ReflectionTestUtils.setField(compactor, "maxDescriptionTokens", 600);
+        compactor.init();
+    }
+
+    @Test
+    void stripsUrlsBoilerplateAndRepeatedSentences() {
+        DescriptionCompactor.Compaction compaction = compactor.compact(
+                "我们提供跨境支付服务。访问 https://pay.example.com/about 了解详情。"
+                        + "我们提供跨境支付服务！点击查看更多 Leading FX platform. Leading FX platform. see more");
+
+        assertEquals("我们提供跨境支付服务。访问 了解详情。Leading FX platform.", compaction.text());
+        assertTrue(compaction.savedTokens() > 0);
+    }
+
+    @Test
+    void truncatesToTokenBudgetOnSentenceBoundary() {
+        ReflectionTestUtils.setField(compactor, "maxDescriptionTokens", 10);
+
+        DescriptionCompactor.Compaction compaction = compactor.compact("公司主营跨境收款。第二句话很长很长很长很长很长很长。");
+
+        assertEquals("公司主营跨境收款。", compaction.text());
+        assertTrue(compaction.compactedTokens() <= 10);
+        assertFalse(compaction.text().contains("第二句"));
+    }
+}
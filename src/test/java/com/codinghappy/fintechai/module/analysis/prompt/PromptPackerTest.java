@@ -0,0 +1,94 @@
+package com.codinghappy.fintechai.module.analysis.prompt;
+
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PromptPackerTest {
+
+    // 公司名 "A" 估算 1 token，加上每项固定开销 16
+    private static final int ITEM_OVERHEAD = 17;
+
+    private PromptPacker packer;
+
+    @BeforeEach
+    void setUp() {
+        // 压缩后的 Token 数直接取描述长度，便于精确控制每项大小
+        DescriptionCompactor compactor = mock(DescriptionCompactor.class);
+        when(compactor.estimateCompactedTokens(anyString())).thenAnswer(inv -> inv.<String>getArgument(0).length());
+
+        packer = new PromptPacker(compactor);
+        ReflectionTestUtils.setField(packer, "enabled", true);
+        ReflectionTestUtils.setField(packer, "maxItems", 8);
+        ReflectionTestUtils.setField(packer, "maxInputTokens", 1000);
+    }
+
+    @Test
+    void disabledPackingSendsEachCompanyAlone() {
+        ReflectionTestUtils.setField(packer, "enabled", false);
+
+        List<List<CompanyEntity>> packs = packer.pack(companies(3, 10));
+
+        assertEquals(List.of(1, 1, 1), sizes(packs));
+    }
+
+    @Test
+    void capsItemsPerPack() {
+        ReflectionTestUtils.setField(packer, "maxItems", 3);
+
+        List<List<CompanyEntity>> packs = packer.pack(companies(7, 10));
+
+        assertEquals(List.of(3, 3, 1), sizes(packs));
+    }
+
+    @Test
+    void capsInputTokensPerPack() {
+        ReflectionTestUtils.setField(packer, "maxInputTokens", 100);
+
+        // 每项 50 token：两项正好 100 不超限，第三项换新包
+        List<List<CompanyEntity>> packs = packer.pack(companies(5, 50 - ITEM_OVERHEAD));
+
+        assertEquals(List.of(2, 2, 1), sizes(packs));
+    }
+
+    @Test
+    void oversizedItemIsPackedAlone() {
+        ReflectionTestUtils.setField(packer, "maxInputTokens", 100);
+        CompanyEntity small1 = company(1L, 10);
+        CompanyEntity huge = company(2L, 500);
+        CompanyEntity small2 = company(3L, 10);
+
+        List<List<CompanyEntity>> packs = packer.pack(List.of(small1, huge, small2));
+
+        assertEquals(List.of(List.of(small1), List.of(huge), List.of(small2)), packs);
+    }
+
+    private static List<CompanyEntity> companies(int count, int descriptionTokens) {
+        List<CompanyEntity> companies = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            companies.add(company(id, descriptionTokens));
+        }
+        return companies;
+    }
+
+    private static CompanyEntity company(long id, int descriptionTokens) {
+        CompanyEntity company = new CompanyEntity();
+        company.setId(id);
+        company.setName("A");
+        company.setDescription("x".repeat(descriptionTokens));
+        return company;
+    }
+
+    private static List<Integer> sizes(List<List<CompanyEntity>> packs) {
+        return packs.stream().map(List::size).toList();
+    }
+}
@@ -0,0 +1,90 @@
+package com.codinghappy.fintechai.module.analysis.prompt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromptTemplateTest {
+
+    private static final List<String> VARS = PromptTemplateRegistry.VARIABLES;
+
+    @Test
+    void rendersSlotsAndKeepsJsonBraces() {
+        PromptTemplate template = PromptTemplate.compile("t", 1,
+                "公司: {company_name}\n简介: {description}\n输出 {\"score\": 1}，{{company_name}} 原样保留", VARS);
+
+        assertEquals(2, template.getSlotCount());
+        assertEquals("公司: Acme\n简介: 跨境支付\n输出 {\"score\": 1}，{company_name}} 原样保留",
+                template.render("Acme", "跨境支付"));
+        // 复用的缓冲区不能残留上一次的内容
+        assertEquals("公司: B\n简介: \n输出 {\"score\": 1}，{company_name}} 原样保留", template.render("B", null));
+    }
+
+    @Test
+    void rejectsUndeclaredVariablesAndWrongArity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PromptTemplate.compile("t", 1, "公司: {company}", VARS));
+        PromptTemplate template = PromptTemplate.compile("t", 1, "{description}", VARS);
+        assertThrows(IllegalArgumentException.class, () -> template.render("only-one"));
+    }
+
+    @Test
+    void builtinTemplatePutsCompanyInfoAfterStablePrefix() {
+        PromptTemplateRegistry registry = new PromptTemplateRegistry(Map.of(), null);
+        PromptTemplate template = registry.active();
+        assertEquals(PromptTemplateRegistry.BUILTIN_VERSION, template.getVersion());
+
+        String first = template.render("Acme", "跨境支付");
+        String second = template.render("Beta Lending", "海外借贷");
+        String prefix = first.substring(0, template.getStaticPrefixLength());
+        assertTrue(second.startsWith(prefix));
+        assertTrue(prefix.contains("\"business_category\""));
+        assertTrue(first.endsWith("【公司简介】: 跨境支付"));
+    }
+
+    @Test
+    void activatesNamedVersionedTemplates() {
+        PromptTemplateRegistry.Definition v4 = new PromptTemplateRegistry.Definition();
+        v4.setVersion(4);
+        v4.setText("{description} -> {company_name}");
+        PromptTemplateRegistry registry = new PromptTemplateRegistry(Map.of("short", v4), "short");
+
+        assertEquals(4, registry.active().getVersion());
+        assertEquals("d -> n", registry.active().render("n", "d"));
+        assertTrue(registry.list().stream().anyMatch(t -> t.name().equals("short") && t.active()));
+
+        registry.activate(PromptTemplateRegistry.BUILTIN_NAME);
+        assertEquals(PromptTemplateRegistry.BUILTIN_VERSION, registry.active().getVersion());
+        assertThrows(IllegalArgumentException.class, () -> registry.activate("missing"));
+    }
+
+    @Test
+    void packedAndTriageTemplatesAreVersionedIndependently() {
+        PromptTemplateRegistry.Definition packed = new PromptTemplateRegistry.Definition();
+        packed.setVersion(7);
+        packed.setText("逐一分析：\n{companies}");
+        PromptTemplateRegistry registry = new PromptTemplateRegistry(Map.of(PromptTemplateRegistry.PACKED_NAME, packed), null);
+
+        assertEquals(7, registry.packed().getVersion());
+        assertEquals("逐一分析：\nA\nB", registry.packed().render("A\nB"));
+        assertEquals(PromptTemplateRegistry.TRIAGE_VERSION, registry.triage().getVersion());
+        assertTrue(registry.packedTriage().render("【公司ID】: 1\n").endsWith("待判断的公司如下：\n\n【公司ID】: 1\n"));
+        assertTrue(registry.triage().render("Acme", "跨境支付").endsWith("【公司简介】: 跨境支付"));
+        assertTrue(registry.list().stream().anyMatch(t -> t.name().equals(PromptTemplateRegistry.PACKED_NAME)
+                && t.role().equals(PromptTemplateRegistry.PACKED_NAME) && t.version() == 7 && !t.active()));
+
+        // 专用模板的变量与完整报告模板不同，不能被选为完整报告模板
+        assertThrows(IllegalArgumentException.class, () -> registry.activate(PromptTemplateRegistry.PACKED_NAME));
+        // 打包模板只能使用 {companies}
+        PromptTemplateRegistry.Definition wrong = new PromptTemplateRegistry.Definition();
+        wrong.setVersion(2);
+        wrong.setText("{company_name}");
+        assertThrows(IllegalArgumentException.class,
+                () -> new PromptTemplateRegistry(Map.of(PromptTemplateRegistry.PACKED_TRIAGE_NAME, wrong), null));
+    }
+}
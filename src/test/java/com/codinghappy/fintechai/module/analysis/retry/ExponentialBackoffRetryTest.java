@@ -0,0 +1,92 @@
+package com.codinghappy.fintechai.module.analysis.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExponentialBackoffRetryTest {
+
+    private ExponentialBackoffRetry retry;
+
+    @BeforeEach
+    void setUp() {
+        retry = new ExponentialBackoffRetry(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(retry, "maxAttempts", 3);
+        ReflectionTestUtils.setField(retry, "initialInterval", 5L);
+        ReflectionTestUtils.setField(retry, "multiplier", 3.0);
+        ReflectionTestUtils.setField(retry, "maxInterval", 50L);
+        ReflectionTestUtils.setField(retry, "maxRetryAfter", 5000L);
+        ReflectionTestUtils.setField(retry, "budgetRatio", 0.5);
+        ReflectionTestUtils.setField(retry, "budgetCapacity", 2.0);
+        retry.init();
+    }
+
+    @Test
+    void retriesServerErrorsAndReportsRetryCount() {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger retries = new AtomicInteger();
+
+        String result = retry.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return "ok";
+        }, LlmRetryPolicy.INSTANCE, retries::set);
+
+        assertEquals("ok", result);
+        assertEquals(2, retries.get());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpClientErrorException.class, () -> retry.execute(() -> {
+            calls.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+        }, LlmRetryPolicy.INSTANCE, n -> { }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void honoursRetryAfterHeader() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        AtomicInteger calls = new AtomicInteger();
+
+        long start = System.currentTimeMillis();
+        retry.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "busy", headers, null, null);
+            }
+            return "ok";
+        }, LlmRetryPolicy.INSTANCE, n -> { });
+
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+    }
+
+    @Test
+    void budgetCapsRetriesWhenEverythingFails() {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpServerErrorException.class, () -> retry.execute(() -> {
+                calls.incrementAndGet();
+                throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+            }, LlmRetryPolicy.INSTANCE, n -> { }));
+        }
+
+        // 初始 2 个令牌 + 每次调用积累 0.5：4 次调用共重试 3 次，而不是无预算时的 8 次
+        assertEquals(7, calls.get());
+    }
+}
@@ -0,0 +1,204 @@
+package com.codinghappy.fintechai.module.analysis.service;
+
+import com.codinghappy.fintechai.repository.AnalysisResultRepository;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AnalysisSingleFlightTest {
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AnalysisSingleFlight singleFlight;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (singleFlight != null) {
+            singleFlight.shutdown();
+        }
+    }
+
+    @Test
+    void coalescesConcurrentCallsWhenRedisIsDown() throws Exception {
+        // 未配置连接工厂的 RedisTemplate 每次调用都抛异常，等同于 Redis 不可用
+        singleFlight = create(new RedisTemplate<>(), 120);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        AnalysisResultEntity expected = AnalysisResultEntity.builder().companyId(1L).success(true).build();
+
+        List<CompletableFuture<AnalysisResultEntity>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, 4, () -> {
+                calls.incrementAndGet();
+                await(release);
+                return expected;
+            }), callers));
+        }
+        // 等所有调用者都进入：1 个执行者 + 3 个本地等待者
+        waitUntil(() -> localFollowers() == 3);
+        release.countDown();
+
+        for (CompletableFuture<AnalysisResultEntity> future : futures) {
+            assertSame(expected, future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    void followersShareTheLeadersFailure() throws Exception {
+        singleFlight = create(new RedisTemplate<>(), 120);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<AnalysisResultEntity> leader = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute(2L, 4, () -> {
+                    await(release);
+                    throw new IllegalStateException("分析失败: 503");
+                }), callers);
+        waitUntil(() -> singleFlight.getInFlightCount() == 1);
+        CompletableFuture<AnalysisResultEntity> follower = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute(2L, 4, () -> {
+                    throw new AssertionError("等待者不应再次执行");
+                }), callers);
+        waitUntil(() -> localFollowers() == 1);
+        release.countDown();
+
+        Exception error = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void packClaimSharesResultsWithSingleCompanyCallers() throws Exception {
+        singleFlight = create(new RedisTemplate<>(), 120);
+        AnalysisResultEntity packed = AnalysisResultEntity.builder().companyId(4L).success(true).build();
+
+        AnalysisSingleFlight.Claim claim = singleFlight.claimAll(List.of(4L, 5L), 4);
+        assertTrue(claim.owns(4L) && claim.owns(5L));
+        // 已认领的公司不能再被另一个打包批次认领
+        try (AnalysisSingleFlight.Claim other = singleFlight.claimAll(List.of(5L, 6L), 4)) {
+            assertTrue(!other.owns(5L) && other.owns(6L));
+        }
+
+        CompletableFuture<AnalysisResultEntity> single = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute(4L, 4, () -> {
+                    throw new AssertionError("打包批次已在分析，不应重复调用");
+                }), callers);
+        CompletableFuture<AnalysisResultEntity> shared = CompletableFuture.supplyAsync(
+                () -> singleFlight.awaitShared(5L, 4, LocalDateTime.now()), callers);
+        // 另一批次的认领 + 两个等待者
+        waitUntil(() -> localFollowers() == 3);
+
+        claim.complete(packed);
+        claim.close();
+
+        assertSame(packed, single.get(5, TimeUnit.SECONDS));
+        // 打包响应中没有产出结果的公司，等待者收到失败
+        assertThrows(Exception.class, () -> shared.get(5, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    void watchdogRenewsTheLockWhileTheLeaderRuns() {
+        AtomicInteger renewals = new AtomicInteger();
+        AtomicInteger releases = new AtomicInteger();
+        RedisTemplate<String, String> redis = lockingRedis(renewals, releases);
+        // TTL 1 秒：每 ~333ms 续期一次
+        singleFlight = create(redis, 1);
+
+        singleFlight.execute(3L, 4, () -> {
+            sleep(1200);
+            return AnalysisResultEntity.builder().companyId(3L).success(true).build();
+        });
+        int renewedDuringCall = renewals.get();
+        assertTrue(renewedDuringCall >= 2, "持锁期间应多次续期: " + renewedDuringCall);
+        assertEquals(1, releases.get());
+
+        // 执行结束后看门狗停止续期
+        sleep(700);
+        assertEquals(renewedDuringCall, renewals.get());
+    }
+
+    private AnalysisSingleFlight create(RedisTemplate<String, String> redis, long ttlSeconds) {
+        AnalysisSingleFlight flight = new AnalysisSingleFlight(redis, mock(AnalysisResultRepository.class), meterRegistry);
+        ReflectionTestUtils.setField(flight, "lockTtlSeconds", ttlSeconds);
+        ReflectionTestUtils.setField(flight, "waitTimeoutSeconds", 5L);
+        ReflectionTestUtils.setField(flight, "pollMillis", 10L);
+        flight.init();
+        return flight;
+    }
+
+    private double localFollowers() {
+        return meterRegistry.get("analysis.singleflight.calls").tag("role", "local_follower").counter().count();
+    }
+
+    // SETNX 总是成功；续期脚本（pexpire）与释放脚本分别计数
+    @SuppressWarnings("unchecked")
+    private static RedisTemplate<String, String> lockingRedis(AtomicInteger renewals, AtomicInteger releases) {
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        return new RedisTemplate<>() {
+            @Override
+            public ValueOperations<String, String> opsForValue() {
+                return ops;
+            }
+
+            @Override
+            public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+                (script.getScriptAsString().contains("pexpire") ? renewals : releases).incrementAndGet();
+                return (T) Long.valueOf(1);
+            }
+        };
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
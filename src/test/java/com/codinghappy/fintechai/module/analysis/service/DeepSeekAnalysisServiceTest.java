@@ -0,0 +1,293 @@
+package com.codinghappy.fintechai.module.analysis.service;
+
+import com.codinghappy.fintechai.module.analysis.cache.AnalysisResponseCache;
+import com.codinghappy.fintechai.module.analysis.client.CallOptions;
+import com.codinghappy.fintechai.module.analysis.client.ChatCompletion;
+import com.codinghappy.fintechai.module.analysis.client.DeepSeekCircuitBreaker;
+import com.codinghappy.fintechai.module.analysis.client.DeepSeekClient;
+import com.codinghappy.fintechai.module.analysis.deadletter.DeadLetterStore;
+import com.codinghappy.fintechai.module.analysis.dedup.NearDuplicateResolver;
+import com.codinghappy.fintechai.module.analysis.learning.LearnedLeadScorer;
+import com.codinghappy.fintechai.module.analysis.parser.LeadAnalysis;
+import com.codinghappy.fintechai.module.analysis.parser.LeadAnalysisParser;
+import com.codinghappy.fintechai.module.analysis.prompt.DescriptionCompactor;
+import com.codinghappy.fintechai.module.analysis.prompt.PromptTemplateRegistry;
+import com.codinghappy.fintechai.module.analysis.retry.ExponentialBackoffRetry;
+import com.codinghappy.fintechai.module.analysis.retry.RetryPolicy;
+import com.codinghappy.fintechai.module.analysis.retry.RetryTemplate;
+import com.codinghappy.fintechai.module.analysis.usage.LlmUsageRecorder;
+import com.codinghappy.fintechai.repository.AnalysisResultRepository;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeepSeekAnalysisServiceTest {
+
+    private static final String SINGLE_RESPONSE = "{\"business_category\": \"单独分析\", \"score\": 6, \"confidence\": 0.8}";
+
+    private final PromptTemplateRegistry promptTemplates = new PromptTemplateRegistry(new MockEnvironment());
+
+    private DeepSeekAnalysisService service;
+    private DeepSeekClient deepSeekClient;
+    private ModelRoutingPolicy routingPolicy;
+    private RateLimitService rateLimitService;
+    private DeadLetterStore deadLetterStore;
+    private AnalysisSingleFlight.Claim claim;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new DeepSeekAnalysisService();
+        deepSeekClient = mock(DeepSeekClient.class);
+        routingPolicy = mock(ModelRoutingPolicy.class);
+        rateLimitService = mock(RateLimitService.class);
+        deadLetterStore = mock(DeadLetterStore.class);
+
+        AnalysisResultRepository repository = mock(AnalysisResultRepository.class);
+        when(repository.save(any(AnalysisResultEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        claim = mock(AnalysisSingleFlight.Claim.class);
+        when(claim.owns(anyLong())).thenReturn(true);
+        AnalysisSingleFlight singleFlight = mock(AnalysisSingleFlight.class);
+        when(singleFlight.claimAll(anyList(), anyInt())).thenReturn(claim);
+        when(singleFlight.execute(anyLong(), anyInt(), any()))
+                .thenAnswer(inv -> inv.<Supplier<AnalysisResultEntity>>getArgument(2).get());
+
+        // 本地阶段都不定论，全部交给 LLM
+        StrategyCascade strategyCascade = mock(StrategyCascade.class);
+        when(strategyCascade.evaluateAll(anyList()))
+                .thenAnswer(inv -> Arrays.asList(new StrategyCascade.Decision[inv.<List<?>>getArgument(0).size()]));
+
+        DescriptionCompactor compactor = mock(DescriptionCompactor.class);
+        when(compactor.compact(anyString()))
+                .thenAnswer(inv -> new DescriptionCompactor.Compaction(inv.getArgument(0), 0, 0));
+
+        // 不重试，直接执行一次
+        RetryTemplate retryTemplate = mock(RetryTemplate.class);
+        when(retryTemplate.executeWithRetry(any(ExponentialBackoffRetry.RetryableOperation.class),
+                any(RetryPolicy.class), any(IntConsumer.class)))
+                .thenAnswer(inv -> inv.<ExponentialBackoffRetry.RetryableOperation<?>>getArgument(0).execute());
+
+        when(routingPolicy.fullOptions()).thenReturn(new CallOptions("deepseek-chat", 1000, 0.7));
+        when(routingPolicy.triageOptions()).thenReturn(new CallOptions("deepseek-chat", 40, 0.0));
+        when(rateLimitService.tryAcquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+
+        ReflectionTestUtils.setField(service, "analysisResultRepository", repository);
+        ReflectionTestUtils.setField(service, "responseCache", mock(AnalysisResponseCache.class));
+        ReflectionTestUtils.setField(service, "singleFlight", singleFlight);
+        ReflectionTestUtils.setField(service, "deepSeekClient", deepSeekClient);
+        ReflectionTestUtils.setField(service, "leadAnalysisParser", new LeadAnalysisParser());
+        ReflectionTestUtils.setField(service, "strategyCascade", strategyCascade);
+        ReflectionTestUtils.setField(service, "learnedLeadScorer", mock(LearnedLeadScorer.class));
+        ReflectionTestUtils.setField(service, "nearDuplicateResolver", mock(NearDuplicateResolver.class));
+        ReflectionTestUtils.setField(service, "descriptionCompactor", compactor);
+        ReflectionTestUtils.setField(service, "promptTemplates", promptTemplates);
+        ReflectionTestUtils.setField(service, "routingPolicy", routingPolicy);
+        ReflectionTestUtils.setField(service, "circuitBreaker", mock(DeepSeekCircuitBreaker.class));
+        ReflectionTestUtils.setField(service, "retryTemplate", retryTemplate);
+        ReflectionTestUtils.setField(service, "deadLetterStore", deadLetterStore);
+        ReflectionTestUtils.setField(service, "usageRecorder", mock(LlmUsageRecorder.class));
+        ReflectionTestUtils.setField(service, "rateLimitService", rateLimitService);
+        ReflectionTestUtils.setField(service, "permitWaitMillis", 10L);
+    }
+
+    @Test
+    void reportOmitsSectionsMissingFromTruncatedAnalyses() {
+        // 截断恢复：只拿到了评分
+        String partial = DeepSeekAnalysisService.generateCommercialReport(
+                new LeadAnalysis(null, null, null, 6, 0.7, null, null, true));
+
+        assertEquals("【业务本质】: 未识别", partial);
+        assertFalse(partial.contains("null"));
+
+        String full = DeepSeekAnalysisService.generateCommercialReport(
+                new LeadAnalysis(null, "跨境支付", List.of("合规", "汇率"), 8, 0.9, "您好", "值得跟进", false));
+        assertEquals("【业务本质】: 跨境支付\n\n【核心痛点预测】:\n1. 合规\n2. 汇率\n\n"
+                + "【销售敲门砖】:\n\"您好\"\n\n【深度价值评估】:\n值得跟进", full);
+    }
+
+    @Test
+    void settledTriageIsStoredAsTriageTier() {
+        useRouting();
+        respond(prompt -> "{\"score\": 3, \"confidence\": 0.9}");
+
+        AnalysisResultEntity result = service.analyzeCompany(1L, "公司1", "公司1的业务简介");
+
+        assertEquals(ModelRoutingPolicy.TIER_TRIAGE, result.getAnalysisTier());
+        assertEquals(PromptTemplateRegistry.TRIAGE_NAME, result.getPromptTemplate());
+        assertEquals(PromptTemplateRegistry.TRIAGE_VERSION, result.getVersion());
+        assertEquals(3, result.getPaymentWillingnessScore());
+        // 初筛已定论，不再生成完整报告
+        verify(deepSeekClient, times(1)).complete(any(CallOptions.class), anyString());
+    }
+
+    @Test
+    void escalatedTriageIsStoredAsFullTier() {
+        useRouting();
+        respond(prompt -> prompt.startsWith(PromptTemplateRegistry.TRIAGE_TEXT.substring(0, 20))
+                ? "{\"score\": 8, \"confidence\": 0.9}" : SINGLE_RESPONSE);
+
+        AnalysisResultEntity result = service.analyzeCompany(1L, "公司1", "公司1的业务简介");
+
+        assertEquals(ModelRoutingPolicy.TIER_FULL, result.getAnalysisTier());
+        assertEquals(promptTemplates.active().getName(), result.getPromptTemplate());
+        assertEquals(promptTemplates.active().getVersion(), result.getVersion());
+        assertEquals(6, result.getPaymentWillingnessScore());
+        verify(deepSeekClient, times(2)).complete(any(CallOptions.class), anyString());
+    }
+
+    @Test
+    void packedResponseIsSplitByCompanyIdAndUnmatchedItemsFallBackToSingleCalls() throws Exception {
+        respond(prompt -> isPacked(prompt) ? """
+                {"results": [
+                  {"company_id": 1, "business_category": "跨境支付", "score": 8, "confidence": 0.9},
+                  {"business_category": "缺少ID", "score": 7, "confidence": 0.8},
+                  {"company_id": 2, "business_category": "第一份", "score": 5, "confidence": 0.7},
+                  {"company_id": 2, "business_category": "第二份", "score": 9, "confidence": 0.7},
+                  {"company_id": 3, "business_category": "评分无法解析", "score": "高"},
+                  {"company_id": 5, "business_category": "海外贷款", "score": 7, "confidence": 0.8},
+                  {"company_id": 999, "business_category": "不在包内", "score": 9, "confidence": 0.9}
+                ]}""" : SINGLE_RESPONSE);
+
+        Map<Long, AnalysisResultEntity> byCompany = byCompany(service.analyzePacked(companies(5)));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), List.copyOf(byCompany.keySet()));
+        assertEquals("跨境支付", byCompany.get(1L).getBusinessTypes());
+        assertEquals(PromptTemplateRegistry.PACKED_NAME, byCompany.get(1L).getPromptTemplate());
+        assertEquals("海外贷款", byCompany.get(5L).getBusinessTypes());
+        // 重复的 ID、无法解析的条目、响应中缺失的公司都单独重新分析
+        for (long id : new long[]{2L, 3L, 4L}) {
+            assertEquals("单独分析", byCompany.get(id).getBusinessTypes());
+            assertEquals(promptTemplates.active().getName(), byCompany.get(id).getPromptTemplate());
+        }
+        verify(deepSeekClient, times(4)).complete(any(CallOptions.class), anyString());
+        verify(claim, times(5)).complete(any(AnalysisResultEntity.class));
+        verify(claim, never()).fail(anyLong(), any());
+    }
+
+    @Test
+    void failedSingleFallbackIsHandedToWaiters() throws Exception {
+        respond(prompt -> {
+            if (isPacked(prompt)) {
+                throw new IllegalStateException("打包请求失败");
+            }
+            if (prompt.contains("公司2")) {
+                throw new IllegalStateException("单公司请求失败");
+            }
+            return SINGLE_RESPONSE;
+        });
+
+        List<AnalysisResultEntity> results = service.analyzePacked(companies(2));
+
+        assertEquals(List.of(1L), results.stream().map(AnalysisResultEntity::getCompanyId).toList());
+        verify(claim).complete(results.get(0));
+        verify(claim).fail(eq(2L), any(RuntimeException.class));
+        verify(deadLetterStore).record(eq(2L), any(Exception.class));
+    }
+
+    @Test
+    void requestsAfterTheFirstInAPackTakeTheirOwnPermits() throws Exception {
+        when(routingPolicy.isEnabled()).thenReturn(true);
+        when(routingPolicy.shouldEscalate(any())).thenReturn(true);
+        respond(prompt -> isPackedTriage(prompt) ? "{\"results\": []}"
+                : isPacked(prompt) ? "{\"results\": [{\"company_id\": 1, \"score\": 8, \"confidence\": 0.9}]}"
+                : SINGLE_RESPONSE);
+
+        List<AnalysisResultEntity> results = service.analyzePacked(companies(2));
+
+        assertEquals(2, results.size());
+        // 打包初筛用批量引擎的许可；打包完整报告与公司 2 的回退各取一个
+        verify(deepSeekClient, times(3)).complete(any(CallOptions.class), anyString());
+        verify(rateLimitService, times(2)).tryAcquire(anyLong(), any(TimeUnit.class));
+        verify(rateLimitService, times(2)).release();
+    }
+
+    @Test
+    void permitTimeoutFailsTheRemainingRequestsWithoutWaitingAgain() throws Exception {
+        when(routingPolicy.isEnabled()).thenReturn(true);
+        when(routingPolicy.shouldEscalate(any())).thenReturn(true);
+        when(rateLimitService.tryAcquire(anyLong(), any(TimeUnit.class))).thenReturn(false);
+        respond(prompt -> "{\"results\": []}");
+
+        List<AnalysisResultEntity> results = service.analyzePacked(companies(2));
+
+        assertEquals(List.of(), results);
+        // 只有打包初筛发出；等过一次许可后，后续请求直接按限流失败
+        verify(deepSeekClient, times(1)).complete(any(CallOptions.class), anyString());
+        verify(rateLimitService, times(1)).tryAcquire(anyLong(), any(TimeUnit.class));
+        verify(rateLimitService, never()).release();
+        verify(claim).fail(eq(1L), any(RuntimeException.class));
+        verify(claim).fail(eq(2L), any(RuntimeException.class));
+    }
+
+    private void useRouting() {
+        ModelRoutingPolicy policy = new ModelRoutingPolicy(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(policy, "enabled", true);
+        ReflectionTestUtils.setField(policy, "triageModel", "deepseek-chat");
+        ReflectionTestUtils.setField(policy, "triageMaxTokens", 40);
+        ReflectionTestUtils.setField(policy, "fullModel", "deepseek-chat");
+        ReflectionTestUtils.setField(policy, "fullMaxTokens", 1000);
+        ReflectionTestUtils.setField(policy, "escalateMinScore", 6);
+        ReflectionTestUtils.setField(policy, "escalateBelowConfidence", 0.6);
+        policy.init();
+        ReflectionTestUtils.setField(service, "routingPolicy", policy);
+    }
+
+    private void respond(UnaryOperator<String> responder) {
+        when(deepSeekClient.complete(any(CallOptions.class), anyString())).thenAnswer(inv ->
+                ChatCompletion.builder().content(responder.apply(inv.getArgument(1))).build());
+    }
+
+    private static boolean isPacked(String prompt) {
+        return prompt.contains("【公司ID】");
+    }
+
+    private static boolean isPackedTriage(String prompt) {
+        return prompt.startsWith(PromptTemplateRegistry.PACKED_TRIAGE_TEXT.substring(0, 20));
+    }
+
+    private static List<CompanyEntity> companies(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(id -> {
+            CompanyEntity company = new CompanyEntity();
+            company.setId(id);
+            company.setName("公司" + id);
+            company.setDescription("公司" + id + "的业务简介");
+            return company;
+        }).toList();
+    }
+
+    private static Map<Long, AnalysisResultEntity> byCompany(List<AnalysisResultEntity> results) {
+        return results.stream().collect(Collectors.toMap(AnalysisResultEntity::getCompanyId, r -> r,
+                (a, b) -> {
+                    throw new AssertionError("同一家公司产出了多行结果: " + a.getCompanyId());
+                }, TreeMap::new));
+    }
+}
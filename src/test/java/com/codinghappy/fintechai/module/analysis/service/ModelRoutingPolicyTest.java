@@ -0,0 +1,67 @@
+package com.codinghappy.fintechai.module.analysis.service;
+
+import com.codinghappy.fintechai.module.analysis.parser.LeadAnalysis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelRoutingPolicyTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ModelRoutingPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        policy = new ModelRoutingPolicy(meterRegistry);
+        ReflectionTestUtils.setField(policy, "escalateMinScore", 6);
+        ReflectionTestUtils.setField(policy, "escalateBelowConfidence", 0.6);
+        policy.init();
+    }
+
+    @Test
+    void settlesLowScoresTriagedWithConfidence() {
+        assertFalse(policy.shouldEscalate(triage(5, 0.6)));
+        assertFalse(policy.shouldEscalate(triage(1, 0.95)));
+    }
+
+    @Test
+    void escalatesScoresAtOrAboveTheThreshold() {
+        assertTrue(policy.shouldEscalate(triage(6, 0.9)));
+        assertTrue(policy.shouldEscalate(triage(10, 0.9)));
+    }
+
+    @Test
+    void escalatesLowOrMissingConfidence() {
+        assertTrue(policy.shouldEscalate(triage(3, 0.59)));
+        assertTrue(policy.shouldEscalate(triage(3, null)));
+    }
+
+    @Test
+    void escalatesFailedOrUnusableTriage() {
+        assertTrue(policy.shouldEscalate(null));
+        // 没有评分（例如被截断）不能作为定论
+        assertTrue(policy.shouldEscalate(new LeadAnalysis(null, "跨境支付", null, null, 0.9, null, null, true)));
+    }
+
+    @Test
+    void countsDecisionsPerTier() {
+        policy.shouldEscalate(triage(2, 0.9));
+        policy.shouldEscalate(triage(8, 0.9));
+        policy.shouldEscalate(null);
+
+        assertEquals(1.0, meterRegistry.get("analysis.routing.decisions")
+                .tag("tier", ModelRoutingPolicy.TIER_TRIAGE).counter().count());
+        assertEquals(2.0, meterRegistry.get("analysis.routing.decisions")
+                .tag("tier", ModelRoutingPolicy.TIER_FULL).counter().count());
+    }
+
+    private static LeadAnalysis triage(int score, Double confidence) {
+        return new LeadAnalysis(null, null, null, score, confidence, null, null, false);
+    }
+}
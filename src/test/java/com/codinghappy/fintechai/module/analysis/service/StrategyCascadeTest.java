@@ -0,0 +1,166 @@
+package com.codinghappy.fintechai.module.analysis.service;
+
+import com.codinghappy.fintechai.module.analysis.dto.AnalysisResult;
+import com.codinghappy.fintechai.module.analysis.dto.BusinessType;
+import com.codinghappy.fintechai.module.analysis.service.strategy.AnalysisStrategy;
+import com.codinghappy.fintechai.module.analysis.service.strategy.CompositeStrategyScorer;
+import com.codinghappy.fintechai.module.analysis.service.strategy.CrossBorderPaymentStrategy;
+import com.codinghappy.fintechai.module.analysis.service.strategy.OverseasLoanStrategy;
+import com.codinghappy.fintechai.module.analysis.service.strategy.StrategyKeywordMatcher;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StrategyCascadeTest {
+
+    // 描述 -> 策略结果（命中数、置信度）
+    private final Map<String, AnalysisResult> results = Map.of(
+            "strong", result(8, 0.6, 3, 0),
+            "weak", result(6, 0.59, 1, 0),
+            "negative", result(2, 0.3, 0, 2),
+            "unsure-negative", result(2, 0.5, 0, 1),
+            "nothing", result(3, 0.0, 0, 0));
+
+    private CompositeStrategyScorer scorer;
+    private StrategyCascade cascade;
+
+    @BeforeEach
+    void setUp() {
+        AnalysisStrategy strategy = new AnalysisStrategy() {
+            @Override
+            public boolean supports(BusinessType businessType) {
+                return businessType == BusinessType.CROSS_BORDER_PAYMENT;
+            }
+
+            @Override
+            public AnalysisResult analyze(String companyDescription) {
+                return results.get(companyDescription);
+            }
+        };
+        scorer = new CompositeStrategyScorer(List.of(strategy),
+                new StrategyKeywordMatcher(List.of(), new MockEnvironment()));
+        ReflectionTestUtils.setField(scorer, "bulkThreshold", 64);
+        scorer.init();
+
+        cascade = new StrategyCascade(scorer, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cascade, "enabled", true);
+        ReflectionTestUtils.setField(cascade, "minConfidence", 0.6);
+        cascade.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scorer.shutdown();
+    }
+
+    @Test
+    void settlesPositiveLeadsAtMinConfidence() {
+        StrategyCascade.Decision decision = cascade.evaluate("strong");
+
+        assertTrue(decision.positive());
+        assertEquals(8, decision.score());
+        assertEquals(0.6, decision.confidence());
+        assertEquals(BusinessType.CROSS_BORDER_PAYMENT.getName(), decision.businessType());
+        assertTrue(decision.reason().startsWith("【本地正向定论】"));
+
+        // 略低于阈值交给 LLM
+        assertNull(cascade.evaluate("weak"));
+    }
+
+    @Test
+    void settlesNegativeLeadsOnlyWhenConfidentEnough() {
+        // 只命中 2 个否定词：0.2 + 2 × 0.2 = 0.6 达到阈值
+        StrategyCascade.Decision decision = cascade.evaluate("negative");
+        assertFalse(decision.positive());
+        assertEquals(1, decision.score());
+        assertEquals(0.6, decision.confidence(), 1e-9);
+        assertEquals(BusinessType.OTHER_FINANCIAL.getName(), decision.businessType());
+
+        // 单个否定词 0.4 不足阈值，与策略给出的置信度无关
+        assertNull(cascade.evaluate("unsure-negative"));
+    }
+
+    @Test
+    void sendsCompaniesWithoutHitsToLlm() {
+        assertNull(cascade.evaluate("nothing"));
+        assertNull(cascade.evaluate(null));
+
+        StrategyCascade.CascadeStats stats = cascade.getStats();
+        assertEquals(1, stats.getSentToLlm());
+        assertEquals(0, stats.getLocalPositive() + stats.getLocalNegative());
+    }
+
+    @Test
+    void evaluateAllKeepsOrderAndHonoursDisabledSwitch() {
+        List<CompanyEntity> companies = new ArrayList<>();
+        for (String description : List.of("nothing", "strong", "negative", "weak")) {
+            CompanyEntity company = new CompanyEntity();
+            company.setDescription(description);
+            companies.add(company);
+        }
+
+        List<StrategyCascade.Decision> decisions = cascade.evaluateAll(companies);
+        assertNull(decisions.get(0));
+        assertTrue(decisions.get(1).positive());
+        assertFalse(decisions.get(2).positive());
+        assertNull(decisions.get(3));
+        assertEquals(0.5, cascade.getStats().getSkipRate());
+
+        ReflectionTestUtils.setField(cascade, "enabled", false);
+        assertTrue(cascade.evaluateAll(companies).stream().allMatch(d -> d == null));
+        assertNull(cascade.evaluate("strong"));
+    }
+
+    @Test
+    void realStrategiesNeedMoreThanOneNegativeKeyword() {
+        CrossBorderPaymentStrategy payment = new CrossBorderPaymentStrategy(null);
+        OverseasLoanStrategy loan = new OverseasLoanStrategy(null);
+        CompositeStrategyScorer realScorer = new CompositeStrategyScorer(List.of(payment, loan),
+                new StrategyKeywordMatcher(List.of(payment, loan), new MockEnvironment()));
+        ReflectionTestUtils.setField(realScorer, "bulkThreshold", 64);
+        realScorer.init();
+        try {
+            StrategyCascade real = new StrategyCascade(realScorer, new SimpleMeterRegistry());
+            ReflectionTestUtils.setField(real, "enabled", true);
+            ReflectionTestUtils.setField(real, "minConfidence", 0.6);
+            real.init();
+
+            // 只提到一次国内支付：证据太弱，交给 LLM
+            assertNull(real.evaluate("我们是一家专注国内支付的科技公司"));
+
+            StrategyCascade.Decision negative = real.evaluate("提供国内支付、境内支付与本地支付服务，兼营消费贷款");
+            assertFalse(negative.positive());
+            assertEquals(0.95, negative.confidence(), 1e-9);
+
+            StrategyCascade.Decision positive = real.evaluate("提供跨境支付、跨境结算与 SWIFT 国际汇款服务");
+            assertTrue(positive.positive());
+            assertEquals(BusinessType.CROSS_BORDER_PAYMENT.getName(), positive.businessType());
+        } finally {
+            realScorer.shutdown();
+        }
+    }
+
+    private static AnalysisResult result(int score, double confidence, int hits, int negativeHits) {
+        return AnalysisResult.builder()
+                .success(true)
+                .paymentWillingnessScore(score)
+                .confidence(confidence)
+                .keywordHits(hits)
+                .negativeHits(negativeHits)
+                .analysisReason("命中 " + hits + " 个关键词")
+                .build();
+    }
+}
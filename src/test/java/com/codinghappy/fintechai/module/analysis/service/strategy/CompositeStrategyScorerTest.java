@@ -0,0 +1,141 @@
+package com.codinghappy.fintechai.module.analysis.service.strategy;
+
+import com.codinghappy.fintechai.module.analysis.dto.AnalysisResult;
+import com.codinghappy.fintechai.module.analysis.dto.BusinessType;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompositeStrategyScorerTest {
+
+    private CompositeStrategyScorer scorer;
+
+    @AfterEach
+    void tearDown() {
+        if (scorer != null) {
+            scorer.shutdown();
+        }
+    }
+
+    @Test
+    void combinesByWeightTimesConfidence() {
+        scorer = create(
+                strategy(BusinessType.CROSS_BORDER_PAYMENT, 1.0, d -> result(8, 0.8, 2, 0)),
+                strategy(BusinessType.OVERSEAS_LOAN, 0.5, d -> result(2, 0.4, 1, 0)));
+
+        AnalysisResult combined = scorer.score("跨境支付与海外借贷");
+
+        // 加权强度 0.8 与 0.2：(0.8 × 8 + 0.2 × 2) / 1.0 = 6.8
+        assertEquals(7, combined.getPaymentWillingnessScore());
+        // 置信度取加权最强的策略
+        assertEquals(0.8, combined.getConfidence());
+        assertEquals(3, combined.getKeywordHits());
+        assertEquals(List.of(BusinessType.CROSS_BORDER_PAYMENT, BusinessType.OVERSEAS_LOAN),
+                combined.getBusinessTypes());
+        assertEquals(8, combined.getTypeScores().get(BusinessType.CROSS_BORDER_PAYMENT));
+        assertEquals(2, combined.getTypeScores().get(BusinessType.OVERSEAS_LOAN));
+    }
+
+    @Test
+    void weightCanOutrankAHigherRawConfidence() {
+        scorer = create(
+                strategy(BusinessType.CROSS_BORDER_PAYMENT, 0.2, d -> result(9, 0.9, 1, 0)),
+                strategy(BusinessType.OVERSEAS_LOAN, 1.0, d -> result(5, 0.5, 1, 0)));
+
+        AnalysisResult combined = scorer.score("描述");
+
+        // 0.2 × 0.9 = 0.18 < 1.0 × 0.5：海外借贷是主导类型
+        assertEquals(0.5, combined.getConfidence());
+        assertEquals(BusinessType.OVERSEAS_LOAN, combined.getBusinessTypes().get(0));
+        // (0.18 × 9 + 0.5 × 5) / 0.68 ≈ 6.06
+        assertEquals(6, combined.getPaymentWillingnessScore());
+    }
+
+    @Test
+    void noHitsYieldsNoBusinessTypeAndMinimumScore() {
+        scorer = create(
+                strategy(BusinessType.CROSS_BORDER_PAYMENT, 1.0, d -> result(3, 0.0, 0, 2)),
+                strategy(BusinessType.OVERSEAS_LOAN, 1.0, d -> result(3, 0.0, 0, 0)));
+
+        AnalysisResult combined = scorer.score("只做国内支付");
+
+        assertTrue(combined.isSuccess());
+        assertTrue(combined.getBusinessTypes().isEmpty());
+        assertEquals(1, combined.getPaymentWillingnessScore());
+        assertEquals(0, combined.getKeywordHits());
+        assertEquals(2, combined.getNegativeHits());
+    }
+
+    @Test
+    void scoreAllKeepsInputOrderAcrossForkJoinSplits() {
+        // 分数由描述里的序号决定，便于核对顺序
+        // 单个子任务最多 3 家公司，200 家公司会被拆成几十个子任务并行评分
+        scorer = create(3, strategy(BusinessType.CROSS_BORDER_PAYMENT, 1.0,
+                d -> result(Integer.parseInt(d) % 10 + 1, 0.7, 1, 0)));
+
+        List<CompanyEntity> companies = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            CompanyEntity company = new CompanyEntity();
+            company.setDescription(String.valueOf(i));
+            companies.add(company);
+        }
+
+        List<AnalysisResult> results = scorer.scoreAll(companies);
+        assertEquals(200, results.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i % 10 + 1, results.get(i).getPaymentWillingnessScore(), "第 " + i + " 家公司");
+        }
+    }
+
+    private static CompositeStrategyScorer create(AnalysisStrategy... strategies) {
+        return create(64, strategies);
+    }
+
+    private static CompositeStrategyScorer create(int bulkThreshold, AnalysisStrategy... strategies) {
+        StrategyKeywordMatcher matcher = new StrategyKeywordMatcher(List.of(), new MockEnvironment());
+        CompositeStrategyScorer scorer = new CompositeStrategyScorer(List.of(strategies), matcher);
+        ReflectionTestUtils.setField(scorer, "bulkThreshold", bulkThreshold);
+        ReflectionTestUtils.setField(scorer, "parallelism", 4);
+        scorer.init();
+        return scorer;
+    }
+
+    private static AnalysisStrategy strategy(BusinessType type, double weight, Function<String, AnalysisResult> analyzer) {
+        return new AnalysisStrategy() {
+            @Override
+            public boolean supports(BusinessType businessType) {
+                return type == businessType;
+            }
+
+            @Override
+            public AnalysisResult analyze(String companyDescription) {
+                return analyzer.apply(companyDescription);
+            }
+
+            @Override
+            public double getWeight() {
+                return weight;
+            }
+        };
+    }
+
+    private static AnalysisResult result(int score, double confidence, int hits, int negativeHits) {
+        return AnalysisResult.builder()
+                .success(true)
+                .paymentWillingnessScore(score)
+                .confidence(confidence)
+                .keywordHits(hits)
+                .negativeHits(negativeHits)
+                .analysisReason("命中 " + hits + " 个关键词")
+                .build();
+    }
+}
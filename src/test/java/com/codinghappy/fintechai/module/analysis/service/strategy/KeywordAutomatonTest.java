@@ -0,0 +1,50 @@
+package com.codinghappy.fintechai.module.analysis.service.strategy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeywordAutomatonTest {
+
+    @Test
+    void countsEachKeywordOncePerSlot() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+                .addAll(0, List.of("跨境支付", "SWIFT", "跨境"))
+                .addAll(1, List.of("国内支付"))
+                .build();
+
+        KeywordAutomaton.Scan scan = automaton.scan("提供跨境支付与 swift 汇款，跨境支付牌照齐全，不做国内支付", automaton.newScan());
+
+        // "跨境支付" 出现两次只计一次，"跨境" 作为其前缀同样命中
+        assertEquals(3, scan.count(0));
+        assertEquals(1, scan.count(1));
+    }
+
+    @Test
+    void findsOverlappingKeywordsThroughFailureLinks() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+                .addAll(0, List.of("he", "she", "his", "hers"))
+                .build();
+
+        assertEquals(3, automaton.scan("ushers", automaton.newScan()).count(0));
+    }
+
+    @Test
+    void sharedKeywordFeedsEverySlotAndScanIsReusable() {
+        KeywordAutomaton automaton = KeywordAutomaton.builder()
+                .add(0, "跨境融资")
+                .add(2, "跨境融资")
+                .add(2, "项目融资")
+                .build();
+        KeywordAutomaton.Scan scan = automaton.newScan();
+
+        automaton.scan("跨境融资、项目融资", scan);
+        assertEquals(1, scan.count(0));
+        assertEquals(2, scan.count(2));
+
+        automaton.scan("没有相关业务", scan);
+        assertEquals(0, scan.count(2));
+    }
+}
@@ -0,0 +1,160 @@
+package com.codinghappy.fintechai.module.analysis.task;
+
+import com.codinghappy.fintechai.module.analysis.prompt.DescriptionCompactor;
+import com.codinghappy.fintechai.module.analysis.prompt.PromptPacker;
+import com.codinghappy.fintechai.module.analysis.service.DeepSeekAnalysisService;
+import com.codinghappy.fintechai.module.analysis.service.RateLimitService;
+import com.codinghappy.fintechai.repository.AnalysisResultRepository;
+import com.codinghappy.fintechai.repository.entity.AnalysisResultEntity;
+import com.codinghappy.fintechai.repository.entity.CompanyEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchAnalysisEngineTest {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger permitsHeld = new AtomicInteger();
+    private volatile boolean permitsAvailable = true;
+    // 这些公司已有成功结果（其他批次分析过）
+    private final Set<Long> analyzed = Set.of(8L);
+
+    private ThreadPoolTaskExecutor pool;
+    private BatchAnalysisEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(8);
+        pool.setMaxPoolSize(8);
+        pool.setQueueCapacity(50);
+        pool.initialize();
+
+        // 公司 ID 为 5 时分析失败
+        DeepSeekAnalysisService analysisService = new DeepSeekAnalysisService() {
+            @Override
+            public AnalysisResultEntity analyzeCompany(Long companyId, String companyName, String description) {
+                return analyze(companyId);
+            }
+        };
+
+        RateLimitService rateLimitService = new RateLimitService(null) {
+            @Override
+            public boolean tryAcquire(long timeout, TimeUnit unit) {
+                if (!permitsAvailable) {
+                    return false;
+                }
+                permitsHeld.incrementAndGet();
+                return true;
+            }
+
+            @Override
+            public void release() {
+                permitsHeld.decrementAndGet();
+            }
+        };
+
+        AnalysisResultRepository repository = mock(AnalysisResultRepository.class);
+        when(repository.findTopByCompanyIdOrderByAnalysisTimeDesc(anyLong())).thenAnswer(inv -> {
+            Long companyId = inv.getArgument(0);
+            return analyzed.contains(companyId)
+                    ? AnalysisResultEntity.builder().companyId(companyId).success(true).build()
+                    : null;
+        });
+
+        // 未开启打包：每家公司单独成包
+        PromptPacker packer = new PromptPacker(new DescriptionCompactor(new SimpleMeterRegistry(), new MockEnvironment()));
+        engine = new BatchAnalysisEngine(analysisService, rateLimitService, repository, packer, pool);
+        ReflectionTestUtils.setField(engine, "concurrency", 2);
+        ReflectionTestUtils.setField(engine, "permitWaitMillis", 10L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    private AnalysisResultEntity analyze(Long companyId) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(20);
+            if (companyId == 5L) {
+                throw new RuntimeException("分析失败: 500");
+            }
+            return AnalysisResultEntity.builder().companyId(companyId).success(true)
+                    .paymentWillingnessScore((int) (companyId % 10)).build();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Test
+    void capsInFlightCallsAndAggregatesOutcomes() {
+        BatchAnalysisEngine.BatchReport report = engine.executeEach(companies(10), c -> analyze(c.getId()));
+
+        assertTrue(maxInFlight.get() <= 2, "在途调用不应超过并发上限: " + maxInFlight.get());
+        assertEquals(10, report.getTotal());
+        assertEquals(9, report.getSuccessCount());
+        assertEquals(1, report.getFailureCount());
+        assertEquals("分析失败: 500", report.getOutcomes().stream()
+                .filter(o -> o.getStatus() == BatchAnalysisEngine.OutcomeStatus.FAILED)
+                .findFirst().orElseThrow().getErrorMessage());
+        assertEquals(0, permitsHeld.get(), "拿到的限流许可必须全部归还");
+        assertTrue(report.getAverageLatencyMs() >= 20);
+        assertNotNull(report.getBatchId());
+    }
+
+    @Test
+    void reportsPermitTimeoutAsRateLimited() {
+        permitsAvailable = false;
+        BatchAnalysisEngine.BatchReport report = engine.executeEach(companies(4), c -> {
+            throw new AssertionError("没有限流许可时不应调用 DeepSeek");
+        });
+
+        assertEquals(4, report.getRateLimitedCount());
+        assertEquals(0, report.getSuccessCount() + report.getFailureCount());
+        report.getOutcomes().forEach(o -> assertEquals("等待限流许可超时", o.getErrorMessage()));
+    }
+
+    @Test
+    void skipsCompaniesAlreadyAnalyzedByAnotherBatch() {
+        BatchAnalysisEngine.BatchReport report = engine.execute(companies(8).subList(6, 8));
+
+        assertEquals(2, report.getTotal());
+        assertEquals(1, report.getSkippedCount());
+        assertEquals(1, report.getSuccessCount());
+        assertEquals(1, maxInFlight.get());
+    }
+
+    private static List<CompanyEntity> companies(int count) {
+        List<CompanyEntity> companies = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            CompanyEntity company = new CompanyEntity();
+            company.setId(i);
+            company.setName("公司" + i);
+            company.setDescription("跨境支付服务商");
+            companies.add(company);
+        }
+        return companies;
+    }
+}
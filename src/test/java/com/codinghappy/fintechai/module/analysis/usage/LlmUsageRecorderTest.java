@@ -0,0 +1,138 @@
+package com.codinghappy.fintechai.module.analysis.usage;
+
+import com.codinghappy.fintechai.module.analysis.client.ChatCompletion;
+import com.codinghappy.fintechai.module.analysis.client.TokenUsage;
+import com.codinghappy.fintechai.repository.LlmCallUsageRepository;
+import com.codinghappy.fintechai.repository.entity.LlmCallUsageEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LlmUsageRecorderTest {
+
+    private final List<LlmCallUsageEntity> rows = new ArrayList<>();
+    private final List<Object[]> byBatch = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private LlmUsageRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        LlmCallUsageRepository repository = mock(LlmCallUsageRepository.class);
+        when(repository.save(any(LlmCallUsageEntity.class))).thenAnswer(inv -> {
+            rows.add(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+        when(repository.sumByBatch(any(), any())).thenReturn(byBatch);
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("finance.analysis.cost.pricing.deepseek-chat.cache-hit-per-million", "0.5")
+                .withProperty("finance.analysis.cost.pricing.deepseek-chat.cache-miss-per-million", "2")
+                .withProperty("finance.analysis.cost.pricing.deepseek-chat.output-per-million", "8");
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new LlmUsageRecorder(repository, meterRegistry, environment);
+        ReflectionTestUtils.setField(recorder, "enabled", true);
+        ReflectionTestUtils.setField(recorder, "currency", "CNY");
+    }
+
+    @Test
+    void pricesCachedAndUncachedPromptTokensSeparately() {
+        double cost = recorder.cost("deepseek-chat", new TokenUsage(1_000_000, 1_000_000, 600_000, 400_000));
+        assertEquals(0.3 + 0.8 + 8.0, cost, 1e-9);
+
+        // 没有缓存字段时 Prompt 全部按未命中计；未配置单价的模型费用为 0
+        assertEquals(2.0, recorder.cost("deepseek-chat", new TokenUsage(1_000_000, 0, 0, 0)), 1e-9);
+        assertEquals(0, recorder.cost("other-model", new TokenUsage(1_000_000, 1_000_000, 0, 0)));
+    }
+
+    @Test
+    void recordsEachCallWithAttributionAndMetrics() {
+        ChatCompletion completion = ChatCompletion.builder()
+                .usage(new TokenUsage(1200, 300, 1000, 200))
+                .totalMs(850)
+                .build();
+        try (UsageAttribution.Scope ignored = UsageAttribution.attach("batch-1", "order-9")) {
+            recorder.record(LlmUsageRecorder.CALL_PACKED_FULL, "deepseek-chat", 4, null, 3, completion);
+        }
+
+        assertEquals(1, rows.size());
+        LlmCallUsageEntity row = rows.get(0);
+        assertFalse(row.getEstimated());
+        assertEquals("batch-1", row.getBatchId());
+        assertEquals("order-9", row.getOrderId());
+        assertEquals(3, row.getCompanies());
+        assertEquals(1000, row.getCachedTokens());
+        assertEquals((1000 * 0.5 + 200 * 2 + 300 * 8) / 1_000_000.0, row.getCost(), 1e-12);
+        assertEquals(LocalDate.now(), row.getCallDate());
+        assertNull(UsageAttribution.current());
+
+        assertEquals(1200, meterRegistry.get("llm.tokens").tag("type", "prompt").tag("prompt_version", "4")
+                .counter().count());
+        assertEquals(1, meterRegistry.get("llm.call.tokens").tag("type", "completion").summary().count());
+        assertTrue(meterRegistry.get("llm.cost").counter().count() > 0);
+    }
+
+    @Test
+    void recordsEstimatesForCancelledStreamsAndHedgeLosers() {
+        // 提前取消的流式生成：客户端按 Prompt 与已收到的输出估算
+        ChatCompletion cancelled = ChatCompletion.builder()
+                .cancelled(true)
+                .usage(TokenUsage.estimate("分析这家公司", "{\"score\": 2"))
+                .usageEstimated(true)
+                .hedgeLoserUsage(new TokenUsage(900, 0, 0, 0))
+                .totalMs(400)
+                .build();
+        recorder.record(LlmUsageRecorder.CALL_FULL, "deepseek-chat", 4, 7L, 1, cancelled);
+        // 没有 usage 也没有估算的结果兜底按输出内容估算
+        recorder.record(LlmUsageRecorder.CALL_TRIAGE, "deepseek-chat", 1, 8L, 1,
+                ChatCompletion.builder().content("{\"score\": 9}").build());
+
+        assertEquals(3, rows.size());
+        LlmCallUsageEntity full = rows.get(0);
+        assertEquals(LlmUsageRecorder.CALL_FULL, full.getCallType());
+        assertTrue(full.getEstimated());
+        assertEquals(4, full.getPromptTokens());
+        assertTrue(full.getCompletionTokens() > 0);
+        assertTrue(full.getCost() > 0);
+
+        // 对冲落败的请求单独一行，只含 Prompt Token
+        LlmCallUsageEntity loser = rows.get(1);
+        assertEquals(LlmUsageRecorder.CALL_HEDGE_LOSER, loser.getCallType());
+        assertTrue(loser.getEstimated());
+        assertEquals(7L, loser.getCompanyId());
+        assertEquals(900, loser.getPromptTokens());
+        assertEquals(900 * 2 / 1_000_000.0, loser.getCost(), 1e-12);
+
+        assertTrue(rows.get(2).getEstimated());
+        assertTrue(rows.get(2).getCompletionTokens() > 0);
+        assertEquals(3, meterRegistry.get("llm.usage.estimated").counters().stream()
+                .mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void summarizesRowsWithCostPerCompany() {
+        byBatch.add(new Object[]{"batch-1", 2L, 4L, 5000L, 800L, 3000L, 0.02});
+        byBatch.add(new Object[]{"batch-2", 1L, 1L, 1000L, 100L, null, 0.004});
+
+        LlmUsageRecorder.CostReport report = recorder.summarize(LlmUsageRecorder.GroupBy.BATCH,
+                LocalDate.now().minusDays(1), LocalDate.now());
+
+        assertEquals("batch", report.groupBy());
+        assertEquals(0.024, report.totalCost(), 1e-12);
+        assertEquals(0.005, report.rows().get(0).costPerCompany(), 1e-12);
+        assertEquals(0, report.rows().get(1).cachedTokens());
+    }
+}